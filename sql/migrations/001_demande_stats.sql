@@ -0,0 +1,9 @@
+-- Compteurs de demandes par (prestation, statut, jour de dépôt) : entité DemandeStat.
+-- Le contenu est reconstruit au démarrage quand la table est vide (DemandeStatsService.rebuild).
+CREATE TABLE IF NOT EXISTS demande_stats (
+    prestation_id BIGINT      NOT NULL,
+    statut        VARCHAR(20) NOT NULL,
+    jour          DATE        NOT NULL,
+    total         BIGINT      NOT NULL,
+    PRIMARY KEY (prestation_id, statut, jour)
+);
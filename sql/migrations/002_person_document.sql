@@ -0,0 +1,21 @@
+-- Pièces des agents, conjoints et enfants (photo, CIN, RIB, ...) : entité PersonDocument.
+-- Les anciennes colonnes LOB sont conservées ; PersonDocumentMigrationService y reprend les
+-- documents par lots au démarrage puis les vide.
+CREATE SEQUENCE IF NOT EXISTS person_document_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS person_document (
+    id           BIGINT       NOT NULL PRIMARY KEY,
+    owner_type   VARCHAR(20)  NOT NULL,
+    owner_id     INTEGER      NOT NULL,
+    kind         VARCHAR(30)  NOT NULL,
+    filename     VARCHAR(255),
+    content_type VARCHAR(255),
+    size         BIGINT       NOT NULL,
+    sha256       VARCHAR(64),
+    storage_path VARCHAR(500) NOT NULL,
+    created      TIMESTAMP(6),
+    updated      TIMESTAMP(6),
+    CONSTRAINT uk_person_document_owner_kind UNIQUE (owner_type, owner_id, kind)
+);
+
+CREATE INDEX IF NOT EXISTS idx_person_document_owner ON person_document (owner_type, owner_id);
@@ -0,0 +1,30 @@
+-- demande_prestation.reponse_json : TEXT -> jsonb, plus l'index GIN utilisé par les requêtes de
+-- DemandePrestationRepository (clés, valeurs, filtres par champ) et l'index sur prestation_id.
+-- Même traitement que ReponseJsonSchemaService.migrateToJsonb (profil de développement) : le cast
+-- échoue sur la première valeur invalide, donc les réponses vides passent à NULL et les textes
+-- non JSON sont d'abord enveloppés dans {"reponse_brute": "..."}.
+CREATE OR REPLACE FUNCTION pg_temp.is_valid_json(value TEXT) RETURNS BOOLEAN AS $$
+BEGIN
+    PERFORM CAST(value AS jsonb);
+    RETURN TRUE;
+EXCEPTION WHEN others THEN
+    RETURN FALSE;
+END;
+$$ LANGUAGE plpgsql;
+
+DO $$
+BEGIN
+    IF (SELECT data_type FROM information_schema.columns
+        WHERE table_name = 'demande_prestation' AND column_name = 'reponse_json') <> 'jsonb' THEN
+        UPDATE demande_prestation SET reponse_json = NULL
+        WHERE reponse_json ~ '^\s*$';
+
+        UPDATE demande_prestation SET reponse_json = CAST(jsonb_build_object('reponse_brute', reponse_json) AS TEXT)
+        WHERE reponse_json IS NOT NULL AND NOT pg_temp.is_valid_json(reponse_json);
+
+        ALTER TABLE demande_prestation ALTER COLUMN reponse_json TYPE jsonb USING CAST(reponse_json AS jsonb);
+    END IF;
+END $$;
+
+CREATE INDEX IF NOT EXISTS idx_demande_prestation_reponse_json ON demande_prestation USING gin (reponse_json);
+CREATE INDEX IF NOT EXISTS idx_demande_prestation_prestation ON demande_prestation (prestation_id);
@@ -0,0 +1,14 @@
+-- Clés de recherche normalisée et phonétique (SearchNormalizer) des agents, conjoints et enfants.
+-- Les lignes existantes sont remplies au démarrage par SearchKeyBackfillService ; les index
+-- trigrammes (pg_trgm) sont posés par PersonSearchSchemaService.
+ALTER TABLE adhagent ADD COLUMN IF NOT EXISTS search_text VARCHAR(1000);
+ALTER TABLE adhagent ADD COLUMN IF NOT EXISTS phonetic_key VARCHAR(255);
+CREATE INDEX IF NOT EXISTS idx_adhagent_phonetic ON adhagent (phonetic_key);
+
+ALTER TABLE adhconjoint ADD COLUMN IF NOT EXISTS search_text VARCHAR(1000);
+ALTER TABLE adhconjoint ADD COLUMN IF NOT EXISTS phonetic_key VARCHAR(255);
+CREATE INDEX IF NOT EXISTS idx_adhconjoint_phonetic ON adhconjoint (phonetic_key);
+
+ALTER TABLE adhenfant ADD COLUMN IF NOT EXISTS search_text VARCHAR(1000);
+ALTER TABLE adhenfant ADD COLUMN IF NOT EXISTS phonetic_key VARCHAR(255);
+CREATE INDEX IF NOT EXISTS idx_adhenfant_phonetic ON adhenfant (phonetic_key);
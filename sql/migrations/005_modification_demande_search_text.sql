@@ -0,0 +1,6 @@
+-- Libellé normalisé des demandes de modification (recherche indexée), rempli au démarrage pour
+-- les lignes existantes par SearchKeyBackfillService ; l'index trigrammes est posé par
+-- PersonSearchSchemaService.
+ALTER TABLE modification_demande ADD COLUMN IF NOT EXISTS search_text VARCHAR(500);
+CREATE INDEX IF NOT EXISTS idx_modification_demande_agent ON modification_demande (agent_id);
+CREATE INDEX IF NOT EXISTS idx_modification_demande_statut_date ON modification_demande (statut, date_creation);
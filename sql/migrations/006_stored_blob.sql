@@ -0,0 +1,9 @@
+-- Contenus de fichiers dédupliqués par SHA-256 (BlobStorageService) : entité StoredBlob.
+-- ref_count compte les pièces (demandes, agents, conjoints, enfants) qui renvoient au fichier.
+CREATE TABLE IF NOT EXISTS stored_blob (
+    sha256       VARCHAR(64)  NOT NULL PRIMARY KEY,
+    size         BIGINT       NOT NULL,
+    storage_path VARCHAR(500) NOT NULL,
+    ref_count    BIGINT       NOT NULL,
+    created      TIMESTAMP(6)
+);
@@ -1,6 +1,7 @@
 package com.fosagri.application;
 
 import com.vaadin.flow.component.page.AppShellConfigurator;
+import com.vaadin.flow.component.page.Push;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.theme.Theme;
 import org.springframework.boot.SpringApplication;
@@ -20,6 +21,7 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 @EnableJpaRepositories({"com.fosagri.application.repository", "com.fosagri.application.repositories"})
 @PageTitle("FOS AGRI Data")
 @Theme(value = "data-app")
+@Push
 public class Application implements AppShellConfigurator {
 
     public static void main(String[] args) {
@@ -0,0 +1,100 @@
+package com.fosagri.application.components;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.notification.Notification;
+import com.vaadin.flow.component.notification.NotificationVariant;
+import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.value.ValueChangeMode;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Recherche hors du thread UI pour un champ de saisie.
+ *
+ * La saisie est regroupée côté navigateur (ValueChangeMode.LAZY), chaque nouveau terme annule
+ * la recherche précédente, et seuls les résultats du dernier terme sont affichés (via UI.access,
+ * grâce à @Push). La fonction de recherche reçoit le nombre maximal de résultats à retourner
+ * et doit le respecter (requête limitée plutôt que liste tronquée).
+ */
+public class AsyncSearch<T> {
+
+    private static final int DEBOUNCE_MS = 300;
+
+    private final AsyncTaskExecutor executor;
+    private final int maxHits;
+    private final BiFunction<String, Integer, List<T>> search;
+    private final Consumer<List<T>> onResults;
+    private final AtomicLong generation = new AtomicLong();
+    private Future<?> pending;
+
+    public AsyncSearch(TextField field, AsyncTaskExecutor executor, int maxHits,
+                       BiFunction<String, Integer, List<T>> search, Consumer<List<T>> onResults) {
+        this.executor = executor;
+        this.maxHits = maxHits;
+        this.search = search;
+        this.onResults = onResults;
+
+        field.setValueChangeMode(ValueChangeMode.LAZY);
+        field.setValueChangeTimeout(DEBOUNCE_MS);
+        field.addValueChangeListener(e -> submit(e.getValue()));
+        field.addDetachListener(e -> cancel());
+    }
+
+    /**
+     * Lance (ou relance) la recherche pour ce terme. À appeler depuis le thread UI.
+     */
+    public void submit(String term) {
+        UI ui = UI.getCurrent();
+        long current = generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(true);
+        }
+        try {
+            pending = executor.submit(() -> {
+                List<T> results;
+                try {
+                    results = search.apply(term, maxHits);
+                } catch (RuntimeException e) {
+                    if (generation.get() == current) {
+                        System.err.println("Erreur de recherche '" + term + "': " + e.getMessage());
+                        ui.access(AsyncSearch::showError);
+                    }
+                    return;
+                }
+                if (generation.get() != current) {
+                    return;
+                }
+                ui.access(() -> {
+                    // Un terme plus récent a pu être saisi pendant l'attente du verrou de session
+                    if (generation.get() == current) {
+                        onResults.accept(results);
+                    }
+                });
+            });
+        } catch (TaskRejectedException e) {
+            // File du pool pleine : la recherche n'est pas lancée
+            pending = null;
+            System.err.println("Recherche refusée '" + term + "': " + e.getMessage());
+            showError();
+        }
+    }
+
+    private static void showError() {
+        Notification.show("Erreur lors de la recherche", 3000, Notification.Position.TOP_CENTER)
+            .addThemeVariants(NotificationVariant.LUMO_ERROR);
+    }
+
+    public void cancel() {
+        generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+}
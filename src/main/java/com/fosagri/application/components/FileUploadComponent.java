@@ -1,5 +1,6 @@
 package com.fosagri.application.components;
 
+import com.fosagri.application.services.UploadValidator;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.html.Div;
@@ -11,13 +12,14 @@ import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.notification.NotificationVariant;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.upload.Receiver;
 import com.vaadin.flow.component.upload.Upload;
-import com.vaadin.flow.component.upload.receivers.MultiFileMemoryBuffer;
 import com.vaadin.flow.server.StreamResource;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.function.Consumer;
 
 public class FileUploadComponent extends VerticalLayout {
@@ -28,7 +30,9 @@ public class FileUploadComponent extends VerticalLayout {
     private final boolean showPreview;
     private final boolean isAvatar;
     
-    private MultiFileMemoryBuffer buffer = new MultiFileMemoryBuffer();
+    // Checks type, signature and size while the file arrives (a refused file stops the transfer)
+    private final UploadValidator uploadValidator;
+    private ByteArrayOutputStream receiving;
     private Upload upload;
     private Image preview;
     private Div fileInfo;
@@ -41,11 +45,14 @@ public class FileUploadComponent extends VerticalLayout {
     private Consumer<FileUploadData> onFileUploaded;
     private Runnable onFileRemoved;
     
-    public FileUploadComponent(String label, String acceptedTypes, int maxFileSizeMB, boolean showPreview) {
-        this(label, acceptedTypes, maxFileSizeMB, showPreview, false);
+    public FileUploadComponent(UploadValidator uploadValidator, String label, String acceptedTypes, int maxFileSizeMB,
+                               boolean showPreview) {
+        this(uploadValidator, label, acceptedTypes, maxFileSizeMB, showPreview, false);
     }
     
-    public FileUploadComponent(String label, String acceptedTypes, int maxFileSizeMB, boolean showPreview, boolean isAvatar) {
+    public FileUploadComponent(UploadValidator uploadValidator, String label, String acceptedTypes, int maxFileSizeMB,
+                               boolean showPreview, boolean isAvatar) {
+        this.uploadValidator = uploadValidator;
         this.label = label;
         this.acceptedTypes = acceptedTypes;
         this.maxFileSize = maxFileSizeMB;
@@ -59,7 +66,14 @@ public class FileUploadComponent extends VerticalLayout {
         setSpacing(true);
         setPadding(false);
         
-        upload = new Upload(buffer);
+        upload = new Upload((Receiver) (fileName, mimeType) -> {
+            receiving = new ByteArrayOutputStream();
+            try {
+                return uploadValidator.validating(receiving, fileName, mimeType, maxFileSize * 1024L * 1024L);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e.getMessage(), e);
+            }
+        });
         upload.setAcceptedFileTypes(acceptedTypes.split(","));
         upload.setMaxFileSize(maxFileSize * 1024 * 1024); // Convert MB to bytes
         upload.setMaxFiles(1);
@@ -79,26 +93,21 @@ public class FileUploadComponent extends VerticalLayout {
             String fileName = event.getFileName();
             String contentType = event.getMIMEType();
             
-            try {
-                InputStream inputStream = buffer.getInputStream(fileName);
-                currentFileData = inputStream.readAllBytes();
-                currentFileName = fileName;
-                currentContentType = contentType;
-                
-                showFileInfo();
-                if (showPreview && isImage(contentType)) {
-                    showImagePreview();
-                }
-                
-                if (onFileUploaded != null) {
-                    onFileUploaded.accept(new FileUploadData(currentFileData, currentFileName, currentContentType));
-                }
-                
-                showSuccessNotification("Fichier uploadé avec succès: " + fileName);
-                
-            } catch (IOException e) {
-                showErrorNotification("Erreur lors du téléchargement: " + e.getMessage());
+            currentFileData = receiving.toByteArray();
+            receiving = null;
+            currentFileName = fileName;
+            currentContentType = contentType;
+            
+            showFileInfo();
+            if (showPreview && isImage(contentType)) {
+                showImagePreview();
             }
+            
+            if (onFileUploaded != null) {
+                onFileUploaded.accept(new FileUploadData(currentFileData, currentFileName, currentContentType));
+            }
+            
+            showSuccessNotification("Fichier uploadé avec succès: " + fileName);
         });
         
         upload.addFileRejectedListener(event -> {
@@ -106,6 +115,7 @@ public class FileUploadComponent extends VerticalLayout {
         });
         
         upload.addFailedListener(event -> {
+            receiving = null;
             showErrorNotification("Échec du téléchargement: " + event.getReason().getMessage());
         });
         
@@ -1,5 +1,7 @@
 package com.fosagri.application.components;
 
+import com.fosagri.application.dto.UploadHandle;
+import com.fosagri.application.services.UploadSpoolService;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.html.Div;
@@ -10,40 +12,30 @@ import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.notification.NotificationVariant;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.progressbar.ProgressBar;
+import com.vaadin.flow.component.upload.Receiver;
 import com.vaadin.flow.component.upload.Upload;
-import com.vaadin.flow.component.upload.receivers.MultiFileMemoryBuffer;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.function.Consumer;
 
 /**
  * Secure File Upload Component with:
- * - Content-based file type validation (magic bytes)
- * - File size limits
+ * - Content-based file type validation (magic bytes) and file size limits, enforced by
+ *   UploadValidator while the file is received
  * - Spam/malware pattern detection
  * - Upload progress indicator
  * - Multiple file support with management
+ *
+ * Files are received straight to disk by UploadSpoolService; the component only keeps their
+ * handles, and submitting the demande moves the spooled files into storage. Files still
+ * pending when the component is detached (dialog closed without submitting) are deleted.
  */
 public class SecureFileUploadComponent extends VerticalLayout {
 
-    // File type magic bytes for content validation
-    private static final Map<String, byte[]> FILE_SIGNATURES = new HashMap<>();
-    static {
-        // PDF: %PDF
-        FILE_SIGNATURES.put("application/pdf", new byte[]{0x25, 0x50, 0x44, 0x46});
-        // JPEG: FFD8FF
-        FILE_SIGNATURES.put("image/jpeg", new byte[]{(byte)0xFF, (byte)0xD8, (byte)0xFF});
-        // PNG: 89504E47
-        FILE_SIGNATURES.put("image/png", new byte[]{(byte)0x89, 0x50, 0x4E, 0x47});
-        // GIF: GIF87a or GIF89a
-        FILE_SIGNATURES.put("image/gif", new byte[]{0x47, 0x49, 0x46, 0x38});
-        // DOCX/XLSX/PPTX (ZIP-based): PK
-        FILE_SIGNATURES.put("application/zip", new byte[]{0x50, 0x4B, 0x03, 0x04});
-        // DOC: D0CF11E0
-        FILE_SIGNATURES.put("application/msword", new byte[]{(byte)0xD0, (byte)0xCF, 0x11, (byte)0xE0});
-    }
-
     // Dangerous patterns in files (basic spam/malware detection)
     private static final List<String> DANGEROUS_PATTERNS = Arrays.asList(
         "<script", "javascript:", "vbscript:", "onclick=", "onerror=",
@@ -51,20 +43,26 @@ public class SecureFileUploadComponent extends VerticalLayout {
         "powershell", "cmd.exe", "base64_decode", "<?php"
     );
 
-    private final List<Map<String, Object>> uploadedFiles = new ArrayList<>();
+    // Bytes read from the spooled file for the content checks
+    private static final int SAMPLE_SIZE = 8192;
+
+    private final UploadSpoolService uploadSpool;
+    private final List<UploadHandle> uploadedFiles = new ArrayList<>();
     private final Div filesDisplayContainer;
     private final ProgressBar progressBar;
     private final Span progressLabel;
     private final Upload upload;
     private final int maxFiles;
     private final long maxFileSize;
-    private Consumer<List<Map<String, Object>>> onFilesChanged;
+    private Consumer<List<UploadHandle>> onFilesChanged;
+    private UploadSpoolService.Spool currentSpool;
 
-    public SecureFileUploadComponent() {
-        this(5, 10 * 1024 * 1024); // Default: 5 files, 10MB each
+    public SecureFileUploadComponent(UploadSpoolService uploadSpool) {
+        this(uploadSpool, 5, 10 * 1024 * 1024); // Default: 5 files, 10MB each
     }
 
-    public SecureFileUploadComponent(int maxFiles, long maxFileSize) {
+    public SecureFileUploadComponent(UploadSpoolService uploadSpool, int maxFiles, long maxFileSize) {
+        this.uploadSpool = uploadSpool;
         this.maxFiles = maxFiles;
         this.maxFileSize = maxFileSize;
 
@@ -109,9 +107,16 @@ public class SecureFileUploadComponent extends VerticalLayout {
         filesDisplayContainer.setWidthFull();
         add(filesDisplayContainer);
 
-        // Upload component
-        MultiFileMemoryBuffer buffer = new MultiFileMemoryBuffer();
-        upload = new Upload(buffer);
+        // Upload component: each file is written to disk as it arrives
+        upload = new Upload((Receiver) (fileName, mimeType) -> {
+            try {
+                currentSpool = uploadSpool.open(fileName, mimeType, maxFileSize);
+                return currentSpool.output();
+            } catch (IOException e) {
+                // Refused before the first byte (extension or declared type)
+                throw new UncheckedIOException(e.getMessage(), e);
+            }
+        });
         configureUpload();
 
         // Upload event handlers
@@ -138,39 +143,39 @@ public class SecureFileUploadComponent extends VerticalLayout {
             progressBar.setValue(1.0);
             progressLabel.setText("Validation du fichier...");
 
+            UploadSpoolService.Spool spool = currentSpool;
+            currentSpool = null;
+            if (spool == null) {
+                hideProgress();
+                return;
+            }
+
             if (uploadedFiles.size() >= maxFiles) {
+                spool.discard();
                 showError("Nombre maximum de fichiers atteint (" + maxFiles + ")");
                 hideProgress();
                 return;
             }
 
             try {
-                InputStream inputStream = buffer.getInputStream(event.getFileName());
-                byte[] fileBytes = inputStream.readAllBytes();
-                inputStream.close();
+                UploadHandle handle = spool.complete();
+                byte[] sample;
+                try (InputStream inputStream = Files.newInputStream(spool.file())) {
+                    sample = inputStream.readNBytes(SAMPLE_SIZE);
+                }
 
-                // Validate file
-                ValidationResult validation = validateFile(
-                    event.getFileName(),
-                    event.getMIMEType(),
-                    fileBytes
-                );
+                // Validate file (type, signature and size were checked while receiving it)
+                ValidationResult validation = validateFile(event.getFileName(), sample);
 
                 if (!validation.isValid()) {
+                    spool.discard();
                     showError(validation.getMessage());
                     hideProgress();
                     return;
                 }
 
                 // File is valid - add to list
-                Map<String, Object> fileInfo = new LinkedHashMap<>();
-                fileInfo.put("filename", event.getFileName());
-                fileInfo.put("contentType", event.getMIMEType());
-                fileInfo.put("size", fileBytes.length);
-                fileInfo.put("base64Content", Base64.getEncoder().encodeToString(fileBytes));
-                fileInfo.put("uploadedAt", new Date().toString());
-
-                uploadedFiles.add(fileInfo);
+                uploadedFiles.add(handle);
                 updateFilesDisplay();
                 notifyFilesChanged();
 
@@ -183,6 +188,7 @@ public class SecureFileUploadComponent extends VerticalLayout {
                 }
 
             } catch (Exception e) {
+                spool.discard();
                 showError("Erreur lors du traitement: " + e.getMessage());
             } finally {
                 hideProgress();
@@ -190,6 +196,10 @@ public class SecureFileUploadComponent extends VerticalLayout {
         });
 
         upload.addFailedListener(event -> {
+            if (currentSpool != null) {
+                currentSpool.discard();
+                currentSpool = null;
+            }
             showError("Échec du téléchargement: " + event.getReason().getMessage());
             hideProgress();
         });
@@ -200,6 +210,9 @@ public class SecureFileUploadComponent extends VerticalLayout {
         });
 
         add(upload);
+
+        // Dialog closed without submitting: spooled files are no longer needed
+        addDetachListener(event -> uploadedFiles.forEach(uploadSpool::discard));
     }
 
     private void configureUpload() {
@@ -223,29 +236,12 @@ public class SecureFileUploadComponent extends VerticalLayout {
         upload.setDropLabel(new Span("Glisser-déposer ici"));
     }
 
-    private ValidationResult validateFile(String filename, String mimeType, byte[] content) {
-        // 1. Check file size
-        if (content.length > maxFileSize) {
-            return ValidationResult.invalid(
-                "Fichier trop volumineux. Taille max: " + formatFileSize(maxFileSize));
-        }
-
-        // 2. Check file extension
-        String extension = getFileExtension(filename).toLowerCase();
-        if (!isAllowedExtension(extension)) {
-            return ValidationResult.invalid(
-                "Extension de fichier non autorisée: " + extension);
-        }
-
-        // 3. Validate content type matches magic bytes
-        if (!validateMagicBytes(content, mimeType, extension)) {
-            return ValidationResult.invalid(
-                "Le contenu du fichier ne correspond pas à son extension. " +
-                "Veuillez vérifier que le fichier n'est pas corrompu.");
-        }
-
-        // 4. Scan for dangerous patterns (basic malware/spam check)
-        String contentSample = extractTextContent(content, 8192); // Check first 8KB
+    /**
+     * @param sample the first bytes of the file (pattern checks)
+     */
+    private ValidationResult validateFile(String filename, byte[] sample) {
+        // 1. Scan for dangerous patterns (basic malware/spam check)
+        String contentSample = extractTextContent(sample, SAMPLE_SIZE); // Check first 8KB
         for (String pattern : DANGEROUS_PATTERNS) {
             if (contentSample.toLowerCase().contains(pattern.toLowerCase())) {
                 return ValidationResult.invalid(
@@ -253,7 +249,7 @@ public class SecureFileUploadComponent extends VerticalLayout {
             }
         }
 
-        // 5. Check for suspicious file names
+        // 2. Check for suspicious file names
         if (isSuspiciousFilename(filename)) {
             return ValidationResult.invalid(
                 "Nom de fichier suspect. Veuillez renommer le fichier.");
@@ -262,59 +258,6 @@ public class SecureFileUploadComponent extends VerticalLayout {
         return ValidationResult.valid();
     }
 
-    private boolean validateMagicBytes(byte[] content, String mimeType, String extension) {
-        if (content.length < 4) {
-            return false; // File too small
-        }
-
-        // Get expected signatures based on extension
-        byte[] expectedSignature = null;
-
-        switch (extension) {
-            case "pdf":
-                expectedSignature = FILE_SIGNATURES.get("application/pdf");
-                break;
-            case "jpg":
-            case "jpeg":
-                expectedSignature = FILE_SIGNATURES.get("image/jpeg");
-                break;
-            case "png":
-                expectedSignature = FILE_SIGNATURES.get("image/png");
-                break;
-            case "gif":
-                expectedSignature = FILE_SIGNATURES.get("image/gif");
-                break;
-            case "doc":
-                expectedSignature = FILE_SIGNATURES.get("application/msword");
-                break;
-            case "docx":
-            case "xlsx":
-            case "pptx":
-                expectedSignature = FILE_SIGNATURES.get("application/zip");
-                break;
-            default:
-                return true; // Unknown extension, skip magic byte check
-        }
-
-        if (expectedSignature == null) {
-            return true;
-        }
-
-        // Compare magic bytes
-        for (int i = 0; i < expectedSignature.length && i < content.length; i++) {
-            if (content[i] != expectedSignature[i]) {
-                return false;
-            }
-        }
-
-        return true;
-    }
-
-    private boolean isAllowedExtension(String extension) {
-        return Arrays.asList("pdf", "doc", "docx", "jpg", "jpeg", "png", "gif")
-            .contains(extension.toLowerCase());
-    }
-
     private boolean isSuspiciousFilename(String filename) {
         String lowerName = filename.toLowerCase();
         // Check for double extensions (e.g., file.pdf.exe)
@@ -365,7 +308,7 @@ public class SecureFileUploadComponent extends VerticalLayout {
         }
 
         for (int i = 0; i < uploadedFiles.size(); i++) {
-            Map<String, Object> file = uploadedFiles.get(i);
+            UploadHandle file = uploadedFiles.get(i);
             final int index = i;
 
             Div fileItem = new Div();
@@ -385,15 +328,15 @@ public class SecureFileUploadComponent extends VerticalLayout {
 
             // File icon
             Span icon = new Span();
-            icon.add(getFileIcon(file.get("filename").toString()));
+            icon.add(getFileIcon(file.filename()));
             fileInfo.add(icon);
 
             // File name and size
             Div nameAndSize = new Div();
-            Span fileName = new Span(file.get("filename").toString());
+            Span fileName = new Span(file.filename());
             fileName.getStyle().set("font-weight", "500");
 
-            long size = ((Number) file.get("size")).longValue();
+            long size = file.size();
             Span fileSize = new Span(" (" + formatFileSize(size) + ")");
             fileSize.getStyle()
                 .set("color", "var(--lumo-secondary-text-color)")
@@ -411,7 +354,7 @@ public class SecureFileUploadComponent extends VerticalLayout {
             );
             removeBtn.getElement().setAttribute("title", "Supprimer");
             removeBtn.addClickListener(e -> {
-                uploadedFiles.remove(index);
+                uploadSpool.discard(uploadedFiles.remove(index));
                 updateFilesDisplay();
                 notifyFilesChanged();
                 if (uploadedFiles.size() < maxFiles) {
@@ -476,29 +419,23 @@ public class SecureFileUploadComponent extends VerticalLayout {
 
     // Public API
 
-    public void setOnFilesChanged(Consumer<List<Map<String, Object>>> callback) {
+    public void setOnFilesChanged(Consumer<List<UploadHandle>> callback) {
         this.onFilesChanged = callback;
     }
 
-    public List<Map<String, Object>> getUploadedFiles() {
+    /**
+     * Handles of the accepted files, to pass to DemandePrestationService.submitDemandePrestation.
+     */
+    public List<UploadHandle> getUploadedFiles() {
         return new ArrayList<>(uploadedFiles);
     }
 
-    public String getFilesAsJson() {
-        try {
-            com.fasterxml.jackson.databind.ObjectMapper mapper =
-                new com.fasterxml.jackson.databind.ObjectMapper();
-            return mapper.writeValueAsString(uploadedFiles);
-        } catch (Exception e) {
-            return "[]";
-        }
-    }
-
     public boolean hasFiles() {
         return !uploadedFiles.isEmpty();
     }
 
     public void clear() {
+        uploadedFiles.forEach(uploadSpool::discard);
         uploadedFiles.clear();
         updateFilesDisplay();
         upload.setVisible(true);
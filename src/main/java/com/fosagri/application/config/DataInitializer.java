@@ -6,6 +6,12 @@ import com.fosagri.application.forms.FormField;
 import com.fosagri.application.model.Authority;
 import com.fosagri.application.model.Utilisateur;
 import com.fosagri.application.repository.UtilisateurRepository;
+import com.fosagri.application.services.DemandeStatsService;
+import com.fosagri.application.service.PersonSearchSchemaService;
+import com.fosagri.application.service.SearchKeyBackfillService;
+import com.fosagri.application.services.PersonDocumentMigrationService;
+import com.fosagri.application.services.ReclamationSearchSchemaService;
+import com.fosagri.application.services.ReponseJsonSchemaService;
 import com.fosagri.application.services.PrestationRefService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
@@ -29,6 +35,24 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private DemandeStatsService demandeStatsService;
+
+    @Autowired
+    private PersonDocumentMigrationService personDocumentMigrationService;
+
+    @Autowired
+    private ReponseJsonSchemaService reponseJsonSchemaService;
+
+    @Autowired
+    private SearchKeyBackfillService searchKeyBackfillService;
+
+    @Autowired
+    private PersonSearchSchemaService personSearchSchemaService;
+
+    @Autowired
+    private ReclamationSearchSchemaService reclamationSearchSchemaService;
+
     @Override
     public void run(String... args) throws Exception {
         // Initialize default admin user
@@ -38,6 +62,24 @@ public class DataInitializer implements CommandLineRunner {
         if (prestationRefService.count() == 0) {
             initializeSamplePrestations();
         }
+
+        // Populate demande_stats on first start after the counters table was introduced
+        demandeStatsService.rebuildIfEmpty();
+
+        // Move agent/conjoint/enfant LOB columns to person_document (resumes if interrupted)
+        personDocumentMigrationService.migrateLegacyColumns();
+
+        // reponse_json TEXT -> jsonb + GIN index (PostgreSQL only)
+        reponseJsonSchemaService.migrateToJsonb();
+
+        // Normalized/phonetic search keys for rows written before the columns existed
+        searchKeyBackfillService.backfill();
+
+        // pg_trgm + trigram indexes on the search keys (PostgreSQL only)
+        personSearchSchemaService.ensureTrigramIndexes();
+
+        // Generated tsvector column + GIN index for réclamation full-text search (PostgreSQL only)
+        reclamationSearchSchemaService.ensureSearchVector();
     }
 
     private void initializeDefaultUsers() {
@@ -0,0 +1,12 @@
+package com.fosagri.application.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Active les tâches @Scheduled (purge des pièces jointes en attente, UploadSpoolService).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
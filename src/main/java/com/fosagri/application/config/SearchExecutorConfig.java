@@ -0,0 +1,29 @@
+package com.fosagri.application.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Pool des recherches lancées depuis les vues (AsyncSearch). Petit et borné : une recherche
+ * remplacée est annulée, et une file pleine refuse la nouvelle recherche (TaskRejectedException,
+ * signalée à l'utilisateur par AsyncSearch) plutôt que d'abandonner en silence celle d'une autre session.
+ */
+@Configuration
+public class SearchExecutorConfig {
+
+    @Bean(name = "searchExecutor", destroyMethod = "shutdown")
+    public AsyncTaskExecutor searchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(32);
+        executor.setThreadNamePrefix("search-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -1,106 +1,89 @@
 package com.fosagri.application.controllers;
 
 import com.fosagri.application.services.FileStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.http.HttpRange;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.io.IOException;
 import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Controller for serving uploaded files.
+ *
+ * Files are streamed from disk and never loaded in memory: on Tomcat the body is handed to the
+ * connector's sendfile (FileChannel.transferTo to the socket), otherwise it is copied with
+ * FileChannel.transferTo into the response. A single byte range (Range: bytes=...) is honoured
+ * so PDF viewers can fetch pages on demand; multi-range requests get the whole file.
+ *
+ * Stored files are never rewritten (blobs are named after their content hash), so responses
+ * carry a strong ETag (that hash), Last-Modified and a long-lived immutable Cache-Control;
+ * If-None-Match / If-Modified-Since revalidations are answered with 304.
  */
 @RestController
 @RequestMapping("/api/files")
 public class FileController {
 
+    // Tomcat sendfile request attributes (org.apache.catalina.Globals)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // Below this size a plain copy is cheaper than a sendfile hand-off (same threshold as Tomcat's DefaultServlet)
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+    // Private: these are personal documents served to authenticated users only
+    private static final String CACHE_CONTROL = "private, max-age=31536000, immutable";
+
     @Autowired
     private FileStorageService fileStorageService;
 
     /**
      * Download a file by its stored path.
-     * The path should be URL-encoded.
+     * The path should be URL-encoded. name is the filename offered to the browser (stored
+     * files are named after their content hash); defaults to the stored name.
      */
     @GetMapping("/download")
-    public ResponseEntity<Resource> downloadFile(@RequestParam String path) {
-        try {
-            // Security check: ensure path doesn't escape the uploads directory
-            Path filePath = Paths.get(path).normalize();
-            if (!filePath.toString().startsWith("uploads")) {
-                return ResponseEntity.badRequest().build();
-            }
-
-            byte[] content = fileStorageService.readFile(path);
-            Map<String, Object> fileInfo = fileStorageService.getFileInfo(path);
-
-            String filename = (String) fileInfo.get("filename");
-            String contentType = (String) fileInfo.get("contentType");
-
-            if (contentType == null) {
-                contentType = "application/octet-stream";
-            }
-
-            ByteArrayResource resource = new ByteArrayResource(content);
-
-            String encodedFilename = URLEncoder.encode(filename, StandardCharsets.UTF_8)
-                .replace("+", "%20");
+    public void downloadFile(@RequestParam String path, @RequestParam(required = false) String name,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = resolve(path, response);
+        if (file == null) {
+            return;
+        }
 
-            return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(contentType))
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                    "attachment; filename=\"" + filename + "\"; filename*=UTF-8''" + encodedFilename)
-                .contentLength(content.length)
-                .body(resource);
+        String filename = downloadName(name, file);
+        String encodedFilename = URLEncoder.encode(filename, StandardCharsets.UTF_8)
+            .replace("+", "%20");
 
-        } catch (IOException e) {
-            return ResponseEntity.notFound().build();
-        }
+        serveFile(file, "attachment; filename=\"" + filename + "\"; filename*=UTF-8''" + encodedFilename,
+            request, response);
     }
 
     /**
      * View a file inline (for images and PDFs).
      */
     @GetMapping("/view")
-    public ResponseEntity<Resource> viewFile(@RequestParam String path) {
-        try {
-            // Security check
-            Path filePath = Paths.get(path).normalize();
-            if (!filePath.toString().startsWith("uploads")) {
-                return ResponseEntity.badRequest().build();
-            }
-
-            byte[] content = fileStorageService.readFile(path);
-            Map<String, Object> fileInfo = fileStorageService.getFileInfo(path);
-
-            String contentType = (String) fileInfo.get("contentType");
-            if (contentType == null) {
-                contentType = Files.probeContentType(filePath);
-            }
-            if (contentType == null) {
-                contentType = "application/octet-stream";
-            }
-
-            ByteArrayResource resource = new ByteArrayResource(content);
-
-            return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(contentType))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline")
-                .contentLength(content.length)
-                .body(resource);
-
-        } catch (IOException e) {
-            return ResponseEntity.notFound().build();
+    public void viewFile(@RequestParam String path, HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        Path file = resolve(path, response);
+        if (file == null) {
+            return;
         }
+        serveFile(file, "inline", request, response);
     }
 
     /**
@@ -122,4 +105,118 @@ public class FileController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    /**
+     * Stored file for path, or null once a 400 (outside the uploads directory) or 404 has been sent.
+     */
+    private Path resolve(String path, HttpServletResponse response) throws IOException {
+        try {
+            return fileStorageService.resolveStoredFile(path);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+        } catch (IOException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+        return null;
+    }
+
+    // Last path segment only, without characters that would break the Content-Disposition header
+    private static String downloadName(String name, Path file) {
+        String filename = name != null ? name.replaceAll(".*[/\\\\]", "").replaceAll("[\"\\r\\n]", "").trim() : "";
+        return filename.isEmpty() ? file.getFileName().toString() : filename;
+    }
+
+    private void serveFile(Path file, String disposition, HttpServletRequest request,
+                           HttpServletResponse response) throws IOException {
+        long length = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        String etag = "\"" + fileStorageService.contentHash(file) + "\"";
+
+        // Set before the check so that a 304 carries it too; Spring Security keeps an existing Cache-Control
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        String contentType = Files.probeContentType(file);
+        response.setContentType(contentType != null ? contentType : "application/octet-stream");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = requestedRange(request, etag, lastModified);
+        if (range != null) {
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+            if (start >= length || end < start) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat writes the body itself once the request completes (end is exclusive)
+            request.setAttribute(SENDFILE_FILENAME, file.toFile().getCanonicalPath());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * The single range requested, or null to send the whole file (no Range header, several
+     * ranges, malformed header, or an If-Range validator that no longer matches).
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, String etag, long lastModified) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !ifRangeMatches(request, etag, lastModified)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // If-Range holds either an entity tag (strong comparison) or an HTTP date
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
 }
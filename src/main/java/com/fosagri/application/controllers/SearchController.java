@@ -0,0 +1,34 @@
+package com.fosagri.application.controllers;
+
+import com.fosagri.application.dto.GlobalSearchPage;
+import com.fosagri.application.services.GlobalSearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Recherche globale back-office (réservée à ADMIN et MANAGER, voir SecurityConfiguration).
+ * GET /api/search?q=terme&page=0&size=20
+ */
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    @Autowired
+    private GlobalSearchService globalSearchService;
+
+    @GetMapping
+    public ResponseEntity<GlobalSearchPage> search(@RequestParam("q") String query,
+                                                   @RequestParam(value = "page", defaultValue = "0") int page,
+                                                   @RequestParam(value = "size", defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(globalSearchService.search(query, page, size));
+        } catch (Exception e) {
+            System.err.println("Erreur de recherche globale '" + query + "': " + e.getMessage());
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.fosagri.application.dto;
+
+/**
+ * Résultat de recherche d'agent : identité et ville, sans charger l'entité AdhAgent.
+ */
+public record AgentSearchRow(Integer id, String nom, String prenom, String nomAr, String prenomAr,
+                             String idAdh, String cin, String ville) {
+
+    public String getFullName() {
+        return (nom != null ? nom : "") + " " + (prenom != null ? prenom : "");
+    }
+}
@@ -0,0 +1,11 @@
+package com.fosagri.application.dto;
+
+/**
+ * Identité minimale d'un agent pour les listes, sans les colonnes @Lob (photos, CIN, RIB).
+ */
+public record AgentSummary(Integer id, String nom, String prenom, String idAdh, String cin) {
+
+    public String getFullName() {
+        return (nom != null ? nom : "") + " " + (prenom != null ? prenom : "");
+    }
+}
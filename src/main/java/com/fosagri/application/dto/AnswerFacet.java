@@ -0,0 +1,21 @@
+package com.fosagri.application.dto;
+
+import java.util.List;
+
+/**
+ * Répartition des réponses d'un champ à choix (select, checkbox, multiselect) :
+ * nombre de demandes par valeur, les plus fréquentes d'abord. Pour un multiselect,
+ * une demande est comptée pour chacune des valeurs cochées.
+ */
+public record AnswerFacet(String field, String label, String type, List<Bucket> buckets) {
+
+    public long total() {
+        return buckets.stream().mapToLong(Bucket::count).sum();
+    }
+
+    /**
+     * value est la valeur stockée dans reponseJson, label le libellé de l'option.
+     */
+    public record Bucket(String value, String label, long count) {
+    }
+}
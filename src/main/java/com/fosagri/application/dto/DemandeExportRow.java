@@ -0,0 +1,18 @@
+package com.fosagri.application.dto;
+
+import java.util.Date;
+
+/**
+ * Ligne d'export d'une demande : colonnes scalaires et réponses JSON, sans les documents.
+ */
+public record DemandeExportRow(Long id, String statut, Date dateDemande, Date dateTraitement,
+                               String commentaire, String agentIdAdh, String agentNom,
+                               String agentPrenom, String reponseJson) {
+
+    public String getAgentName() {
+        if (agentNom == null && agentPrenom == null) {
+            return "";
+        }
+        return ((agentNom != null ? agentNom : "") + " " + (agentPrenom != null ? agentPrenom : "")).trim();
+    }
+}
@@ -0,0 +1,12 @@
+package com.fosagri.application.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Critères de la grille des demandes de prestation, combinables ; null (ou vide) = pas de filtre.
+ * search porte sur l'agent (clé de recherche) et le libellé de la prestation, ville sur la ville
+ * de l'agent, from/to (inclus) sur la date de demande.
+ */
+public record DemandeFilter(String search, String statut, Long prestationId, String ville,
+                            LocalDate from, LocalDate to) {
+}
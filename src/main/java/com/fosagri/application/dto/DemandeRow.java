@@ -0,0 +1,22 @@
+package com.fosagri.application.dto;
+
+import java.util.Date;
+
+/**
+ * Ligne de liste pour une demande de prestation, sans réponses JSON, documents ni LOB agent.
+ */
+public record DemandeRow(Long id, String statut, Date dateDemande, Date dateTraitement,
+                         Long prestationId, String prestationLabel, AgentSummary agent) {
+
+    // Flat constructor used by JPQL "SELECT new ..." projections
+    public DemandeRow(Long id, String statut, Date dateDemande, Date dateTraitement,
+                      Long prestationId, String prestationLabel,
+                      Integer agentId, String nom, String prenom, String idAdh, String cin) {
+        this(id, statut, dateDemande, dateTraitement, prestationId, prestationLabel,
+            agentId != null ? new AgentSummary(agentId, nom, prenom, idAdh, cin) : null);
+    }
+
+    public String getAgentName() {
+        return agent != null ? agent.getFullName() : "";
+    }
+}
@@ -0,0 +1,11 @@
+package com.fosagri.application.dto;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Demandes d'une prestation avec leurs réponses à plat, et l'union des clés de réponses
+ * (dans l'ordre où elles ont été rencontrées), calculées en une seule passe.
+ */
+public record DemandesWithJsonKeys(List<EnhancedDemandeViewDto> demandes, Set<String> jsonKeys) {
+}
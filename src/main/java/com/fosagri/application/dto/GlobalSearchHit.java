@@ -0,0 +1,29 @@
+package com.fosagri.application.dto;
+
+import java.util.Date;
+
+/**
+ * Résultat de la recherche globale back-office. id est l'identifiant de l'entité du type donné ;
+ * agentId, s'il est renseigné, l'adhérent concerné. score est dans ]0, 1], les meilleurs d'abord.
+ */
+public record GlobalSearchHit(Type type, Long id, String title, String subtitle, Date date,
+                              Integer agentId, double score) {
+
+    public enum Type {
+        AGENT("Adhérent"),
+        DEMANDE("Demande de prestation"),
+        RECLAMATION("Réclamation"),
+        MODIFICATION("Demande de modification"),
+        EVENT("Événement");
+
+        private final String label;
+
+        Type(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+}
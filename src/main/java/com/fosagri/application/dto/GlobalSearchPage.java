@@ -0,0 +1,10 @@
+package com.fosagri.application.dto;
+
+import java.util.List;
+
+/**
+ * Page de résultats de la recherche globale. total est le nombre de résultats retenus (chaque
+ * type est plafonné), tookMs la durée de la recherche côté serveur.
+ */
+public record GlobalSearchPage(String query, int page, int size, int total, List<GlobalSearchHit> hits, long tookMs) {
+}
@@ -0,0 +1,16 @@
+package com.fosagri.application.dto;
+
+import com.fosagri.application.entities.ModificationDemande.StatutModification;
+import com.fosagri.application.entities.ModificationDemande.TypeAction;
+import com.fosagri.application.entities.ModificationDemande.TypeEntite;
+
+import java.time.LocalDate;
+
+/**
+ * Critères de la grille des demandes de modification, combinables ; null (ou vide) = pas de filtre.
+ * search porte sur l'agent et le libellé de l'entité, ville sur la ville de l'agent, from/to
+ * (inclus) sur la date de création.
+ */
+public record ModificationFilter(String search, StatutModification statut, TypeEntite typeEntite,
+                                 TypeAction typeAction, String ville, LocalDate from, LocalDate to) {
+}
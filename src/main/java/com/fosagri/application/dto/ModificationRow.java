@@ -0,0 +1,32 @@
+package com.fosagri.application.dto;
+
+import com.fosagri.application.entities.ModificationDemande.StatutModification;
+import com.fosagri.application.entities.ModificationDemande.TypeAction;
+import com.fosagri.application.entities.ModificationDemande.TypeEntite;
+
+import java.util.Date;
+
+/**
+ * Ligne de liste pour une demande de modification, sans valeurs JSON, documents ni LOB agent.
+ */
+public record ModificationRow(Long id, TypeEntite typeEntite, TypeAction typeAction, Integer entiteId,
+                              String entiteLabel, StatutModification statut, Date dateCreation,
+                              Date dateTraitement, AgentSummary agent) {
+
+    // Flat constructor used by JPQL "SELECT new ..." projections
+    public ModificationRow(Long id, TypeEntite typeEntite, TypeAction typeAction, Integer entiteId,
+                           String entiteLabel, StatutModification statut, Date dateCreation,
+                           Date dateTraitement, Integer agentId, String nom, String prenom,
+                           String idAdh, String cin) {
+        this(id, typeEntite, typeAction, entiteId, entiteLabel, statut, dateCreation, dateTraitement,
+            agentId != null ? new AgentSummary(agentId, nom, prenom, idAdh, cin) : null);
+    }
+
+    public boolean isCreation() {
+        return typeAction == TypeAction.CREATION;
+    }
+
+    public String getAgentName() {
+        return agent != null ? agent.getFullName() : "";
+    }
+}
@@ -0,0 +1,19 @@
+package com.fosagri.application.dto;
+
+import com.fosagri.application.entities.Reclamation.StatutReclamation;
+import com.fosagri.application.entities.Reclamation.TypeReclamation;
+
+import java.time.LocalDate;
+
+/**
+ * Critères de la grille des réclamations, combinables ; null (ou vide) = pas de filtre.
+ * search est une recherche plein texte (objet, détail) et sur l'agent, ville la ville de l'agent,
+ * from/to (inclus) la date de création.
+ */
+public record ReclamationFilter(String search, StatutReclamation statut, TypeReclamation type, String ville,
+                                LocalDate from, LocalDate to) {
+
+    public boolean hasSearch() {
+        return search != null && !search.isBlank();
+    }
+}
@@ -0,0 +1,27 @@
+package com.fosagri.application.dto;
+
+import com.fosagri.application.entities.Reclamation.PrioriteReclamation;
+import com.fosagri.application.entities.Reclamation.StatutReclamation;
+import com.fosagri.application.entities.Reclamation.TypeReclamation;
+
+import java.util.Date;
+
+/**
+ * Ligne de liste pour une réclamation, sans détail, pièce jointe ni LOB agent.
+ */
+public record ReclamationRow(Long id, String objet, TypeReclamation type, StatutReclamation statut,
+                             PrioriteReclamation priorite, Date dateCreation, Date dateTraitement,
+                             AgentSummary agent) {
+
+    // Flat constructor used by JPQL "SELECT new ..." projections
+    public ReclamationRow(Long id, String objet, TypeReclamation type, StatutReclamation statut,
+                          PrioriteReclamation priorite, Date dateCreation, Date dateTraitement,
+                          Integer agentId, String nom, String prenom, String idAdh, String cin) {
+        this(id, objet, type, statut, priorite, dateCreation, dateTraitement,
+            agentId != null ? new AgentSummary(agentId, nom, prenom, idAdh, cin) : null);
+    }
+
+    public String getAgentName() {
+        return agent != null ? agent.getFullName() : "";
+    }
+}
@@ -0,0 +1,69 @@
+package com.fosagri.application.dto;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Nombre de demandes par prestation et par statut, chargé en une seule requête
+ * groupée (GROUP BY prestation_id, statut).
+ */
+public class StatusMatrix {
+    private final Map<Long, Map<String, Long>> countsByPrestation = new HashMap<>();
+    private final Map<String, Long> countsByStatut = new HashMap<>();
+    private long total;
+
+    public StatusMatrix() {
+    }
+
+    /**
+     * Construit la matrice à partir des lignes [prestationId, statut, count].
+     */
+    public static StatusMatrix fromRows(List<Object[]> rows) {
+        StatusMatrix matrix = new StatusMatrix();
+        for (Object[] row : rows) {
+            Long prestationId = (Long) row[0];
+            String statut = (String) row[1];
+            long count = ((Number) row[2]).longValue();
+            matrix.add(prestationId, statut, count);
+        }
+        return matrix;
+    }
+
+    public void add(Long prestationId, String statut, long count) {
+        if (prestationId != null) {
+            countsByPrestation
+                .computeIfAbsent(prestationId, k -> new HashMap<>())
+                .merge(statut, count, Long::sum);
+        }
+        countsByStatut.merge(statut, count, Long::sum);
+        total += count;
+    }
+
+    public long getCount(Long prestationId, String statut) {
+        Map<String, Long> counts = countsByPrestation.get(prestationId);
+        return counts != null ? counts.getOrDefault(statut, 0L) : 0L;
+    }
+
+    public long getTotal(Long prestationId) {
+        Map<String, Long> counts = countsByPrestation.get(prestationId);
+        if (counts == null) {
+            return 0L;
+        }
+        return counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public Map<String, Long> getCountsByStatut(Long prestationId) {
+        Map<String, Long> counts = countsByPrestation.get(prestationId);
+        return counts != null ? Collections.unmodifiableMap(counts) : Collections.emptyMap();
+    }
+
+    public long getCountByStatut(String statut) {
+        return countsByStatut.getOrDefault(statut, 0L);
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
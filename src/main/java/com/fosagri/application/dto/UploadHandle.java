@@ -0,0 +1,9 @@
+package com.fosagri.application.dto;
+
+/**
+ * Pièce jointe reçue et mise en attente sur disque (voir UploadSpoolService) jusqu'à la
+ * soumission de la demande : seules ces métadonnées restent dans l'état de l'interface.
+ * sha256 est calculé pendant la réception.
+ */
+public record UploadHandle(String id, String filename, String contentType, long size, String sha256) {
+}
@@ -2,13 +2,16 @@ package com.fosagri.application.entities;
 
 import com.fosagri.application.model.AdhAgent;
 import lombok.Data;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import jakarta.persistence.*;
 import java.util.Date;
 
 @Data
 @Entity
-@Table(name = "demande_prestation")
+@Table(name = "demande_prestation",
+       indexes = @Index(name = "idx_demande_prestation_prestation", columnList = "prestation_id"))
 public class DemandePrestation {
 
     public enum StatutDemande {
@@ -22,11 +25,12 @@ public class DemandePrestation {
     @JoinColumn(name = "prestation_id")
     private PrestationRef prestation;
     
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "agent_id", referencedColumnName = "adhagentid")
     private AdhAgent agent;
     
-    @Column(columnDefinition = "TEXT")
+    // jsonb sous PostgreSQL (index GIN posé par ReponseJsonSchemaService)
+    @JdbcTypeCode(SqlTypes.JSON)
     private String reponseJson; // Stockage des réponses du formulaire
     
     private String statut; // SOUMISE, EN_COURS, ACCEPTEE, REFUSEE, TERMINEE
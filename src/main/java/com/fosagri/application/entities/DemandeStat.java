@@ -0,0 +1,46 @@
+package com.fosagri.application.entities;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Compteur de demandes par (prestation, statut, jour de dépôt).
+ * Maintenu dans la même transaction que les écritures sur demande_prestation
+ * et reconstructible à partir de celle-ci (voir DemandeStatsService.rebuild).
+ */
+@Data
+@Entity
+@Table(name = "demande_stats")
+@IdClass(DemandeStat.Key.class)
+public class DemandeStat {
+
+    /** Valeur de prestation_id utilisée pour les demandes sans prestation. */
+    public static final long NO_PRESTATION = 0L;
+
+    @Id
+    @Column(name = "prestation_id")
+    private Long prestationId;
+
+    @Id
+    @Column(name = "statut", length = 20)
+    private String statut;
+
+    @Id
+    @Column(name = "jour")
+    private LocalDate jour;
+
+    @Column(name = "total", nullable = false)
+    private long total;
+
+    @Data
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private Long prestationId;
+        private String statut;
+        private LocalDate jour;
+    }
+}
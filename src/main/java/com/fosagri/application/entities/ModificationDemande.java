@@ -1,6 +1,8 @@
 package com.fosagri.application.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fosagri.application.model.AdhAgent;
+import com.fosagri.application.utils.SearchNormalizer;
 import lombok.Data;
 
 import jakarta.persistence.*;
@@ -8,7 +10,10 @@ import java.util.Date;
 
 @Data
 @Entity
-@Table(name = "modification_demande")
+@Table(name = "modification_demande", indexes = {
+    @Index(name = "idx_modification_demande_agent", columnList = "agent_id"),
+    @Index(name = "idx_modification_demande_statut_date", columnList = "statut, date_creation")
+})
 public class ModificationDemande {
 
     public enum StatutModification {
@@ -87,12 +92,27 @@ public class ModificationDemande {
     @Column(name = "traite_par")
     private Long traitePar; // Admin user ID who processed
 
+    // Libellé de l'entité normalisé (SearchNormalizer), recalculé à chaque écriture
+    @Column(name = "search_text", length = 500)
+    @JsonIgnore
+    private String searchText;
+
     @PrePersist
     protected void onCreate() {
         dateCreation = new Date();
         if (statut == null) {
             statut = StatutModification.EN_ATTENTE;
         }
+        computeSearchKeys();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        computeSearchKeys();
+    }
+
+    public void computeSearchKeys() {
+        searchText = SearchNormalizer.normalize(entiteLabel);
     }
 
     // Helper method to get status display label
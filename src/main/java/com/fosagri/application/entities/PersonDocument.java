@@ -0,0 +1,87 @@
+package com.fosagri.application.entities;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import jakarta.persistence.*;
+import java.util.Date;
+
+/**
+ * Pièce jointe d'un agent, conjoint ou enfant (photo, CIN, RIB, ...).
+ * Seules les métadonnées sont en base ; le contenu est stocké sur disque
+ * (storagePath) et lu uniquement à la demande via PersonDocumentService.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "person_document",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"owner_type", "owner_id", "kind"}),
+       indexes = @Index(name = "idx_person_document_owner", columnList = "owner_type, owner_id"))
+public class PersonDocument {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "owner_type", nullable = false, length = 20)
+    private OwnerType ownerType;
+
+    @Column(name = "owner_id", nullable = false)
+    private Integer ownerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 30)
+    private Kind kind;
+
+    private String filename;
+
+    private String contentType;
+
+    private long size;
+
+    @Column(length = 64)
+    private String sha256;
+
+    @Column(nullable = false, length = 500)
+    private String storagePath;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date created;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date updated;
+
+    @PrePersist
+    protected void onCreate() {
+        created = new Date();
+        updated = created;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updated = new Date();
+    }
+
+    public enum OwnerType {
+        AGENT, CONJOINT, ENFANT
+    }
+
+    public enum Kind {
+        PHOTO("Photo"),
+        CIN("CIN"),
+        RIB("RIB"),
+        RIB_PHOTO("Photo RIB"),
+        ACTE_MARIAGE("Acte de mariage"),
+        ATTESTATION_SCOLARITE("Attestation de scolarité");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+}
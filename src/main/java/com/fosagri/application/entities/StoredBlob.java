@@ -0,0 +1,40 @@
+package com.fosagri.application.entities;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import jakarta.persistence.*;
+import java.util.Date;
+
+/**
+ * Contenu de fichier stocké une seule fois sur disque, identifié par son SHA-256
+ * (voir BlobStorageService). refCount compte les pièces qui y renvoient (documents des
+ * demandes, des agents, conjoints et enfants) ; le fichier est supprimé à zéro.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "stored_blob")
+public class StoredBlob {
+    @Id
+    @Column(name = "sha256", length = 64)
+    private String sha256;
+
+    @Column(name = "size", nullable = false)
+    private long size;
+
+    @Column(name = "storage_path", nullable = false, length = 500)
+    private String storagePath;
+
+    @Column(name = "ref_count", nullable = false)
+    private long refCount;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created")
+    private Date created;
+
+    @PrePersist
+    protected void onCreate() {
+        created = new Date();
+    }
+}
@@ -6,6 +6,7 @@ import com.fosagri.application.model.AdhEnfant;
 import com.fosagri.application.model.AdhConjoint;
 import com.fosagri.application.service.AdhEnfantService;
 import com.fosagri.application.service.AdhConjointService;
+import com.fosagri.application.services.UploadValidator;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.checkbox.Checkbox;
@@ -18,8 +19,10 @@ import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextArea;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.component.textfield.NumberField;
+import com.vaadin.flow.component.notification.Notification;
+import com.vaadin.flow.component.notification.NotificationVariant;
+import com.vaadin.flow.component.upload.Receiver;
 import com.vaadin.flow.component.upload.Upload;
-import com.vaadin.flow.component.upload.receivers.MemoryBuffer;
 import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.icon.VaadinIcon;
@@ -28,7 +31,9 @@ import java.time.LocalDate;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.io.InputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Base64;
 
 /**
@@ -64,12 +69,13 @@ import java.util.Base64;
  */
 public class FormRenderer {
 
-    public static Component render(FormSchema schema) {
-        return createForm(schema, null);
+    public static Component render(FormSchema schema, UploadValidator uploadValidator) {
+        return createForm(schema, null, uploadValidator);
     }
 
-    public static Component createForm(FormSchema schema, java.util.function.Consumer<Map<String, Object>> onSubmit) {
-        return createForm(schema, onSubmit, null, null, null);
+    public static Component createForm(FormSchema schema, java.util.function.Consumer<Map<String, Object>> onSubmit,
+                                       UploadValidator uploadValidator) {
+        return createForm(schema, onSubmit, null, null, null, uploadValidator);
     }
 
     // Helper class to return both form and currentValues
@@ -84,7 +90,8 @@ public class FormRenderer {
     }
     
     public static FormWithValues createFormWithValues(FormSchema schema, java.util.function.Consumer<Map<String, Object>> onSubmit,
-                                                     AdhAgent selectedAgent, AdhEnfantService enfantService, AdhConjointService conjointService) {
+                                                     AdhAgent selectedAgent, AdhEnfantService enfantService, AdhConjointService conjointService,
+                                                     UploadValidator uploadValidator) {
         VerticalLayout container = new VerticalLayout();
         container.setPadding(false);
         container.setSpacing(false);
@@ -109,7 +116,7 @@ public class FormRenderer {
 
         System.out.println("📊 Adding " + fields.size() + " field components to FormLayout");
         for (FormField field : fields) {
-            Component comp = createFieldComponent(field, currentValues, () -> applyConditions(schema, fieldComponents, currentValues), selectedAgent, enfantService, conjointService);
+            Component comp = createFieldComponent(field, currentValues, () -> applyConditions(schema, fieldComponents, currentValues), selectedAgent, enfantService, conjointService, uploadValidator);
             fieldComponents.put(field.getName(), comp);
             formLayout.add(comp);
             System.out.println("   + Added: " + field.getName() + " (" + comp.getClass().getSimpleName() + ")");
@@ -133,7 +140,8 @@ public class FormRenderer {
     }
 
     public static Component createForm(FormSchema schema, java.util.function.Consumer<Map<String, Object>> onSubmit,
-                                     AdhAgent selectedAgent, AdhEnfantService enfantService, AdhConjointService conjointService) {
+                                     AdhAgent selectedAgent, AdhEnfantService enfantService, AdhConjointService conjointService,
+                                     UploadValidator uploadValidator) {
         VerticalLayout container = new VerticalLayout();
         container.setPadding(false);
         container.setSpacing(false);
@@ -158,7 +166,7 @@ public class FormRenderer {
 
         System.out.println("📊 Adding " + fields.size() + " field components to FormLayout");
         for (FormField field : fields) {
-            Component comp = createFieldComponent(field, currentValues, () -> applyConditions(schema, fieldComponents, currentValues), selectedAgent, enfantService, conjointService);
+            Component comp = createFieldComponent(field, currentValues, () -> applyConditions(schema, fieldComponents, currentValues), selectedAgent, enfantService, conjointService, uploadValidator);
             fieldComponents.put(field.getName(), comp);
             formLayout.add(comp);
             System.out.println("   + Added: " + field.getName() + " (" + comp.getClass().getSimpleName() + ")");
@@ -182,7 +190,8 @@ public class FormRenderer {
     }
 
     private static Component createFieldComponent(FormField field, Map<String, Object> currentValues, Runnable onChange,
-                                                AdhAgent selectedAgent, AdhEnfantService enfantService, AdhConjointService conjointService) {
+                                                AdhAgent selectedAgent, AdhEnfantService enfantService, AdhConjointService conjointService,
+                                                UploadValidator uploadValidator) {
         String type = Optional.ofNullable(field.getType()).orElse("text").toLowerCase(Locale.ROOT);
         System.out.println("🏗️ Creating field component: name=" + field.getName() + ", type=" + type + ", label=" + field.getLabel());
         switch (type) {
@@ -345,7 +354,7 @@ public class FormRenderer {
                 return ta;
             }
             case "file": {
-                return createFileUploadComponent(field, currentValues, onChange);
+                return createFileUploadComponent(field, currentValues, onChange, uploadValidator);
             }
             case "text":
             default: {
@@ -472,17 +481,18 @@ public class FormRenderer {
         return ans;
     }
 
-    public static Component createFormWithAnswerBox(FormSchema schema) {
+    public static Component createFormWithAnswerBox(FormSchema schema, UploadValidator uploadValidator) {
         VerticalLayout wrapper = new VerticalLayout();
         wrapper.setPadding(false);
         Component form = createForm(schema, answers -> {
             // Answers are collected but not displayed
-        });
+        }, uploadValidator);
         wrapper.add(form);
         return wrapper;
     }
     
-    private static Component createFileUploadComponent(FormField field, Map<String, Object> currentValues, Runnable onChange) {
+    private static Component createFileUploadComponent(FormField field, Map<String, Object> currentValues, Runnable onChange,
+                                                       UploadValidator uploadValidator) {
         VerticalLayout container = new VerticalLayout();
         container.setPadding(false);
         container.setSpacing(true);
@@ -511,9 +521,18 @@ public class FormRenderer {
         updateFilesDisplay(filesDisplay, uploadedFiles);
         container.add(filesDisplay);
         
-        // Upload component
-        MemoryBuffer buffer = new MemoryBuffer();
-        Upload upload = new Upload(buffer);
+        // Upload component: type, signature and size are checked while the file arrives,
+        // a refused file stops the transfer
+        long maxFileSize = uploadValidator.getMaxFileSize();
+        ByteArrayOutputStream[] receiving = new ByteArrayOutputStream[1];
+        Upload upload = new Upload((Receiver) (fileName, mimeType) -> {
+            receiving[0] = new ByteArrayOutputStream();
+            try {
+                return uploadValidator.validating(receiving[0], fileName, mimeType, maxFileSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e.getMessage(), e);
+            }
+        });
         
         // Configure accepted file types
         String[] types = acceptedTypes.split(",");
@@ -522,7 +541,7 @@ public class FormRenderer {
         }
         upload.setAcceptedFileTypes(types);
         upload.setMaxFiles(1); // Process one file at a time
-        upload.setMaxFileSize(10 * 1024 * 1024); // 10MB max
+        upload.setMaxFileSize((int) maxFileSize);
         
         // Add basic styling and text
         upload.setUploadButton(new Button("Choisir fichier"));
@@ -548,8 +567,8 @@ public class FormRenderer {
         });
         
         // Info text
-        Span info = new Span(String.format("Fichiers acceptés: %s | Taille max: 10MB | Limite: %d fichier(s)", 
-                                           acceptedTypes, maxFiles));
+        Span info = new Span(String.format("Fichiers acceptés: %s | Taille max: %s | Limite: %d fichier(s)", 
+                                           acceptedTypes, formatFileSize(maxFileSize), maxFiles));
         info.getStyle().set("font-size", "12px")
                       .set("color", "var(--lumo-secondary-text-color)");
         container.add(info);
@@ -562,8 +581,9 @@ public class FormRenderer {
                 return;
             }
             
-            try (InputStream inputStream = buffer.getInputStream()) {
-                byte[] fileBytes = inputStream.readAllBytes();
+            try {
+                byte[] fileBytes = receiving[0].toByteArray();
+                receiving[0] = null;
                 String base64Content = Base64.getEncoder().encodeToString(fileBytes);
                 
                 Map<String, Object> fileInfo = new LinkedHashMap<>();
@@ -599,7 +619,10 @@ public class FormRenderer {
         });
         
         upload.addFailedListener(event -> {
+            receiving[0] = null;
             System.err.println("❌ Upload failed: " + event.getFileName() + " - " + event.getReason().getMessage());
+            Notification.show("Échec du téléchargement: " + event.getReason().getMessage(), 5000, Notification.Position.MIDDLE)
+                .addThemeVariants(NotificationVariant.LUMO_ERROR);
         });
         
         upload.addFileRejectedListener(event -> {
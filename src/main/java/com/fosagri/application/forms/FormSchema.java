@@ -44,4 +44,18 @@ public class FormSchema {
         ObjectMapper mapper = new ObjectMapper();
         return mapper.readValue(json, FormSchema.class);
     }
+
+    // Fields of a stored schema (PrestationRef.formSchemaJson); empty if there is none or it cannot be read
+    public static List<FormField> fieldsOf(String json) {
+        if (json == null || json.trim().isEmpty()) {
+            return List.of();
+        }
+        try {
+            FormSchema schema = fromJson(json);
+            return schema.getFields() != null ? schema.getFields() : List.of();
+        } catch (IOException e) {
+            System.err.println("Schéma de formulaire illisible: " + e.getMessage());
+            return List.of();
+        }
+    }
 }
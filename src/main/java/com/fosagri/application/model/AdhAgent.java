@@ -1,6 +1,7 @@
 package com.fosagri.application.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fosagri.application.utils.SearchNormalizer;
 import lombok.Data;
 
 import jakarta.persistence.*;
@@ -13,7 +14,7 @@ import java.util.List;
  */
 @Entity
 @Data
-@Table(name = "adhagent")
+@Table(name = "adhagent", indexes = @Index(name = "idx_adhagent_phonetic", columnList = "phonetic_key"))
 public class AdhAgent implements Serializable {
 	/**
 	 *
@@ -56,26 +57,42 @@ public class AdhAgent implements Serializable {
 	private String situation_familiale;
 	
 	// Photo and document fields
-	@Lob
+	// Contenu stocké dans person_document (PersonDocumentService), seules les métadonnées restent ici
+	@Transient
 	private byte[] agent_photo;
 	private String agent_photo_filename;
 	private String agent_photo_contentType;
 	
-	@Lob
+	@Transient
 	private byte[] cin_image;
 	private String cin_image_filename;
 	private String cin_image_contentType;
 	
-	@Lob
+	@Transient
 	private byte[] rib;
 	private String rib_filename;
 	private String rib_contentType;
 	
-	@Lob
+	@Transient
 	private byte[] rib_photo;
 	private String rib_photo_filename;
 	private String rib_photo_contentType;
 
+	// Clés de recherche (SearchNormalizer), recalculées à chaque écriture
+	@Column(name = "search_text", length = 1000)
+	@JsonIgnore
+	private String searchText;
+	@Column(name = "phonetic_key")
+	@JsonIgnore
+	private String phoneticKey;
+
+	@PrePersist
+	@PreUpdate
+	public void computeSearchKeys() {
+		searchText = SearchNormalizer.searchText(NOM_AG, PR_AG, NOM_AG_AR, PR_AG_AR, idAdh, CIN_AG, codAg, ville, num_Tel);
+		phoneticKey = SearchNormalizer.phonetic(NOM_AG, PR_AG);
+	}
+
 	/*private String ADRESSE;
 	private String Situation_familiale;
 	private String Grade;
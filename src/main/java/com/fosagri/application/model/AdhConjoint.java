@@ -2,6 +2,7 @@ package com.fosagri.application.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fosagri.application.utils.SearchNormalizer;
 import lombok.Data;
 import jakarta.persistence.*;
 import java.io.Serializable;
@@ -9,7 +10,7 @@ import java.util.Date;
 
 @Data
 @Entity
-@Table(name = "adhconjoint")
+@Table(name = "adhconjoint", indexes = @Index(name = "idx_adhconjoint_phonetic", columnList = "phonetic_key"))
 public class AdhConjoint implements Serializable {
 	private static final long serialVersionUID = 267310711517424273L;
 	@Id
@@ -56,21 +57,37 @@ public class AdhConjoint implements Serializable {
 	private int currentId;
 	
 	// Photo and document fields
-	@Lob
+	// Contenu stocké dans person_document (PersonDocumentService), seules les métadonnées restent ici
+	@Transient
 	private byte[] conjoint_photo;
 	private String conjoint_photo_filename;
 	private String conjoint_photo_contentType;
 	
-	@Lob
+	@Transient
 	private byte[] cin_image; // For conjoints > 18 years
 	private String cin_image_filename;
 	private String cin_image_contentType;
 	
-	@Lob
+	@Transient
 	private byte[] acte_mariage_photo;
 	private String acte_mariage_photo_filename;
 	private String acte_mariage_photo_contentType;
 
+	// Clés de recherche (SearchNormalizer), recalculées à chaque écriture
+	@Column(name = "search_text", length = 1000)
+	@JsonIgnore
+	private String searchText;
+	@Column(name = "phonetic_key")
+	@JsonIgnore
+	private String phoneticKey;
+
+	@PrePersist
+	@PreUpdate
+	public void computeSearchKeys() {
+		searchText = SearchNormalizer.searchText(NOM_CONJ, PR_CONJ, nom_CONJ_A, pr_CONJ_A, CIN_CONJ, codAg, ville, tele);
+		phoneticKey = SearchNormalizer.phonetic(NOM_CONJ, PR_CONJ);
+	}
+
 	/*private Date DAT_MAR;
 	private String SIT_CJ;
 	private Date DAT_SIT_CJ;
@@ -2,6 +2,7 @@ package com.fosagri.application.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fosagri.application.utils.SearchNormalizer;
 import lombok.Data;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -14,7 +15,7 @@ import java.util.Date;
  */
 @Data
 @Entity
-@Table(name = "adhenfant")
+@Table(name = "adhenfant", indexes = @Index(name = "idx_adhenfant_phonetic", columnList = "phonetic_key"))
 
 public class AdhEnfant implements Serializable {
 
@@ -68,21 +69,37 @@ public class AdhEnfant implements Serializable {
 	public String adrs_postale;
 	
 	// Photo and document fields
-	@Lob
+	// Contenu stocké dans person_document (PersonDocumentService), seules les métadonnées restent ici
+	@Transient
 	private byte[] enfant_photo;
 	private String enfant_photo_filename;
 	private String enfant_photo_contentType;
 	
-	@Lob
+	@Transient
 	private byte[] cin_image; // For enfants > 18 years
 	private String cin_image_filename;
 	private String cin_image_contentType;
 	
-	@Lob
+	@Transient
 	private byte[] attestation_scolarite_photo;
 	private String attestation_scolarite_photo_filename;
 	private String attestation_scolarite_photo_contentType;
 
+	// Clés de recherche (SearchNormalizer), recalculées à chaque écriture
+	@Column(name = "search_text", length = 1000)
+	@JsonIgnore
+	private String searchText;
+	@Column(name = "phonetic_key")
+	@JsonIgnore
+	private String phoneticKey;
+
+	@PrePersist
+	@PreUpdate
+	public void computeSearchKeys() {
+		searchText = SearchNormalizer.searchText(nom_pac, pr_pac, nom_PAC_A, pr_PAC_A, cin_PAC, codAg);
+		phoneticKey = SearchNormalizer.phonetic(nom_pac, pr_pac);
+	}
+
 
 
 }
@@ -1,18 +1,29 @@
 package com.fosagri.application.repositories;
 
+import com.fosagri.application.dto.DemandeExportRow;
+import com.fosagri.application.dto.DemandeRow;
 import com.fosagri.application.entities.DemandePrestation;
 import com.fosagri.application.model.AdhAgent;
 import com.fosagri.application.entities.PrestationRef;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface DemandePrestationRepository extends JpaRepository<DemandePrestation, Long> {
+public interface DemandePrestationRepository extends JpaRepository<DemandePrestation, Long>, JpaSpecificationExecutor<DemandePrestation> {
     
     List<DemandePrestation> findByAgent(AdhAgent agent);
 
@@ -36,6 +47,28 @@ public interface DemandePrestationRepository extends JpaRepository<DemandePresta
     
     @Query("SELECT d FROM DemandePrestation d WHERE d.agent.NOM_AG LIKE %:searchTerm% OR d.agent.PR_AG LIKE %:searchTerm% OR d.prestation.label LIKE %:searchTerm%")
     List<DemandePrestation> searchDemandes(@Param("searchTerm") String searchTerm);
+
+    // Recherche globale : demandes des agents retrouvés, puis demandes par libellé de prestation
+    @Query("SELECT new com.fosagri.application.dto.DemandeRow(d.id, d.statut, d.dateDemande, d.dateTraitement, " +
+           "p.id, p.label, a.adhAgentId, a.NOM_AG, a.PR_AG, a.idAdh, a.CIN_AG) " +
+           "FROM DemandePrestation d LEFT JOIN d.agent a LEFT JOIN d.prestation p " +
+           "WHERE a.adhAgentId IN :agentIds ORDER BY d.dateDemande DESC")
+    List<DemandeRow> findRowsByAgentIds(@Param("agentIds") Collection<Integer> agentIds, Pageable pageable);
+
+    @Query("SELECT new com.fosagri.application.dto.DemandeRow(d.id, d.statut, d.dateDemande, d.dateTraitement, " +
+           "p.id, p.label, a.adhAgentId, a.NOM_AG, a.PR_AG, a.idAdh, a.CIN_AG) " +
+           "FROM DemandePrestation d LEFT JOIN d.agent a LEFT JOIN d.prestation p " +
+           "WHERE LOWER(p.label) LIKE LOWER(CONCAT('%', :term, '%')) ORDER BY d.dateDemande DESC")
+    List<DemandeRow> findRowsByPrestationLabel(@Param("term") String term, Pageable pageable);
+
+    @Query("SELECT new com.fosagri.application.dto.DemandeRow(d.id, d.statut, d.dateDemande, d.dateTraitement, " +
+           "p.id, p.label, a.adhAgentId, a.NOM_AG, a.PR_AG, a.idAdh, a.CIN_AG) " +
+           "FROM DemandePrestation d LEFT JOIN d.agent a LEFT JOIN d.prestation p ORDER BY d.dateDemande DESC")
+    List<DemandeRow> findAllRows();
+
+    // Single demande with its agent, for detail dialogs and PDF reports (agent is LAZY)
+    @Query("SELECT d FROM DemandePrestation d LEFT JOIN FETCH d.agent LEFT JOIN FETCH d.prestation WHERE d.id = :id")
+    Optional<DemandePrestation> findByIdWithAgent(@Param("id") Long id);
     
     @Query("SELECT COUNT(d) FROM DemandePrestation d WHERE d.agent = :agent AND d.prestation = :prestation AND d.statut IN ('SOUMISE', 'EN_COURS', 'ACCEPTEE')")
     long countActiveDemandsByAgentAndPrestation(@Param("agent") AdhAgent agent, @Param("prestation") PrestationRef prestation);
@@ -60,6 +93,10 @@ public interface DemandePrestationRepository extends JpaRepository<DemandePresta
     
     @Query("SELECT COUNT(d) FROM DemandePrestation d WHERE d.statut = :statut")
     long countByStatutOnly(@Param("statut") String statut);
+
+    // Prestation x statut matrix in a single grouped query: [prestationId, statut, count]
+    @Query("SELECT p.id, d.statut, COUNT(d) FROM DemandePrestation d LEFT JOIN d.prestation p GROUP BY p.id, d.statut")
+    List<Object[]> countGroupByPrestationAndStatut();
     
     @Query("SELECT d.id, d.statut, d.dateDemande, d.dateTraitement, d.agent.adhAgentId, d.agent.NOM_AG, d.agent.PR_AG, d.prestation.id FROM DemandePrestation d WHERE d.prestation = :prestation")
     List<Object[]> findByPrestationWithoutBlobs(@Param("prestation") PrestationRef prestation);
@@ -67,6 +104,64 @@ public interface DemandePrestationRepository extends JpaRepository<DemandePresta
     @Query("SELECT d.id, d.statut, d.dateDemande, d.dateTraitement, d.agent.adhAgentId, d.agent.NOM_AG, d.agent.PR_AG, d.prestation.id, d.reponseJson FROM DemandePrestation d WHERE d.prestation = :prestation")
     List<Object[]> findByPrestationWithJsonData(@Param("prestation") PrestationRef prestation);
 
+    @Query("SELECT d.reponseJson FROM DemandePrestation d WHERE d.prestation = :prestation AND d.reponseJson IS NOT NULL")
+    List<String> findReponseJsonByPrestation(@Param("prestation") PrestationRef prestation);
+
+    // ----- reponse_json as jsonb (PostgreSQL only, see ReponseJsonSchemaService) -----
+    // Non-object answers are replaced by {} so that jsonb_each/jsonb_object_keys never raise.
+
+    // Top-level answer keys of a prestation, in order of first appearance
+    @Query(value = "SELECT k.key FROM demande_prestation d " +
+           "CROSS JOIN LATERAL jsonb_object_keys(CASE WHEN jsonb_typeof(d.reponse_json) = 'object' " +
+           "THEN d.reponse_json ELSE CAST('{}' AS jsonb) END) AS k(key) " +
+           "WHERE d.prestation_id = :prestationId GROUP BY k.key ORDER BY MIN(d.id), k.key", nativeQuery = true)
+    List<String> findAnswerKeysJsonb(@Param("prestationId") Long prestationId);
+
+    // Answer cells [demandeId, key, text] for the requested keys only; arrays are joined with ", "
+    @Query(value = "SELECT d.id, e.key, CASE WHEN jsonb_typeof(e.value) = 'array' " +
+           "THEN (SELECT string_agg(x.item, ', ') FROM jsonb_array_elements_text(e.value) AS x(item)) " +
+           "ELSE e.value #>> '{}' END " +
+           "FROM demande_prestation d " +
+           "CROSS JOIN LATERAL jsonb_each(CASE WHEN jsonb_typeof(d.reponse_json) = 'object' " +
+           "THEN d.reponse_json ELSE CAST('{}' AS jsonb) END) AS e(key, value) " +
+           "WHERE d.prestation_id = :prestationId AND e.key IN (:keys) AND jsonb_typeof(e.value) <> 'null'", nativeQuery = true)
+    List<Object[]> findAnswerCellsJsonb(@Param("prestationId") Long prestationId, @Param("keys") Collection<String> keys);
+
+    // One answer per demande: [demandeId, text]
+    @Query(value = "SELECT d.id, d.reponse_json ->> :key FROM demande_prestation d " +
+           "WHERE d.prestation_id = :prestationId AND d.reponse_json ->> :key IS NOT NULL", nativeQuery = true)
+    List<Object[]> findAnswerValuesJsonb(@Param("prestationId") Long prestationId, @Param("key") String key);
+
+    // Value histogram [key, value, demandeCount] for the given keys in one grouped query;
+    // array answers (multiselect) are unnested, booleans come back as 'true'/'false'
+    @Query(value = "SELECT e.key, CASE WHEN jsonb_typeof(e.value) = 'array' THEN x.item ELSE e.value #>> '{}' END AS answer, " +
+           "COUNT(DISTINCT d.id) FROM demande_prestation d " +
+           "CROSS JOIN LATERAL jsonb_each(CASE WHEN jsonb_typeof(d.reponse_json) = 'object' " +
+           "THEN d.reponse_json ELSE CAST('{}' AS jsonb) END) AS e(key, value) " +
+           "LEFT JOIN LATERAL jsonb_array_elements_text(CASE WHEN jsonb_typeof(e.value) = 'array' " +
+           "THEN e.value ELSE CAST('[]' AS jsonb) END) AS x(item) ON true " +
+           "WHERE d.prestation_id = :prestationId AND e.key IN (:keys) AND jsonb_typeof(e.value) <> 'null' " +
+           "GROUP BY 1, 2", nativeQuery = true)
+    List<Object[]> countAnswerValuesJsonb(@Param("prestationId") Long prestationId, @Param("keys") Collection<String> keys);
+
+    // Demandes whose answer contains the given fragments (GIN index): scalar, typed scalar or array element
+    @Query(value = "SELECT d.id FROM demande_prestation d WHERE d.prestation_id = :prestationId AND (" +
+           "d.reponse_json @> CAST(:asText AS jsonb) OR d.reponse_json @> CAST(:asTyped AS jsonb) OR " +
+           "d.reponse_json @> CAST(:inArray AS jsonb))", nativeQuery = true)
+    List<Long> findIdsByAnswerJsonb(@Param("prestationId") Long prestationId, @Param("asText") String asText,
+                                    @Param("asTyped") String asTyped, @Param("inArray") String inArray);
+
+    // Forward-only cursor for exports: rows are fetched 500 at a time and never attached to the session.
+    // Must be consumed inside a read-only transaction and closed by the caller.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.fosagri.application.dto.DemandeExportRow(d.id, d.statut, d.dateDemande, d.dateTraitement, " +
+           "d.commentaire, a.idAdh, a.NOM_AG, a.PR_AG, d.reponseJson) " +
+           "FROM DemandePrestation d LEFT JOIN d.agent a WHERE d.prestation = :prestation ORDER BY d.id")
+    Stream<DemandeExportRow> streamExportRows(@Param("prestation") PrestationRef prestation);
+
     @Query("SELECT COUNT(d) FROM DemandePrestation d WHERE d.agent = :agent")
     long countByAgent(@Param("agent") AdhAgent agent);
 
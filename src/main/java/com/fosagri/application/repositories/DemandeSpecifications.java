@@ -0,0 +1,67 @@
+package com.fosagri.application.repositories;
+
+import com.fosagri.application.dto.DemandeFilter;
+import com.fosagri.application.entities.DemandePrestation;
+import com.fosagri.application.entities.PrestationRef;
+import com.fosagri.application.model.AdhAgent;
+import com.fosagri.application.utils.SearchNormalizer;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.fosagri.application.repositories.RowQueries.isBlank;
+import static com.fosagri.application.repositories.RowQueries.leftJoin;
+
+/**
+ * Critères de DemandeFilter en une seule requête (tous les critères renseignés sont combinés).
+ */
+public final class DemandeSpecifications {
+
+    private DemandeSpecifications() {
+    }
+
+    public static Specification<DemandePrestation> matching(DemandeFilter filter) {
+        return (root, query, cb) -> {
+            Join<DemandePrestation, AdhAgent> agent = leftJoin(root, "agent");
+            Join<DemandePrestation, PrestationRef> prestation = leftJoin(root, "prestation");
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (!isBlank(filter.search())) {
+                Predicate label = cb.like(cb.lower(prestation.get("label")), "%" + filter.search().trim().toLowerCase() + "%");
+                String normalized = SearchNormalizer.normalize(filter.search());
+                predicates.add(normalized.isEmpty() ? label
+                    : cb.or(cb.like(agent.get("searchText"), SearchNormalizer.containsPattern(normalized)), label));
+            }
+            if (!isBlank(filter.statut())) {
+                predicates.add(cb.equal(root.get("statut"), filter.statut().trim()));
+            }
+            if (filter.prestationId() != null) {
+                predicates.add(cb.equal(prestation.get("id"), filter.prestationId()));
+            }
+            if (!isBlank(filter.ville())) {
+                predicates.add(cb.equal(cb.lower(agent.get("ville")), filter.ville().trim().toLowerCase()));
+            }
+            Predicate dates = RowQueries.dateBetween(cb, root.get("dateDemande"), filter.from(), filter.to());
+            if (dates != null) {
+                predicates.add(dates);
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Colonnes du constructeur plat de DemandeRow.
+     */
+    public static List<Selection<?>> rowColumns(Root<DemandePrestation> root) {
+        Join<DemandePrestation, AdhAgent> agent = leftJoin(root, "agent");
+        Join<DemandePrestation, PrestationRef> prestation = leftJoin(root, "prestation");
+        return List.of(root.get("id"), root.get("statut"), root.get("dateDemande"), root.get("dateTraitement"),
+            prestation.get("id"), prestation.get("label"),
+            agent.get("adhAgentId"), agent.get("NOM_AG"), agent.get("PR_AG"), agent.get("idAdh"), agent.get("CIN_AG"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.fosagri.application.repositories;
+
+import com.fosagri.application.entities.DemandeStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DemandeStatRepository extends JpaRepository<DemandeStat, DemandeStat.Key> {
+
+    // Atomic upsert of a single counter cell (PostgreSQL ON CONFLICT)
+    @Modifying
+    @Query(value = "INSERT INTO demande_stats (prestation_id, statut, jour, total) " +
+                   "VALUES (:prestationId, :statut, :jour, :delta) " +
+                   "ON CONFLICT (prestation_id, statut, jour) " +
+                   "DO UPDATE SET total = demande_stats.total + EXCLUDED.total", nativeQuery = true)
+    int increment(@Param("prestationId") Long prestationId,
+                  @Param("statut") String statut,
+                  @Param("jour") LocalDate jour,
+                  @Param("delta") long delta);
+
+    @Query("SELECT COALESCE(SUM(s.total), 0) FROM DemandeStat s")
+    long sumTotal();
+
+    @Query("SELECT COALESCE(SUM(s.total), 0) FROM DemandeStat s WHERE s.statut = :statut")
+    long sumByStatut(@Param("statut") String statut);
+
+    // Same shape as DemandePrestationRepository.countGroupByPrestationAndStatut: [prestationId, statut, count]
+    @Query("SELECT s.prestationId, s.statut, SUM(s.total) FROM DemandeStat s GROUP BY s.prestationId, s.statut")
+    List<Object[]> sumGroupByPrestationAndStatut();
+
+    @Modifying
+    @Query(value = "DELETE FROM demande_stats", nativeQuery = true)
+    int deleteAllStats();
+
+    // Recompute every counter from demande_prestation
+    @Modifying
+    @Query(value = "INSERT INTO demande_stats (prestation_id, statut, jour, total) " +
+                   "SELECT COALESCE(prestation_id, 0), COALESCE(statut, 'SOUMISE'), " +
+                   "CAST(COALESCE(date_demande, created, CURRENT_TIMESTAMP) AS date), COUNT(*) " +
+                   "FROM demande_prestation " +
+                   "GROUP BY COALESCE(prestation_id, 0), COALESCE(statut, 'SOUMISE'), " +
+                   "CAST(COALESCE(date_demande, created, CURRENT_TIMESTAMP) AS date)", nativeQuery = true)
+    int insertFromDemandes();
+}
@@ -3,6 +3,7 @@ package com.fosagri.application.repositories;
 import com.fosagri.application.entities.Event;
 import com.fosagri.application.entities.Event.TypeEvent;
 import com.fosagri.application.entities.Event.CategorieEvent;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -62,6 +63,11 @@ public interface EventRepository extends JpaRepository<Event, Long> {
            "LOWER(e.lieu) LIKE LOWER(CONCAT('%', :term, '%')))")
     List<Event> searchEvents(@Param("term") String term);
 
+    @Query("SELECT e FROM Event e WHERE e.actif = true AND " +
+           "(LOWER(e.titre) LIKE LOWER(CONCAT('%', :term, '%')) OR " +
+           "LOWER(e.lieu) LIKE LOWER(CONCAT('%', :term, '%'))) ORDER BY e.dateDebut DESC")
+    List<Event> searchEvents(@Param("term") String term, Pageable pageable);
+
     @Query("SELECT COUNT(e) FROM Event e WHERE e.actif = true AND e.dateDebut >= :date")
     long countUpcoming(@Param("date") LocalDate date);
 
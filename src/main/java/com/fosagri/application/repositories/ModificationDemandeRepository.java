@@ -1,19 +1,23 @@
 package com.fosagri.application.repositories;
 
+import com.fosagri.application.dto.ModificationRow;
 import com.fosagri.application.entities.ModificationDemande;
 import com.fosagri.application.entities.ModificationDemande.StatutModification;
 import com.fosagri.application.entities.ModificationDemande.TypeEntite;
 import com.fosagri.application.model.AdhAgent;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ModificationDemandeRepository extends JpaRepository<ModificationDemande, Long> {
+public interface ModificationDemandeRepository extends JpaRepository<ModificationDemande, Long>, JpaSpecificationExecutor<ModificationDemande> {
 
     // Find by ID with all fields
     @Query("SELECT m FROM ModificationDemande m LEFT JOIN FETCH m.agent WHERE m.id = :id")
@@ -55,10 +59,34 @@ public interface ModificationDemandeRepository extends JpaRepository<Modificatio
     @Query("SELECT COUNT(m) FROM ModificationDemande m WHERE m.agent = :agent AND m.statut = 'EN_ATTENTE'")
     long countPendingByAgent(@Param("agent") AdhAgent agent);
 
-    // Search modifications
-    @Query("SELECT m FROM ModificationDemande m LEFT JOIN FETCH m.agent WHERE " +
-           "m.agent.NOM_AG LIKE %:term% OR m.agent.PR_AG LIKE %:term% OR m.entiteLabel LIKE %:term%")
-    List<ModificationDemande> searchModifications(@Param("term") String term);
+    // LOB-free list rows (no JSON values, documents or agent photos)
+    @Query("SELECT new com.fosagri.application.dto.ModificationRow(m.id, m.typeEntite, m.typeAction, m.entiteId, " +
+           "m.entiteLabel, m.statut, m.dateCreation, m.dateTraitement, a.adhAgentId, a.NOM_AG, a.PR_AG, a.idAdh, a.CIN_AG) " +
+           "FROM ModificationDemande m LEFT JOIN m.agent a ORDER BY m.dateCreation DESC")
+    List<ModificationRow> findAllRows();
+
+    @Query("SELECT new com.fosagri.application.dto.ModificationRow(m.id, m.typeEntite, m.typeAction, m.entiteId, " +
+           "m.entiteLabel, m.statut, m.dateCreation, m.dateTraitement, a.adhAgentId, a.NOM_AG, a.PR_AG, a.idAdh, a.CIN_AG) " +
+           "FROM ModificationDemande m LEFT JOIN m.agent a WHERE m.statut = :statut ORDER BY m.dateCreation DESC")
+    List<ModificationRow> findRowsByStatut(@Param("statut") StatutModification statut);
+
+    @Query("SELECT new com.fosagri.application.dto.ModificationRow(m.id, m.typeEntite, m.typeAction, m.entiteId, " +
+           "m.entiteLabel, m.statut, m.dateCreation, m.dateTraitement, a.adhAgentId, a.NOM_AG, a.PR_AG, a.idAdh, a.CIN_AG) " +
+           "FROM ModificationDemande m LEFT JOIN m.agent a WHERE " +
+           "a.searchText LIKE :pattern OR m.searchText LIKE :pattern " +
+           "ORDER BY m.dateCreation DESC")
+    List<ModificationRow> searchRows(@Param("pattern") String pattern);
+
+    // Recherche globale : demandes de modification des agents retrouvés, puis par libellé d'entité
+    @Query("SELECT new com.fosagri.application.dto.ModificationRow(m.id, m.typeEntite, m.typeAction, m.entiteId, " +
+           "m.entiteLabel, m.statut, m.dateCreation, m.dateTraitement, a.adhAgentId, a.NOM_AG, a.PR_AG, a.idAdh, a.CIN_AG) " +
+           "FROM ModificationDemande m LEFT JOIN m.agent a WHERE a.adhAgentId IN :agentIds ORDER BY m.dateCreation DESC")
+    List<ModificationRow> findRowsByAgentIds(@Param("agentIds") Collection<Integer> agentIds, Pageable pageable);
+
+    @Query("SELECT new com.fosagri.application.dto.ModificationRow(m.id, m.typeEntite, m.typeAction, m.entiteId, " +
+           "m.entiteLabel, m.statut, m.dateCreation, m.dateTraitement, a.adhAgentId, a.NOM_AG, a.PR_AG, a.idAdh, a.CIN_AG) " +
+           "FROM ModificationDemande m LEFT JOIN m.agent a WHERE m.searchText LIKE :pattern ORDER BY m.dateCreation DESC")
+    List<ModificationRow> findRowsByEntiteLabel(@Param("pattern") String pattern, Pageable pageable);
 
     // Find by entity type and status
     List<ModificationDemande> findByTypeEntiteAndStatut(TypeEntite type, StatutModification statut);
@@ -0,0 +1,67 @@
+package com.fosagri.application.repositories;
+
+import com.fosagri.application.dto.ModificationFilter;
+import com.fosagri.application.entities.ModificationDemande;
+import com.fosagri.application.model.AdhAgent;
+import com.fosagri.application.utils.SearchNormalizer;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.fosagri.application.repositories.RowQueries.isBlank;
+import static com.fosagri.application.repositories.RowQueries.leftJoin;
+
+/**
+ * Critères de ModificationFilter en une seule requête. Le texte porte sur les clés de recherche
+ * persistées de l'agent et du libellé d'entité (index trigrammes sous PostgreSQL).
+ */
+public final class ModificationSpecifications {
+
+    private ModificationSpecifications() {
+    }
+
+    public static Specification<ModificationDemande> matching(ModificationFilter filter) {
+        return (root, query, cb) -> {
+            Join<ModificationDemande, AdhAgent> agent = leftJoin(root, "agent");
+            List<Predicate> predicates = new ArrayList<>();
+
+            String normalized = SearchNormalizer.normalize(filter.search());
+            if (!normalized.isEmpty()) {
+                String pattern = SearchNormalizer.containsPattern(normalized);
+                predicates.add(cb.or(cb.like(agent.get("searchText"), pattern), cb.like(root.get("searchText"), pattern)));
+            }
+            if (filter.statut() != null) {
+                predicates.add(cb.equal(root.get("statut"), filter.statut()));
+            }
+            if (filter.typeEntite() != null) {
+                predicates.add(cb.equal(root.get("typeEntite"), filter.typeEntite()));
+            }
+            if (filter.typeAction() != null) {
+                predicates.add(cb.equal(root.get("typeAction"), filter.typeAction()));
+            }
+            if (!isBlank(filter.ville())) {
+                predicates.add(cb.equal(cb.lower(agent.get("ville")), filter.ville().trim().toLowerCase()));
+            }
+            Predicate dates = RowQueries.dateBetween(cb, root.get("dateCreation"), filter.from(), filter.to());
+            if (dates != null) {
+                predicates.add(dates);
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Colonnes du constructeur plat de ModificationRow.
+     */
+    public static List<Selection<?>> rowColumns(Root<ModificationDemande> root) {
+        Join<ModificationDemande, AdhAgent> agent = leftJoin(root, "agent");
+        return List.of(root.get("id"), root.get("typeEntite"), root.get("typeAction"), root.get("entiteId"),
+            root.get("entiteLabel"), root.get("statut"), root.get("dateCreation"), root.get("dateTraitement"),
+            agent.get("adhAgentId"), agent.get("NOM_AG"), agent.get("PR_AG"), agent.get("idAdh"), agent.get("CIN_AG"));
+    }
+}
@@ -0,0 +1,25 @@
+package com.fosagri.application.repositories;
+
+import com.fosagri.application.entities.PersonDocument;
+import com.fosagri.application.entities.PersonDocument.Kind;
+import com.fosagri.application.entities.PersonDocument.OwnerType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PersonDocumentRepository extends JpaRepository<PersonDocument, Long> {
+
+    Optional<PersonDocument> findByOwnerTypeAndOwnerIdAndKind(OwnerType ownerType, Integer ownerId, Kind kind);
+
+    List<PersonDocument> findByOwnerTypeAndOwnerId(OwnerType ownerType, Integer ownerId);
+
+    @Query("SELECT d FROM PersonDocument d WHERE d.ownerType = :ownerType AND d.ownerId IN :ownerIds")
+    List<PersonDocument> findByOwnerTypeAndOwnerIds(@Param("ownerType") OwnerType ownerType,
+                                                    @Param("ownerIds") Collection<Integer> ownerIds);
+}
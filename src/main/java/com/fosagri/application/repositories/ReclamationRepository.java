@@ -1,20 +1,24 @@
 package com.fosagri.application.repositories;
 
+import com.fosagri.application.dto.ReclamationRow;
 import com.fosagri.application.entities.Reclamation;
 import com.fosagri.application.entities.Reclamation.StatutReclamation;
 import com.fosagri.application.entities.Reclamation.TypeReclamation;
 import com.fosagri.application.model.AdhAgent;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ReclamationRepository extends JpaRepository<Reclamation, Long> {
+public interface ReclamationRepository extends JpaRepository<Reclamation, Long>, JpaSpecificationExecutor<Reclamation> {
     
     // Find by agent
     List<Reclamation> findByAgentOrderByDateCreationDesc(AdhAgent agent);
@@ -46,6 +50,74 @@ public interface ReclamationRepository extends JpaRepository<Reclamation, Long>
     @Query("SELECT a.NOM_AG, a.PR_AG FROM Reclamation r JOIN r.agent a WHERE r.id = :id")
     Object[] findAgentNameByReclamationId(@Param("id") Long id);
     
+    // LOB-free list rows (no detail, attachment or agent photos)
+    @Query("SELECT new com.fosagri.application.dto.ReclamationRow(r.id, r.objet, r.type, r.statut, r.priorite, " +
+           "r.dateCreation, r.dateTraitement, a.adhAgentId, a.NOM_AG, a.PR_AG, a.idAdh, a.CIN_AG) " +
+           "FROM Reclamation r LEFT JOIN r.agent a ORDER BY r.dateCreation DESC")
+    List<ReclamationRow> findAllRows();
+
+    @Query("SELECT new com.fosagri.application.dto.ReclamationRow(r.id, r.objet, r.type, r.statut, r.priorite, " +
+           "r.dateCreation, r.dateTraitement, a.adhAgentId, a.NOM_AG, a.PR_AG, a.idAdh, a.CIN_AG) " +
+           "FROM Reclamation r LEFT JOIN r.agent a WHERE r.statut = :statut ORDER BY r.dateCreation DESC")
+    List<ReclamationRow> findRowsByStatut(@Param("statut") StatutReclamation statut);
+
+    @Query("SELECT new com.fosagri.application.dto.ReclamationRow(r.id, r.objet, r.type, r.statut, r.priorite, " +
+           "r.dateCreation, r.dateTraitement, a.adhAgentId, a.NOM_AG, a.PR_AG, a.idAdh, a.CIN_AG) " +
+           "FROM Reclamation r LEFT JOIN r.agent a WHERE r.type = :type ORDER BY r.dateCreation DESC")
+    List<ReclamationRow> findRowsByType(@Param("type") TypeReclamation type);
+
+    @Query("SELECT new com.fosagri.application.dto.ReclamationRow(r.id, r.objet, r.type, r.statut, r.priorite, " +
+           "r.dateCreation, r.dateTraitement, a.adhAgentId, a.NOM_AG, a.PR_AG, a.idAdh, a.CIN_AG) " +
+           "FROM Reclamation r LEFT JOIN r.agent a WHERE " +
+           "LOWER(r.objet) LIKE LOWER(CONCAT('%', :searchText, '%')) OR " +
+           "LOWER(r.detail) LIKE LOWER(CONCAT('%', :searchText, '%')) OR " +
+           "LOWER(a.NOM_AG) LIKE LOWER(CONCAT('%', :searchText, '%')) OR " +
+           "LOWER(a.PR_AG) LIKE LOWER(CONCAT('%', :searchText, '%')) " +
+           "ORDER BY r.dateCreation DESC")
+    List<ReclamationRow> searchRows(@Param("searchText") String searchText);
+
+    // Recherche globale : réclamations des agents retrouvés, puis par objet
+    @Query("SELECT new com.fosagri.application.dto.ReclamationRow(r.id, r.objet, r.type, r.statut, r.priorite, " +
+           "r.dateCreation, r.dateTraitement, a.adhAgentId, a.NOM_AG, a.PR_AG, a.idAdh, a.CIN_AG) " +
+           "FROM Reclamation r LEFT JOIN r.agent a WHERE a.adhAgentId IN :agentIds ORDER BY r.dateCreation DESC")
+    List<ReclamationRow> findRowsByAgentIds(@Param("agentIds") Collection<Integer> agentIds, Pageable pageable);
+
+    // Recherche plein texte (colonne search_vector, voir ReclamationSearchSchemaService) sur objet
+    // et détail, plus les réclamations des agents dont la clé de recherche contient le terme,
+    // combinée aux autres critères de ReclamationFilter (null = pas de filtre, dateTo exclue)
+    String FULL_TEXT_MATCH =
+        "r.id IN (SELECT id FROM reclamations WHERE search_vector @@ " +
+        "(plainto_tsquery('french', :text) || plainto_tsquery('simple', :text)) " +
+        "UNION SELECT r2.id FROM reclamations r2 JOIN adhagent a ON a.adhagentid = r2.agent_id " +
+        "WHERE a.search_text LIKE :agentPattern) " +
+        "AND (CAST(:statut AS text) IS NULL OR r.statut = CAST(:statut AS text)) " +
+        "AND (CAST(:type AS text) IS NULL OR r.type = CAST(:type AS text)) " +
+        "AND (CAST(:ville AS text) IS NULL OR r.agent_id IN " +
+        "(SELECT adhagentid FROM adhagent WHERE LOWER(ville) = CAST(:ville AS text))) " +
+        "AND (CAST(:dateFrom AS timestamp) IS NULL OR r.date_creation >= CAST(:dateFrom AS timestamp)) " +
+        "AND (CAST(:dateTo AS timestamp) IS NULL OR r.date_creation < CAST(:dateTo AS timestamp))";
+
+    // order : 'rank' (plus pertinentes d'abord), 'date_asc' ou 'date_desc' (tri de la grille)
+    @Query(value = "SELECT r.id FROM reclamations r WHERE " + FULL_TEXT_MATCH + " ORDER BY " +
+           "CASE WHEN CAST(:order AS text) = 'rank' THEN ts_rank_cd(r.search_vector, " +
+           "plainto_tsquery('french', :text) || plainto_tsquery('simple', :text)) END DESC, " +
+           "CASE WHEN CAST(:order AS text) = 'date_asc' THEN r.date_creation END ASC, " +
+           "r.date_creation DESC, r.id DESC LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Long> searchFullTextIds(@Param("text") String text, @Param("agentPattern") String agentPattern,
+                                 @Param("statut") String statut, @Param("type") String type, @Param("ville") String ville,
+                                 @Param("dateFrom") Date dateFrom, @Param("dateTo") Date dateTo,
+                                 @Param("order") String order, @Param("limit") int limit, @Param("offset") long offset);
+
+    @Query(value = "SELECT COUNT(*) FROM reclamations r WHERE " + FULL_TEXT_MATCH, nativeQuery = true)
+    long countFullText(@Param("text") String text, @Param("agentPattern") String agentPattern,
+                       @Param("statut") String statut, @Param("type") String type, @Param("ville") String ville,
+                       @Param("dateFrom") Date dateFrom, @Param("dateTo") Date dateTo);
+
+    @Query("SELECT new com.fosagri.application.dto.ReclamationRow(r.id, r.objet, r.type, r.statut, r.priorite, " +
+           "r.dateCreation, r.dateTraitement, a.adhAgentId, a.NOM_AG, a.PR_AG, a.idAdh, a.CIN_AG) " +
+           "FROM Reclamation r LEFT JOIN r.agent a WHERE r.id IN :ids")
+    List<ReclamationRow> findRowsByIds(@Param("ids") Collection<Long> ids);
+    
     // Count by status
     long countByStatut(StatutReclamation statut);
     
@@ -0,0 +1,71 @@
+package com.fosagri.application.repositories;
+
+import com.fosagri.application.dto.ReclamationFilter;
+import com.fosagri.application.entities.Reclamation;
+import com.fosagri.application.model.AdhAgent;
+import com.fosagri.application.utils.SearchNormalizer;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.fosagri.application.repositories.RowQueries.isBlank;
+import static com.fosagri.application.repositories.RowQueries.leftJoin;
+
+/**
+ * Critères de ReclamationFilter en une seule requête. Le texte est cherché ici par LIKE ;
+ * sous PostgreSQL, ReclamationService passe par la recherche plein texte de ReclamationRepository
+ * (mêmes critères) dès qu'un texte est saisi.
+ */
+public final class ReclamationSpecifications {
+
+    private ReclamationSpecifications() {
+    }
+
+    public static Specification<Reclamation> matching(ReclamationFilter filter) {
+        return (root, query, cb) -> {
+            Join<Reclamation, AdhAgent> agent = leftJoin(root, "agent");
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (filter.hasSearch()) {
+                String pattern = "%" + filter.search().trim().toLowerCase() + "%";
+                List<Predicate> text = new ArrayList<>(List.of(
+                    cb.like(cb.lower(root.get("objet")), pattern),
+                    cb.like(cb.lower(root.get("detail")), pattern)));
+                String normalized = SearchNormalizer.normalize(filter.search());
+                if (!normalized.isEmpty()) {
+                    text.add(cb.like(agent.get("searchText"), SearchNormalizer.containsPattern(normalized)));
+                }
+                predicates.add(cb.or(text.toArray(new Predicate[0])));
+            }
+            if (filter.statut() != null) {
+                predicates.add(cb.equal(root.get("statut"), filter.statut()));
+            }
+            if (filter.type() != null) {
+                predicates.add(cb.equal(root.get("type"), filter.type()));
+            }
+            if (!isBlank(filter.ville())) {
+                predicates.add(cb.equal(cb.lower(agent.get("ville")), filter.ville().trim().toLowerCase()));
+            }
+            Predicate dates = RowQueries.dateBetween(cb, root.get("dateCreation"), filter.from(), filter.to());
+            if (dates != null) {
+                predicates.add(dates);
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Colonnes du constructeur plat de ReclamationRow.
+     */
+    public static List<Selection<?>> rowColumns(Root<Reclamation> root) {
+        Join<Reclamation, AdhAgent> agent = leftJoin(root, "agent");
+        return List.of(root.get("id"), root.get("objet"), root.get("type"), root.get("statut"), root.get("priorite"),
+            root.get("dateCreation"), root.get("dateTraitement"),
+            agent.get("adhAgentId"), agent.get("NOM_AG"), agent.get("PR_AG"), agent.get("idAdh"), agent.get("CIN_AG"));
+    }
+}
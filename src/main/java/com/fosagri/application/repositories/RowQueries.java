@@ -0,0 +1,96 @@
+package com.fosagri.application.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Exécution d'une Specification avec projection en lignes légères (SELECT new ...), tri et
+ * pagination en base, pour les grilles d'administration. Le comptage correspondant passe par
+ * JpaSpecificationExecutor.count(spec).
+ *
+ * Les Specifications et la liste de colonnes partagent les jointures via leftJoin(), pour
+ * qu'une même association ne soit jointe qu'une fois.
+ */
+@Repository
+public class RowQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public <E, R> List<R> findRows(Class<E> entityType, Class<R> rowType, Specification<E> spec,
+                                   Function<Root<E>, List<Selection<?>>> columns, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> query = cb.createQuery(rowType);
+        Root<E> root = query.from(entityType);
+
+        Predicate where = spec.toPredicate(root, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        query.select(cb.construct(rowType, columns.apply(root).toArray(new Selection<?>[0])));
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<R> typed = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize());
+        }
+        return typed.getResultList();
+    }
+
+    /**
+     * Jointure externe sur l'association, réutilisée si elle existe déjà sur from.
+     */
+    @SuppressWarnings("unchecked")
+    public static <X, Y> Join<X, Y> leftJoin(From<?, X> from, String attribute) {
+        for (Join<X, ?> join : from.getJoins()) {
+            if (join.getAttribute().getName().equals(attribute) && join.getJoinType() == JoinType.LEFT) {
+                return (Join<X, Y>) join;
+            }
+        }
+        return from.join(attribute, JoinType.LEFT);
+    }
+
+    /**
+     * date dans [from, to] (jours inclus) ; bornes null ignorées. null si aucune borne.
+     */
+    public static Predicate dateBetween(CriteriaBuilder cb, Path<Date> date, LocalDate from, LocalDate to) {
+        Predicate predicate = null;
+        if (from != null) {
+            predicate = cb.greaterThanOrEqualTo(date, startOfDay(from));
+        }
+        if (to != null) {
+            Predicate before = cb.lessThan(date, startOfDay(to.plusDays(1)));
+            predicate = predicate == null ? before : cb.and(predicate, before);
+        }
+        return predicate;
+    }
+
+    public static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static Date startOfDay(LocalDate day) {
+        return Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
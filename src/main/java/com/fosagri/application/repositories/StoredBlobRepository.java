@@ -0,0 +1,46 @@
+package com.fosagri.application.repositories;
+
+import com.fosagri.application.entities.StoredBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+
+    // Atomic "create or add a reference" (PostgreSQL ON CONFLICT); an existing blob keeps its path
+    @Modifying
+    @Query(value = "INSERT INTO stored_blob (sha256, size, storage_path, ref_count, created) " +
+                   "VALUES (:sha256, :size, :storagePath, 1, CURRENT_TIMESTAMP) " +
+                   "ON CONFLICT (sha256) DO UPDATE SET ref_count = stored_blob.ref_count + 1", nativeQuery = true)
+    int addReference(@Param("sha256") String sha256,
+                     @Param("size") long size,
+                     @Param("storagePath") String storagePath);
+
+    // Row without reference if none exists; waits for a concurrent uncommitted addReference of the same content
+    @Modifying
+    @Query(value = "INSERT INTO stored_blob (sha256, size, storage_path, ref_count, created) " +
+                   "VALUES (:sha256, :size, :storagePath, 0, CURRENT_TIMESTAMP) " +
+                   "ON CONFLICT (sha256) DO NOTHING", nativeQuery = true)
+    int insertUnreferenced(@Param("sha256") String sha256,
+                           @Param("size") long size,
+                           @Param("storagePath") String storagePath);
+
+    @Query(value = "SELECT storage_path FROM stored_blob WHERE sha256 = :sha256", nativeQuery = true)
+    String findStoragePath(@Param("sha256") String sha256);
+
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount - 1 WHERE b.sha256 = :sha256 AND b.refCount > 0")
+    int removeReference(@Param("sha256") String sha256);
+
+    // Row lock: a concurrent addReference waits until the purge decision is committed
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM StoredBlob b WHERE b.sha256 = :sha256")
+    Optional<StoredBlob> findForUpdate(@Param("sha256") String sha256);
+}
@@ -1,11 +1,13 @@
 package com.fosagri.application.repository;
 
+import com.fosagri.application.dto.AgentSearchRow;
 import com.fosagri.application.model.AdhAgent;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,21 +27,27 @@ public interface AdhAgentRepository extends JpaRepository<AdhAgent, Integer> {
     @Query("SELECT a FROM AdhAgent a WHERE UPPER(a.PR_AG) LIKE UPPER(CONCAT('%', :prenom, '%'))")
     List<AdhAgent> findByPrenomContainingIgnoreCase(@Param("prenom") String prenom);
     
-    @Query("SELECT a FROM AdhAgent a WHERE UPPER(a.NOM_AG) LIKE UPPER(CONCAT('%', :searchTerm, '%')) OR UPPER(a.PR_AG) LIKE UPPER(CONCAT('%', :searchTerm, '%')) OR UPPER(a.idAdh) LIKE UPPER(CONCAT('%', :searchTerm, '%'))")
-    List<AdhAgent> findBySearchTerm(@Param("searchTerm") String searchTerm);
-
-    // Fuzzy search - searches across multiple fields with flexible matching
-    @Query("SELECT DISTINCT a FROM AdhAgent a WHERE " +
-           "LOWER(a.NOM_AG) LIKE LOWER(CONCAT('%', :term, '%')) OR " +
-           "LOWER(a.PR_AG) LIKE LOWER(CONCAT('%', :term, '%')) OR " +
-           "LOWER(CONCAT(a.NOM_AG, ' ', a.PR_AG)) LIKE LOWER(CONCAT('%', :term, '%')) OR " +
-           "LOWER(CONCAT(a.PR_AG, ' ', a.NOM_AG)) LIKE LOWER(CONCAT('%', :term, '%')) OR " +
-           "LOWER(a.idAdh) LIKE LOWER(CONCAT('%', :term, '%')) OR " +
-           "LOWER(a.CIN_AG) LIKE LOWER(CONCAT('%', :term, '%')) OR " +
-           "LOWER(a.codAg) LIKE LOWER(CONCAT('%', :term, '%')) OR " +
-           "LOWER(a.ville) LIKE LOWER(CONCAT('%', :term, '%')) OR " +
-           "LOWER(a.num_Tel) LIKE LOWER(CONCAT('%', :term, '%'))")
-    List<AdhAgent> fuzzySearch(@Param("term") String term);
+    // Persisted keys (SearchNormalizer): trigram GIN indexes under PostgreSQL, no LOWER() at query time
+    @Query("SELECT a FROM AdhAgent a WHERE a.searchText LIKE :pattern OR a.phoneticKey LIKE :phonetic")
+    List<AdhAgent> searchByKeys(@Param("pattern") String pattern, @Param("phonetic") String phonetic);
 
     List<AdhAgent> findByVille(String ville);
+
+    // pg_trgm ranked search on the persisted keys: substring matches first, then phonetic matches, then
+    // word similarity; [id, nom, prenom, nomAr, prenomAr, idAdh, cin, ville]. :term is normalized by SearchNormalizer
+    @Query(value = "SELECT adhagentid, nom_ag, pr_ag, nom_ag_ar, pr_ag_ar, id_adh, cin_ag, ville FROM adhagent " +
+           "WHERE search_text LIKE :pattern OR phonetic_key LIKE :phonetic OR :term <% search_text " +
+           "ORDER BY CASE WHEN search_text LIKE :pattern THEN 0 WHEN phonetic_key LIKE :phonetic THEN 1 ELSE 2 END, " +
+           "word_similarity(:term, search_text) DESC, adhagentid LIMIT :limit", nativeQuery = true)
+    List<Object[]> fuzzySearchRanked(@Param("term") String term, @Param("pattern") String pattern,
+                                     @Param("phonetic") String phonetic, @Param("limit") int limit);
+
+    @Query("SELECT new com.fosagri.application.dto.AgentSearchRow(a.adhAgentId, a.NOM_AG, a.PR_AG, a.NOM_AG_AR, a.PR_AG_AR, " +
+           "a.idAdh, a.CIN_AG, a.ville) FROM AdhAgent a WHERE a.adhAgentId IN :ids")
+    List<AgentSearchRow> findSearchRowsByIds(@Param("ids") Collection<Integer> ids);
+
+    // Searchable columns only, to build AgentSearchIndex without loading entities
+    @Query("SELECT a.adhAgentId, a.NOM_AG, a.PR_AG, a.NOM_AG_AR, a.PR_AG_AR, a.idAdh, a.CIN_AG, a.codAg, a.ville, a.num_Tel " +
+           "FROM AdhAgent a")
+    List<Object[]> findSearchFields();
 }
\ No newline at end of file
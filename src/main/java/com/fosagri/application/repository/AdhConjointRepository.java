@@ -22,4 +22,8 @@ public interface AdhConjointRepository extends JpaRepository<AdhConjoint, Intege
     List<AdhConjoint> findByValideTrue();
 
     long countByAdhAgent(AdhAgent adhAgent);
+
+    // Persisted keys (SearchNormalizer): trigram GIN indexes under PostgreSQL, no LOWER() at query time
+    @Query("SELECT c FROM AdhConjoint c WHERE c.searchText LIKE :pattern OR c.phoneticKey LIKE :phonetic ORDER BY c.NOM_CONJ, c.PR_CONJ")
+    List<AdhConjoint> searchByKeys(@Param("pattern") String pattern, @Param("phonetic") String phonetic);
 }
\ No newline at end of file
@@ -22,4 +22,8 @@ public interface AdhEnfantRepository extends JpaRepository<AdhEnfant, Integer> {
     List<AdhEnfant> findByValideTrue();
 
     long countByAdhAgent(AdhAgent adhAgent);
+
+    // Persisted keys (SearchNormalizer): trigram GIN indexes under PostgreSQL, no LOWER() at query time
+    @Query("SELECT e FROM AdhEnfant e WHERE e.searchText LIKE :pattern OR e.phoneticKey LIKE :phonetic ORDER BY e.nom_pac, e.pr_pac")
+    List<AdhEnfant> searchByKeys(@Param("pattern") String pattern, @Param("phonetic") String phonetic);
 }
\ No newline at end of file
@@ -32,6 +32,7 @@ public class SecurityConfiguration extends VaadinWebSecurity {
             .requestMatchers(new AntPathRequestMatcher("/images/**")).permitAll()
             .requestMatchers(new AntPathRequestMatcher("/icons/**")).permitAll()
             .requestMatchers(new AntPathRequestMatcher("/frontend/**")).permitAll()
+            .requestMatchers(new AntPathRequestMatcher("/api/search/**")).hasAnyRole(Roles.ADMIN, Roles.MANAGER)
         );
 
         // Configure access denied handling
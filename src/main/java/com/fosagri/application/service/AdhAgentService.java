@@ -1,24 +1,51 @@
 package com.fosagri.application.service;
 
+import com.fosagri.application.dto.AgentSearchRow;
+import com.fosagri.application.entities.PersonDocument.Kind;
+import com.fosagri.application.entities.PersonDocument.OwnerType;
 import com.fosagri.application.model.AdhAgent;
 import com.fosagri.application.repository.AdhAgentRepository;
+import com.fosagri.application.repository.AdhConjointRepository;
+import com.fosagri.application.repository.AdhEnfantRepository;
+import com.fosagri.application.services.PersonDocumentService;
+import com.fosagri.application.utils.SearchNormalizer;
+import com.fosagri.application.utils.TransactionHooks;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class AdhAgentService {
 
+    public static final int FUZZY_SEARCH_LIMIT = 200;
+
     @Autowired
     private AdhAgentRepository adhAgentRepository;
 
+    @Autowired
+    private AdhConjointRepository adhConjointRepository;
+
+    @Autowired
+    private AdhEnfantRepository adhEnfantRepository;
+
+    @Autowired
+    private PersonDocumentService documentService;
+
+    @Autowired
+    private AgentSearchIndex searchIndex;
+
+    @Autowired
+    private PersonSearchSchemaService searchSchema;
+
     public List<AdhAgent> findAll() {
         return adhAgentRepository.findAll();
     }
@@ -36,79 +63,101 @@ public class AdhAgentService {
     }
 
     public List<AdhAgent> searchAgents(String searchTerm) {
-        if (searchTerm == null || searchTerm.trim().isEmpty()) {
+        String term = SearchNormalizer.normalize(searchTerm);
+        if (term.isEmpty()) {
             return findAll();
         }
-        return adhAgentRepository.findBySearchTerm(searchTerm.trim());
+        return adhAgentRepository.searchByKeys(SearchNormalizer.containsPattern(term),
+            SearchNormalizer.phoneticPattern(searchTerm));
     }
 
     /**
      * Fuzzy search - searches across multiple fields and handles multiple words
-     * Handles: "al koul" -> "alkoul", "ahmed kalo" -> "kalo ahmed"
-     * Searches: nom, prenom, full name (both orders), ID, CIN, code agent, ville, phone
+     * Handles: "al koul" -> "alkoul", "ahmed kalo" -> "kalo ahmed", small typos
+     * Searches: nom, prenom (latin and arabic), full name (both orders), ID, CIN, code agent, ville, phone
+     * Returns at most FUZZY_SEARCH_LIMIT agents, best matches first.
      */
     public List<AdhAgent> fuzzySearch(String searchTerm) {
+        return fuzzySearch(searchTerm, FUZZY_SEARCH_LIMIT);
+    }
+
+    /**
+     * Comme fuzzySearch(String), au plus limit agents (terme vide : les limit premiers agents).
+     */
+    public List<AdhAgent> fuzzySearch(String searchTerm, int limit) {
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
-            return findAll();
+            return adhAgentRepository.findAll(PageRequest.of(0, limit)).getContent();
         }
 
-        String term = searchTerm.trim().toLowerCase();
-        Set<AdhAgent> resultSet = new HashSet<>();
-
-        // 1. Search with original term
-        resultSet.addAll(adhAgentRepository.fuzzySearch(term));
+        List<Integer> ids = searchAgentRows(searchTerm, limit).stream().map(AgentSearchRow::id).toList();
+        Map<Integer, AdhAgent> agentsById = adhAgentRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(AdhAgent::getAdhAgentId, Function.identity()));
+        return ids.stream().map(agentsById::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
 
-        // 2. Search with spaces removed (al koul -> alkoul)
-        String noSpaces = term.replaceAll("\\s+", "");
-        if (!noSpaces.equals(term)) {
-            resultSet.addAll(adhAgentRepository.fuzzySearch(noSpaces));
+    /**
+     * Recherche classée, en projection légère. Sous PostgreSQL une seule requête pg_trgm
+     * (partagée par tous les nœuds) ; sinon l'index trigrammes en mémoire.
+     */
+    public List<AgentSearchRow> searchAgentRows(String searchTerm, int limit) {
+        String term = SearchNormalizer.normalize(searchTerm);
+        if (term.isEmpty()) {
+            return List.of();
+        }
+        if (searchSchema.isAvailable()) {
+            return adhAgentRepository.fuzzySearchRanked(term, SearchNormalizer.containsPattern(term),
+                    SearchNormalizer.phoneticPattern(searchTerm), limit).stream()
+                .map(row -> new AgentSearchRow(((Number) row[0]).intValue(), (String) row[1], (String) row[2],
+                    (String) row[3], (String) row[4], (String) row[5], (String) row[6], (String) row[7]))
+                .toList();
         }
 
-        // 3. If multiple words, try different combinations
-        if (term.contains(" ")) {
-            String[] words = term.split("\\s+");
-
-            // Reversed order (ahmed kalo -> kalo ahmed)
-            if (words.length == 2) {
-                String reversed = words[1] + " " + words[0];
-                resultSet.addAll(adhAgentRepository.fuzzySearch(reversed));
-
-                // Also try reversed without space
-                resultSet.addAll(adhAgentRepository.fuzzySearch(words[1] + words[0]));
-            }
-
-            // Search each word individually and find intersection
-            Set<AdhAgent> intersectionSet = null;
-            for (String word : words) {
-                if (word.length() < 2) continue;
-
-                List<AdhAgent> wordResults = adhAgentRepository.fuzzySearch(word);
-
-                if (intersectionSet == null) {
-                    intersectionSet = new HashSet<>(wordResults);
-                } else {
-                    intersectionSet.retainAll(new HashSet<>(wordResults));
-                }
-            }
-
-            if (intersectionSet != null) {
-                resultSet.addAll(intersectionSet);
-            }
+        List<Integer> ids = searchIndex.search(searchTerm, limit);
+        if (ids.isEmpty()) {
+            return List.of();
         }
+        Map<Integer, AgentSearchRow> rowsById = adhAgentRepository.findSearchRowsByIds(ids).stream()
+            .collect(Collectors.toMap(AgentSearchRow::id, Function.identity()));
+        return ids.stream().map(rowsById::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Remplit les pièces jointes (photo, CIN, RIB) de l'agent, qui ne sont pas chargées par défaut.
+     */
+    public AdhAgent loadDocuments(AdhAgent agent) {
+        return documentService.loadDocuments(agent);
+    }
 
-        return resultSet.stream().collect(Collectors.toList());
+    /**
+     * Photo seule (pour les avatars), lue à la demande.
+     */
+    public byte[] readPhoto(AdhAgent agent) {
+        return documentService.readContent(OwnerType.AGENT, agent.getAdhAgentId(), Kind.PHOTO);
     }
 
     public AdhAgent save(AdhAgent agent) {
-        return adhAgentRepository.save(agent);
+        AdhAgent saved = adhAgentRepository.save(agent);
+        agent.setAdhAgentId(saved.getAdhAgentId());
+        documentService.storeDocuments(agent);
+        // Index updates only once the change is visible to other transactions
+        TransactionHooks.afterCommit(() -> searchIndex.put(saved));
+        return saved;
     }
 
     public void delete(AdhAgent agent) {
+        // Conjoints and enfants are removed by cascade, drop their documents too
+        adhConjointRepository.findByAdhAgent(agent)
+            .forEach(c -> documentService.deleteAll(OwnerType.CONJOINT, c.getAdhConjointId()));
+        adhEnfantRepository.findByAdhAgent(agent)
+            .forEach(e -> documentService.deleteAll(OwnerType.ENFANT, e.getAdhEnfantId()));
+        documentService.deleteAll(OwnerType.AGENT, agent.getAdhAgentId());
         adhAgentRepository.delete(agent);
+        Integer agentId = agent.getAdhAgentId();
+        TransactionHooks.afterCommit(() -> searchIndex.remove(agentId));
     }
 
     public void deleteById(Integer id) {
-        adhAgentRepository.deleteById(id);
+        adhAgentRepository.findById(id).ifPresent(this::delete);
     }
 
     public boolean existsByIdAdh(String idAdh) {
@@ -1,8 +1,12 @@
 package com.fosagri.application.service;
 
+import com.fosagri.application.entities.PersonDocument.Kind;
+import com.fosagri.application.entities.PersonDocument.OwnerType;
 import com.fosagri.application.model.AdhConjoint;
 import com.fosagri.application.model.AdhAgent;
 import com.fosagri.application.repository.AdhConjointRepository;
+import com.fosagri.application.services.PersonDocumentService;
+import com.fosagri.application.utils.SearchNormalizer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,6 +21,9 @@ public class AdhConjointService {
     @Autowired
     private AdhConjointRepository adhConjointRepository;
 
+    @Autowired
+    private PersonDocumentService documentService;
+
     public List<AdhConjoint> findAll() {
         return adhConjointRepository.findAll();
     }
@@ -41,16 +48,47 @@ public class AdhConjointService {
         return adhConjointRepository.findByValideTrue();
     }
 
+    /**
+     * Remplit les pièces jointes (photo, CIN, acte de mariage), qui ne sont pas chargées par défaut.
+     */
+    public AdhConjoint loadDocuments(AdhConjoint conjoint) {
+        return documentService.loadDocuments(conjoint);
+    }
+
+    /**
+     * Photo seule (pour les avatars), lue à la demande.
+     */
+    public byte[] readPhoto(AdhConjoint conjoint) {
+        return documentService.readContent(OwnerType.CONJOINT, conjoint.getAdhConjointId(), Kind.PHOTO);
+    }
+
     public AdhConjoint save(AdhConjoint conjoint) {
-        return adhConjointRepository.save(conjoint);
+        AdhConjoint saved = adhConjointRepository.save(conjoint);
+        conjoint.setAdhConjointId(saved.getAdhConjointId());
+        documentService.storeDocuments(conjoint);
+        return saved;
     }
 
     public void delete(AdhConjoint conjoint) {
+        documentService.deleteAll(OwnerType.CONJOINT, conjoint.getAdhConjointId());
         adhConjointRepository.delete(conjoint);
     }
 
     public void deleteById(Integer id) {
-        adhConjointRepository.deleteById(id);
+        adhConjointRepository.findById(id).ifPresent(this::delete);
+    }
+
+    /**
+     * Recherche sur les clés persistées (nom, prénom latin/arabe, CIN, code agent), insensible
+     * aux accents, diacritiques et variantes de transcription.
+     */
+    public List<AdhConjoint> search(String searchTerm) {
+        String term = SearchNormalizer.normalize(searchTerm);
+        if (term.isEmpty()) {
+            return findAll();
+        }
+        return adhConjointRepository.searchByKeys(SearchNormalizer.containsPattern(term),
+            SearchNormalizer.phoneticPattern(searchTerm));
     }
 
     public long count() {
@@ -1,8 +1,12 @@
 package com.fosagri.application.service;
 
+import com.fosagri.application.entities.PersonDocument.Kind;
+import com.fosagri.application.entities.PersonDocument.OwnerType;
 import com.fosagri.application.model.AdhEnfant;
 import com.fosagri.application.model.AdhAgent;
 import com.fosagri.application.repository.AdhEnfantRepository;
+import com.fosagri.application.services.PersonDocumentService;
+import com.fosagri.application.utils.SearchNormalizer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,6 +21,9 @@ public class AdhEnfantService {
     @Autowired
     private AdhEnfantRepository adhEnfantRepository;
 
+    @Autowired
+    private PersonDocumentService documentService;
+
     public List<AdhEnfant> findAll() {
         return adhEnfantRepository.findAll();
     }
@@ -41,16 +48,47 @@ public class AdhEnfantService {
         return adhEnfantRepository.findByValideTrue();
     }
 
+    /**
+     * Remplit les pièces jointes (photo, CIN, attestation de scolarité), qui ne sont pas chargées par défaut.
+     */
+    public AdhEnfant loadDocuments(AdhEnfant enfant) {
+        return documentService.loadDocuments(enfant);
+    }
+
+    /**
+     * Photo seule (pour les avatars), lue à la demande.
+     */
+    public byte[] readPhoto(AdhEnfant enfant) {
+        return documentService.readContent(OwnerType.ENFANT, enfant.getAdhEnfantId(), Kind.PHOTO);
+    }
+
     public AdhEnfant save(AdhEnfant enfant) {
-        return adhEnfantRepository.save(enfant);
+        AdhEnfant saved = adhEnfantRepository.save(enfant);
+        enfant.setAdhEnfantId(saved.getAdhEnfantId());
+        documentService.storeDocuments(enfant);
+        return saved;
     }
 
     public void delete(AdhEnfant enfant) {
+        documentService.deleteAll(OwnerType.ENFANT, enfant.getAdhEnfantId());
         adhEnfantRepository.delete(enfant);
     }
 
     public void deleteById(Integer id) {
-        adhEnfantRepository.deleteById(id);
+        adhEnfantRepository.findById(id).ifPresent(this::delete);
+    }
+
+    /**
+     * Recherche sur les clés persistées (nom, prénom latin/arabe, CIN, code agent), insensible
+     * aux accents, diacritiques et variantes de transcription.
+     */
+    public List<AdhEnfant> search(String searchTerm) {
+        String term = SearchNormalizer.normalize(searchTerm);
+        if (term.isEmpty()) {
+            return findAll();
+        }
+        return adhEnfantRepository.searchByKeys(SearchNormalizer.containsPattern(term),
+            SearchNormalizer.phoneticPattern(searchTerm));
     }
 
     public long count() {
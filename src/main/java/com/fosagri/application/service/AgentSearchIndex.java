@@ -0,0 +1,263 @@
+package com.fosagri.application.service;
+
+import com.fosagri.application.model.AdhAgent;
+import com.fosagri.application.repository.AdhAgentRepository;
+import com.fosagri.application.utils.SearchNormalizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index trigrammes en mémoire pour la recherche approximative d'agents.
+ *
+ * Chaque agent est indexé sur NOM_AG, PR_AG, NOM_AG_AR, PR_AG_AR, idAdh, CIN_AG, codAg, ville
+ * et num_Tel (normalisés par SearchNormalizer), plus nom+prénom accolés dans les deux ordres pour
+ * retrouver "al koul" / "alkoul" ou "ahmed kalo" / "kalo ahmed". L'index est construit au
+ * premier appel à partir d'une projection (aucune entité chargée), puis tenu à jour par
+ * AdhAgentService.save/delete.
+ */
+@Service
+public class AgentSearchIndex {
+
+    // Part minimale des trigrammes de la requête présents chez l'agent pour une correspondance approchée
+    private static final double MIN_SIMILARITY = 0.5;
+
+    @Autowired
+    private AdhAgentRepository adhAgentRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final Map<String, Set<Integer>> postings = new HashMap<>();
+    private volatile boolean loaded;
+
+    /**
+     * Ids des agents correspondant au terme, les meilleurs d'abord, au plus limit résultats.
+     * Doit être appelé dans une transaction au premier usage (construction de l'index).
+     */
+    public List<Integer> search(String term, int limit) {
+        String query = normalize(term);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        ensureLoaded();
+
+        String[] tokens = query.split(" ");
+        String compact = query.replace(" ", "");
+        List<Set<String>> variants = new ArrayList<>();
+        variants.add(tokenGrams(tokens));
+        if (tokens.length > 1) {
+            variants.add(grams(compact));
+        }
+
+        lock.readLock().lock();
+        try {
+            // Termes très courts : peu de trigrammes significatifs, on parcourt les clés
+            Set<Integer> candidates = compact.length() < 3 ? entries.keySet() : candidates(variants);
+
+            List<Scored> scored = new ArrayList<>();
+            for (Integer id : candidates) {
+                Entry entry = entries.get(id);
+                double score = score(entry, query, compact, tokens, variants);
+                if (score > 0) {
+                    scored.add(new Scored(id, score));
+                }
+            }
+            scored.sort(Comparator.comparingDouble(Scored::score).reversed().thenComparingInt(Scored::id));
+            return scored.stream().limit(limit).map(Scored::id).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(AdhAgent agent) {
+        if (!loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            index(agent.getAdhAgentId(), agent.getNOM_AG(), agent.getPR_AG(), agent.getNOM_AG_AR(), agent.getPR_AG_AR(),
+                agent.getIdAdh(), agent.getCIN_AG(), agent.getCodAg(), agent.getVille(), agent.getNum_Tel());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer agentId) {
+        if (!loaded || agentId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            unindex(agentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reconstruit l'index à partir de la base.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            postings.clear();
+            for (Object[] row : adhAgentRepository.findSearchFields()) {
+                index((Integer) row[0], (String) row[1], (String) row[2], (String) row[3], (String) row[4],
+                    (String) row[5], (String) row[6], (String) row[7], (String) row[8], (String) row[9]);
+            }
+            loaded = true;
+            System.out.println("🔎 Index de recherche agents construit (" + entries.size() + " agents, "
+                + postings.size() + " trigrammes)");
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            lock.writeLock().lock();
+            try {
+                if (!loaded) {
+                    rebuild();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void index(int id, String nom, String prenom, String nomAr, String prenomAr,
+                       String idAdh, String cin, String codAg, String ville, String tel) {
+        unindex(id);
+        String n = normalize(nom);
+        String p = normalize(prenom);
+        Set<String> keys = new LinkedHashSet<>();
+        for (String value : new String[] {n, p, normalize(nomAr), normalize(prenomAr), normalize(idAdh),
+                                          normalize(cin), normalize(codAg), normalize(ville), normalize(tel)}) {
+            if (!value.isEmpty()) {
+                keys.add(value);
+            }
+        }
+        if (!n.isEmpty() && !p.isEmpty()) {
+            keys.add(n + " " + p);
+            keys.add(p + " " + n);
+            keys.add((n + p).replace(" ", ""));
+            keys.add((p + n).replace(" ", ""));
+        }
+
+        Set<String> agentGrams = new HashSet<>();
+        for (String key : keys) {
+            agentGrams.addAll(tokenGrams(key.split(" ")));
+        }
+        entries.put(id, new Entry(keys.toArray(new String[0]), agentGrams));
+        for (String gram : agentGrams) {
+            postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void unindex(int id) {
+        Entry previous = entries.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : previous.grams()) {
+            Set<Integer> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private Set<Integer> candidates(List<Set<String>> variants) {
+        Set<Integer> candidates = new HashSet<>();
+        for (Set<String> grams : variants) {
+            for (String gram : grams) {
+                Set<Integer> ids = postings.get(gram);
+                if (ids != null) {
+                    candidates.addAll(ids);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * 0 si l'agent ne correspond pas. Une sous-chaîne exacte (comme l'ancien LIKE '%terme%',
+     * mot à mot pour une requête de plusieurs mots) passe devant une correspondance approchée.
+     */
+    private static double score(Entry entry, String query, String compact, String[] tokens, List<Set<String>> variants) {
+        double similarity = 0;
+        for (Set<String> grams : variants) {
+            if (!grams.isEmpty()) {
+                long matched = grams.stream().filter(entry.grams()::contains).count();
+                similarity = Math.max(similarity, (double) matched / grams.size());
+            }
+        }
+
+        boolean contained = Arrays.stream(entry.keys()).anyMatch(k -> k.contains(query) || k.contains(compact))
+            || Arrays.stream(tokens).allMatch(t -> Arrays.stream(entry.keys()).anyMatch(k -> k.contains(t)));
+        if (!contained && similarity < MIN_SIMILARITY) {
+            return 0;
+        }
+
+        double score = similarity;
+        if (contained) {
+            score += 1;
+        }
+        for (String key : entry.keys()) {
+            if (key.equals(query) || key.equals(compact)) {
+                return score + 1;
+            }
+            if (key.startsWith(query) || key.startsWith(compact)) {
+                score = Math.max(score, similarity + 1.5);
+            }
+        }
+        return score;
+    }
+
+    private static Set<String> tokenGrams(String[] tokens) {
+        Set<String> grams = new HashSet<>();
+        for (String token : tokens) {
+            grams.addAll(grams(token));
+        }
+        return grams;
+    }
+
+    // Trigrammes d'un mot complété comme pg_trgm ("  mot "), pour que début et fin de mot comptent
+    private static Set<String> grams(String token) {
+        Set<String> grams = new HashSet<>();
+        if (token.isEmpty()) {
+            return grams;
+        }
+        String padded = "  " + token + " ";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return SearchNormalizer.normalize(value);
+    }
+
+    private record Entry(String[] keys, Set<String> grams) {
+    }
+
+    private record Scored(int id, double score) {
+    }
+}
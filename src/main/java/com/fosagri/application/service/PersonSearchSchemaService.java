@@ -0,0 +1,88 @@
+package com.fosagri.application.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Extension pg_trgm et index GIN trigrammes sur les clés de recherche (search_text,
+ * phonetic_key) des agents, conjoints et enfants, ainsi que sur search_text des demandes
+ * de modification (PostgreSQL uniquement).
+ *
+ * Avec ces index, les LIKE '%terme%' et le classement par word_similarity des repositories
+ * sont servis par l'index. Si l'extension ne peut pas être installée (droits insuffisants)
+ * ou hors PostgreSQL, isAvailable() est faux et la recherche d'agents passe par AgentSearchIndex.
+ */
+@Service
+public class PersonSearchSchemaService {
+
+    private static final List<String> TABLES = List.of("adhagent", "adhconjoint", "adhenfant");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private volatile Boolean available;
+
+    public boolean isAvailable() {
+        Boolean value = available;
+        if (value == null) {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            value = Boolean.TRUE.equals(transaction.execute(status -> isPostgres() && hasTrigramIndex()));
+            available = value;
+        }
+        return value;
+    }
+
+    /**
+     * Installe pg_trgm si besoin et crée les index trigrammes. Sans effet hors PostgreSQL.
+     */
+    public void ensureTrigramIndexes() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            transaction.executeWithoutResult(status -> {
+                if (!isPostgres()) {
+                    return;
+                }
+                entityManager.createNativeQuery("CREATE EXTENSION IF NOT EXISTS pg_trgm").executeUpdate();
+                // Ancien index sur expression LOWER(...), remplacé par les colonnes persistées
+                entityManager.createNativeQuery("DROP INDEX IF EXISTS idx_adhagent_search_trgm").executeUpdate();
+                for (String table : TABLES) {
+                    for (String column : List.of("search_text", "phonetic_key")) {
+                        entityManager.createNativeQuery("CREATE INDEX IF NOT EXISTS idx_" + table + "_" + column + "_trgm "
+                                + "ON " + table + " USING gin (" + column + " gin_trgm_ops)")
+                            .executeUpdate();
+                    }
+                }
+                entityManager.createNativeQuery("CREATE INDEX IF NOT EXISTS idx_modification_demande_search_text_trgm "
+                        + "ON modification_demande USING gin (search_text gin_trgm_ops)")
+                    .executeUpdate();
+            });
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Index trigrammes non créés, recherche d'agents en mémoire : " + e.getMessage());
+        }
+        available = null;
+    }
+
+    private boolean isPostgres() {
+        String product = entityManager.unwrap(Session.class)
+            .doReturningWork(connection -> connection.getMetaData().getDatabaseProductName());
+        return product != null && product.toLowerCase().contains("postgresql");
+    }
+
+    private boolean hasTrigramIndex() {
+        Number count = (Number) entityManager.createNativeQuery(
+                "SELECT COUNT(*) FROM pg_indexes WHERE tablename = 'adhagent' AND indexname = 'idx_adhagent_search_text_trgm'")
+            .getSingleResult();
+        return count.intValue() > 0;
+    }
+}
@@ -0,0 +1,70 @@
+package com.fosagri.application.service;
+
+import com.fosagri.application.entities.ModificationDemande;
+import com.fosagri.application.model.AdhAgent;
+import com.fosagri.application.model.AdhConjoint;
+import com.fosagri.application.model.AdhEnfant;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Calcule search_text/phonetic_key des agents, conjoints et enfants (et search_text des
+ * demandes de modification) enregistrés avant l'ajout de ces colonnes. Par lots, une transaction par lot : une reprise interrompue
+ * repart des lignes encore à NULL.
+ */
+@Service
+public class SearchKeyBackfillService {
+
+    private static final List<String> ENTITIES = List.of("AdhAgent", "AdhConjoint", "AdhEnfant", "ModificationDemande");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.search-keys.backfill-batch-size:200}")
+    private int batchSize;
+
+    public int backfill() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int updated = 0;
+        for (String entity : ENTITIES) {
+            int batch;
+            do {
+                batch = transaction.execute(status -> backfillBatch(entity));
+                updated += batch;
+            } while (batch > 0);
+        }
+        if (updated > 0) {
+            System.out.println("🔤 Clés de recherche calculées pour " + updated + " personnes");
+        }
+        return updated;
+    }
+
+    private int backfillBatch(String entity) {
+        List<?> rows = entityManager.createQuery("SELECT p FROM " + entity + " p WHERE p.searchText IS NULL")
+            .setMaxResults(batchSize)
+            .getResultList();
+        for (Object row : rows) {
+            // computeSearchKeys() rend l'entité modifiée ; elle est écrite au commit du lot
+            if (row instanceof AdhAgent agent) {
+                agent.computeSearchKeys();
+            } else if (row instanceof AdhConjoint conjoint) {
+                conjoint.computeSearchKeys();
+            } else if (row instanceof AdhEnfant enfant) {
+                enfant.computeSearchKeys();
+            } else if (row instanceof ModificationDemande modification) {
+                modification.computeSearchKeys();
+            }
+        }
+        return rows.size();
+    }
+}
@@ -0,0 +1,210 @@
+package com.fosagri.application.services;
+
+import com.fosagri.application.repositories.StoredBlobRepository;
+import com.fosagri.application.utils.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Stockage adressé par contenu : chaque contenu distinct est écrit une seule fois sous
+ * {base-path}/blobs/ab/cd/{sha256}.{ext} (répertoires répartis sur les 4 premiers caractères
+ * du hash) et la table stored_blob compte ses références. Une CIN ou un RIB redéposé pour
+ * chaque prestation ne coûte plus qu'une référence.
+ *
+ * store() ajoute une référence dans la transaction de l'appelant ; release() la retire, et le
+ * fichier est supprimé après commit s'il n'est plus référencé. Un fichier écrit par une
+ * transaction annulée est supprimé de même si aucune référence validée n'y renvoie. La
+ * décision de purge verrouille la ligne, donc un store() concurrent du même contenu attend
+ * puis réécrit le fichier si besoin.
+ */
+@Service
+public class BlobStorageService {
+
+    private static final String BLOB_DIRECTORY = "blobs";
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+
+    @Value("${app.file-storage.base-path:uploads}")
+    private String basePath;
+
+    @Autowired
+    private StoredBlobRepository blobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Stocke content (ou réutilise le blob identique) et y ajoute une référence.
+     *
+     * @param extension extension sans point, utilisée pour le type MIME au téléchargement (peut être vide)
+     * @return chemin stocké du blob
+     */
+    @Transactional
+    public String store(byte[] content, String extension) throws IOException {
+        String sha256 = sha256(content);
+        blobRepository.addReference(sha256, content.length, blobPath(sha256, extension).toString());
+        // Un contenu déjà connu garde le chemin (et l'extension) de son premier dépôt
+        String storagePath = blobRepository.findStoragePath(sha256);
+        if (ensureWritten(Paths.get(storagePath), content)) {
+            purgeOnRollback(sha256, content.length, storagePath);
+        }
+        return storagePath;
+    }
+
+    /**
+     * Comme store(byte[], ...) pour un fichier déjà sur disque (pièce jointe en attente, hash
+     * calculé à la réception) : le fichier est déplacé dans le stockage, ou supprimé si le
+     * contenu y est déjà. Si la transaction est annulée, il est recopié à sa place d'origine
+     * pour qu'une nouvelle soumission le retrouve (et le blob créé est purgé).
+     */
+    @Transactional
+    public String store(Path source, String sha256, long size, String extension) throws IOException {
+        blobRepository.addReference(sha256, size, blobPath(sha256, extension).toString());
+        String storagePath = blobRepository.findStoragePath(sha256);
+        Path target = Paths.get(storagePath);
+        if (Files.isRegularFile(target) && Files.size(target) == size) {
+            restoreOnRollback(source, target);
+            Files.delete(source);
+        } else {
+            Files.createDirectories(target.getParent());
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // Recopie d'abord la pièce en attente, puis purge le blob s'il n'est pas référencé
+            restoreOnRollback(source, target);
+            purgeOnRollback(sha256, size, storagePath);
+        }
+        return storagePath;
+    }
+
+    /**
+     * Retire une référence au blob ; le fichier est supprimé après commit s'il n'en reste aucune.
+     */
+    @Transactional
+    public void release(String storagePath) {
+        String sha256 = shaOf(storagePath);
+        if (sha256 == null) {
+            return;
+        }
+        blobRepository.removeReference(sha256);
+        TransactionHooks.afterCommit(() -> purgeIfUnreferenced(sha256));
+    }
+
+    /**
+     * Vrai si storagePath désigne un blob (et non un fichier de l'ancienne arborescence).
+     */
+    public boolean isBlob(String storagePath) {
+        return storagePath != null && shaOf(storagePath) != null;
+    }
+
+    /**
+     * SHA-256 du contenu d'un blob (tiré de son nom), ou null si ce n'est pas un blob.
+     */
+    public String shaOf(String storagePath) {
+        Path path = Paths.get(storagePath).toAbsolutePath().normalize();
+        if (!path.startsWith(Paths.get(basePath, BLOB_DIRECTORY).toAbsolutePath().normalize())) {
+            return null;
+        }
+        String name = path.getFileName().toString();
+        int dot = name.indexOf('.');
+        String sha256 = dot < 0 ? name : name.substring(0, dot);
+        return SHA256.matcher(sha256).matches() ? sha256 : null;
+    }
+
+    private static void restoreOnRollback(Path source, Path target) {
+        TransactionHooks.afterRollback(() -> {
+            if (Files.exists(source)) {
+                return;
+            }
+            try {
+                Files.copy(target, source);
+            } catch (IOException e) {
+                System.err.println("⚠️ Pièce en attente non restaurée " + source + ": " + e.getMessage());
+            }
+        });
+    }
+
+    // Fichier écrit dans une transaction annulée : sa ligne stored_blob a disparu avec elle
+    private void purgeOnRollback(String sha256, long size, String storagePath) {
+        TransactionHooks.afterRollback(() -> purgeIfUnreferenced(sha256, size, storagePath));
+    }
+
+    private void purgeIfUnreferenced(String sha256) {
+        purgeIfUnreferenced(sha256, 0, null);
+    }
+
+    /**
+     * storagePath non null : fichier sans ligne connue (transaction annulée). Une ligne sans
+     * référence est d'abord créée, ce qui attend un dépôt concurrent du même contenu en cours ;
+     * le fichier n'est supprimé que si personne n'y renvoie.
+     */
+    private void purgeIfUnreferenced(String sha256, long size, String storagePath) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        // Appelé depuis afterCommit/afterCompletion : la transaction terminée est encore liée au thread
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            transaction.executeWithoutResult(status -> {
+                if (storagePath != null) {
+                    blobRepository.insertUnreferenced(sha256, size, storagePath);
+                }
+                blobRepository.findForUpdate(sha256)
+                    .filter(blob -> blob.getRefCount() <= 0)
+                    .ifPresent(blob -> {
+                        try {
+                            Files.deleteIfExists(Paths.get(blob.getStoragePath()));
+                        } catch (IOException e) {
+                            System.err.println("⚠️ Blob " + sha256 + " non supprimé : " + e.getMessage());
+                            return;
+                        }
+                        blobRepository.delete(blob);
+                        System.out.println("🗑️ Blob " + sha256 + " supprimé (plus référencé)");
+                    });
+            });
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Purge du blob " + sha256 + " impossible : " + e.getMessage());
+        }
+    }
+
+    private Path blobPath(String sha256, String extension) {
+        String ext = extension == null ? "" : extension.toLowerCase().replaceAll("[^a-z0-9]", "");
+        String suffix = ext.isEmpty() ? "" : "." + ext;
+        return Paths.get(basePath, BLOB_DIRECTORY, sha256.substring(0, 2), sha256.substring(2, 4), sha256 + suffix);
+    }
+
+    // Écrit le fichier s'il manque (premier dépôt, ou purgé entre-temps) : fichier temporaire
+    // puis renommage, pour qu'un lecteur ne voie jamais un blob à moitié écrit. Vrai s'il a été écrit.
+    private static boolean ensureWritten(Path target, byte[] content) throws IOException {
+        if (Files.isRegularFile(target) && Files.size(target) == content.length) {
+            return false;
+        }
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".blob-", ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return true;
+    }
+
+    static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
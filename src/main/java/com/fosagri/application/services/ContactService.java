@@ -3,28 +3,48 @@ package com.fosagri.application.services;
 import com.fosagri.application.entities.Contact;
 import com.fosagri.application.entities.Contact.TypeContact;
 import com.fosagri.application.repositories.ContactRepository;
+import com.fosagri.application.utils.PrefixTrie;
+import com.fosagri.application.utils.TransactionHooks;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Annuaire des contacts. Les lectures des contacts actifs (listes par type, villes, régions,
+ * recherche) passent par un instantané en mémoire, reconstruit après chaque modification :
+ * l'annuaire est petit et change rarement. Les écrans d'administration (contacts inactifs
+ * compris) continuent de lire la base.
+ */
 @Service
 public class ContactService {
 
     @Autowired
     private ContactRepository repository;
 
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
     public List<Contact> findAll() {
         return repository.findAll();
     }
 
     public List<Contact> findAllActive() {
-        return repository.findByActifTrue();
+        return snapshot().active();
     }
 
     public List<Contact> findAllActiveOrdered() {
-        return repository.findAllActiveOrdered();
+        return snapshot().active();
     }
 
     public Optional<Contact> findById(Long id) {
@@ -32,15 +52,19 @@ public class ContactService {
     }
 
     public Contact save(Contact contact) {
-        return repository.save(contact);
+        Contact saved = repository.save(contact);
+        invalidateAfterCommit();
+        return saved;
     }
 
     public void deleteById(Long id) {
         repository.deleteById(id);
+        invalidateAfterCommit();
     }
 
     public void delete(Contact contact) {
         repository.delete(contact);
+        invalidateAfterCommit();
     }
 
     public List<Contact> findByType(TypeContact type) {
@@ -48,34 +72,58 @@ public class ContactService {
     }
 
     public List<Contact> findByTypeOrdered(TypeContact type) {
-        return repository.findByTypeOrdered(type);
+        return snapshot().byType().getOrDefault(type, List.of());
     }
 
     public List<Contact> findByTypeActive(TypeContact type) {
-        return repository.findByTypeAndActifTrue(type);
+        return findByTypeOrdered(type);
     }
 
+    /**
+     * Contacts actifs dont un mot (nom, fonction, ville, région, email, description) commence
+     * par chacun des mots du terme, dans l'ordre d'affichage. Terme vide : tous les contacts actifs.
+     */
     public List<Contact> search(String term) {
+        return search(term, null);
+    }
+
+    /**
+     * Comme search(String), restreint à un type si type n'est pas null.
+     */
+    public List<Contact> search(String term, TypeContact type) {
+        Snapshot current = snapshot();
         if (term == null || term.trim().isEmpty()) {
-            return findAllActiveOrdered();
+            return type == null ? current.active() : findByTypeOrdered(type);
         }
-        return repository.searchContacts(term.trim());
+        BitSet matches = current.trie().search(term);
+        List<Contact> contacts = new ArrayList<>(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            Contact contact = current.active().get(i);
+            if (type == null || contact.getType() == type) {
+                contacts.add(contact);
+            }
+        }
+        return contacts;
     }
 
     public List<Contact> findByVille(String ville) {
-        return repository.findByVilleIgnoreCaseAndActifTrue(ville);
+        return snapshot().active().stream()
+            .filter(c -> c.getVille() != null && c.getVille().equalsIgnoreCase(ville))
+            .toList();
     }
 
     public List<Contact> findByRegion(String region) {
-        return repository.findByRegionIgnoreCaseAndActifTrue(region);
+        return snapshot().active().stream()
+            .filter(c -> c.getRegion() != null && c.getRegion().equalsIgnoreCase(region))
+            .toList();
     }
 
     public List<String> getDistinctVilles() {
-        return repository.findDistinctVilles();
+        return snapshot().villes();
     }
 
     public List<String> getDistinctRegions() {
-        return repository.findDistinctRegions();
+        return snapshot().regions();
     }
 
     public long count() {
@@ -89,14 +137,61 @@ public class ContactService {
     public void deactivate(Long id) {
         repository.findById(id).ifPresent(contact -> {
             contact.setActif(false);
-            repository.save(contact);
+            save(contact);
         });
     }
 
     public void activate(Long id) {
         repository.findById(id).ifPresent(contact -> {
             contact.setActif(true);
-            repository.save(contact);
+            save(contact);
         });
     }
+
+    private Snapshot snapshot() {
+        long current = version.get();
+        Snapshot s = snapshot;
+        if (s == null || s.version() != current) {
+            s = buildSnapshot(current);
+            snapshot = s;
+        }
+        return s;
+    }
+
+    // Une modification pendant la construction change la version : l'instantané sera reconstruit
+    private Snapshot buildSnapshot(long snapshotVersion) {
+        List<Contact> active = List.copyOf(repository.findAllActiveOrdered());
+
+        Map<TypeContact, List<Contact>> byType = new EnumMap<>(TypeContact.class);
+        active.stream()
+            .collect(Collectors.groupingBy(Contact::getType, () -> new EnumMap<>(TypeContact.class), Collectors.toList()))
+            .forEach((type, contacts) -> byType.put(type, List.copyOf(contacts)));
+
+        PrefixTrie trie = new PrefixTrie();
+        for (int i = 0; i < active.size(); i++) {
+            Contact c = active.get(i);
+            trie.add(i, c.getNom());
+            trie.add(i, c.getFonction());
+            trie.add(i, c.getVille());
+            trie.add(i, c.getRegion());
+            trie.add(i, c.getEmail());
+            trie.add(i, c.getDescription());
+        }
+
+        return new Snapshot(snapshotVersion, active, byType, distinct(active, Contact::getVille),
+            distinct(active, Contact::getRegion), trie);
+    }
+
+    private static List<String> distinct(List<Contact> contacts, Function<Contact, String> field) {
+        return List.copyOf(contacts.stream().map(field).filter(Objects::nonNull)
+            .collect(Collectors.toCollection(TreeSet::new)));
+    }
+
+    private void invalidateAfterCommit() {
+        TransactionHooks.afterCommit(version::incrementAndGet);
+    }
+
+    private record Snapshot(long version, List<Contact> active, Map<TypeContact, List<Contact>> byType,
+                            List<String> villes, List<String> regions, PrefixTrie trie) {
+    }
 }
@@ -0,0 +1,299 @@
+package com.fosagri.application.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fosagri.application.dto.DemandeExportRow;
+import com.fosagri.application.entities.PrestationRef;
+import com.fosagri.application.forms.FormField;
+import com.fosagri.application.forms.FormSchema;
+import com.fosagri.application.repositories.DemandePrestationRepository;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Exports des demandes d'une prestation, écrits au fil de l'eau à partir d'un curseur
+ * (DemandePrestationRepository.streamExportRows) : la mémoire utilisée ne dépend pas du
+ * nombre de demandes. Les documents joints ne sont jamais lus.
+ */
+@Service
+public class DemandeExportService {
+
+    private static final String[] FIXED_HEADERS = {
+        "ID", "ID adhérent", "Agent", "Statut", "Date demande", "Date traitement", "Commentaire"
+    };
+
+    // Rows kept in memory by SXSSF before flushing to the temp file
+    private static final int XLSX_ROW_WINDOW = 200;
+    private static final int XLSX_MAX_CELL_LENGTH = 32767;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private DemandePrestationRepository repository;
+
+    @Autowired
+    private DemandePrestationService demandePrestationService;
+
+    /**
+     * Colonnes de réponses à exporter, dans l'ordre du formulaire (champs fichier exclus).
+     * Sans schéma exploitable, on retombe sur les clés rencontrées dans les réponses.
+     */
+    private List<AnswerColumn> answerColumns(PrestationRef prestation) {
+        List<AnswerColumn> columns = new ArrayList<>();
+        for (FormField field : FormSchema.fieldsOf(prestation.getFormSchemaJson())) {
+            if (field.getName() != null && !"file".equals(field.getType())) {
+                columns.add(new AnswerColumn(field.getName(),
+                    field.getLabel() != null ? field.getLabel() : field.getName(), field.getType()));
+            }
+        }
+        if (columns.isEmpty()) {
+            for (String key : demandePrestationService.extractCommonJsonKeys(prestation)) {
+                columns.add(new AnswerColumn(key, key, null));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Écrit le CSV (UTF-8 avec BOM pour Excel) des demandes de la prestation.
+     */
+    @Transactional(readOnly = true)
+    public void writeCsv(PrestationRef prestation, OutputStream out) throws IOException {
+        List<AnswerColumn> columns = answerColumns(prestation);
+        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write('\uFEFF');
+
+        List<String> header = new ArrayList<>(List.of(FIXED_HEADERS));
+        columns.forEach(column -> header.add(column.label()));
+        writeCsvLine(writer, header);
+
+        try (Stream<DemandeExportRow> rows = repository.streamExportRows(prestation)) {
+            Iterator<DemandeExportRow> it = rows.iterator();
+            while (it.hasNext()) {
+                DemandeExportRow row = it.next();
+                Map<String, JsonNode> answers = parseAnswers(row.reponseJson());
+                List<String> values = new ArrayList<>(FIXED_HEADERS.length + columns.size());
+                values.add(String.valueOf(row.id()));
+                values.add(row.agentIdAdh());
+                values.add(row.getAgentName());
+                values.add(statutLabel(row.statut()));
+                values.add(format(sdf, row.dateDemande()));
+                values.add(format(sdf, row.dateTraitement()));
+                values.add(row.commentaire());
+                for (AnswerColumn column : columns) {
+                    values.add(asText(answers.get(column.key())));
+                }
+                writeCsvLine(writer, values);
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Écrit un classeur XLSX des demandes de la prestation. SXSSF ne garde en mémoire
+     * qu'une fenêtre de lignes, le reste est vidé dans un fichier temporaire compressé.
+     * Dates et nombres sont écrits en cellules typées.
+     */
+    @Transactional(readOnly = true)
+    public void writeXlsx(PrestationRef prestation, OutputStream out) throws IOException {
+        List<AnswerColumn> columns = answerColumns(prestation);
+        SXSSFWorkbook workbook = new SXSSFWorkbook(XLSX_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            CellStyle dateTimeStyle = workbook.createCellStyle();
+            dateTimeStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy hh:mm"));
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy"));
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            headerStyle.setFont(bold);
+
+            SXSSFSheet sheet = workbook.createSheet("Demandes");
+            Row header = sheet.createRow(0);
+            int c = 0;
+            for (String title : FIXED_HEADERS) {
+                setText(header.createCell(c++), title).setCellStyle(headerStyle);
+            }
+            for (AnswerColumn column : columns) {
+                setText(header.createCell(c++), column.label()).setCellStyle(headerStyle);
+            }
+            sheet.createFreezePane(0, 1);
+
+            int r = 1;
+            try (Stream<DemandeExportRow> rows = repository.streamExportRows(prestation)) {
+                Iterator<DemandeExportRow> it = rows.iterator();
+                while (it.hasNext()) {
+                    DemandeExportRow demande = it.next();
+                    Map<String, JsonNode> answers = parseAnswers(demande.reponseJson());
+                    Row row = sheet.createRow(r++);
+                    c = 0;
+                    row.createCell(c++).setCellValue(demande.id());
+                    setText(row.createCell(c++), demande.agentIdAdh());
+                    setText(row.createCell(c++), demande.getAgentName());
+                    setText(row.createCell(c++), statutLabel(demande.statut()));
+                    setDate(row.createCell(c++), demande.dateDemande(), dateTimeStyle);
+                    setDate(row.createCell(c++), demande.dateTraitement(), dateTimeStyle);
+                    setText(row.createCell(c++), demande.commentaire());
+                    for (AnswerColumn column : columns) {
+                        setAnswer(row.createCell(c++), column, answers.get(column.key()), dateStyle);
+                    }
+                }
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static Cell setText(Cell cell, String value) {
+        if (value != null) {
+            cell.setCellValue(value.length() > XLSX_MAX_CELL_LENGTH ? value.substring(0, XLSX_MAX_CELL_LENGTH) : value);
+        }
+        return cell;
+    }
+
+    private static void setDate(Cell cell, Date value, CellStyle style) {
+        if (value != null) {
+            cell.setCellValue(value);
+            cell.setCellStyle(style);
+        }
+    }
+
+    private void setAnswer(Cell cell, AnswerColumn column, JsonNode value, CellStyle dateStyle) {
+        if (value == null || value.isNull()) {
+            return;
+        }
+        if (value.isNumber()) {
+            cell.setCellValue(value.asDouble());
+        } else if (value.isBoolean()) {
+            cell.setCellValue(value.asBoolean() ? "Oui" : "Non");
+        } else if ("number".equals(column.type()) && value.isTextual() && isNumeric(value.asText())) {
+            cell.setCellValue(Double.parseDouble(value.asText().trim().replace(',', '.')));
+        } else if ("date".equals(column.type()) && value.isTextual() && parseDate(value.asText()) != null) {
+            cell.setCellValue(parseDate(value.asText()));
+            cell.setCellStyle(dateStyle);
+        } else {
+            setText(cell, asText(value));
+        }
+    }
+
+    private static boolean isNumeric(String text) {
+        try {
+            Double.parseDouble(text.trim().replace(',', '.'));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static LocalDate parseDate(String text) {
+        try {
+            // Date fields are stored as ISO (yyyy-MM-dd), possibly with a time part
+            return LocalDate.parse(text.length() > 10 ? text.substring(0, 10) : text);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Réponses d'une demande, clé par clé (une seule lecture du JSON par ligne).
+     */
+    private Map<String, JsonNode> parseAnswers(String reponseJson) {
+        Map<String, JsonNode> answers = new LinkedHashMap<>();
+        if (reponseJson == null || reponseJson.isBlank()) {
+            return answers;
+        }
+        try {
+            JsonNode root = objectMapper.readTree(reponseJson);
+            root.properties().forEach(entry -> answers.put(entry.getKey(), entry.getValue()));
+        } catch (IOException e) {
+            // Réponse invalide : exportée sans colonnes de réponses
+        }
+        return answers;
+    }
+
+    /**
+     * Valeur affichable : valeurs simples telles quelles, listes jointes par ", ".
+     */
+    private String asText(JsonNode node) {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        if (node.isArray()) {
+            List<String> parts = new ArrayList<>();
+            node.forEach(item -> parts.add(asText(item)));
+            return String.join(", ", parts);
+        }
+        return node.isValueNode() ? node.asText() : node.toString();
+    }
+
+    private static void writeCsvLine(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvValue(writer, values.get(i));
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(value);
+        }
+    }
+
+    private static String format(SimpleDateFormat sdf, Date date) {
+        return date != null ? sdf.format(date) : null;
+    }
+
+    private static String statutLabel(String statut) {
+        if (statut == null) return "Inconnu";
+        switch (statut) {
+            case "SOUMISE": return "Soumise";
+            case "EN_COURS": return "En cours";
+            case "ACCEPTEE": return "Acceptée";
+            case "REFUSEE": return "Refusée";
+            case "TERMINEE": return "Terminée";
+            default: return statut;
+        }
+    }
+
+    private record AnswerColumn(String key, String label, String type) {
+    }
+}
@@ -1,26 +1,54 @@
 package com.fosagri.application.services;
 
+import com.fosagri.application.dto.AnswerFacet;
+import com.fosagri.application.dto.DemandeFilter;
+import com.fosagri.application.dto.DemandeRow;
+import com.fosagri.application.dto.StatusMatrix;
+import com.fosagri.application.dto.UploadHandle;
 import com.fosagri.application.entities.DemandePrestation;
+import com.fosagri.application.forms.FieldOption;
+import com.fosagri.application.forms.FormField;
+import com.fosagri.application.forms.FormSchema;
 import com.fosagri.application.model.AdhAgent;
 import com.fosagri.application.entities.PrestationRef;
 import com.fosagri.application.repositories.DemandePrestationRepository;
+import com.fosagri.application.repositories.DemandeSpecifications;
+import com.fosagri.application.repositories.RowQueries;
+import com.fosagri.application.utils.TransactionHooks;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 
 @Service
 public class DemandePrestationService {
 
+    // Shared, thread-safe Jackson instances for reading reponseJson
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    private static final ObjectReader JSON_FIELDS_READER =
+        JSON_MAPPER.readerFor(new TypeReference<java.util.LinkedHashMap<String, Object>>() {});
+
     @Autowired
     private DemandePrestationRepository repository;
 
+    @Autowired
+    private RowQueries rowQueries;
+
     @Autowired
     private PrestationRefService prestationRefService;
 
@@ -29,6 +57,17 @@ public class DemandePrestationService {
 
     @Autowired
     private FileStorageService fileStorageService;
+
+    @Autowired
+    private DemandeStatsService statsService;
+
+    @Autowired
+    private ReponseJsonSchemaService reponseJsonSchema;
+
+    // Facettes de réponses par prestation ; la version est incrémentée à chaque nouvelle demande
+    // (après commit) pour qu'un calcul commencé avant ne remette pas un résultat périmé en cache
+    private final Map<Long, CachedFacets> facetCache = new java.util.concurrent.ConcurrentHashMap<>();
+    private final Map<Long, Long> facetVersions = new java.util.concurrent.ConcurrentHashMap<>();
     
     public List<DemandePrestation> findAll() {
         return repository.findAll();
@@ -40,8 +79,16 @@ public class DemandePrestationService {
         return repository.save(demande);
     }
     
+    @Transactional
     public void deleteById(Long id) {
-        repository.deleteById(id);
+        repository.findById(id).ifPresent(demande -> {
+            repository.delete(demande);
+            statsService.onDeleted(demande);
+            releaseStoredFiles(demande.getDocumentsJson());
+            if (demande.getPrestation() != null) {
+                invalidateAnswerFacetsAfterCommit(demande.getPrestation().getId());
+            }
+        });
     }
     
     @Transactional(readOnly = true)
@@ -56,6 +103,9 @@ public class DemandePrestationService {
         List<DemandePrestation> demandes = repository.findByAgentIdNative(agent.getAdhAgentId());
         System.out.println("📋 Native query found " + demandes.size() + " demandes for agent " + agent.getNOM_AG());
 
+        // agent is LAZY: resolve it while the session is open (a single row, shared by every demande)
+        demandes.forEach(d -> Hibernate.initialize(d.getAgent()));
+
         // If native query returns results, log them
         if (!demandes.isEmpty()) {
             for (DemandePrestation d : demandes) {
@@ -85,6 +135,32 @@ public class DemandePrestationService {
     public List<DemandePrestation> searchDemandes(String searchTerm) {
         return repository.searchDemandes(searchTerm);
     }
+
+    /**
+     * Page de demandes filtrée et triée côté base, pour les grilles en chargement paresseux.
+     * Tous les critères renseignés de filter sont combinés en une requête.
+     */
+    @Transactional(readOnly = true)
+    public List<DemandeRow> findPage(DemandeFilter filter, Pageable pageable) {
+        Pageable effective = pageable.getSort().isSorted()
+            ? pageable
+            : PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(Sort.Direction.DESC, "dateDemande"));
+        return rowQueries.findRows(DemandePrestation.class, DemandeRow.class, DemandeSpecifications.matching(filter),
+            DemandeSpecifications::rowColumns, effective);
+    }
+
+    /**
+     * Toutes les demandes en lignes légères (sans JSON ni LOB agent), les plus récentes d'abord.
+     */
+    @Transactional(readOnly = true)
+    public List<DemandeRow> findAllRows() {
+        return repository.findAllRows();
+    }
+
+    @Transactional(readOnly = true)
+    public long countFiltered(DemandeFilter filter) {
+        return repository.count(DemandeSpecifications.matching(filter));
+    }
     
     public boolean canAgentApplyToPrestation(AdhAgent agent, PrestationRef prestation) {
         // Vérifier si la prestation est ouverte
@@ -125,12 +201,18 @@ public class DemandePrestationService {
         return true;
     }
     
+    @Transactional
     public DemandePrestation submitDemandePrestation(AdhAgent agent, PrestationRef prestation, String reponseJson) {
-        return submitDemandePrestation(agent, prestation, reponseJson, null);
+        return submitDemandePrestation(agent, prestation, reponseJson, List.of());
     }
 
+    /**
+     * uploads : pièces jointes reçues sur disque par SecureFileUploadComponent, déplacées dans
+     * le stockage définitif avec la demande. Une pièce invalide ou expirée annule la soumission.
+     */
     @Transactional
-    public DemandePrestation submitDemandePrestation(AdhAgent agent, PrestationRef prestation, String reponseJson, String documentsJson) {
+    public DemandePrestation submitDemandePrestation(AdhAgent agent, PrestationRef prestation, String reponseJson,
+                                                     List<UploadHandle> uploads) {
         if (!canAgentApplyToPrestation(agent, prestation)) {
             throw new RuntimeException("L'agent ne peut pas soumettre une demande pour cette prestation");
         }
@@ -151,40 +233,58 @@ public class DemandePrestationService {
 
         // Save first to get ID
         demande = save(demande);
+        statsService.onCreated(demande);
+        invalidateAnswerFacetsAfterCommit(prestation.getId());
         System.out.println("✅ Demande saved with ID: " + demande.getId());
 
-        // Handle separate document uploads (from SecureFileUploadComponent)
-        // Store files to disk and save references
-        if (documentsJson != null && !documentsJson.trim().isEmpty()) {
-            try {
-                // Store files to disk
-                String storedFilesJson = fileStorageService.storeFilesFromJson(
-                    documentsJson,
-                    demande.getId(),
-                    agent.getAdhAgentId()
-                );
-
-                // If there are already documents from form fields, merge them
-                if (demande.getDocumentsJson() != null && !demande.getDocumentsJson().trim().isEmpty()) {
-                    demande.setDocumentsJson(mergeDocumentsJson(demande.getDocumentsJson(), storedFilesJson));
-                } else {
-                    demande.setDocumentsJson(storedFilesJson);
+        // Handle separate document uploads (from SecureFileUploadComponent): the spooled files are
+        // moved into storage, only their references are saved
+        if (uploads != null && !uploads.isEmpty()) {
+            List<Map<String, Object>> storedFiles = new java.util.ArrayList<>();
+            for (UploadHandle upload : uploads) {
+                try {
+                    storedFiles.add(fileStorageService.storeUpload(upload, demande.getId(), agent.getAdhAgentId()));
+                } catch (IOException e) {
+                    throw new RuntimeException("Impossible d'enregistrer la pièce jointe " + upload.filename()
+                        + " : " + e.getMessage(), e);
                 }
-                System.out.println("📎 Attached documents stored to disk and saved");
-
-                // Update with file references
-                demande = save(demande);
-            } catch (Exception e) {
-                System.err.println("Error storing files to disk: " + e.getMessage());
-                // Fallback: store in database as before
-                demande.setDocumentsJson(documentsJson);
-                demande = save(demande);
             }
+
+            String storedFilesJson;
+            try {
+                storedFilesJson = JSON_MAPPER.writeValueAsString(storedFiles);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+
+            // If there are already documents from form fields, merge them
+            if (demande.getDocumentsJson() != null && !demande.getDocumentsJson().trim().isEmpty()) {
+                demande.setDocumentsJson(mergeDocumentsJson(demande.getDocumentsJson(), storedFilesJson));
+            } else {
+                demande.setDocumentsJson(storedFilesJson);
+            }
+            System.out.println("📎 " + storedFiles.size() + " pièce(s) jointe(s) enregistrée(s)");
+
+            // Update with file references
+            demande = save(demande);
         }
 
         return demande;
     }
 
+    // Pièces stockées sur disque (storedPath) : une référence de moins, fichier supprimé s'il n'en reste aucune
+    private void releaseStoredFiles(String documentsJson) {
+        if (documentsJson == null || documentsJson.isBlank()) {
+            return;
+        }
+        try {
+            JSON_MAPPER.readTree(documentsJson).findValuesAsText("storedPath")
+                .forEach(fileStorageService::release);
+        } catch (Exception e) {
+            System.err.println("⚠️ Pièces de la demande non libérées : " + e.getMessage());
+        }
+    }
+
     private String mergeDocumentsJson(String existingJson, String newJson) {
         try {
             ObjectMapper mapper = new ObjectMapper();
@@ -273,10 +373,12 @@ public class DemandePrestationService {
         }
     }
     
+    @Transactional
     public void updateStatut(Long demandeId, String nouveauStatut, String commentaire, Long traitePar) {
         Optional<DemandePrestation> demandeOpt = Optional.ofNullable(findById(demandeId));
         if (demandeOpt.isPresent()) {
             DemandePrestation demande = demandeOpt.get();
+            String ancienStatut = demande.getStatut();
             demande.setStatut(nouveauStatut);
             demande.setCommentaire(commentaire);
             demande.setTraitePar(traitePar);
@@ -290,15 +392,20 @@ public class DemandePrestationService {
             }
             
             save(demande);
+            statsService.onStatutChanged(demande, ancienStatut, nouveauStatut);
         }
     }
     
     public long count() {
-        return repository.count();
+        return statsService.countTotal();
     }
     
     public long countByStatut(String statut) {
-        return repository.countByStatutOnly(statut);
+        return statsService.countByStatut(statut);
+    }
+
+    public StatusMatrix getStatusMatrix() {
+        return statsService.getStatusMatrix();
     }
     
     public long countTotalDemandes(PrestationRef prestation) {
@@ -357,70 +464,160 @@ public class DemandePrestationService {
         }).collect(java.util.stream.Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
     public DemandePrestation findById(Long id) {
-        return repository.findById(id).orElse(null);
+        return repository.findByIdWithAgent(id).orElse(null);
     }
     
+    /**
+     * Union des clés de premier niveau des réponses d'une prestation. En jsonb, calculée par
+     * PostgreSQL ; sinon seuls les noms de champs sont lus (parseur en flux, valeurs sautées).
+     */
+    @Transactional(readOnly = true)
     public java.util.Set<String> extractCommonJsonKeys(PrestationRef prestation) {
-        List<Object[]> results = repository.findByPrestationWithJsonData(prestation);
-        java.util.Set<String> commonKeys = new java.util.HashSet<>();
-        
-        ObjectMapper mapper = new ObjectMapper();
-        for (Object[] row : results) {
-            String reponseJson = (String) row[8]; // reponseJson is at index 8
-            if (reponseJson != null && !reponseJson.trim().isEmpty()) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> jsonData = mapper.readValue(reponseJson, Map.class);
-                    commonKeys.addAll(jsonData.keySet());
-                } catch (Exception e) {
-                    // Ignore invalid JSON
-                }
-            }
+        if (reponseJsonSchema.isJsonb()) {
+            return new java.util.LinkedHashSet<>(repository.findAnswerKeysJsonb(prestation.getId()));
+        }
+        java.util.Set<String> commonKeys = new java.util.LinkedHashSet<>();
+        for (String reponseJson : repository.findReponseJsonByPrestation(prestation)) {
+            collectTopLevelKeys(reponseJson, commonKeys);
         }
-        
         return commonKeys;
     }
     
+    private static void collectTopLevelKeys(String json, java.util.Set<String> keys) {
+        if (json == null || json.trim().isEmpty()) {
+            return;
+        }
+        try (JsonParser parser = JSON_MAPPER.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                keys.add(parser.currentName());
+                parser.nextToken();
+                parser.skipChildren();
+            }
+        } catch (java.io.IOException e) {
+            // Ignore invalid JSON
+        }
+    }
+    
     public Object extractJsonValue(String reponseJson, String key) {
+        return parseJsonFields(reponseJson).get(key);
+    }
+    
+    private static Map<String, Object> parseJsonFields(String reponseJson) {
         if (reponseJson == null || reponseJson.trim().isEmpty()) {
-            return null;
+            return new java.util.LinkedHashMap<>();
         }
-        
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            @SuppressWarnings("unchecked")
-            Map<String, Object> jsonData = mapper.readValue(reponseJson, Map.class);
-            return jsonData.get(key);
+            Map<String, Object> fields = JSON_FIELDS_READER.readValue(reponseJson);
+            return fields != null ? fields : new java.util.LinkedHashMap<>();
         } catch (Exception e) {
-            return null;
+            return new java.util.LinkedHashMap<>();
         }
     }
     
+    /**
+     * Réponse de chaque demande de la prestation pour un champ : id de la demande -> valeur texte
+     * (listes jointes par ", "). Les demandes sans réponse pour ce champ sont absentes.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, String> findAnswerValues(PrestationRef prestation, String key) {
+        Map<Long, String> values = new java.util.LinkedHashMap<>();
+        if (reponseJsonSchema.isJsonb()) {
+            for (Object[] row : repository.findAnswerValuesJsonb(prestation.getId(), key)) {
+                values.put(((Number) row[0]).longValue(), (String) row[1]);
+            }
+            return values;
+        }
+        for (Object[] row : repository.findByPrestationWithJsonData(prestation)) {
+            Object value = parseJsonFields((String) row[8]).get(key);
+            if (value != null) {
+                values.put((Long) row[0], answerText(value));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Demandes de la prestation dont la réponse au champ vaut value (ou, pour une liste, la contient).
+     * En jsonb, le filtre est un @> servi par l'index GIN.
+     */
+    @Transactional(readOnly = true)
+    public java.util.Set<Long> findIdsByAnswer(PrestationRef prestation, String key, String value) {
+        if (reponseJsonSchema.isJsonb()) {
+            com.fasterxml.jackson.databind.node.ObjectNode asText = JSON_MAPPER.createObjectNode().put(key, value);
+            com.fasterxml.jackson.databind.node.ObjectNode asTyped = JSON_MAPPER.createObjectNode();
+            asTyped.set(key, typedScalar(value));
+            com.fasterxml.jackson.databind.node.ObjectNode inArray = JSON_MAPPER.createObjectNode();
+            inArray.putArray(key).add(value);
+            return new java.util.LinkedHashSet<>(repository.findIdsByAnswerJsonb(prestation.getId(),
+                asText.toString(), asTyped.toString(), inArray.toString()));
+        }
+        java.util.Set<Long> ids = new java.util.LinkedHashSet<>();
+        for (Object[] row : repository.findByPrestationWithJsonData(prestation)) {
+            Object answer = parseJsonFields((String) row[8]).get(key);
+            boolean matches = answer instanceof java.util.Collection<?> items
+                ? items.stream().anyMatch(item -> item != null && value.equals(item.toString()))
+                : answer != null && value.equals(answer.toString());
+            if (matches) {
+                ids.add((Long) row[0]);
+            }
+        }
+        return ids;
+    }
+
+    // Nombres et booléens saisis sont stockés typés dans le JSON ; le texte sinon
+    private static com.fasterxml.jackson.databind.JsonNode typedScalar(String value) {
+        if ("true".equals(value) || "false".equals(value)) {
+            return JSON_MAPPER.getNodeFactory().booleanNode(Boolean.parseBoolean(value));
+        }
+        try {
+            return JSON_MAPPER.getNodeFactory().numberNode(new java.math.BigDecimal(value));
+        } catch (NumberFormatException e) {
+            return JSON_MAPPER.getNodeFactory().textNode(value);
+        }
+    }
+
+    private static String answerText(Object value) {
+        if (value instanceof java.util.Collection<?> items) {
+            return items.stream().map(String::valueOf).collect(java.util.stream.Collectors.joining(", "));
+        }
+        return value.toString();
+    }
+
     public List<com.fosagri.application.dto.EnhancedDemandeViewDto> findByPrestationWithJsonFields(PrestationRef prestation) {
+        return loadWithJsonFields(prestation).demandes();
+    }
+    
+    /**
+     * Demandes d'une prestation avec leurs réponses à plat, et l'union des clés rencontrées.
+     * En jsonb, clés et cellules sont extraites par PostgreSQL (le document JSON ne quitte pas
+     * la base) ; sinon une seule requête et chaque reponseJson est lu une seule fois.
+     */
+    @Transactional(readOnly = true)
+    public com.fosagri.application.dto.DemandesWithJsonKeys loadWithJsonFields(PrestationRef prestation) {
+        if (reponseJsonSchema.isJsonb()) {
+            return loadWithJsonbCells(prestation);
+        }
         List<Object[]> results = repository.findByPrestationWithJsonData(prestation);
-        java.util.Set<String> commonKeys = extractCommonJsonKeys(prestation);
+        java.util.Set<String> jsonKeys = new java.util.LinkedHashSet<>();
+        List<com.fosagri.application.dto.EnhancedDemandeViewDto> demandes = new java.util.ArrayList<>(results.size());
         
-        return results.stream().map(row -> {
+        for (Object[] row : results) {
             // Create minimal agent object
             com.fosagri.application.model.AdhAgent agent = new com.fosagri.application.model.AdhAgent();
             agent.setAdhAgentId((Integer) row[4]);
             agent.setNOM_AG((String) row[5]);
             agent.setPR_AG((String) row[6]);
             
-            // Extract JSON fields
-            String reponseJson = (String) row[8];
-            Map<String, Object> jsonFields = new java.util.HashMap<>();
-            if (reponseJson != null && !reponseJson.trim().isEmpty()) {
-                for (String key : commonKeys) {
-                    Object value = extractJsonValue(reponseJson, key);
-                    if (value != null) {
-                        jsonFields.put(key, value);
-                    }
-                }
-            }
+            Map<String, Object> jsonFields = parseJsonFields((String) row[8]);
+            jsonKeys.addAll(jsonFields.keySet());
+            jsonFields.values().removeIf(java.util.Objects::isNull);
             
-            return new com.fosagri.application.dto.EnhancedDemandeViewDto(
+            demandes.add(new com.fosagri.application.dto.EnhancedDemandeViewDto(
                 (Long) row[0],           // id
                 (String) row[1],         // statut
                 (Date) row[2],           // dateDemande
@@ -429,7 +626,149 @@ public class DemandePrestationService {
                 agent,                   // reconstructed agent
                 prestation,             // prestation (passed as parameter)
                 jsonFields              // extracted JSON fields
-            );
-        }).collect(java.util.stream.Collectors.toList());
+            ));
+        }
+        return new com.fosagri.application.dto.DemandesWithJsonKeys(demandes, jsonKeys);
+    }
+
+    private com.fosagri.application.dto.DemandesWithJsonKeys loadWithJsonbCells(PrestationRef prestation) {
+        java.util.Set<String> jsonKeys = new java.util.LinkedHashSet<>(repository.findAnswerKeysJsonb(prestation.getId()));
+        Map<Long, Map<String, Object>> fieldsById = new java.util.HashMap<>();
+        if (!jsonKeys.isEmpty()) {
+            for (Object[] cell : repository.findAnswerCellsJsonb(prestation.getId(), jsonKeys)) {
+                fieldsById.computeIfAbsent(((Number) cell[0]).longValue(), id -> new java.util.LinkedHashMap<>())
+                    .put((String) cell[1], cell[2]);
+            }
+        }
+
+        List<Object[]> results = repository.findByPrestationWithoutBlobs(prestation);
+        List<com.fosagri.application.dto.EnhancedDemandeViewDto> demandes = new java.util.ArrayList<>(results.size());
+        for (Object[] row : results) {
+            com.fosagri.application.model.AdhAgent agent = new com.fosagri.application.model.AdhAgent();
+            agent.setAdhAgentId((Integer) row[4]);
+            agent.setNOM_AG((String) row[5]);
+            agent.setPR_AG((String) row[6]);
+
+            demandes.add(new com.fosagri.application.dto.EnhancedDemandeViewDto(
+                (Long) row[0], (String) row[1], (Date) row[2], (Date) row[3], null, agent, prestation,
+                fieldsById.getOrDefault((Long) row[0], new java.util.LinkedHashMap<>())));
+        }
+        return new com.fosagri.application.dto.DemandesWithJsonKeys(demandes, jsonKeys);
+    }
+
+    // ----- Facettes des champs à choix -----
+
+    private static final java.util.Set<String> FACET_TYPES = java.util.Set.of("select", "checkbox", "multiselect");
+
+    /**
+     * Répartition des réponses pour les champs select/checkbox/multiselect du formulaire de la
+     * prestation, dans l'ordre du formulaire. Une seule requête groupée (jsonb) ou une passe sur
+     * les réponses ; le résultat est gardé en cache jusqu'à la prochaine demande soumise.
+     */
+    @Transactional(readOnly = true)
+    public List<AnswerFacet> getAnswerFacets(PrestationRef prestation) {
+        Long prestationId = prestation.getId();
+        String schemaJson = prestation.getFormSchemaJson();
+        long version = facetVersions.getOrDefault(prestationId, 0L);
+        CachedFacets cached = facetCache.get(prestationId);
+        if (cached != null && cached.version() == version && java.util.Objects.equals(cached.schemaJson(), schemaJson)) {
+            return cached.facets();
+        }
+
+        List<AnswerFacet> facets = computeAnswerFacets(prestation);
+        if (facetVersions.getOrDefault(prestationId, 0L) == version) {
+            facetCache.put(prestationId, new CachedFacets(version, schemaJson, facets));
+        }
+        return facets;
+    }
+
+    public void invalidateAnswerFacets(Long prestationId) {
+        if (prestationId == null) {
+            return;
+        }
+        facetVersions.merge(prestationId, 1L, Long::sum);
+        facetCache.remove(prestationId);
+    }
+
+    private void invalidateAnswerFacetsAfterCommit(Long prestationId) {
+        TransactionHooks.afterCommit(() -> invalidateAnswerFacets(prestationId));
+    }
+
+    private List<AnswerFacet> computeAnswerFacets(PrestationRef prestation) {
+        List<FormField> fields = new java.util.ArrayList<>();
+        for (FormField field : FormSchema.fieldsOf(prestation.getFormSchemaJson())) {
+            if (field.getName() != null && FACET_TYPES.contains(field.getType())) {
+                fields.add(field);
+            }
+        }
+        if (fields.isEmpty()) {
+            return List.of();
+        }
+
+        // key -> (value -> nombre de demandes)
+        Map<String, Map<String, Long>> counts = new java.util.HashMap<>();
+        List<String> keys = fields.stream().map(FormField::getName).toList();
+        if (reponseJsonSchema.isJsonb()) {
+            for (Object[] row : repository.countAnswerValuesJsonb(prestation.getId(), keys)) {
+                if (row[1] != null) {
+                    counts.computeIfAbsent((String) row[0], k -> new java.util.HashMap<>())
+                        .merge((String) row[1], ((Number) row[2]).longValue(), Long::sum);
+                }
+            }
+        } else {
+            for (String reponseJson : repository.findReponseJsonByPrestation(prestation)) {
+                Map<String, Object> answers = parseJsonFields(reponseJson);
+                for (String key : keys) {
+                    Object value = answers.get(key);
+                    java.util.Collection<?> values = value instanceof java.util.Collection<?> items
+                        ? new java.util.LinkedHashSet<>(items) : java.util.Collections.singleton(value);
+                    for (Object item : values) {
+                        if (item != null) {
+                            counts.computeIfAbsent(key, k -> new java.util.HashMap<>())
+                                .merge(item.toString(), 1L, Long::sum);
+                        }
+                    }
+                }
+            }
+        }
+
+        List<AnswerFacet> facets = new java.util.ArrayList<>(fields.size());
+        for (FormField field : fields) {
+            facets.add(toFacet(field, counts.getOrDefault(field.getName(), Map.of())));
+        }
+        return facets;
+    }
+
+    /**
+     * Valeurs comptées, puis options déclarées mais jamais choisies (à 0).
+     */
+    private static AnswerFacet toFacet(FormField field, Map<String, Long> counts) {
+        Map<String, String> labels = new java.util.LinkedHashMap<>();
+        if ("checkbox".equals(field.getType())) {
+            labels.put("true", "Oui");
+            labels.put("false", "Non");
+        } else if (field.getOptions() != null) {
+            for (FieldOption option : field.getOptions()) {
+                if (option.getValue() != null) {
+                    labels.put(option.getValue(), option.toString());
+                }
+            }
+        }
+
+        List<AnswerFacet.Bucket> buckets = new java.util.ArrayList<>();
+        counts.forEach((value, count) ->
+            buckets.add(new AnswerFacet.Bucket(value, labels.getOrDefault(value, value), count)));
+        buckets.sort(java.util.Comparator.comparingLong(AnswerFacet.Bucket::count).reversed()
+            .thenComparing(AnswerFacet.Bucket::label));
+        labels.forEach((value, label) -> {
+            if (!counts.containsKey(value)) {
+                buckets.add(new AnswerFacet.Bucket(value, label, 0));
+            }
+        });
+        return new AnswerFacet(field.getName(),
+            field.getLabel() != null ? field.getLabel() : field.getName(), field.getType(), buckets);
+    }
+
+    private record CachedFacets(long version, String schemaJson, List<AnswerFacet> facets) {
     }
-}
\ No newline at end of file
+}
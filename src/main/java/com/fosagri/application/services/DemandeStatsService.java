@@ -0,0 +1,149 @@
+package com.fosagri.application.services;
+
+import com.fosagri.application.dto.StatusMatrix;
+import com.fosagri.application.entities.DemandePrestation;
+import com.fosagri.application.entities.DemandeStat;
+import com.fosagri.application.repositories.DemandePrestationRepository;
+import com.fosagri.application.repositories.DemandeStatRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Compteurs de demandes (table demande_stats) tenus à jour à chaque écriture,
+ * pour que les indicateurs du tableau de bord ne recomptent pas demande_prestation.
+ */
+@Service
+public class DemandeStatsService {
+
+    @Autowired
+    private DemandeStatRepository statRepository;
+
+    @Autowired
+    private DemandePrestationRepository demandeRepository;
+
+    /**
+     * Comptabilise une nouvelle demande. Doit être appelé dans la transaction qui l'enregistre.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCreated(DemandePrestation demande) {
+        increment(demande, demande.getStatut(), 1);
+    }
+
+    /**
+     * Déplace une demande d'un statut à l'autre dans les compteurs.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onStatutChanged(DemandePrestation demande, String ancienStatut, String nouveauStatut) {
+        if (ancienStatut != null && ancienStatut.equals(nouveauStatut)) {
+            return;
+        }
+        increment(demande, ancienStatut, -1);
+        increment(demande, nouveauStatut, 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onDeleted(DemandePrestation demande) {
+        increment(demande, demande.getStatut(), -1);
+    }
+
+    private void increment(DemandePrestation demande, String statut, long delta) {
+        Long prestationId = demande.getPrestation() != null ? demande.getPrestation().getId() : DemandeStat.NO_PRESTATION;
+        statRepository.increment(prestationId, statut != null ? statut : "SOUMISE", jourOf(demande), delta);
+    }
+
+    private LocalDate jourOf(DemandePrestation demande) {
+        Date date = demande.getDateDemande() != null ? demande.getDateDemande() : demande.getCreated();
+        if (date == null) {
+            return LocalDate.now();
+        }
+        // java.sql.Date.toInstant() throws, so copy into a plain Date first
+        return new Date(date.getTime()).toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    @Transactional(readOnly = true)
+    public long countTotal() {
+        return statRepository.sumTotal();
+    }
+
+    @Transactional(readOnly = true)
+    public long countByStatut(String statut) {
+        return statRepository.sumByStatut(statut);
+    }
+
+    @Transactional(readOnly = true)
+    public StatusMatrix getStatusMatrix() {
+        return StatusMatrix.fromRows(statRepository.sumGroupByPrestationAndStatut());
+    }
+
+    /**
+     * Recalcule entièrement demande_stats depuis demande_prestation.
+     * Retourne le nombre de demandes comptabilisées.
+     */
+    @Transactional
+    public long rebuild() {
+        statRepository.deleteAllStats();
+        int cells = statRepository.insertFromDemandes();
+        long total = statRepository.sumTotal();
+        System.out.println("📊 demande_stats reconstruite: " + cells + " cellules, " + total + " demandes");
+        return total;
+    }
+
+    /**
+     * Vérifie, cellule par cellule, que la matrice prestation x statut des compteurs correspond
+     * au nombre réel de demandes (requête GROUP BY directe sur demande_prestation). Une demande
+     * comptée sous la mauvaise prestation est donc détectée, même si les totaux concordent.
+     */
+    @Transactional(readOnly = true)
+    public boolean isConsistent() {
+        Map<Cell, Long> actual = cells(demandeRepository.countGroupByPrestationAndStatut());
+        Map<Cell, Long> counted = cells(statRepository.sumGroupByPrestationAndStatut());
+        Set<Cell> keys = new HashSet<>(actual.keySet());
+        keys.addAll(counted.keySet());
+        long drifted = keys.stream().filter(cell -> !Objects.equals(actual.get(cell), counted.get(cell))).count();
+        if (drifted > 0) {
+            System.out.println("⚠️ demande_stats: " + drifted + " cellule(s) prestation x statut divergente(s)");
+        }
+        return drifted == 0;
+    }
+
+    // Lignes [prestationId, statut, count] normalisées comme à l'écriture (sans prestation,
+    // sans statut), cellules à zéro ignorées (compteurs décrémentés jusqu'à 0)
+    private static Map<Cell, Long> cells(List<Object[]> rows) {
+        Map<Cell, Long> cells = new HashMap<>();
+        for (Object[] row : rows) {
+            long count = ((Number) row[2]).longValue();
+            if (count == 0) {
+                continue;
+            }
+            long prestationId = row[0] != null ? ((Number) row[0]).longValue() : DemandeStat.NO_PRESTATION;
+            String statut = row[1] != null ? (String) row[1] : "SOUMISE";
+            cells.merge(new Cell(prestationId, statut), count, Long::sum);
+        }
+        return cells;
+    }
+
+    private record Cell(long prestationId, String statut) {
+    }
+
+    /**
+     * Initialise la table au premier démarrage (ou après une purge manuelle).
+     */
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (statRepository.count() == 0 && demandeRepository.count() > 0) {
+            rebuild();
+        }
+    }
+}
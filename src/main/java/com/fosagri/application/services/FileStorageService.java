@@ -1,21 +1,27 @@
 package com.fosagri.application.services;
 
+import com.fosagri.application.dto.UploadHandle;
+import com.fosagri.application.utils.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 
 /**
  * Service for secure file storage on disk.
- * Files are organized by date and demande ID for easy management.
+ * Each distinct content is kept once in the blob store (BlobStorageService); uploads spooled
+ * to disk by UploadSpoolService are moved there when the demande is submitted.
  */
 @Service
 public class FileStorageService {
@@ -23,21 +29,17 @@ public class FileStorageService {
     @Value("${app.file-storage.base-path:uploads}")
     private String basePath;
 
-    @Value("${app.file-storage.max-file-size:10485760}")
-    private long maxFileSize; // 10MB default
+    // Content hash kept next to files stored before the blob store, used as their strong ETag
+    private static final String HASH_SUFFIX = ".sha256";
 
-    private static final Set<String> ALLOWED_EXTENSIONS = Set.of(
-        "pdf", "doc", "docx", "jpg", "jpeg", "png", "gif"
-    );
+    @Autowired
+    private BlobStorageService blobStorage;
 
-    private static final Set<String> ALLOWED_CONTENT_TYPES = Set.of(
-        "application/pdf",
-        "application/msword",
-        "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
-        "image/jpeg",
-        "image/png",
-        "image/gif"
-    );
+    @Autowired
+    private UploadSpoolService uploadSpool;
+
+    @Autowired
+    private UploadValidator uploadValidator;
 
     @PostConstruct
     public void init() {
@@ -54,6 +56,8 @@ public class FileStorageService {
 
     /**
      * Stores a file for a demande and returns the file info with path.
+     * Content is kept once in the blob store (see BlobStorageService): uploading the same
+     * document again only adds a reference to the existing copy.
      *
      * @param demandeId The demande ID (can be null for new demandes)
      * @param agentId The agent ID
@@ -65,101 +69,126 @@ public class FileStorageService {
     public Map<String, Object> storeFile(Long demandeId, Integer agentId, String filename,
                                          String contentType, byte[] content) throws IOException {
         // Validate file
-        validateFile(filename, contentType, content);
-
-        // Generate storage path: uploads/YYYY/MM/agent_{id}/demande_{id}/
-        String datePath = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM"));
-        String agentFolder = "agent_" + (agentId != null ? agentId : "unknown");
-        String demandeFolder = demandeId != null ? "demande_" + demandeId : "pending_" + UUID.randomUUID().toString().substring(0, 8);
-
-        Path storagePath = Paths.get(basePath, datePath, agentFolder, demandeFolder);
-        Files.createDirectories(storagePath);
-
-        // Generate safe filename
-        String safeFilename = generateSafeFilename(filename);
-        Path filePath = storagePath.resolve(safeFilename);
-
-        // Ensure no overwrite - add suffix if needed
-        int counter = 1;
-        while (Files.exists(filePath)) {
-            String nameWithoutExt = safeFilename.substring(0, safeFilename.lastIndexOf('.'));
-            String ext = safeFilename.substring(safeFilename.lastIndexOf('.'));
-            safeFilename = nameWithoutExt + "_" + counter + ext;
-            filePath = storagePath.resolve(safeFilename);
-            counter++;
-        }
+        validateFile(filename, contentType, content.length, content);
 
-        // Write file
-        Files.write(filePath, content);
+        String storedPath = blobStorage.store(content, getFileExtension(filename).toLowerCase());
+        System.out.println("File stored for agent " + agentId + ", demande " + demandeId + ": " + storedPath);
+        return fileInfo(filename, contentType, content.length, storedPath);
+    }
 
-        // Create file info
-        Map<String, Object> fileInfo = new LinkedHashMap<>();
-        fileInfo.put("originalFilename", filename);
-        fileInfo.put("storedFilename", safeFilename);
-        fileInfo.put("contentType", contentType);
-        fileInfo.put("size", content.length);
-        fileInfo.put("storedPath", filePath.toString());
-        fileInfo.put("relativePath", storagePath.relativize(Paths.get(basePath).resolve(filePath.toString().replace(basePath + "/", ""))).toString());
-        fileInfo.put("uploadedAt", new Date().toString());
+    /**
+     * Stores an upload spooled to disk by UploadSpoolService: the file is validated from its
+     * first bytes and moved into the blob store, never read into memory. Returns the same file
+     * info as storeFile.
+     */
+    public Map<String, Object> storeUpload(UploadHandle upload, Long demandeId, Integer agentId) throws IOException {
+        Path spooled = uploadSpool.resolve(upload);
+        validateFile(upload.filename(), upload.contentType(), upload.size(), readHead(spooled));
+
+        String storedPath = blobStorage.store(spooled, upload.sha256(), upload.size(),
+            getFileExtension(upload.filename()).toLowerCase());
+        System.out.println("Upload stored for agent " + agentId + ", demande " + demandeId + ": " + storedPath);
+        return fileInfo(upload.filename(), upload.contentType(), upload.size(), storedPath);
+    }
 
-        System.out.println("File stored: " + filePath.toAbsolutePath());
-        return fileInfo;
+    /**
+     * Stores content without the upload checks (documents attached to agents, conjoints and
+     * enfants) and returns its stored path. Identical content shares one copy.
+     */
+    public String storeContent(byte[] content, String filename) throws IOException {
+        return blobStorage.store(content, getFileExtension(filename != null ? filename : "").toLowerCase());
     }
 
     /**
-     * Stores multiple files from JSON format (from SecureFileUploadComponent)
+     * Reads a stored file
      */
-    public String storeFilesFromJson(String documentsJson, Long demandeId, Integer agentId) {
-        if (documentsJson == null || documentsJson.trim().isEmpty()) {
-            return null;
+    public byte[] readFile(String storedPath) throws IOException {
+        Path path = Paths.get(storedPath);
+        if (!Files.exists(path)) {
+            throw new IOException("File not found: " + storedPath);
         }
+        return Files.readAllBytes(path);
+    }
 
-        try {
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            List<Map<String, Object>> files = mapper.readValue(documentsJson,
-                new com.fasterxml.jackson.core.type.TypeReference<List<Map<String, Object>>>() {});
-
-            List<Map<String, Object>> storedFiles = new ArrayList<>();
-
-            for (Map<String, Object> file : files) {
-                String filename = (String) file.get("filename");
-                String contentType = (String) file.get("contentType");
-                String base64Content = (String) file.get("base64Content");
-
-                if (base64Content != null && !base64Content.isEmpty()) {
-                    byte[] content = Base64.getDecoder().decode(base64Content);
+    /**
+     * Resolves a stored path to the file on disk, for streaming without loading it in memory.
+     *
+     * @throws IllegalArgumentException if the path points outside the storage directory
+     * @throws IOException if the file does not exist
+     */
+    public Path resolveStoredFile(String storedPath) throws IOException {
+        Path base = Paths.get(basePath).toAbsolutePath().normalize();
+        Path path = Paths.get(storedPath).toAbsolutePath().normalize();
+        if (!path.startsWith(base) || uploadSpool.isSpooled(path)) {
+            throw new IllegalArgumentException("Path outside storage directory: " + storedPath);
+        }
+        if (!Files.isRegularFile(path)) {
+            throw new IOException("File not found: " + storedPath);
+        }
+        return path;
+    }
 
-                    Map<String, Object> storedFile = storeFile(demandeId, agentId, filename, contentType, content);
-                    storedFiles.add(storedFile);
-                }
+    /**
+     * SHA-256 (hex) of a stored file's content: the blob name, or for older files the hash
+     * recorded next to them (files stored before hashes were recorded are hashed once, streamed).
+     */
+    public String contentHash(Path file) throws IOException {
+        String blobSha = blobStorage.shaOf(file.toString());
+        if (blobSha != null) {
+            return blobSha;
+        }
+        Path hashFile = hashFile(file);
+        if (Files.isRegularFile(hashFile)
+                && !Files.getLastModifiedTime(hashFile).toInstant().isBefore(Files.getLastModifiedTime(file).toInstant())) {
+            String recorded = Files.readString(hashFile, StandardCharsets.US_ASCII).trim();
+            if (!recorded.isEmpty()) {
+                return recorded;
             }
+        }
 
-            return mapper.writeValueAsString(storedFiles);
-
-        } catch (Exception e) {
-            System.err.println("Error storing files: " + e.getMessage());
-            e.printStackTrace();
-            return documentsJson; // Return original if storage fails
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
         }
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        try {
+            writeHash(file, sha256);
+        } catch (IOException e) {
+            System.err.println("Could not record content hash for " + file + ": " + e.getMessage());
+        }
+        return sha256;
     }
 
     /**
-     * Reads a stored file
+     * Drops a reference to a stored file once the current transaction commits: a blob is
+     * deleted when nothing references it anymore, an older file is deleted.
      */
-    public byte[] readFile(String storedPath) throws IOException {
-        Path path = Paths.get(storedPath);
-        if (!Files.exists(path)) {
-            throw new IOException("File not found: " + storedPath);
+    public void release(String storedPath) {
+        if (storedPath == null || storedPath.isEmpty()) {
+            return;
         }
-        return Files.readAllBytes(path);
+        if (blobStorage.isBlob(storedPath)) {
+            blobStorage.release(storedPath);
+            return;
+        }
+        TransactionHooks.afterCommit(() -> deleteFile(storedPath));
     }
 
     /**
-     * Deletes a stored file
+     * Deletes a stored file (for a blob: drops one reference, see release)
      */
     public boolean deleteFile(String storedPath) {
+        if (blobStorage.isBlob(storedPath)) {
+            blobStorage.release(storedPath);
+            return true;
+        }
         try {
             Path path = Paths.get(storedPath);
+            Files.deleteIfExists(hashFile(path));
             return Files.deleteIfExists(path);
         } catch (IOException e) {
             System.err.println("Error deleting file: " + e.getMessage());
@@ -186,60 +215,52 @@ public class FileStorageService {
         return info;
     }
 
-    private void validateFile(String filename, String contentType, byte[] content) {
-        // Check size
-        if (content.length > maxFileSize) {
-            throw new IllegalArgumentException("File too large. Maximum size: " + formatFileSize(maxFileSize));
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
+    }
 
-        // Check extension
-        String extension = getFileExtension(filename).toLowerCase();
-        if (!ALLOWED_EXTENSIONS.contains(extension)) {
-            throw new IllegalArgumentException("File type not allowed: " + extension);
-        }
+    private static Path hashFile(Path file) {
+        return file.resolveSibling(file.getFileName() + HASH_SUFFIX);
+    }
 
-        // Check content type
-        if (contentType != null && !isContentTypeAllowed(contentType)) {
-            throw new IllegalArgumentException("Content type not allowed: " + contentType);
-        }
+    private static void writeHash(Path file, String sha256) throws IOException {
+        Files.writeString(hashFile(file), sha256, StandardCharsets.US_ASCII);
+    }
 
-        // Validate magic bytes
-        if (!validateMagicBytes(content, extension)) {
-            throw new IllegalArgumentException("File content does not match its extension");
-        }
+    private Map<String, Object> fileInfo(String filename, String contentType, long size, String storedPath) {
+        Map<String, Object> fileInfo = new LinkedHashMap<>();
+        fileInfo.put("originalFilename", filename);
+        fileInfo.put("storedFilename", generateSafeFilename(filename));
+        fileInfo.put("contentType", contentType);
+        fileInfo.put("size", size);
+        fileInfo.put("sha256", blobStorage.shaOf(storedPath));
+        fileInfo.put("storedPath", storedPath);
+        fileInfo.put("relativePath", Paths.get(basePath).relativize(Paths.get(storedPath)).toString());
+        fileInfo.put("uploadedAt", new Date().toString());
+        return fileInfo;
     }
 
-    private boolean isContentTypeAllowed(String contentType) {
-        return ALLOWED_CONTENT_TYPES.stream()
-            .anyMatch(allowed -> contentType.toLowerCase().contains(allowed.toLowerCase()));
+    // First bytes of a file, enough for the magic bytes check
+    private static byte[] readHead(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.readNBytes(16);
+        }
     }
 
-    private boolean validateMagicBytes(byte[] content, String extension) {
-        if (content.length < 4) return false;
-
-        switch (extension) {
-            case "pdf":
-                // PDF: %PDF
-                return content[0] == 0x25 && content[1] == 0x50 && content[2] == 0x44 && content[3] == 0x46;
-            case "jpg":
-            case "jpeg":
-                // JPEG: FF D8 FF
-                return (content[0] & 0xFF) == 0xFF && (content[1] & 0xFF) == 0xD8 && (content[2] & 0xFF) == 0xFF;
-            case "png":
-                // PNG: 89 50 4E 47
-                return (content[0] & 0xFF) == 0x89 && content[1] == 0x50 && content[2] == 0x4E && content[3] == 0x47;
-            case "gif":
-                // GIF: GIF8
-                return content[0] == 0x47 && content[1] == 0x49 && content[2] == 0x46 && content[3] == 0x38;
-            case "doc":
-                // DOC: D0 CF 11 E0
-                return (content[0] & 0xFF) == 0xD0 && (content[1] & 0xFF) == 0xCF &&
-                       content[2] == 0x11 && (content[3] & 0xFF) == 0xE0;
-            case "docx":
-                // DOCX (ZIP): PK
-                return content[0] == 0x50 && content[1] == 0x4B && content[2] == 0x03 && content[3] == 0x04;
-            default:
-                return true; // Allow unknown types
+    /**
+     * Same rules as during the upload (UploadValidator), checked again before storing.
+     *
+     * @param head the content, or at least its first bytes (magic bytes check)
+     */
+    private void validateFile(String filename, String contentType, long size, byte[] head) {
+        try {
+            uploadValidator.validate(filename, contentType, size, head);
+        } catch (UploadValidator.UploadRejectedException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
         }
     }
 
@@ -281,10 +302,4 @@ public class FileStorageService {
         }
         return filename.substring(lastDot + 1);
     }
-
-    private String formatFileSize(long bytes) {
-        if (bytes < 1024) return bytes + " B";
-        if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
-        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
-    }
 }
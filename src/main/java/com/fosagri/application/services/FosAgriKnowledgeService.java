@@ -1,12 +1,32 @@
 package com.fosagri.application.services;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Contenu du portail FOS-Agri (pages, documents, partenaires) et sa recherche.
+ *
+ * Le contenu est indexé une fois (KnowledgeIndex, BM25). Il peut être externalisé dans un
+ * fichier JSON (tableau de ContentItem) désigné par app.knowledge.content-file (chemin ou
+ * classpath:...) ; le fichier est relu, et l'index reconstruit, lorsqu'il est modifié.
+ * Sans fichier, le contenu intégré ci-dessous est utilisé.
+ */
 @Service
 public class FosAgriKnowledgeService {
 
+    // Délai minimal entre deux vérifications de la date de modification du fichier de contenu
+    private static final long RELOAD_CHECK_INTERVAL_MS = 5000;
+
     public record Organization(String name, String fullName, String website, String email, String phone, String fax, String mission) {}
     public record Category(String id, String name, String icon, String color) {}
     public record ContentItem(int id, String title, String description, String category, String url, String type,
@@ -16,7 +36,14 @@ public class FosAgriKnowledgeService {
 
     private final Organization organization;
     private final List<Category> categories;
-    private final List<ContentItem> content;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${app.knowledge.content-file:}")
+    private String contentFile;
+
+    private volatile KnowledgeIndex index;
+    private volatile long contentLastModified;
+    private volatile long lastReloadCheck;
 
     public FosAgriKnowledgeService() {
         this.organization = new Organization(
@@ -39,7 +66,55 @@ public class FosAgriKnowledgeService {
             new Category("documents", "Documents PDF", "FILE", "gray")
         );
 
-        this.content = initializeContent();
+        this.index = new KnowledgeIndex(initializeContent());
+    }
+
+    @PostConstruct
+    void loadExternalContent() {
+        if (contentFile != null && !contentFile.isBlank()) {
+            reload();
+        }
+    }
+
+    /**
+     * Relit le fichier de contenu externe et remplace l'index. Sans effet si aucun fichier n'est
+     * configuré ; en cas d'erreur de lecture, l'index courant est conservé.
+     */
+    public synchronized void reload() {
+        if (contentFile == null || contentFile.isBlank()) {
+            return;
+        }
+        Resource resource = new DefaultResourceLoader().getResource(contentFile);
+        try (InputStream in = resource.getInputStream()) {
+            List<ContentItem> items = objectMapper.readValue(in, new TypeReference<List<ContentItem>>() {});
+            index = new KnowledgeIndex(items);
+            contentLastModified = lastModified(resource);
+            System.out.println("📚 Contenu du portail chargé depuis " + contentFile + " (" + items.size() + " éléments)");
+        } catch (IOException e) {
+            System.err.println("Erreur de chargement du contenu " + contentFile + ": " + e.getMessage());
+        }
+    }
+
+    private KnowledgeIndex index() {
+        if (contentFile != null && !contentFile.isBlank()) {
+            long now = System.currentTimeMillis();
+            if (now - lastReloadCheck >= RELOAD_CHECK_INTERVAL_MS) {
+                lastReloadCheck = now;
+                long modified = lastModified(new DefaultResourceLoader().getResource(contentFile));
+                if (modified > contentLastModified) {
+                    reload();
+                }
+            }
+        }
+        return index;
+    }
+
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return 0;
+        }
     }
 
     private List<ContentItem> initializeContent() {
@@ -177,10 +252,11 @@ public class FosAgriKnowledgeService {
     }
 
     public List<ContentItem> getAllContent() {
-        return content;
+        return index().items();
     }
 
     public List<ContentItem> getContentByCategory(String categoryId) {
+        List<ContentItem> content = index().items();
         if ("all".equals(categoryId)) return content;
         return content.stream()
             .filter(item -> item.category().equals(categoryId))
@@ -188,6 +264,7 @@ public class FosAgriKnowledgeService {
     }
 
     public List<ContentItem> getContentByType(String type) {
+        List<ContentItem> content = index().items();
         if ("all".equals(type)) return content;
         return content.stream()
             .filter(item -> item.type().equals(type))
@@ -195,53 +272,31 @@ public class FosAgriKnowledgeService {
     }
 
     public List<SearchResult> search(String query, String categoryFilter, String typeFilter) {
+        KnowledgeIndex current = index();
+        List<ContentItem> content = current.items();
         if (query == null || query.trim().isEmpty()) {
             return content.stream()
-                .filter(item -> "all".equals(categoryFilter) || item.category().equals(categoryFilter))
-                .filter(item -> "all".equals(typeFilter) || item.type().equals(typeFilter))
+                .filter(item -> matchesFilters(item, categoryFilter, typeFilter))
                 .map(item -> new SearchResult(item, 0))
                 .collect(Collectors.toList());
         }
 
-        String normalizedQuery = normalizeText(query);
-        String[] searchTerms = normalizedQuery.split("\\s+");
-
-        return content.stream()
-            .filter(item -> "all".equals(categoryFilter) || item.category().equals(categoryFilter))
-            .filter(item -> "all".equals(typeFilter) || item.type().equals(typeFilter))
-            .map(item -> new SearchResult(item, calculateRelevance(item, searchTerms)))
-            .filter(result -> result.relevance() > 0)
-            .sorted((a, b) -> Integer.compare(b.relevance(), a.relevance()))
+        List<Map.Entry<Integer, Double>> scored = current.score(query).entrySet().stream()
+            .filter(e -> matchesFilters(content.get(e.getKey()), categoryFilter, typeFilter))
+            .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
             .collect(Collectors.toList());
-    }
-
-    private String normalizeText(String text) {
-        if (text == null) return "";
-        return java.text.Normalizer.normalize(text.toLowerCase(), java.text.Normalizer.Form.NFD)
-            .replaceAll("[\\p{InCombiningDiacriticalMarks}]", "")
-            .replaceAll("[^\\w\\s]", " ");
-    }
-
-    private int calculateRelevance(ContentItem item, String[] searchTerms) {
-        int score = 0;
-        String titleNorm = normalizeText(item.title());
-        String descNorm = normalizeText(item.description());
-        List<String> keywordsNorm = item.keywords() != null ?
-            item.keywords().stream().map(this::normalizeText).collect(Collectors.toList()) :
-            Collections.emptyList();
-
-        for (String term : searchTerms) {
-            if (term.length() < 2) continue;
-
-            if (titleNorm.contains(term)) {
-                score += 100;
-                if (titleNorm.startsWith(term)) score += 50;
-            }
-            if (keywordsNorm.stream().anyMatch(k -> k.equals(term))) score += 80;
-            if (keywordsNorm.stream().anyMatch(k -> k.contains(term))) score += 40;
-            if (descNorm.contains(term)) score += 20;
+        if (scored.isEmpty()) {
+            return List.of();
         }
+        // relevance sur 200 par rapport au meilleur résultat (affichée en % par les vues), au moins 1
+        double best = scored.get(0).getValue();
+        return scored.stream()
+            .map(e -> new SearchResult(content.get(e.getKey()), Math.max(1, (int) Math.round(200 * e.getValue() / best))))
+            .collect(Collectors.toList());
+    }
 
-        return score;
+    private static boolean matchesFilters(ContentItem item, String categoryFilter, String typeFilter) {
+        return ("all".equals(categoryFilter) || item.category().equals(categoryFilter))
+            && ("all".equals(typeFilter) || item.type().equals(typeFilter));
     }
 }
@@ -0,0 +1,202 @@
+package com.fosagri.application.services;
+
+import com.fosagri.application.dto.AgentSearchRow;
+import com.fosagri.application.dto.DemandeRow;
+import com.fosagri.application.dto.GlobalSearchHit;
+import com.fosagri.application.dto.GlobalSearchHit.Type;
+import com.fosagri.application.dto.GlobalSearchPage;
+import com.fosagri.application.dto.ModificationRow;
+import com.fosagri.application.dto.ReclamationFilter;
+import com.fosagri.application.dto.ReclamationRow;
+import com.fosagri.application.entities.Event;
+import com.fosagri.application.repositories.DemandePrestationRepository;
+import com.fosagri.application.repositories.EventRepository;
+import com.fosagri.application.repositories.ModificationDemandeRepository;
+import com.fosagri.application.repositories.ReclamationRepository;
+import com.fosagri.application.service.AdhAgentService;
+import com.fosagri.application.utils.SearchNormalizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Recherche globale back-office sur les adhérents, demandes de prestation, réclamations,
+ * demandes de modification et événements.
+ *
+ * Les adhérents sont retrouvés par leur index de recherche (search_text / pg_trgm, voir
+ * AdhAgentService.searchAgentRows) ; les demandes, réclamations et modifications des meilleurs
+ * adhérents en héritent le rang, s'y ajoutent celles dont le libellé (prestation, entité)
+ * contient le terme et les réclamations retrouvées par la recherche plein texte de
+ * ReclamationService (objet et détail, comme la grille d'administration). Chaque requête est
+ * une projection sans LOB, plafonnée ; les résultats sont fusionnés, classés puis paginés en
+ * mémoire.
+ */
+@Service
+@Transactional(readOnly = true)
+public class GlobalSearchService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final int AGENT_LIMIT = 50;
+    // Adhérents dont on remonte aussi les demandes, réclamations et modifications
+    private static final int RELATED_AGENTS = 20;
+    private static final int PER_TYPE_LIMIT = 50;
+    // Part du score de l'adhérent reprise par ses demandes, réclamations, modifications
+    private static final double RELATED_FACTOR = 0.8;
+    private static final int MIN_TERM_LENGTH = 2;
+
+    private static final Comparator<GlobalSearchHit> RANKING = Comparator
+        .comparingDouble(GlobalSearchHit::score).reversed()
+        .thenComparing(GlobalSearchHit::date, Comparator.nullsLast(Comparator.reverseOrder()))
+        .thenComparing(GlobalSearchHit::type)
+        .thenComparing(GlobalSearchHit::id);
+
+    @Autowired
+    private AdhAgentService agentService;
+
+    @Autowired
+    private DemandePrestationRepository demandeRepository;
+
+    @Autowired
+    private ReclamationRepository reclamationRepository;
+
+    @Autowired
+    private ReclamationService reclamationService;
+
+    @Autowired
+    private ModificationDemandeRepository modificationRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    public GlobalSearchPage search(String query, int page, int size) {
+        long start = System.currentTimeMillis();
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageIndex = Math.max(0, page);
+        String term = query != null ? query.trim() : "";
+        String normalized = SearchNormalizer.normalize(term);
+        if (normalized.length() < MIN_TERM_LENGTH) {
+            return new GlobalSearchPage(term, pageIndex, pageSize, 0, List.of(), 0);
+        }
+
+        Map<String, GlobalSearchHit> hits = new LinkedHashMap<>();
+        Pageable perType = PageRequest.of(0, PER_TYPE_LIMIT);
+
+        List<AgentSearchRow> agents = agentService.searchAgentRows(term, AGENT_LIMIT);
+        Map<Integer, Double> agentScores = new LinkedHashMap<>();
+        for (int i = 0; i < agents.size(); i++) {
+            AgentSearchRow agent = agents.get(i);
+            double score = 1.0 - 0.5 * i / AGENT_LIMIT;
+            agentScores.put(agent.id(), score);
+            add(hits, new GlobalSearchHit(Type.AGENT, agent.id().longValue(), agent.getFullName().trim(),
+                join(agent.idAdh(), agent.cin(), agent.ville()), null, agent.id(), score));
+        }
+
+        List<Integer> related = agents.stream().limit(RELATED_AGENTS).map(AgentSearchRow::id).toList();
+        if (!related.isEmpty()) {
+            for (DemandeRow row : demandeRepository.findRowsByAgentIds(related, perType)) {
+                add(hits, demandeHit(row, RELATED_FACTOR * agentScores.get(row.agent().id())));
+            }
+            for (ReclamationRow row : reclamationRepository.findRowsByAgentIds(related, perType)) {
+                add(hits, reclamationHit(row, RELATED_FACTOR * agentScores.get(row.agent().id())));
+            }
+            for (ModificationRow row : modificationRepository.findRowsByAgentIds(related, perType)) {
+                add(hits, modificationHit(row, RELATED_FACTOR * agentScores.get(row.agent().id())));
+            }
+        }
+
+        for (DemandeRow row : demandeRepository.findRowsByPrestationLabel(term, perType)) {
+            add(hits, demandeHit(row, textScore(row.prestationLabel(), normalized)));
+        }
+        // Plein texte classé par pertinence : le rang compte autant qu'un objet contenant le terme
+        List<ReclamationRow> reclamations = reclamationService.findPage(
+            new ReclamationFilter(term, null, null, null, null, null), perType);
+        for (int i = 0; i < reclamations.size(); i++) {
+            ReclamationRow row = reclamations.get(i);
+            double rankScore = 0.9 - 0.4 * i / PER_TYPE_LIMIT;
+            add(hits, reclamationHit(row, Math.max(rankScore, textScore(row.objet(), normalized))));
+        }
+        for (ModificationRow row : modificationRepository.findRowsByEntiteLabel(SearchNormalizer.containsPattern(normalized), perType)) {
+            add(hits, modificationHit(row, textScore(row.entiteLabel(), normalized)));
+        }
+        for (Event event : eventRepository.searchEvents(term, perType)) {
+            Date date = event.getDateDebut() != null
+                ? Date.from(event.getDateDebut().atStartOfDay(ZoneId.systemDefault()).toInstant()) : null;
+            add(hits, new GlobalSearchHit(Type.EVENT, event.getId(), event.getTitre(),
+                join(event.getLieu(), event.getDateDebut() != null ? event.getDateDebut().toString() : null),
+                date, null, Math.max(textScore(event.getTitre(), normalized), textScore(event.getLieu(), normalized))));
+        }
+
+        List<GlobalSearchHit> ranked = new ArrayList<>(hits.values());
+        ranked.sort(RANKING);
+        int from = Math.min(pageIndex * pageSize, ranked.size());
+        int to = Math.min(from + pageSize, ranked.size());
+        long took = System.currentTimeMillis() - start;
+        if (took > 100) {
+            System.out.println("⏱️ Recherche globale lente (" + took + " ms) pour '" + term + "'");
+        }
+        return new GlobalSearchPage(term, pageIndex, pageSize, ranked.size(), List.copyOf(ranked.subList(from, to)), took);
+    }
+
+    private static GlobalSearchHit demandeHit(DemandeRow row, double score) {
+        return new GlobalSearchHit(Type.DEMANDE, row.id(), row.prestationLabel(), join(row.getAgentName().trim(), row.statut()),
+            row.dateDemande(), row.agent() != null ? row.agent().id() : null, score);
+    }
+
+    private static GlobalSearchHit reclamationHit(ReclamationRow row, double score) {
+        return new GlobalSearchHit(Type.RECLAMATION, row.id(), row.objet(),
+            join(row.getAgentName().trim(), row.statut() != null ? row.statut().getLabel() : null),
+            row.dateCreation(), row.agent() != null ? row.agent().id() : null, score);
+    }
+
+    private static GlobalSearchHit modificationHit(ModificationRow row, double score) {
+        String agentName = row.agent() != null ? row.agent().getFullName().trim() : null;
+        return new GlobalSearchHit(Type.MODIFICATION, row.id(), row.entiteLabel(),
+            join(agentName, row.statut() != null ? row.statut().name() : null),
+            row.dateCreation(), row.agent() != null ? row.agent().id() : null, score);
+    }
+
+    // Un même élément trouvé par plusieurs chemins garde son meilleur score
+    private static void add(Map<String, GlobalSearchHit> hits, GlobalSearchHit hit) {
+        hits.merge(hit.type() + ":" + hit.id(), hit, (a, b) -> a.score() >= b.score() ? a : b);
+    }
+
+    /**
+     * Score d'un libellé retrouvé par LIKE : égalité, début de mot, sous-chaîne (la base ne tient
+     * pas compte des accents, d'où un score plancher).
+     */
+    private static double textScore(String value, String normalizedTerm) {
+        String text = SearchNormalizer.normalize(value);
+        if (text.isEmpty()) {
+            return 0.5;
+        }
+        if (text.equals(normalizedTerm)) {
+            return 1.0;
+        }
+        if (text.startsWith(normalizedTerm) || text.contains(" " + normalizedTerm)) {
+            return 0.9;
+        }
+        return text.contains(normalizedTerm) ? 0.75 : 0.5;
+    }
+
+    private static String join(String... parts) {
+        StringJoiner joiner = new StringJoiner(" · ");
+        for (String part : parts) {
+            if (part != null && !part.isBlank()) {
+                joiner.add(part);
+            }
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,129 @@
+package com.fosagri.application.services;
+
+import com.fosagri.application.services.FosAgriKnowledgeService.ContentItem;
+import com.fosagri.application.utils.SearchNormalizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Index inversé BM25 du contenu de FosAgriKnowledgeService, construit une fois par jeu de
+ * contenus puis en lecture seule (un rechargement construit un nouvel index).
+ *
+ * Les champs sont pondérés (titre > mots-clés > description > détails) en additionnant les
+ * fréquences pondérées avant le calcul BM25. Les termes sont normalisés par SearchNormalizer
+ * (sans accents) ; un terme de requête correspond aussi, avec un score réduit, aux termes
+ * indexés dont il est le préfixe ("hosp" → "hospitalisation").
+ */
+final class KnowledgeIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double TITLE_WEIGHT = 3.0;
+    private static final double KEYWORD_WEIGHT = 2.5;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    private static final double DETAIL_WEIGHT = 0.5;
+    // Part du score accordée à une correspondance par préfixe
+    private static final double PREFIX_FACTOR = 0.5;
+    private static final int MIN_TERM_LENGTH = 2;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "le", "la", "les", "de", "des", "du", "un", "une", "et", "ou", "en", "au", "aux",
+        "a", "l", "d", "pour", "par", "sur", "dans", "avec", "nos", "vos", "leur", "leurs");
+
+    private final List<ContentItem> items;
+    private final double[] lengths;
+    private final double averageLength;
+    // terme -> (document -> fréquence pondérée), trié pour l'expansion par préfixe
+    private final NavigableMap<String, Map<Integer, Double>> postings = new TreeMap<>();
+
+    KnowledgeIndex(List<ContentItem> items) {
+        this.items = List.copyOf(items);
+        this.lengths = new double[this.items.size()];
+
+        double total = 0;
+        for (int doc = 0; doc < this.items.size(); doc++) {
+            ContentItem item = this.items.get(doc);
+            Map<String, Double> frequencies = new HashMap<>();
+            addField(frequencies, item.title(), TITLE_WEIGHT);
+            if (item.keywords() != null) {
+                item.keywords().forEach(k -> addField(frequencies, k, KEYWORD_WEIGHT));
+            }
+            addField(frequencies, item.description(), DESCRIPTION_WEIGHT);
+            addField(frequencies, item.details(), DETAIL_WEIGHT);
+            addField(frequencies, item.eligibility(), DETAIL_WEIGHT);
+            for (List<String> values : Arrays.asList(item.services(), item.rules(), item.facilities(), item.steps())) {
+                if (values != null) {
+                    values.forEach(v -> addField(frequencies, v, DETAIL_WEIGHT));
+                }
+            }
+
+            double length = frequencies.values().stream().mapToDouble(Double::doubleValue).sum();
+            lengths[doc] = length;
+            total += length;
+            int docId = doc;
+            frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(docId, tf));
+        }
+        this.averageLength = this.items.isEmpty() ? 0 : total / this.items.size();
+    }
+
+    List<ContentItem> items() {
+        return items;
+    }
+
+    /**
+     * Score BM25 de chaque document (indice dans items()) contenant au moins un terme de la requête.
+     */
+    Map<Integer, Double> score(String query) {
+        Map<Integer, Double> scores = new HashMap<>();
+        for (String term : tokens(query)) {
+            Map<Integer, Double> termScores = new HashMap<>();
+            accumulate(termScores, term, 1.0);
+            for (String indexed : postings.subMap(term, false, term + Character.MAX_VALUE, false).keySet()) {
+                accumulate(termScores, indexed, PREFIX_FACTOR);
+            }
+            // Un même terme ne compte qu'une fois par document (exact ou meilleur préfixe)
+            termScores.forEach((doc, s) -> scores.merge(doc, s, Double::sum));
+        }
+        return scores;
+    }
+
+    private void accumulate(Map<Integer, Double> termScores, String indexed, double factor) {
+        Map<Integer, Double> docs = postings.get(indexed);
+        if (docs == null) {
+            return;
+        }
+        double idf = Math.log(1 + (items.size() - docs.size() + 0.5) / (docs.size() + 0.5));
+        docs.forEach((doc, tf) -> {
+            double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+            double s = factor * idf * tf * (K1 + 1) / (tf + norm);
+            termScores.merge(doc, s, Math::max);
+        });
+    }
+
+    private static void addField(Map<String, Double> frequencies, String text, double weight) {
+        for (String token : tokens(text)) {
+            frequencies.merge(token, weight, Double::sum);
+        }
+    }
+
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        String normalized = SearchNormalizer.normalize(text);
+        if (normalized.isEmpty()) {
+            return tokens;
+        }
+        for (String token : normalized.split(" ")) {
+            if (token.length() >= MIN_TERM_LENGTH && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
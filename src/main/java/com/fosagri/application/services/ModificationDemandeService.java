@@ -4,6 +4,8 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fosagri.application.dto.DocumentUpload;
 import com.fosagri.application.dto.FieldChange;
+import com.fosagri.application.dto.ModificationFilter;
+import com.fosagri.application.dto.ModificationRow;
 import com.fosagri.application.entities.ModificationDemande;
 import com.fosagri.application.entities.ModificationDemande.StatutModification;
 import com.fosagri.application.entities.ModificationDemande.TypeEntite;
@@ -11,10 +13,16 @@ import com.fosagri.application.model.AdhAgent;
 import com.fosagri.application.model.AdhConjoint;
 import com.fosagri.application.model.AdhEnfant;
 import com.fosagri.application.repositories.ModificationDemandeRepository;
+import com.fosagri.application.repositories.ModificationSpecifications;
+import com.fosagri.application.repositories.RowQueries;
 import com.fosagri.application.service.AdhAgentService;
 import com.fosagri.application.service.AdhConjointService;
 import com.fosagri.application.service.AdhEnfantService;
+import com.fosagri.application.utils.SearchNormalizer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,6 +35,9 @@ public class ModificationDemandeService {
     @Autowired
     private ModificationDemandeRepository repository;
 
+    @Autowired
+    private RowQueries rowQueries;
+
     @Autowired
     private AdhAgentService agentService;
 
@@ -125,8 +136,42 @@ public class ModificationDemandeService {
     }
 
     @Transactional(readOnly = true)
-    public List<ModificationDemande> searchModifications(String term) {
-        return repository.searchModifications(term);
+    public List<ModificationRow> findAllRows() {
+        return repository.findAllRows();
+    }
+
+    @Transactional(readOnly = true)
+    public List<ModificationRow> findRowsByStatut(StatutModification statut) {
+        return repository.findRowsByStatut(statut);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ModificationRow> searchRows(String term) {
+        String normalized = SearchNormalizer.normalize(term);
+        return normalized.isEmpty() ? findAllRows() : repository.searchRows(SearchNormalizer.containsPattern(normalized));
+    }
+
+    /**
+     * Page de lignes légères pour la grille d'administration, les plus récentes d'abord par
+     * défaut. Tous les critères renseignés de filter sont combinés en une requête.
+     */
+    @Transactional(readOnly = true)
+    public List<ModificationRow> findPage(ModificationFilter filter, Pageable pageable) {
+        Pageable effective = pageable.getSort().isSorted()
+            ? pageable
+            : PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(Sort.Direction.DESC, "dateCreation"));
+        return rowQueries.findRows(ModificationDemande.class, ModificationRow.class,
+            ModificationSpecifications.matching(filter), ModificationSpecifications::rowColumns, effective);
+    }
+
+    @Transactional(readOnly = true)
+    public long countFiltered(ModificationFilter filter) {
+        return repository.count(ModificationSpecifications.matching(filter));
+    }
+
+    @Transactional(readOnly = true)
+    public long count() {
+        return repository.count();
     }
 
     @Transactional(readOnly = true)
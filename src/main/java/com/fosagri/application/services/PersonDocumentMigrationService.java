@@ -0,0 +1,117 @@
+package com.fosagri.application.services;
+
+import com.fosagri.application.entities.PersonDocument.Kind;
+import com.fosagri.application.entities.PersonDocument.OwnerType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Déplace les anciennes colonnes LOB (adhagent.agent_photo, adhconjoint.cin_image, ...)
+ * vers person_document, par lots.
+ *
+ * Chaque lot est une transaction : les pièces sont enregistrées puis la colonne source est
+ * remise à NULL. Une migration interrompue reprend donc là où elle s'est arrêtée au prochain
+ * démarrage. Les large objects PostgreSQL orphelins sont à purger ensuite avec vacuumlo.
+ */
+@Service
+public class PersonDocumentMigrationService {
+
+    private static final List<LegacyColumn> LEGACY_COLUMNS = List.of(
+        new LegacyColumn("adhagent", "adhagentid", "agent_photo", OwnerType.AGENT, Kind.PHOTO),
+        new LegacyColumn("adhagent", "adhagentid", "cin_image", OwnerType.AGENT, Kind.CIN),
+        new LegacyColumn("adhagent", "adhagentid", "rib", OwnerType.AGENT, Kind.RIB),
+        new LegacyColumn("adhagent", "adhagentid", "rib_photo", OwnerType.AGENT, Kind.RIB_PHOTO),
+        new LegacyColumn("adhconjoint", "adhconjointid", "conjoint_photo", OwnerType.CONJOINT, Kind.PHOTO),
+        new LegacyColumn("adhconjoint", "adhconjointid", "cin_image", OwnerType.CONJOINT, Kind.CIN),
+        new LegacyColumn("adhconjoint", "adhconjointid", "acte_mariage_photo", OwnerType.CONJOINT, Kind.ACTE_MARIAGE),
+        new LegacyColumn("adhenfant", "adhenfantid", "enfant_photo", OwnerType.ENFANT, Kind.PHOTO),
+        new LegacyColumn("adhenfant", "adhenfantid", "cin_image", OwnerType.ENFANT, Kind.CIN),
+        new LegacyColumn("adhenfant", "adhenfantid", "attestation_scolarite_photo", OwnerType.ENFANT, Kind.ATTESTATION_SCOLARITE)
+    );
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PersonDocumentService documentService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.person-documents.migration-batch-size:50}")
+    private int batchSize;
+
+    /**
+     * Migre toutes les colonnes encore renseignées. Retourne le nombre de pièces déplacées.
+     */
+    public int migrateLegacyColumns() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int migrated = 0;
+        for (LegacyColumn legacy : LEGACY_COLUMNS) {
+            if (!Boolean.TRUE.equals(transaction.execute(status -> columnExists(legacy)))) {
+                continue;
+            }
+            int batch;
+            do {
+                batch = transaction.execute(status -> migrateBatch(legacy));
+                migrated += batch;
+            } while (batch > 0);
+        }
+        if (migrated > 0) {
+            System.out.println("📁 " + migrated + " pièces déplacées vers person_document");
+        }
+        return migrated;
+    }
+
+    private boolean columnExists(LegacyColumn legacy) {
+        Number count = (Number) entityManager.createNativeQuery(
+                "SELECT COUNT(*) FROM information_schema.columns WHERE table_name = :table AND column_name = :column")
+            .setParameter("table", legacy.table())
+            .setParameter("column", legacy.column())
+            .getSingleResult();
+        return count.intValue() > 0;
+    }
+
+    private int migrateBatch(LegacyColumn legacy) {
+        String sql = "SELECT " + legacy.idColumn() + " AS owner_id, "
+            + legacy.column() + " AS content, "
+            + legacy.column() + "_filename AS filename, "
+            + legacy.column() + "_content_type AS content_type "
+            + "FROM " + legacy.table() + " WHERE " + legacy.column() + " IS NOT NULL ORDER BY " + legacy.idColumn();
+
+        List<Object[]> rows = entityManager.unwrap(Session.class)
+            .createNativeQuery(sql, Object[].class)
+            .addScalar("owner_id", StandardBasicTypes.INTEGER)
+            .addScalar("content", StandardBasicTypes.MATERIALIZED_BLOB)
+            .addScalar("filename", StandardBasicTypes.STRING)
+            .addScalar("content_type", StandardBasicTypes.STRING)
+            .setMaxResults(batchSize)
+            .getResultList();
+
+        for (Object[] row : rows) {
+            Integer ownerId = (Integer) row[0];
+            byte[] content = (byte[]) row[1];
+            if (content != null && content.length > 0) {
+                documentService.store(legacy.ownerType(), ownerId, legacy.kind(),
+                    (String) row[2], (String) row[3], content);
+            }
+            entityManager.createNativeQuery("UPDATE " + legacy.table() + " SET " + legacy.column() + " = NULL"
+                    + " WHERE " + legacy.idColumn() + " = :id")
+                .setParameter("id", ownerId)
+                .executeUpdate();
+        }
+        return rows.size();
+    }
+
+    private record LegacyColumn(String table, String idColumn, String column, OwnerType ownerType, Kind kind) {
+    }
+}
@@ -0,0 +1,216 @@
+package com.fosagri.application.services;
+
+import com.fosagri.application.entities.PersonDocument;
+import com.fosagri.application.entities.PersonDocument.Kind;
+import com.fosagri.application.entities.PersonDocument.OwnerType;
+import com.fosagri.application.model.AdhAgent;
+import com.fosagri.application.model.AdhConjoint;
+import com.fosagri.application.model.AdhEnfant;
+import com.fosagri.application.repositories.PersonDocumentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Stockage des pièces jointes des agents, conjoints et enfants.
+ * Les contenus sont confiés à FileStorageService (stockage adressé par contenu : une même
+ * CIN déposée pour plusieurs personnes ou demandes n'est écrite qu'une fois) et référencés
+ * par la table person_document ; rien n'est lu tant qu'on ne le demande pas.
+ *
+ * Les champs byte[] des entités AdhAgent/AdhConjoint/AdhEnfant sont transients :
+ * loadDocuments(...) les remplit pour un formulaire, storeDocuments(...) enregistre
+ * ceux qui ont été renseignés (un champ null laisse la pièce existante inchangée).
+ */
+@Service
+public class PersonDocumentService {
+
+    @Autowired
+    private PersonDocumentRepository documentRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Transactional(readOnly = true)
+    public Optional<PersonDocument> find(OwnerType ownerType, Integer ownerId, Kind kind) {
+        if (ownerId == null) {
+            return Optional.empty();
+        }
+        return documentRepository.findByOwnerTypeAndOwnerIdAndKind(ownerType, ownerId, kind);
+    }
+
+    @Transactional(readOnly = true)
+    public List<PersonDocument> findAll(OwnerType ownerType, Integer ownerId) {
+        return documentRepository.findByOwnerTypeAndOwnerId(ownerType, ownerId);
+    }
+
+    /**
+     * Contenu d'une pièce, ou null si elle n'existe pas.
+     */
+    @Transactional(readOnly = true)
+    public byte[] readContent(OwnerType ownerType, Integer ownerId, Kind kind) {
+        return find(ownerType, ownerId, kind).map(this::readContent).orElse(null);
+    }
+
+    public byte[] readContent(PersonDocument document) {
+        try {
+            return fileStorageService.readFile(document.getStoragePath());
+        } catch (IOException e) {
+            System.err.println("Pièce introuvable " + document.getStoragePath() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Enregistre (ou remplace) la pièce d'un propriétaire. Un contenu identique
+     * à celui déjà stocké ne réécrit pas le fichier.
+     */
+    @Transactional
+    public PersonDocument store(OwnerType ownerType, Integer ownerId, Kind kind,
+                                String filename, String contentType, byte[] content) {
+        if (ownerId == null) {
+            throw new IllegalArgumentException("Le propriétaire doit être enregistré avant ses documents");
+        }
+        String sha256 = sha256(content);
+        PersonDocument document = documentRepository.findByOwnerTypeAndOwnerIdAndKind(ownerType, ownerId, kind)
+            .orElseGet(PersonDocument::new);
+
+        String previousPath = document.getStoragePath();
+        if (previousPath == null || !sha256.equals(document.getSha256())) {
+            String storagePath;
+            try {
+                storagePath = fileStorageService.storeContent(content, filename);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Impossible d'enregistrer " + filename, e);
+            }
+            document.setStoragePath(storagePath);
+            document.setSha256(sha256);
+            document.setSize(content.length);
+            if (previousPath != null) {
+                fileStorageService.release(previousPath);
+            }
+        }
+
+        document.setOwnerType(ownerType);
+        document.setOwnerId(ownerId);
+        document.setKind(kind);
+        document.setFilename(filename);
+        document.setContentType(contentType);
+        return documentRepository.save(document);
+    }
+
+    @Transactional
+    public void delete(OwnerType ownerType, Integer ownerId, Kind kind) {
+        find(ownerType, ownerId, kind).ifPresent(this::delete);
+    }
+
+    @Transactional
+    public void deleteAll(OwnerType ownerType, Integer ownerId) {
+        if (ownerId == null) {
+            return;
+        }
+        documentRepository.findByOwnerTypeAndOwnerId(ownerType, ownerId).forEach(this::delete);
+    }
+
+    private void delete(PersonDocument document) {
+        documentRepository.delete(document);
+        fileStorageService.release(document.getStoragePath());
+    }
+
+    // ----- Agents -----
+
+    @Transactional(readOnly = true)
+    public AdhAgent loadDocuments(AdhAgent agent) {
+        Map<Kind, byte[]> contents = readAll(OwnerType.AGENT, agent.getAdhAgentId());
+        agent.setAgent_photo(contents.get(Kind.PHOTO));
+        agent.setCin_image(contents.get(Kind.CIN));
+        agent.setRib(contents.get(Kind.RIB));
+        agent.setRib_photo(contents.get(Kind.RIB_PHOTO));
+        return agent;
+    }
+
+    @Transactional
+    public void storeDocuments(AdhAgent agent) {
+        Integer id = agent.getAdhAgentId();
+        storeIfPresent(OwnerType.AGENT, id, Kind.PHOTO, agent.getAgent_photo_filename(), agent.getAgent_photo_contentType(), agent.getAgent_photo());
+        storeIfPresent(OwnerType.AGENT, id, Kind.CIN, agent.getCin_image_filename(), agent.getCin_image_contentType(), agent.getCin_image());
+        storeIfPresent(OwnerType.AGENT, id, Kind.RIB, agent.getRib_filename(), agent.getRib_contentType(), agent.getRib());
+        storeIfPresent(OwnerType.AGENT, id, Kind.RIB_PHOTO, agent.getRib_photo_filename(), agent.getRib_photo_contentType(), agent.getRib_photo());
+    }
+
+    // ----- Conjoints -----
+
+    @Transactional(readOnly = true)
+    public AdhConjoint loadDocuments(AdhConjoint conjoint) {
+        Map<Kind, byte[]> contents = readAll(OwnerType.CONJOINT, conjoint.getAdhConjointId());
+        conjoint.setConjoint_photo(contents.get(Kind.PHOTO));
+        conjoint.setCin_image(contents.get(Kind.CIN));
+        conjoint.setActe_mariage_photo(contents.get(Kind.ACTE_MARIAGE));
+        return conjoint;
+    }
+
+    @Transactional
+    public void storeDocuments(AdhConjoint conjoint) {
+        Integer id = conjoint.getAdhConjointId();
+        storeIfPresent(OwnerType.CONJOINT, id, Kind.PHOTO, conjoint.getConjoint_photo_filename(), conjoint.getConjoint_photo_contentType(), conjoint.getConjoint_photo());
+        storeIfPresent(OwnerType.CONJOINT, id, Kind.CIN, conjoint.getCin_image_filename(), conjoint.getCin_image_contentType(), conjoint.getCin_image());
+        storeIfPresent(OwnerType.CONJOINT, id, Kind.ACTE_MARIAGE, conjoint.getActe_mariage_photo_filename(), conjoint.getActe_mariage_photo_contentType(), conjoint.getActe_mariage_photo());
+    }
+
+    // ----- Enfants -----
+
+    @Transactional(readOnly = true)
+    public AdhEnfant loadDocuments(AdhEnfant enfant) {
+        Map<Kind, byte[]> contents = readAll(OwnerType.ENFANT, enfant.getAdhEnfantId());
+        enfant.setEnfant_photo(contents.get(Kind.PHOTO));
+        enfant.setCin_image(contents.get(Kind.CIN));
+        enfant.setAttestation_scolarite_photo(contents.get(Kind.ATTESTATION_SCOLARITE));
+        return enfant;
+    }
+
+    @Transactional
+    public void storeDocuments(AdhEnfant enfant) {
+        Integer id = enfant.getAdhEnfantId();
+        storeIfPresent(OwnerType.ENFANT, id, Kind.PHOTO, enfant.getEnfant_photo_filename(), enfant.getEnfant_photo_contentType(), enfant.getEnfant_photo());
+        storeIfPresent(OwnerType.ENFANT, id, Kind.CIN, enfant.getCin_image_filename(), enfant.getCin_image_contentType(), enfant.getCin_image());
+        storeIfPresent(OwnerType.ENFANT, id, Kind.ATTESTATION_SCOLARITE, enfant.getAttestation_scolarite_photo_filename(), enfant.getAttestation_scolarite_photo_contentType(), enfant.getAttestation_scolarite_photo());
+    }
+
+    private Map<Kind, byte[]> readAll(OwnerType ownerType, Integer ownerId) {
+        Map<Kind, byte[]> contents = new EnumMap<>(Kind.class);
+        if (ownerId == null) {
+            return contents;
+        }
+        for (PersonDocument document : documentRepository.findByOwnerTypeAndOwnerId(ownerType, ownerId)) {
+            byte[] content = readContent(document);
+            if (content != null) {
+                contents.put(document.getKind(), content);
+            }
+        }
+        return contents;
+    }
+
+    private void storeIfPresent(OwnerType ownerType, Integer ownerId, Kind kind,
+                                String filename, String contentType, byte[] content) {
+        if (content != null && content.length > 0) {
+            store(ownerType, ownerId, kind, filename, contentType, content);
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.fosagri.application.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Colonne reclamations.search_vector (tsvector) et son index GIN (PostgreSQL 12+ uniquement).
+ *
+ * La colonne est générée par la base à partir de objet et detail (configurations french pour
+ * les radicaux et simple pour les mots exacts : noms, numéros), donc tenue à jour à chaque
+ * écriture sans passer par l'entité. Si elle ne peut pas être créée, isAvailable() est faux
+ * et ReclamationService recherche par LIKE.
+ */
+@Service
+public class ReclamationSearchSchemaService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private volatile Boolean available;
+
+    public boolean isAvailable() {
+        Boolean value = available;
+        if (value == null) {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            value = Boolean.TRUE.equals(transaction.execute(status -> isPostgres() && hasSearchVector()));
+            available = value;
+        }
+        return value;
+    }
+
+    /**
+     * Ajoute la colonne générée et l'index GIN s'ils n'existent pas. Sans effet hors PostgreSQL.
+     */
+    public void ensureSearchVector() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            transaction.executeWithoutResult(status -> {
+                if (!isPostgres() || hasSearchVector()) {
+                    return;
+                }
+                entityManager.createNativeQuery("ALTER TABLE reclamations ADD COLUMN search_vector tsvector "
+                        + "GENERATED ALWAYS AS ("
+                        + "setweight(to_tsvector('french', coalesce(objet, '')), 'A') || "
+                        + "setweight(to_tsvector('simple', coalesce(objet, '')), 'A') || "
+                        + "setweight(to_tsvector('french', coalesce(detail, '')), 'B') || "
+                        + "setweight(to_tsvector('simple', coalesce(detail, '')), 'C')) STORED")
+                    .executeUpdate();
+                System.out.println("🗃️ Colonne reclamations.search_vector créée");
+            });
+            transaction.executeWithoutResult(status -> {
+                if (isPostgres()) {
+                    entityManager.createNativeQuery("CREATE INDEX IF NOT EXISTS idx_reclamations_search_vector "
+                            + "ON reclamations USING gin (search_vector)")
+                        .executeUpdate();
+                }
+            });
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Recherche plein texte des réclamations indisponible, recherche par LIKE : " + e.getMessage());
+        }
+        available = null;
+    }
+
+    private boolean isPostgres() {
+        String product = entityManager.unwrap(Session.class)
+            .doReturningWork(connection -> connection.getMetaData().getDatabaseProductName());
+        return product != null && product.toLowerCase().contains("postgresql");
+    }
+
+    private boolean hasSearchVector() {
+        return !entityManager.createNativeQuery(
+                "SELECT column_name FROM information_schema.columns "
+                    + "WHERE table_name = 'reclamations' AND column_name = 'search_vector'")
+            .getResultList().isEmpty();
+    }
+}
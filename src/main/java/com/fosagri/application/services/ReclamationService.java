@@ -2,23 +2,41 @@ package com.fosagri.application.services;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fosagri.application.dto.ReclamationFilter;
+import com.fosagri.application.dto.ReclamationRow;
 import com.fosagri.application.entities.Reclamation;
 import com.fosagri.application.entities.Reclamation.StatutReclamation;
 import com.fosagri.application.entities.Reclamation.TypeReclamation;
 import com.fosagri.application.model.AdhAgent;
 import com.fosagri.application.repositories.ReclamationRepository;
+import com.fosagri.application.repositories.ReclamationSpecifications;
+import com.fosagri.application.repositories.RowQueries;
+import com.fosagri.application.utils.SearchNormalizer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ReclamationService {
     
     @Autowired
     private ReclamationRepository reclamationRepository;
+
+    @Autowired
+    private ReclamationSearchSchemaService searchSchema;
+
+    @Autowired
+    private RowQueries rowQueries;
     
     private final ObjectMapper objectMapper = new ObjectMapper();
     
@@ -75,6 +93,91 @@ public class ReclamationService {
         return reclamationRepository.searchByObjetOrDetail(searchText.trim());
     }
     
+    // LOB-free rows for list screens
+    public List<ReclamationRow> findAllRows() {
+        return reclamationRepository.findAllRows();
+    }
+    
+    public List<ReclamationRow> findRowsByStatut(StatutReclamation statut) {
+        return reclamationRepository.findRowsByStatut(statut);
+    }
+    
+    public List<ReclamationRow> findRowsByType(TypeReclamation type) {
+        return reclamationRepository.findRowsByType(type);
+    }
+    
+    public List<ReclamationRow> searchRows(String searchText) {
+        if (searchText == null || searchText.trim().isEmpty()) {
+            return findAllRows();
+        }
+        return reclamationRepository.searchRows(searchText.trim());
+    }
+
+    /**
+     * Page de réclamations pour la grille d'administration, tous les critères renseignés de
+     * filter combinés en une requête. Avec un texte sous PostgreSQL : plein texte, les plus
+     * pertinentes d'abord ; sinon LIKE, les plus récentes d'abord. Un tri demandé sur
+     * dateCreation (en-tête de la grille) s'applique dans les deux cas.
+     */
+    public List<ReclamationRow> findPage(ReclamationFilter filter, Pageable pageable) {
+        if (filter.hasSearch() && searchSchema.isAvailable()) {
+            String text = filter.search().trim();
+            List<Long> ids = reclamationRepository.searchFullTextIds(text, agentPattern(text), name(filter.statut()),
+                name(filter.type()), ville(filter), startOfDay(filter.from()), dayAfter(filter.to()),
+                fullTextOrder(pageable.getSort()), pageable.getPageSize(), pageable.getOffset());
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            Map<Long, ReclamationRow> rowsById = reclamationRepository.findRowsByIds(ids).stream()
+                .collect(Collectors.toMap(ReclamationRow::id, Function.identity()));
+            return ids.stream().map(rowsById::get).filter(Objects::nonNull).collect(Collectors.toList());
+        }
+        Pageable sorted = pageable.getSort().isSorted() ? pageable
+            : PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(Sort.Direction.DESC, "dateCreation"));
+        return rowQueries.findRows(Reclamation.class, ReclamationRow.class, ReclamationSpecifications.matching(filter),
+            ReclamationSpecifications::rowColumns, sorted);
+    }
+
+    public long countFiltered(ReclamationFilter filter) {
+        if (filter.hasSearch() && searchSchema.isAvailable()) {
+            String text = filter.search().trim();
+            return reclamationRepository.countFullText(text, agentPattern(text), name(filter.statut()),
+                name(filter.type()), ville(filter), startOfDay(filter.from()), dayAfter(filter.to()));
+        }
+        return reclamationRepository.count(ReclamationSpecifications.matching(filter));
+    }
+
+    private static String fullTextOrder(Sort sort) {
+        Sort.Order order = sort.getOrderFor("dateCreation");
+        if (order == null) {
+            return "rank";
+        }
+        return order.isAscending() ? "date_asc" : "date_desc";
+    }
+
+    private static String ville(ReclamationFilter filter) {
+        return filter.ville() == null || filter.ville().isBlank() ? null : filter.ville().trim().toLowerCase();
+    }
+
+    private static Date startOfDay(LocalDate day) {
+        return day != null ? Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant()) : null;
+    }
+
+    // Borne exclusive : le lendemain à minuit, pour inclure toute la journée "au"
+    private static Date dayAfter(LocalDate day) {
+        return day != null ? startOfDay(day.plusDays(1)) : null;
+    }
+
+    // Motif sur adhagent.search_text ; un terme sans lettre ni chiffre ne retrouve aucun agent
+    private static String agentPattern(String text) {
+        String normalized = SearchNormalizer.normalize(text);
+        return normalized.isEmpty() ? "" : SearchNormalizer.containsPattern(normalized);
+    }
+
+    private static String name(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+    
     public List<Reclamation> findPendingReclamations() {
         return reclamationRepository.findPendingReclamations();
     }
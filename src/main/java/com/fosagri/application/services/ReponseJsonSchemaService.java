@@ -0,0 +1,155 @@
+package com.fosagri.application.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Colonne demande_prestation.reponse_json en jsonb (PostgreSQL uniquement).
+ *
+ * Convertit l'ancienne colonne TEXT au démarrage et pose l'index GIN utilisé par les
+ * requêtes de DemandePrestationRepository (clés, valeurs, filtres par champ). Cette conversion
+ * ne sert qu'avec ddl-auto=update : en production (validate), Hibernate refuse la colonne TEXT
+ * avant ce service, c'est sql/migrations/003_reponse_json_jsonb.sql qui fait la même conversion.
+ * Sur une autre base (H2...), isJsonb() reste faux et les réponses sont lues côté Java.
+ */
+@Service
+public class ReponseJsonSchemaService {
+
+    // Clé sous laquelle une ancienne réponse non JSON est conservée avant la conversion
+    private static final String RAW_ANSWER_KEY = "reponse_brute";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private volatile Boolean jsonb;
+
+    /**
+     * Vrai si reponse_json est une colonne jsonb interrogeable avec jsonb_object_keys, ->>, @>.
+     */
+    public boolean isJsonb() {
+        Boolean value = jsonb;
+        if (value == null) {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            value = Boolean.TRUE.equals(transaction.execute(status -> isPostgres() && "jsonb".equals(columnType())));
+            jsonb = value;
+        }
+        return value;
+    }
+
+    /**
+     * Convertit reponse_json en jsonb si besoin et crée l'index GIN. Sans effet hors PostgreSQL.
+     */
+    public void migrateToJsonb() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            if (!isPostgres()) {
+                return;
+            }
+            String type = columnType();
+            if (type == null) {
+                return;
+            }
+            if (!"jsonb".equals(type)) {
+                int repaired = repairInvalidAnswers();
+                entityManager.createNativeQuery("ALTER TABLE demande_prestation ALTER COLUMN reponse_json "
+                        + "TYPE jsonb USING CAST(reponse_json AS jsonb)")
+                    .executeUpdate();
+                System.out.println("🗃️ reponse_json converti en jsonb (" + repaired + " réponses non JSON reprises)");
+            }
+            entityManager.createNativeQuery("CREATE INDEX IF NOT EXISTS idx_demande_prestation_reponse_json "
+                    + "ON demande_prestation USING gin (reponse_json)")
+                .executeUpdate();
+        });
+        jsonb = null;
+    }
+
+    private boolean isPostgres() {
+        String product = entityManager.unwrap(Session.class)
+            .doReturningWork(connection -> connection.getMetaData().getDatabaseProductName());
+        return product != null && product.toLowerCase().contains("postgresql");
+    }
+
+    private String columnType() {
+        @SuppressWarnings("unchecked")
+        List<String> types = entityManager.createNativeQuery(
+                "SELECT data_type FROM information_schema.columns "
+                    + "WHERE table_name = 'demande_prestation' AND column_name = 'reponse_json'", String.class)
+            .getResultList();
+        return types.isEmpty() ? null : types.get(0);
+    }
+
+    /**
+     * Le cast en jsonb échoue sur la première valeur invalide : les chaînes vides passent à NULL,
+     * les textes non JSON sont enveloppés dans {"reponse_brute": "..."}.
+     */
+    private int repairInvalidAnswers() {
+        Map<Long, String> replacements = new LinkedHashMap<>();
+        @SuppressWarnings("unchecked")
+        Stream<Object[]> rows = entityManager.createNativeQuery(
+                "SELECT id, reponse_json FROM demande_prestation WHERE reponse_json IS NOT NULL")
+            .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+            .getResultStream();
+        try (rows) {
+            Iterator<Object[]> it = rows.iterator();
+            while (it.hasNext()) {
+                Object[] row = it.next();
+                String json = (String) row[1];
+                if (json.isBlank()) {
+                    replacements.put(((Number) row[0]).longValue(), null);
+                } else if (!isValidJson(json)) {
+                    replacements.put(((Number) row[0]).longValue(), wrapRawAnswer(json));
+                }
+            }
+        }
+        replacements.forEach((id, json) -> {
+            if (json == null) {
+                entityManager.createNativeQuery("UPDATE demande_prestation SET reponse_json = NULL WHERE id = :id")
+                    .setParameter("id", id)
+                    .executeUpdate();
+            } else {
+                entityManager.createNativeQuery("UPDATE demande_prestation SET reponse_json = :json WHERE id = :id")
+                    .setParameter("json", json)
+                    .setParameter("id", id)
+                    .executeUpdate();
+            }
+        });
+        return replacements.size();
+    }
+
+    private boolean isValidJson(String json) {
+        try {
+            objectMapper.readTree(json);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private String wrapRawAnswer(String text) {
+        try {
+            return objectMapper.writeValueAsString(Map.of(RAW_ANSWER_KEY, text));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
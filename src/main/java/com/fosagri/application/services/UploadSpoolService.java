@@ -0,0 +1,226 @@
+package com.fosagri.application.services;
+
+import com.fosagri.application.dto.UploadHandle;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Réception des pièces jointes directement sur disque, sous {base-path}/tmp (même système de
+ * fichiers que les blobs, pour que la soumission se limite à un renommage). Le contenu est
+ * écrit au fil de l'eau, taille et SHA-256 calculés au passage : rien n'est gardé en mémoire
+ * ni encodé en Base64. Les fichiers jamais soumis sont supprimés après un jour : au démarrage
+ * puis toutes les heures (app.file-storage.spool-purge-interval), sans attendre un redémarrage.
+ *
+ * Le contenu passe par UploadValidator avant d'être écrit : une pièce refusée (signature, taille)
+ * interrompt la réception dès les octets fautifs.
+ */
+@Service
+public class UploadSpoolService {
+
+    private static final String SPOOL_DIRECTORY = "tmp";
+    private static final String SUFFIX = ".upload";
+    private static final Pattern ID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final Duration MAX_AGE = Duration.ofDays(1);
+
+    @Value("${app.file-storage.base-path:uploads}")
+    private String basePath;
+
+    @Autowired
+    private UploadValidator uploadValidator;
+
+    @PostConstruct
+    public void init() {
+        try {
+            Files.createDirectories(directory());
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create upload spool directory", e);
+        }
+        purgeExpired();
+    }
+
+    /**
+     * Ouvre un fichier d'attente pour une réception. maxSize : au-delà (ou au-delà de
+     * app.file-storage.max-file-size), l'écriture échoue et la réception avec elle.
+     *
+     * @throws UploadValidator.UploadRejectedException si le nom ou le type déclaré est refusé
+     */
+    public Spool open(String filename, String contentType, long maxSize) throws IOException {
+        String id = UUID.randomUUID().toString();
+        Path file = directory().resolve(id + SUFFIX);
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.WRITE), 64 * 1024);
+        Spool spool = new Spool(id, filename, contentType, file, out);
+        try {
+            spool.validated = uploadValidator.validating(spool.output, filename, contentType, maxSize);
+        } catch (UploadValidator.UploadRejectedException e) {
+            spool.discard();
+            throw e;
+        }
+        return spool;
+    }
+
+    /**
+     * Fichier en attente d'un handle.
+     *
+     * @throws IOException s'il n'existe plus (expiré, déjà soumis ou supprimé)
+     */
+    public Path resolve(UploadHandle handle) throws IOException {
+        Path file = fileOf(handle);
+        if (file == null || !Files.isRegularFile(file)) {
+            throw new IOException("La pièce jointe " + handle.filename() + " n'est plus disponible, veuillez la déposer à nouveau");
+        }
+        return file;
+    }
+
+    public void discard(UploadHandle handle) {
+        Path file = fileOf(handle);
+        if (file != null) {
+            deleteQuietly(file);
+        }
+    }
+
+    /**
+     * Vrai si path est dans le répertoire d'attente (à ne jamais servir tel quel).
+     */
+    public boolean isSpooled(Path path) {
+        return path.toAbsolutePath().normalize().startsWith(directory().toAbsolutePath().normalize());
+    }
+
+    private Path fileOf(UploadHandle handle) {
+        if (handle == null || handle.id() == null || !ID.matcher(handle.id()).matches()) {
+            return null;
+        }
+        return directory().resolve(handle.id() + SUFFIX);
+    }
+
+    private Path directory() {
+        return Paths.get(basePath, SPOOL_DIRECTORY);
+    }
+
+    /**
+     * Supprime les fichiers d'attente de plus d'un jour (réceptions abandonnées, sessions
+     * expirées). Un fichier illisible est ignoré jusqu'au passage suivant.
+     */
+    @Scheduled(fixedDelayString = "${app.file-storage.spool-purge-interval:PT1H}",
+               initialDelayString = "${app.file-storage.spool-purge-interval:PT1H}")
+    public void purgeExpired() {
+        Instant limit = Instant.now().minus(MAX_AGE);
+        int purged = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory(), "*" + SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(limit)) {
+                        deleteQuietly(file);
+                        purged++;
+                    }
+                } catch (IOException e) {
+                    // Soumis ou supprimé entre-temps
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Purge des pièces jointes en attente impossible: " + e.getMessage());
+            return;
+        }
+        if (purged > 0) {
+            System.out.println("🧹 " + purged + " pièce(s) jointe(s) non soumise(s) supprimée(s)");
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("⚠️ Fichier d'attente non supprimé " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Une réception en cours : output() reçoit le contenu, complete() (après fermeture du flux)
+     * donne le handle, discard() abandonne.
+     */
+    public static final class Spool {
+        private final String id;
+        private final String filename;
+        private final String contentType;
+        private final Path file;
+        private final MessageDigest digest;
+        private final SpoolOutputStream output;
+        private OutputStream validated;
+
+        private Spool(String id, String filename, String contentType, Path file, OutputStream out) {
+            this.id = id;
+            this.filename = filename;
+            this.contentType = contentType;
+            this.file = file;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+            this.output = new SpoolOutputStream(out, digest);
+        }
+
+        public OutputStream output() {
+            return validated;
+        }
+
+        public Path file() {
+            return file;
+        }
+
+        public UploadHandle complete() {
+            return new UploadHandle(id, filename, contentType, output.count, HexFormat.of().formatHex(digest.digest()));
+        }
+
+        public void discard() {
+            try {
+                output.close();
+            } catch (IOException ignored) {
+                // Le fichier est supprimé de toute façon
+            }
+            deleteQuietly(file);
+        }
+    }
+
+    private static final class SpoolOutputStream extends FilterOutputStream {
+        private final MessageDigest digest;
+        private long count;
+
+        private SpoolOutputStream(OutputStream out, MessageDigest digest) {
+            super(out);
+            this.digest = digest;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            digest.update(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.fosagri.application.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Règles communes aux pièces déposées (extension, type déclaré, signature du contenu, taille
+ * maximale app.file-storage.max-file-size), appliquées pendant la réception.
+ *
+ * validating() vérifie le nom et le type déclarés avant le premier octet, puis enveloppe le flux
+ * de destination : la signature est contrôlée dès que les premiers octets arrivent et la taille
+ * à chaque écriture. Une violation lève UploadRejectedException depuis write(), ce qui
+ * interrompt la réception Vaadin aussitôt, sans attendre la fin du fichier.
+ */
+@Service
+public class UploadValidator {
+
+    public static final Set<String> ALLOWED_EXTENSIONS = Set.of(
+        "pdf", "doc", "docx", "jpg", "jpeg", "png", "gif"
+    );
+
+    private static final Set<String> ALLOWED_CONTENT_TYPES = Set.of(
+        "application/pdf",
+        "application/msword",
+        "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+        "image/jpeg",
+        "image/png",
+        "image/gif"
+    );
+
+    // Signatures (magic bytes) attendues en tête de fichier, par extension
+    private static final Map<String, byte[]> SIGNATURES = Map.of(
+        "pdf", new byte[] {0x25, 0x50, 0x44, 0x46},                              // %PDF
+        "jpg", new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF},
+        "jpeg", new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF},
+        "png", new byte[] {(byte) 0x89, 0x50, 0x4E, 0x47},
+        "gif", new byte[] {0x47, 0x49, 0x46, 0x38},                              // GIF8
+        "doc", new byte[] {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0},
+        "docx", new byte[] {0x50, 0x4B, 0x03, 0x04}                              // ZIP
+    );
+
+    // Octets nécessaires avant de vérifier la signature (plus longue signature connue)
+    private static final int HEAD_SIZE = 4;
+
+    @Value("${app.file-storage.max-file-size:10485760}")
+    private long maxFileSize;
+
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    /**
+     * Flux qui écrit dans out en validant le contenu au fil de l'eau. limit : taille maximale
+     * propre à l'appelant, plafonnée par app.file-storage.max-file-size.
+     *
+     * @throws UploadRejectedException si le nom ou le type déclaré est refusé (rien n'est écrit)
+     */
+    public OutputStream validating(OutputStream out, String filename, String contentType, long limit)
+            throws UploadRejectedException {
+        checkDeclared(filename, contentType);
+        return new ValidatingOutputStream(out, extensionOf(filename), Math.min(limit, maxFileSize));
+    }
+
+    /**
+     * Validation d'un contenu déjà reçu (taille connue, premiers octets), mêmes règles que validating().
+     */
+    public void validate(String filename, String contentType, long size, byte[] head) throws UploadRejectedException {
+        checkDeclared(filename, contentType);
+        checkSize(size, maxFileSize);
+        checkSignature(extensionOf(filename), head, head.length);
+    }
+
+    private void checkDeclared(String filename, String contentType) throws UploadRejectedException {
+        String extension = extensionOf(filename);
+        if (!ALLOWED_EXTENSIONS.contains(extension)) {
+            throw new UploadRejectedException("Extension de fichier non autorisée: " + extension);
+        }
+        if (contentType != null && ALLOWED_CONTENT_TYPES.stream()
+                .noneMatch(allowed -> contentType.toLowerCase(Locale.ROOT).contains(allowed))) {
+            throw new UploadRejectedException("Type de fichier non autorisé: " + contentType);
+        }
+    }
+
+    private static void checkSize(long size, long limit) throws UploadRejectedException {
+        if (size > limit) {
+            throw new UploadRejectedException("Fichier trop volumineux. Taille max: " + formatFileSize(limit));
+        }
+    }
+
+    private static void checkSignature(String extension, byte[] head, int length) throws UploadRejectedException {
+        byte[] signature = SIGNATURES.get(extension);
+        if (signature == null) {
+            return;
+        }
+        boolean matches = length >= signature.length;
+        for (int i = 0; matches && i < signature.length; i++) {
+            matches = head[i] == signature[i];
+        }
+        if (!matches) {
+            throw new UploadRejectedException("Le contenu du fichier ne correspond pas à son extension");
+        }
+    }
+
+    private static String extensionOf(String filename) {
+        int lastDot = filename != null ? filename.lastIndexOf('.') : -1;
+        return lastDot < 0 ? "" : filename.substring(lastDot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static String formatFileSize(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    /**
+     * Pièce refusée par les règles de dépôt ; le message est destiné à l'utilisateur.
+     */
+    public static class UploadRejectedException extends IOException {
+        public UploadRejectedException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class ValidatingOutputStream extends FilterOutputStream {
+        private final String extension;
+        private final long limit;
+        private final byte[] head = new byte[HEAD_SIZE];
+        private int headLength;
+        private boolean signatureChecked;
+        private long count;
+
+        private ValidatingOutputStream(OutputStream out, String extension, long limit) {
+            super(out);
+            this.extension = extension;
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkSize(count + len, limit);
+            if (!signatureChecked) {
+                int n = Math.min(len, HEAD_SIZE - headLength);
+                System.arraycopy(b, off, head, headLength, n);
+                headLength += n;
+                if (headLength == HEAD_SIZE) {
+                    checkHead();
+                }
+            }
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                // Fichier plus court que la signature
+                if (!signatureChecked) {
+                    checkHead();
+                }
+            } finally {
+                super.close();
+            }
+        }
+
+        private void checkHead() throws UploadRejectedException {
+            signatureChecked = true;
+            checkSignature(extension, head, headLength);
+        }
+    }
+}
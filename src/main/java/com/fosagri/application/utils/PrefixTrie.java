@@ -0,0 +1,70 @@
+package com.fosagri.application.utils;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Trie de préfixes sur des mots normalisés (SearchNormalizer.normalize), associant chaque
+ * préfixe à l'ensemble des identifiants entiers (positions dans une liste) dont un mot commence
+ * par ce préfixe. Chaque nœud garde l'ensemble de son sous-arbre : une recherche coûte la
+ * longueur du préfixe. Non synchronisé : à construire une fois puis à partager en lecture.
+ */
+public final class PrefixTrie {
+
+    private final Node root = new Node();
+
+    /**
+     * Indexe tous les mots de text (normalisés) pour l'identifiant id.
+     */
+    public void add(int id, String text) {
+        String normalized = SearchNormalizer.normalize(text);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        for (String word : normalized.split(" ")) {
+            Node node = root;
+            for (int i = 0; i < word.length(); i++) {
+                node = node.children.computeIfAbsent(word.charAt(i), c -> new Node());
+                node.ids.set(id);
+            }
+        }
+    }
+
+    /**
+     * Identifiants dont un mot commence par chacun des mots du terme (ET entre les mots).
+     * Terme vide : ensemble vide.
+     */
+    public BitSet search(String term) {
+        String normalized = SearchNormalizer.normalize(term);
+        if (normalized.isEmpty()) {
+            return new BitSet();
+        }
+        BitSet result = null;
+        for (String word : normalized.split(" ")) {
+            BitSet ids = lookup(word);
+            if (result == null) {
+                result = (BitSet) ids.clone();
+            } else {
+                result.and(ids);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private BitSet lookup(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        return node == null ? new BitSet() : node.ids;
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final BitSet ids = new BitSet();
+    }
+}
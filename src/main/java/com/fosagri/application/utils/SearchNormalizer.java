@@ -0,0 +1,164 @@
+package com.fosagri.application.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Clés de recherche des noms français et arabes, calculées à l'écriture (colonnes search_text
+ * et phonetic_key de AdhAgent, AdhConjoint, AdhEnfant) et appliquées de la même façon au
+ * terme recherché.
+ *
+ * normalize : minuscules, sans accents ni diacritiques arabes (harakat, tatweel), variantes
+ * de alef/hamza/ya/ta marbuta ramenées à une forme, ponctuation remplacée par des espaces.
+ * phonetic : squelette consonantique tolérant aux transcriptions ("El Khadir", "ELKHADIR",
+ * "Al Kadir" donnent la même clé).
+ */
+public final class SearchNormalizer {
+
+    private static final Pattern MARKS = Pattern.compile("[\\p{M}\\u0640]+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern LATIN_VOWELS = Pattern.compile("[aeiouy]");
+    private static final Pattern ARABIC_LONG_VOWELS = Pattern.compile("[\\u0627\\u0648\\u064A]");
+    private static final Pattern REPEATED = Pattern.compile("(.)\\1+");
+
+    private SearchNormalizer() {
+    }
+
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder folded = new StringBuilder(stripped.length());
+        for (char c : stripped.toLowerCase().toCharArray()) {
+            folded.append(foldArabic(c));
+        }
+        return SEPARATORS.matcher(folded).replaceAll(" ").trim();
+    }
+
+    /**
+     * Valeurs normalisées jointes par des espaces (valeurs vides ignorées).
+     */
+    public static String normalize(String... values) {
+        StringJoiner joiner = new StringJoiner(" ");
+        for (String value : values) {
+            String normalized = normalize(value);
+            if (!normalized.isEmpty()) {
+                joiner.add(normalized);
+            }
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Clé phonétique d'un nom complet : un squelette par mot, mots triés (l'ordre nom/prénom
+     * ne compte pas). Les articles al/el sont rattachés au mot suivant.
+     */
+    public static String phonetic(String... values) {
+        TreeSet<String> keys = new TreeSet<>();
+        for (String word : words(normalize(values))) {
+            String key = phoneticWord(word);
+            if (!key.isEmpty()) {
+                keys.add(key);
+            }
+        }
+        return String.join(" ", keys);
+    }
+
+    /**
+     * Texte indexé : valeurs normalisées, nom et prénom accolés dans les deux ordres, puis
+     * squelettes phonétiques, pour qu'un LIKE ou un trigramme sur une seule colonne suffise.
+     */
+    public static String searchText(String nom, String prenom, String... others) {
+        StringJoiner joiner = new StringJoiner(" ");
+        String names = normalize(nom, prenom);
+        if (!names.isEmpty()) {
+            joiner.add(names);
+        }
+        String n = normalize(nom).replace(" ", "");
+        String p = normalize(prenom).replace(" ", "");
+        if (!n.isEmpty() && !p.isEmpty()) {
+            joiner.add(n + p).add(p + n);
+        }
+        String rest = normalize(others);
+        if (!rest.isEmpty()) {
+            joiner.add(rest);
+        }
+        String phonetic = phonetic(nom, prenom);
+        if (!phonetic.isEmpty()) {
+            joiner.add(phonetic);
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Motif LIKE '%terme%' pour un terme déjà normalisé (normalize ne laisse ni % ni _).
+     */
+    public static String containsPattern(String normalized) {
+        return "%" + normalized + "%";
+    }
+
+    /**
+     * Motif LIKE sur phonetic_key pour un terme brut (motif du terme normalisé s'il n'a pas de squelette).
+     */
+    public static String phoneticPattern(String term) {
+        String phonetic = phonetic(term);
+        return containsPattern(phonetic.isEmpty() ? normalize(term) : phonetic);
+    }
+
+    private static List<String> words(String normalized) {
+        List<String> words = new ArrayList<>();
+        String pending = "";
+        for (String word : normalized.split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (word.equals("al") || word.equals("el") || word.equals("ال")) {
+                pending = pending + word;
+                continue;
+            }
+            words.add(pending + word);
+            pending = "";
+        }
+        if (!pending.isEmpty()) {
+            words.add(pending);
+        }
+        return words;
+    }
+
+    private static String phoneticWord(String word) {
+        String w = word
+            .replace("ou", "u")
+            .replace("kh", "k")
+            .replace("gh", "g")
+            .replace("ch", "sh")
+            .replace("ph", "f")
+            .replace("q", "k")
+            .replace("ck", "k")
+            .replace("c", "k")
+            .replace("z", "s");
+        // Voyelles supprimées, y compris en tête (el/al donnent la même clé), de même que
+        // les voyelles longues arabes (alef, waw, ya)
+        String skeleton = ARABIC_LONG_VOWELS.matcher(LATIN_VOWELS.matcher(w).replaceAll("")).replaceAll("");
+        return REPEATED.matcher(skeleton).replaceAll("$1");
+    }
+
+    private static char foldArabic(char c) {
+        switch (c) {
+            case 'أ': case 'إ': case 'آ': case 'ٱ':
+                return 'ا';
+            case 'ؤ':
+                return 'و';
+            case 'ئ': case 'ى':
+                return 'ي';
+            case 'ة':
+                return 'ه';
+            default:
+                return c;
+        }
+    }
+}
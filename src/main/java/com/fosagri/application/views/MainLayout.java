@@ -2,6 +2,7 @@ package com.fosagri.application.views;
 
 import com.fosagri.application.model.Utilisateur;
 import com.fosagri.application.security.AuthenticatedUser;
+import com.fosagri.application.service.AdhAgentService;
 import com.vaadin.flow.component.applayout.AppLayout;
 import com.vaadin.flow.component.applayout.DrawerToggle;
 import com.vaadin.flow.component.avatar.Avatar;
@@ -45,11 +46,13 @@ public class MainLayout extends AppLayout implements BeforeEnterObserver {
 
     private H1 viewTitle;
     private final AuthenticatedUser authenticatedUser;
+    private final AdhAgentService agentService;
     private boolean isAdmin = false;
     private boolean isAgent = false;
 
-    public MainLayout(AuthenticatedUser authenticatedUser) {
+    public MainLayout(AuthenticatedUser authenticatedUser, AdhAgentService agentService) {
         this.authenticatedUser = authenticatedUser;
+        this.agentService = agentService;
 
         // Check if user is admin or agent
         Optional<Utilisateur> maybeUser = authenticatedUser.get();
@@ -153,11 +156,12 @@ public class MainLayout extends AppLayout implements BeforeEnterObserver {
                                    (agent.getNOM_AG() != null ? agent.getNOM_AG() : "");
                 avatar.setName(agentName.trim());
 
-                // Try to set agent photo if available (stored as byte array)
-                if (agent.getAgent_photo() != null && agent.getAgent_photo().length > 0) {
+                // Try to set agent photo if available (read from the document store)
+                byte[] photo = agentService.readPhoto(agent);
+                if (photo != null && photo.length > 0) {
                     String contentType = agent.getAgent_photo_contentType() != null
                         ? agent.getAgent_photo_contentType() : "image/jpeg";
-                    String base64 = java.util.Base64.getEncoder().encodeToString(agent.getAgent_photo());
+                    String base64 = java.util.Base64.getEncoder().encodeToString(photo);
                     avatar.setImage("data:" + contentType + ";base64," + base64);
                 }
             } else if (isAdmin) {
@@ -2,6 +2,7 @@ package com.fosagri.application.views.adherent;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fosagri.application.components.SecureFileUploadComponent;
+import com.fosagri.application.dto.UploadHandle;
 import com.fosagri.application.entities.DemandePrestation;
 import com.fosagri.application.entities.PrestationRef;
 import com.fosagri.application.forms.FormRenderer;
@@ -12,6 +13,8 @@ import com.fosagri.application.service.AdhEnfantService;
 import com.fosagri.application.service.AdhConjointService;
 import com.fosagri.application.services.DemandePrestationService;
 import com.fosagri.application.services.PrestationFieldService;
+import com.fosagri.application.services.UploadSpoolService;
+import com.fosagri.application.services.UploadValidator;
 import com.fosagri.application.entities.PrestationField;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.button.Button;
@@ -41,6 +44,8 @@ public class AdherentDemandeDialog extends Dialog {
     private final AdhEnfantService enfantService;
     private final AdhConjointService conjointService;
     private final PrestationFieldService prestationFieldService;
+    private final UploadSpoolService uploadSpool;
+    private final UploadValidator uploadValidator;
     private final List<SaveListener> saveListeners = new ArrayList<>();
 
     private Div formContainer;
@@ -55,13 +60,17 @@ public class AdherentDemandeDialog extends Dialog {
                                   DemandePrestationService demandeService,
                                   AdhEnfantService enfantService,
                                   AdhConjointService conjointService,
-                                  PrestationFieldService prestationFieldService) {
+                                  PrestationFieldService prestationFieldService,
+                                  UploadSpoolService uploadSpool,
+                                  UploadValidator uploadValidator) {
         this.agent = agent;
         this.prestation = prestation;
         this.demandeService = demandeService;
         this.enfantService = enfantService;
         this.conjointService = conjointService;
         this.prestationFieldService = prestationFieldService;
+        this.uploadSpool = uploadSpool;
+        this.uploadValidator = uploadValidator;
 
         setHeaderTitle("Nouvelle Demande");
         setWidth("700px");
@@ -115,7 +124,7 @@ public class AdherentDemandeDialog extends Dialog {
                 .set("border-radius", "var(--lumo-border-radius)")
                 .set("border", "1px dashed var(--lumo-contrast-20pct)");
 
-            fileUploadComponent = new SecureFileUploadComponent(5, 10 * 1024 * 1024);
+            fileUploadComponent = new SecureFileUploadComponent(uploadSpool, 5, 10 * 1024 * 1024);
             attachmentSection.add(fileUploadComponent);
             layout.add(attachmentSection);
         }
@@ -224,7 +233,7 @@ public class AdherentDemandeDialog extends Dialog {
                 System.out.println("   conjointService: " + (conjointService != null ? "present" : "null"));
 
                 FormRenderer.FormWithValues formWithValues = FormRenderer.createFormWithValues(
-                    currentFormSchema, null, agent, enfantService, conjointService);
+                    currentFormSchema, null, agent, enfantService, conjointService, uploadValidator);
                 currentForm = formWithValues.form;
                 formCurrentValues = formWithValues.currentValues;
 
@@ -340,7 +349,7 @@ public class AdherentDemandeDialog extends Dialog {
 
         try {
             String reponseJson = null;
-            String documentsJson = null;
+            List<UploadHandle> uploads = List.of();
 
             if (currentForm != null && currentFormSchema != null) {
                 Map<String, Object> formAnswers = collectFormAnswers();
@@ -352,10 +361,10 @@ public class AdherentDemandeDialog extends Dialog {
 
             // Collect attached files if the upload component exists
             if (fileUploadComponent != null && fileUploadComponent.hasFiles()) {
-                documentsJson = fileUploadComponent.getFilesAsJson();
+                uploads = fileUploadComponent.getUploadedFiles();
             }
 
-            DemandePrestation demande = demandeService.submitDemandePrestation(agent, prestation, reponseJson, documentsJson);
+            DemandePrestation demande = demandeService.submitDemandePrestation(agent, prestation, reponseJson, uploads);
 
             Notification notification = Notification.show(
                 "Demande soumise avec succès!",
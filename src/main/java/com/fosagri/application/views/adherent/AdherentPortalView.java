@@ -14,6 +14,8 @@ import com.fosagri.application.services.DemandePrestationService;
 import com.fosagri.application.services.ModificationDemandeService;
 import com.fosagri.application.services.PrestationRefService;
 import com.fosagri.application.services.PrestationFieldService;
+import com.fosagri.application.services.UploadSpoolService;
+import com.fosagri.application.services.UploadValidator;
 import com.fosagri.application.services.ReclamationService;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.accordion.Accordion;
@@ -52,6 +54,7 @@ import com.vaadin.flow.router.BeforeEnterObserver;
 import com.vaadin.flow.router.Menu;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.function.SerializableSupplier;
 import com.vaadin.flow.server.StreamResource;
 import jakarta.annotation.security.RolesAllowed;
 import org.vaadin.lineawesome.LineAwesomeIconUrl;
@@ -82,6 +85,8 @@ public class AdherentPortalView extends VerticalLayout implements BeforeEnterObs
     private final ModificationDemandeService modificationService;
     private final com.fosagri.application.services.EventService eventService;
     private final com.fosagri.application.services.FosAgriKnowledgeService knowledgeService;
+    private final UploadSpoolService uploadSpool;
+    private final UploadValidator uploadValidator;
     private final AuthenticatedUser authenticatedUser;
 
     private AdhAgent currentAgent;
@@ -109,6 +114,8 @@ public class AdherentPortalView extends VerticalLayout implements BeforeEnterObs
                               ModificationDemandeService modificationService,
                               com.fosagri.application.services.EventService eventService,
                               com.fosagri.application.services.FosAgriKnowledgeService knowledgeService,
+                              UploadSpoolService uploadSpool,
+                              UploadValidator uploadValidator,
                               AuthenticatedUser authenticatedUser) {
         this.prestationService = prestationService;
         this.prestationFieldService = prestationFieldService;
@@ -120,6 +127,8 @@ public class AdherentPortalView extends VerticalLayout implements BeforeEnterObs
         this.modificationService = modificationService;
         this.eventService = eventService;
         this.knowledgeService = knowledgeService;
+        this.uploadSpool = uploadSpool;
+        this.uploadValidator = uploadValidator;
         this.authenticatedUser = authenticatedUser;
 
         // Modern styling - full width and height content
@@ -1576,6 +1585,7 @@ public class AdherentPortalView extends VerticalLayout implements BeforeEnterObs
     }
 
     private void openProfileEditDialog() {
+        agentService.loadDocuments(currentAgent);
         AdherentProfileEditDialog dialog = new AdherentProfileEditDialog(currentAgent, agentService, modificationService);
         dialog.addSaveListener(event -> {
             currentAgent = event.getAgent();
@@ -1998,7 +2008,7 @@ public class AdherentPortalView extends VerticalLayout implements BeforeEnterObs
 
         // Avatar
         Component avatar = createFamilyMemberAvatar(
-            conjoint.getConjoint_photo(),
+            () -> conjointService.readPhoto(conjoint),
             conjoint.getConjoint_photo_filename(),
             conjoint.getConjoint_photo_contentType(),
             getInitials(conjoint.getNOM_CONJ(), conjoint.getPR_CONJ()),
@@ -2114,7 +2124,7 @@ public class AdherentPortalView extends VerticalLayout implements BeforeEnterObs
 
         // Avatar
         Component avatar = createFamilyMemberAvatar(
-            enfant.getEnfant_photo(),
+            () -> enfantService.readPhoto(enfant),
             enfant.getEnfant_photo_filename(),
             enfant.getEnfant_photo_contentType(),
             getInitials(enfant.getNom_pac(), enfant.getPr_pac()),
@@ -2189,7 +2199,7 @@ public class AdherentPortalView extends VerticalLayout implements BeforeEnterObs
         return card;
     }
 
-    private Component createFamilyMemberAvatar(byte[] photoData, String filename, String contentType,
+    private Component createFamilyMemberAvatar(SerializableSupplier<byte[]> photoData, String filename, String contentType,
                                                 String initials, String color) {
         Div avatar = new Div();
         avatar.getStyle()
@@ -2202,9 +2212,12 @@ public class AdherentPortalView extends VerticalLayout implements BeforeEnterObs
             .set("flex-shrink", "0")
             .set("overflow", "hidden");
 
-        if (photoData != null && photoData.length > 0 && contentType != null && contentType.startsWith("image/")) {
+        if (contentType != null && contentType.startsWith("image/")) {
             String safeFilename = filename != null ? filename : "photo.jpg";
-            StreamResource resource = new StreamResource(safeFilename, () -> new ByteArrayInputStream(photoData));
+            StreamResource resource = new StreamResource(safeFilename, () -> {
+                byte[] content = photoData.get();
+                return new ByteArrayInputStream(content != null ? content : new byte[0]);
+            });
             Image photo = new Image(resource, "Photo");
             photo.getStyle()
                 .set("width", "100%")
@@ -2291,6 +2304,9 @@ public class AdherentPortalView extends VerticalLayout implements BeforeEnterObs
     }
 
     private void openConjointEditDialog(AdhConjoint conjoint) {
+        if (conjoint != null) {
+            conjointService.loadDocuments(conjoint);
+        }
         AdherentConjointEditDialog dialog = new AdherentConjointEditDialog(conjoint, currentAgent, conjointService, modificationService);
         dialog.addSaveListener(c -> {
             refreshConjointsData();
@@ -2301,6 +2317,9 @@ public class AdherentPortalView extends VerticalLayout implements BeforeEnterObs
     }
 
     private void openEnfantEditDialog(AdhEnfant enfant) {
+        if (enfant != null) {
+            enfantService.loadDocuments(enfant);
+        }
         AdherentEnfantEditDialog dialog = new AdherentEnfantEditDialog(enfant, currentAgent, enfantService, modificationService);
         dialog.addSaveListener(e -> {
             refreshEnfantsData();
@@ -2739,7 +2758,8 @@ public class AdherentPortalView extends VerticalLayout implements BeforeEnterObs
         }
 
         AdherentDemandeDialog dialog = new AdherentDemandeDialog(
-            currentAgent, prestation, demandeService, enfantService, conjointService, prestationFieldService
+            currentAgent, prestation, demandeService, enfantService, conjointService, prestationFieldService,
+            uploadSpool, uploadValidator
         );
         dialog.addSaveListener(d -> {
             refreshDemandesData();
@@ -2777,7 +2797,7 @@ public class AdherentPortalView extends VerticalLayout implements BeforeEnterObs
      */
     private Component createAgentAvatar(String size, String fontSize) {
         return createAvatarFromPhoto(
-            currentAgent.getAgent_photo(),
+            () -> agentService.readPhoto(currentAgent),
             currentAgent.getAgent_photo_filename(),
             currentAgent.getAgent_photo_contentType(),
             getInitials(currentAgent.getNOM_AG(), currentAgent.getPR_AG()),
@@ -2790,7 +2810,7 @@ public class AdherentPortalView extends VerticalLayout implements BeforeEnterObs
      */
     private Component createConjointAvatar(AdhConjoint conjoint) {
         return createAvatarFromPhoto(
-            conjoint.getConjoint_photo(),
+            () -> conjointService.readPhoto(conjoint),
             conjoint.getConjoint_photo_filename(),
             conjoint.getConjoint_photo_contentType(),
             getInitials(conjoint.getNOM_CONJ(), conjoint.getPR_CONJ()),
@@ -2803,7 +2823,7 @@ public class AdherentPortalView extends VerticalLayout implements BeforeEnterObs
      */
     private Component createEnfantAvatar(AdhEnfant enfant) {
         return createAvatarFromPhoto(
-            enfant.getEnfant_photo(),
+            () -> enfantService.readPhoto(enfant),
             enfant.getEnfant_photo_filename(),
             enfant.getEnfant_photo_contentType(),
             getInitials(enfant.getNom_pac(), enfant.getPr_pac()),
@@ -2814,7 +2834,7 @@ public class AdherentPortalView extends VerticalLayout implements BeforeEnterObs
     /**
      * Creates an avatar from photo bytes or falls back to initials
      */
-    private Component createAvatarFromPhoto(byte[] photoData, String filename, String contentType,
+    private Component createAvatarFromPhoto(SerializableSupplier<byte[]> photoData, String filename, String contentType,
             String initials, String size, String fontSize) {
 
         Div avatar = new Div();
@@ -2828,10 +2848,13 @@ public class AdherentPortalView extends VerticalLayout implements BeforeEnterObs
             .set("flex-shrink", "0")
             .set("overflow", "hidden");
 
-        if (photoData != null && photoData.length > 0 && contentType != null && contentType.startsWith("image/")) {
+        if (contentType != null && contentType.startsWith("image/")) {
             // Use photo
             String safeFilename = filename != null ? filename : "photo.jpg";
-            StreamResource resource = new StreamResource(safeFilename, () -> new ByteArrayInputStream(photoData));
+            StreamResource resource = new StreamResource(safeFilename, () -> {
+                byte[] content = photoData.get();
+                return new ByteArrayInputStream(content != null ? content : new byte[0]);
+            });
             Image photo = new Image(resource, "Photo");
             photo.getStyle()
                 .set("width", "100%")
@@ -2857,7 +2880,7 @@ public class AdherentPortalView extends VerticalLayout implements BeforeEnterObs
     /**
      * Creates an avatar for grids (light background version)
      */
-    private Component createGridAvatar(byte[] photoData, String filename, String contentType,
+    private Component createGridAvatar(SerializableSupplier<byte[]> photoData, String filename, String contentType,
             String initials, VaadinIcon fallbackIcon) {
 
         Div avatar = new Div();
@@ -2871,10 +2894,13 @@ public class AdherentPortalView extends VerticalLayout implements BeforeEnterObs
             .set("flex-shrink", "0")
             .set("overflow", "hidden");
 
-        if (photoData != null && photoData.length > 0 && contentType != null && contentType.startsWith("image/")) {
+        if (contentType != null && contentType.startsWith("image/")) {
             // Use photo
             String safeFilename = filename != null ? filename : "photo.jpg";
-            StreamResource resource = new StreamResource(safeFilename, () -> new ByteArrayInputStream(photoData));
+            StreamResource resource = new StreamResource(safeFilename, () -> {
+                byte[] content = photoData.get();
+                return new ByteArrayInputStream(content != null ? content : new byte[0]);
+            });
             Image photo = new Image(resource, "Photo");
             photo.getStyle()
                 .set("width", "100%")
@@ -453,7 +453,8 @@ public class DemandeDetailsDialog extends Dialog {
             viewBtn.getElement().setAttribute("title", "Voir");
             viewLink.add(viewBtn);
 
-            Anchor downloadLink = new Anchor("/api/files/download?path=" + encodedPath, "");
+            Anchor downloadLink = new Anchor("/api/files/download?path=" + encodedPath
+                + "&name=" + URLEncoder.encode(filename, StandardCharsets.UTF_8), "");
             downloadLink.getElement().setAttribute("download", "");
             Button downloadBtn = new Button(VaadinIcon.DOWNLOAD.create());
             downloadBtn.addThemeVariants(ButtonVariant.LUMO_TERTIARY, ButtonVariant.LUMO_SMALL);
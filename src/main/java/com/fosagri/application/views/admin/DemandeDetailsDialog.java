@@ -324,7 +324,8 @@ public class DemandeDetailsDialog extends Dialog {
             viewBtn.addThemeVariants(ButtonVariant.LUMO_SMALL, ButtonVariant.LUMO_TERTIARY);
             viewLink.add(viewBtn);
 
-            Anchor downloadLink = new Anchor("/api/files/download?path=" + encodedPath, "");
+            Anchor downloadLink = new Anchor("/api/files/download?path=" + encodedPath
+                + "&name=" + URLEncoder.encode(filename, StandardCharsets.UTF_8), "");
             downloadLink.getElement().setAttribute("download", "");
             Button downloadBtn = new Button("Télécharger", VaadinIcon.DOWNLOAD.create());
             downloadBtn.addThemeVariants(ButtonVariant.LUMO_SMALL, ButtonVariant.LUMO_PRIMARY);
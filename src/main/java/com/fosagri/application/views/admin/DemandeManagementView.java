@@ -1,11 +1,17 @@
 package com.fosagri.application.views.admin;
 
+import com.fosagri.application.dto.DemandeFilter;
+import com.fosagri.application.dto.DemandeRow;
+import com.fosagri.application.dto.StatusMatrix;
 import com.fosagri.application.entities.DemandePrestation;
+import com.fosagri.application.entities.PrestationRef;
 import com.fosagri.application.services.DemandePrestationService;
+import com.fosagri.application.services.PrestationRefService;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.datepicker.DatePicker;
 import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.grid.GridVariant;
 import com.vaadin.flow.component.html.Div;
@@ -19,17 +25,18 @@ import com.vaadin.flow.component.orderedlayout.FlexComponent;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.provider.CallbackDataProvider;
+import com.vaadin.flow.data.provider.DataProvider;
 import com.vaadin.flow.data.value.ValueChangeMode;
 import com.fosagri.application.views.MainLayout;
 import com.vaadin.flow.router.Menu;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 import jakarta.annotation.security.RolesAllowed;
 import org.vaadin.lineawesome.LineAwesomeIconUrl;
 
 import java.text.SimpleDateFormat;
-import java.util.List;
-import java.util.stream.Collectors;
 
 @PageTitle("Gestion des Demandes")
 @Route(value = "admin/demandes", layout = MainLayout.class)
@@ -38,13 +45,21 @@ import java.util.stream.Collectors;
 public class DemandeManagementView extends VerticalLayout {
 
     private final DemandePrestationService demandeService;
-    private Grid<DemandePrestation> grid;
+    private final PrestationRefService prestationRefService;
+    private Grid<DemandeRow> grid;
+    private CallbackDataProvider<DemandeRow, Void> dataProvider;
     private TextField searchField;
+    private Span countLabel;
     private ComboBox<String> statusFilter;
+    private ComboBox<PrestationRef> prestationFilter;
+    private TextField villeFilter;
+    private DatePicker fromFilter;
+    private DatePicker toFilter;
     private HorizontalLayout statsContainer;
 
-    public DemandeManagementView(DemandePrestationService demandeService) {
+    public DemandeManagementView(DemandePrestationService demandeService, PrestationRefService prestationRefService) {
         this.demandeService = demandeService;
+        this.prestationRefService = prestationRefService;
 
         setSizeFull();
         setPadding(false);
@@ -113,11 +128,12 @@ public class DemandeManagementView extends VerticalLayout {
     private void updateStats() {
         statsContainer.removeAll();
 
-        long total = demandeService.count();
-        long soumises = demandeService.countByStatut("SOUMISE");
-        long enCours = demandeService.countByStatut("EN_COURS");
-        long acceptees = demandeService.countByStatut("ACCEPTEE");
-        long refusees = demandeService.countByStatut("REFUSEE");
+        StatusMatrix matrix = demandeService.getStatusMatrix();
+        long total = matrix.getTotal();
+        long soumises = matrix.getCountByStatut("SOUMISE");
+        long enCours = matrix.getCountByStatut("EN_COURS");
+        long acceptees = matrix.getCountByStatut("ACCEPTEE");
+        long refusees = matrix.getCountByStatut("REFUSEE");
 
         statsContainer.add(
             createStatCard("Total", String.valueOf(total), "#6366f1", VaadinIcon.RECORDS),
@@ -207,7 +223,7 @@ public class DemandeManagementView extends VerticalLayout {
         HorizontalLayout leftFilters = new HorizontalLayout();
         leftFilters.setAlignItems(FlexComponent.Alignment.CENTER);
         leftFilters.setSpacing(true);
-        leftFilters.getStyle().set("gap", "0.5rem");
+        leftFilters.getStyle().set("gap", "0.5rem").set("flex-wrap", "wrap");
 
         searchField = new TextField();
         searchField.setPlaceholder("Rechercher...");
@@ -224,10 +240,37 @@ public class DemandeManagementView extends VerticalLayout {
         statusFilter.setWidth("140px");
         statusFilter.addValueChangeListener(e -> updateGrid());
 
-        leftFilters.add(searchField, statusFilter);
+        prestationFilter = new ComboBox<>();
+        prestationFilter.setPlaceholder("Prestation");
+        prestationFilter.setItems(prestationRefService.findAll());
+        prestationFilter.setItemLabelGenerator(PrestationRef::getLabel);
+        prestationFilter.setClearButtonVisible(true);
+        prestationFilter.setWidth("200px");
+        prestationFilter.addValueChangeListener(e -> updateGrid());
+
+        villeFilter = new TextField();
+        villeFilter.setPlaceholder("Ville");
+        villeFilter.setValueChangeMode(ValueChangeMode.LAZY);
+        villeFilter.setClearButtonVisible(true);
+        villeFilter.setWidth("130px");
+        villeFilter.addValueChangeListener(e -> updateGrid());
+
+        fromFilter = new DatePicker();
+        fromFilter.setPlaceholder("Du");
+        fromFilter.setClearButtonVisible(true);
+        fromFilter.setWidth("140px");
+        fromFilter.addValueChangeListener(e -> updateGrid());
+
+        toFilter = new DatePicker();
+        toFilter.setPlaceholder("Au");
+        toFilter.setClearButtonVisible(true);
+        toFilter.setWidth("140px");
+        toFilter.addValueChangeListener(e -> updateGrid());
+
+        leftFilters.add(searchField, statusFilter, prestationFilter, villeFilter, fromFilter, toFilter);
 
         // Count display
-        Span countLabel = new Span();
+        countLabel = new Span();
         countLabel.getStyle()
             .set("color", "#64748b")
             .set("font-size", "0.8rem");
@@ -238,23 +281,26 @@ public class DemandeManagementView extends VerticalLayout {
     }
 
     private Component createGrid() {
-        grid = new Grid<>(DemandePrestation.class, false);
+        grid = new Grid<>(DemandeRow.class, false);
         grid.addThemeVariants(GridVariant.LUMO_COMPACT, GridVariant.LUMO_NO_BORDER);
         grid.setSizeFull();
         grid.getStyle().set("font-size", "0.85rem");
 
         SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yy HH:mm");
 
-        grid.addColumn(d -> d.getAgent() != null ? d.getAgent().getNOM_AG() + " " + d.getAgent().getPR_AG() : "-")
+        grid.addColumn(d -> d.agent() != null ? d.getAgentName() : "-")
             .setHeader("Agent")
+            .setSortProperty("agent.NOM_AG", "agent.PR_AG")
             .setFlexGrow(1);
 
-        grid.addColumn(d -> d.getPrestation() != null ? d.getPrestation().getLabel() : "-")
+        grid.addColumn(d -> d.prestationLabel() != null ? d.prestationLabel() : "-")
             .setHeader("Prestation")
+            .setSortProperty("prestation.label")
             .setFlexGrow(2);
 
         grid.addComponentColumn(this::createStatusInfo)
             .setHeader("Statut / Dates")
+            .setSortProperty("dateDemande")
             .setWidth("180px")
             .setFlexGrow(0);
 
@@ -263,10 +309,38 @@ public class DemandeManagementView extends VerticalLayout {
             .setWidth("80px")
             .setFlexGrow(0);
 
+        configureDataProvider();
         return grid;
     }
 
-    private Component createStatusInfo(DemandePrestation d) {
+    private void configureDataProvider() {
+        // Only the visible window is fetched; filtering and sorting run in the database
+        dataProvider = DataProvider.fromCallbacks(
+            query -> demandeService.findPage(currentFilter(),
+                VaadinSpringDataHelpers.toSpringPageRequest(query)).stream(),
+            query -> {
+                int count = (int) demandeService.countFiltered(currentFilter());
+                countLabel.setText(count + " demande(s)");
+                return count;
+            }
+        );
+        grid.setDataProvider(dataProvider);
+    }
+
+    // Tous les critères sont combinés dans la même requête (voir DemandeSpecifications)
+    private DemandeFilter currentFilter() {
+        String status = statusFilter != null ? statusFilter.getValue() : null;
+        PrestationRef prestation = prestationFilter != null ? prestationFilter.getValue() : null;
+        return new DemandeFilter(
+            searchField != null ? searchField.getValue() : null,
+            "Tous".equals(status) ? null : status,
+            prestation != null ? prestation.getId() : null,
+            villeFilter != null ? villeFilter.getValue() : null,
+            fromFilter != null ? fromFilter.getValue() : null,
+            toFilter != null ? toFilter.getValue() : null);
+    }
+
+    private Component createStatusInfo(DemandeRow d) {
         SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yy");
 
         Div container = new Div();
@@ -276,7 +350,7 @@ public class DemandeManagementView extends VerticalLayout {
             .set("gap", "2px");
 
         // Status badge
-        String status = d.getStatut() != null ? d.getStatut() : "SOUMISE";
+        String status = d.statut() != null ? d.statut() : "SOUMISE";
         Span badge = new Span(getStatusLabel(status));
         badge.getStyle()
             .set("padding", "2px 8px")
@@ -308,8 +382,8 @@ public class DemandeManagementView extends VerticalLayout {
         }
 
         // Dates
-        String demande = d.getDateDemande() != null ? sdf.format(d.getDateDemande()) : "-";
-        String traitement = d.getDateTraitement() != null ? sdf.format(d.getDateTraitement()) : "-";
+        String demande = d.dateDemande() != null ? sdf.format(d.dateDemande()) : "-";
+        String traitement = d.dateTraitement() != null ? sdf.format(d.dateTraitement()) : "-";
 
         Span dates = new Span(demande + " → " + traitement);
         dates.getStyle()
@@ -331,7 +405,7 @@ public class DemandeManagementView extends VerticalLayout {
         }
     }
 
-    private Component createActionButtons(DemandePrestation demande) {
+    private Component createActionButtons(DemandeRow demande) {
         HorizontalLayout actions = new HorizontalLayout();
         actions.setSpacing(false);
         actions.getStyle().set("gap", "0.25rem");
@@ -353,39 +427,23 @@ public class DemandeManagementView extends VerticalLayout {
     }
 
     private void updateGrid() {
-        String search = searchField.getValue();
-        String status = statusFilter.getValue();
-
-        List<DemandePrestation> demandes;
-
-        if (search != null && !search.trim().isEmpty()) {
-            demandes = demandeService.searchDemandes(search.trim());
-        } else if (status != null && !"Tous".equals(status)) {
-            demandes = demandeService.findByStatut(status);
-        } else {
-            demandes = demandeService.findAll();
-        }
-
-        // Apply status filter if search was used
-        if (status != null && !"Tous".equals(status) && search != null && !search.trim().isEmpty()) {
-            final String finalStatus = status;
-            demandes = demandes.stream()
-                .filter(d -> finalStatus.equals(d.getStatut()))
-                .collect(Collectors.toList());
-        }
-
-        grid.setItems(demandes);
+        dataProvider.refreshAll();
         updateStats();
     }
 
-    private void openDetailsDialog(DemandePrestation demande) {
+    private void openDetailsDialog(DemandeRow row) {
+        // The grid only holds light rows; load the full demande (JSON, documents, agent) on demand
+        DemandePrestation demande = demandeService.findById(row.id());
+        if (demande == null) {
+            updateGrid();
+            return;
+        }
         DemandeDetailsDialog dialog = new DemandeDetailsDialog(demande, demandeService, () -> updateGrid());
         dialog.open();
     }
 
-    private void openProcessDialog(DemandePrestation demande) {
-        DemandeDetailsDialog dialog = new DemandeDetailsDialog(demande, demandeService, () -> updateGrid());
-        dialog.open();
+    private void openProcessDialog(DemandeRow row) {
+        openDetailsDialog(row);
     }
 
     private void showSuccessNotification(String message) {
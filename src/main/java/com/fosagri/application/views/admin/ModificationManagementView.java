@@ -1,5 +1,7 @@
 package com.fosagri.application.views.admin;
 
+import com.fosagri.application.dto.ModificationFilter;
+import com.fosagri.application.dto.ModificationRow;
 import com.fosagri.application.entities.ModificationDemande;
 import com.fosagri.application.entities.ModificationDemande.StatutModification;
 import com.fosagri.application.entities.ModificationDemande.TypeAction;
@@ -10,6 +12,7 @@ import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.datepicker.DatePicker;
 import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.grid.GridVariant;
 import com.vaadin.flow.component.html.Div;
@@ -23,16 +26,17 @@ import com.vaadin.flow.component.orderedlayout.FlexComponent;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.provider.CallbackDataProvider;
+import com.vaadin.flow.data.provider.DataProvider;
 import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.router.Menu;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 import jakarta.annotation.security.RolesAllowed;
 import org.vaadin.lineawesome.LineAwesomeIconUrl;
 
 import java.text.SimpleDateFormat;
-import java.util.List;
-import java.util.stream.Collectors;
 
 @PageTitle("Gestion des Modifications")
 @Route(value = "admin/modifications", layout = MainLayout.class)
@@ -41,11 +45,15 @@ import java.util.stream.Collectors;
 public class ModificationManagementView extends VerticalLayout {
 
     private final ModificationDemandeService modificationService;
-    private Grid<ModificationDemande> grid;
+    private Grid<ModificationRow> grid;
     private TextField searchField;
     private ComboBox<String> statusFilter;
     private ComboBox<String> typeFilter;
     private ComboBox<String> actionFilter;
+    private TextField villeFilter;
+    private DatePicker fromFilter;
+    private DatePicker toFilter;
+    private CallbackDataProvider<ModificationRow, Void> dataProvider;
 
     // Stats labels
     private Span totalCountLabel;
@@ -162,7 +170,7 @@ public class ModificationManagementView extends VerticalLayout {
     }
 
     private void updateStats() {
-        long total = modificationService.findAll().size();
+        long total = modificationService.count();
         long pending = modificationService.countByStatut(StatutModification.EN_ATTENTE);
         long validated = modificationService.countByStatut(StatutModification.VALIDE);
         long rejected = modificationService.countByStatut(StatutModification.REFUSE);
@@ -184,7 +192,7 @@ public class ModificationManagementView extends VerticalLayout {
         HorizontalLayout leftSide = new HorizontalLayout();
         leftSide.setAlignItems(FlexComponent.Alignment.END);
         leftSide.setSpacing(true);
-        leftSide.getStyle().set("gap", "0.5rem");
+        leftSide.getStyle().set("gap", "0.5rem").set("flex-wrap", "wrap");
 
         searchField = new TextField();
         searchField.setPlaceholder("Rechercher agent...");
@@ -220,7 +228,26 @@ public class ModificationManagementView extends VerticalLayout {
         actionFilter.setWidth("130px");
         actionFilter.addValueChangeListener(e -> updateGrid());
 
-        leftSide.add(searchField, statusFilter, typeFilter, actionFilter);
+        villeFilter = new TextField();
+        villeFilter.setPlaceholder("Ville");
+        villeFilter.setValueChangeMode(ValueChangeMode.LAZY);
+        villeFilter.setClearButtonVisible(true);
+        villeFilter.setWidth("120px");
+        villeFilter.addValueChangeListener(e -> updateGrid());
+
+        fromFilter = new DatePicker();
+        fromFilter.setPlaceholder("Du");
+        fromFilter.setClearButtonVisible(true);
+        fromFilter.setWidth("140px");
+        fromFilter.addValueChangeListener(e -> updateGrid());
+
+        toFilter = new DatePicker();
+        toFilter.setPlaceholder("Au");
+        toFilter.setClearButtonVisible(true);
+        toFilter.setWidth("140px");
+        toFilter.addValueChangeListener(e -> updateGrid());
+
+        leftSide.add(searchField, statusFilter, typeFilter, actionFilter, villeFilter, fromFilter, toFilter);
 
         // Right side: refresh button
         Button refreshBtn = new Button(VaadinIcon.REFRESH.create());
@@ -233,7 +260,7 @@ public class ModificationManagementView extends VerticalLayout {
     }
 
     private void createGrid() {
-        grid = new Grid<>(ModificationDemande.class, false);
+        grid = new Grid<>(ModificationRow.class, false);
         grid.addThemeVariants(GridVariant.LUMO_ROW_STRIPES, GridVariant.LUMO_NO_BORDER);
         grid.setHeight("100%");
         grid.getStyle()
@@ -255,7 +282,7 @@ public class ModificationManagementView extends VerticalLayout {
             .setAutoWidth(true);
 
         // Entity label
-        grid.addColumn(ModificationDemande::getEntiteLabel)
+        grid.addColumn(ModificationRow::entiteLabel)
             .setHeader("Entite")
             .setAutoWidth(true)
             .setFlexGrow(1);
@@ -276,18 +303,19 @@ public class ModificationManagementView extends VerticalLayout {
             .setWidth("100px")
             .setFlexGrow(0);
 
+        configureDataProvider();
         add(grid);
     }
 
-    private Component createAgentCell(ModificationDemande m) {
+    private Component createAgentCell(ModificationRow m) {
         VerticalLayout cell = new VerticalLayout();
         cell.setPadding(false);
         cell.setSpacing(false);
         cell.getStyle().set("gap", "2px");
 
-        if (m.getAgent() != null) {
+        if (m.agent() != null) {
             // Line 1: Full name
-            String fullName = m.getAgent().getNOM_AG() + " " + m.getAgent().getPR_AG();
+            String fullName = m.agent().getFullName();
             Span nameSpan = new Span(fullName);
             nameSpan.getStyle()
                 .set("font-weight", "500")
@@ -305,7 +333,7 @@ public class ModificationManagementView extends VerticalLayout {
             idLabel.getStyle()
                 .set("font-size", "0.7rem")
                 .set("color", "#64748b");
-            Span idValue = new Span(m.getAgent().getIdAdh() != null ? m.getAgent().getIdAdh() : "-");
+            Span idValue = new Span(m.agent().idAdh() != null ? m.agent().idAdh() : "-");
             idValue.getStyle()
                 .set("font-size", "0.75rem")
                 .set("color", "#475569");
@@ -321,7 +349,7 @@ public class ModificationManagementView extends VerticalLayout {
         return cell;
     }
 
-    private Component createActionTypeCell(ModificationDemande m) {
+    private Component createActionTypeCell(ModificationRow m) {
         VerticalLayout cell = new VerticalLayout();
         cell.setPadding(false);
         cell.setSpacing(false);
@@ -343,7 +371,7 @@ public class ModificationManagementView extends VerticalLayout {
         }
 
         // Line 2: Type badge (Agent/Conjoint/Enfant)
-        TypeEntite type = m.getTypeEntite();
+        TypeEntite type = m.typeEntite();
         Span typeBadge = new Span(type != null ? type.name() : "-");
         typeBadge.getStyle()
             .set("padding", "1px 6px")
@@ -371,8 +399,8 @@ public class ModificationManagementView extends VerticalLayout {
         return cell;
     }
 
-    private Component createStatusBadge(ModificationDemande m) {
-        StatutModification status = m.getStatut();
+    private Component createStatusBadge(ModificationRow m) {
+        StatutModification status = m.statut();
         String statusLabel = "";
         String bgColor = "#f3f4f6";
         String textColor = "#374151";
@@ -409,7 +437,7 @@ public class ModificationManagementView extends VerticalLayout {
         return badge;
     }
 
-    private Component createDateCell(ModificationDemande m, SimpleDateFormat sdf) {
+    private Component createDateCell(ModificationRow m, SimpleDateFormat sdf) {
         VerticalLayout cell = new VerticalLayout();
         cell.setPadding(false);
         cell.setSpacing(false);
@@ -425,7 +453,7 @@ public class ModificationManagementView extends VerticalLayout {
         Icon createdIcon = VaadinIcon.CALENDAR.create();
         createdIcon.setSize("10px");
         createdIcon.getStyle().set("color", "#3b82f6");
-        Span createdValue = new Span(m.getDateCreation() != null ? sdf.format(m.getDateCreation()) : "-");
+        Span createdValue = new Span(m.dateCreation() != null ? sdf.format(m.dateCreation()) : "-");
         createdValue.getStyle()
             .set("font-size", "0.75rem")
             .set("color", "#1e293b");
@@ -434,7 +462,7 @@ public class ModificationManagementView extends VerticalLayout {
         cell.add(createdLine);
 
         // Line 2: Date traitement (if exists)
-        if (m.getDateTraitement() != null) {
+        if (m.dateTraitement() != null) {
             HorizontalLayout treatedLine = new HorizontalLayout();
             treatedLine.setPadding(false);
             treatedLine.setSpacing(false);
@@ -444,7 +472,7 @@ public class ModificationManagementView extends VerticalLayout {
             Icon treatedIcon = VaadinIcon.CHECK_CIRCLE.create();
             treatedIcon.setSize("10px");
             treatedIcon.getStyle().set("color", "#10b981");
-            Span treatedValue = new Span(sdf.format(m.getDateTraitement()));
+            Span treatedValue = new Span(sdf.format(m.dateTraitement()));
             treatedValue.getStyle()
                 .set("font-size", "0.75rem")
                 .set("color", "#475569");
@@ -456,7 +484,7 @@ public class ModificationManagementView extends VerticalLayout {
         return cell;
     }
 
-    private Component createActionButtons(ModificationDemande modification) {
+    private Component createActionButtons(ModificationRow modification) {
         HorizontalLayout actions = new HorizontalLayout();
         actions.setSpacing(false);
         actions.getStyle().set("gap", "0.25rem");
@@ -469,7 +497,7 @@ public class ModificationManagementView extends VerticalLayout {
         actions.add(viewBtn);
 
         // Only show approve/reject buttons for pending modifications
-        if (modification.getStatut() == StatutModification.EN_ATTENTE) {
+        if (modification.statut() == StatutModification.EN_ATTENTE) {
             Button approveBtn = new Button(VaadinIcon.CHECK.create());
             approveBtn.addThemeVariants(ButtonVariant.LUMO_TERTIARY, ButtonVariant.LUMO_SMALL, ButtonVariant.LUMO_SUCCESS);
             approveBtn.getElement().setAttribute("title", "Valider");
@@ -487,53 +515,48 @@ public class ModificationManagementView extends VerticalLayout {
     }
 
     private void updateGrid() {
-        String search = searchField.getValue();
-        String status = statusFilter.getValue();
-        String type = typeFilter.getValue();
-        String action = actionFilter.getValue();
-
-        List<ModificationDemande> modifications;
+        dataProvider.refreshAll();
+        updateStats();
+    }
 
-        if (search != null && !search.trim().isEmpty()) {
-            modifications = modificationService.searchModifications(search.trim());
-        } else if (status != null && !"Tous".equals(status)) {
-            modifications = modificationService.findByStatut(StatutModification.valueOf(status));
-        } else {
-            modifications = modificationService.findAll();
-        }
+    private void configureDataProvider() {
+        // Seule la fenêtre visible est chargée ; recherche et filtres s'exécutent en base
+        dataProvider = DataProvider.fromCallbacks(
+            query -> modificationService.findPage(currentFilter(),
+                VaadinSpringDataHelpers.toSpringPageRequest(query)).stream(),
+            query -> (int) modificationService.countFiltered(currentFilter())
+        );
+        grid.setDataProvider(dataProvider);
+    }
 
-        // Apply type filter
-        if (type != null && !"Tous".equals(type)) {
-            final TypeEntite filterType = TypeEntite.valueOf(type);
-            modifications = modifications.stream()
-                .filter(m -> filterType == m.getTypeEntite())
-                .collect(Collectors.toList());
-        }
+    private ModificationFilter currentFilter() {
+        return new ModificationFilter(searchField.getValue(), currentStatus(), currentType(), currentAction(),
+            villeFilter.getValue(), fromFilter.getValue(), toFilter.getValue());
+    }
 
-        // Apply action filter
-        if (action != null && !"Tous".equals(action)) {
-            final TypeAction filterAction = TypeAction.valueOf(action);
-            modifications = modifications.stream()
-                .filter(m -> filterAction == m.getTypeAction())
-                .collect(Collectors.toList());
-        }
+    private StatutModification currentStatus() {
+        String status = statusFilter.getValue();
+        return status == null || "Tous".equals(status) ? null : StatutModification.valueOf(status);
+    }
 
-        // Apply status filter if search was used
-        if (status != null && !"Tous".equals(status) && search != null && !search.trim().isEmpty()) {
-            final StatutModification filterStatus = StatutModification.valueOf(status);
-            modifications = modifications.stream()
-                .filter(m -> filterStatus == m.getStatut())
-                .collect(Collectors.toList());
-        }
+    private TypeEntite currentType() {
+        String type = typeFilter.getValue();
+        return type == null || "Tous".equals(type) ? null : TypeEntite.valueOf(type);
+    }
 
-        grid.setItems(modifications);
-        updateStats();
+    private TypeAction currentAction() {
+        String action = actionFilter.getValue();
+        return action == null || "Tous".equals(action) ? null : TypeAction.valueOf(action);
     }
 
-    private void openDetailsDialog(ModificationDemande modification) {
+    private void openDetailsDialog(ModificationRow modification) {
         // Fetch the complete modification with all fields (including documentsJson)
-        ModificationDemande fullModification = modificationService.findById(modification.getId())
-            .orElse(modification);
+        ModificationDemande fullModification = modificationService.findById(modification.id())
+            .orElse(null);
+        if (fullModification == null) {
+            updateGrid();
+            return;
+        }
         ModificationDetailsDialog dialog = new ModificationDetailsDialog(fullModification, modificationService, () -> updateGrid());
         dialog.open();
     }
@@ -1,6 +1,8 @@
 package com.fosagri.application.views.admin;
 
+import com.fosagri.application.dto.StatusMatrix;
 import com.fosagri.application.entities.PrestationRef;
+import com.fosagri.application.services.DemandePrestationService;
 import com.fosagri.application.services.PrestationRefService;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.button.Button;
@@ -37,12 +39,15 @@ import java.util.List;
 public class PrestationManagementView extends VerticalLayout {
 
     private final PrestationRefService prestationService;
+    private final DemandePrestationService demandeService;
     private Grid<PrestationRef> grid;
     private TextField searchField;
     private Div statsContainer;
+    private StatusMatrix statusMatrix = new StatusMatrix();
 
-    public PrestationManagementView(PrestationRefService prestationService) {
+    public PrestationManagementView(PrestationRefService prestationService, DemandePrestationService demandeService) {
         this.prestationService = prestationService;
+        this.demandeService = demandeService;
 
         setSizeFull();
         setPadding(true);
@@ -154,6 +159,7 @@ public class PrestationManagementView extends VerticalLayout {
         grid.addColumn(p -> p.getDateDu() != null ? sdf.format(p.getDateDu()) : "-").setHeader("Date début").setAutoWidth(true);
         grid.addColumn(p -> p.getDateAu() != null ? sdf.format(p.getDateAu()) : "-").setHeader("Date fin").setAutoWidth(true);
         grid.addColumn(PrestationRef::getNombreLimit).setHeader("Limite").setAutoWidth(true);
+        grid.addComponentColumn(this::createDemandesBadge).setHeader("Demandes").setAutoWidth(true);
         grid.addComponentColumn(this::createOpenBadge).setHeader("Ouvert").setAutoWidth(true);
         grid.addComponentColumn(this::createActionButtons).setHeader("Actions").setAutoWidth(true);
 
@@ -193,6 +199,32 @@ public class PrestationManagementView extends VerticalLayout {
         return badge;
     }
 
+    private Component createDemandesBadge(PrestationRef p) {
+        long total = statusMatrix.getTotal(p.getId());
+        long pending = statusMatrix.getCount(p.getId(), "SOUMISE") + statusMatrix.getCount(p.getId(), "EN_COURS");
+
+        Span badge = new Span(String.valueOf(total));
+        badge.getStyle()
+            .set("padding", "4px 8px")
+            .set("border-radius", "4px")
+            .set("font-size", "0.75rem")
+            .set("font-weight", "500");
+
+        if (pending > 0) {
+            badge.getStyle().set("background", "#fef3c7").set("color", "#92400e");
+        } else {
+            badge.getStyle().set("background", "#f3f4f6").set("color", "#374151");
+        }
+
+        badge.getElement().setAttribute("title", String.format("Soumises: %d\nEn cours: %d\nAcceptées: %d\nRefusées: %d\nTerminées: %d",
+            statusMatrix.getCount(p.getId(), "SOUMISE"),
+            statusMatrix.getCount(p.getId(), "EN_COURS"),
+            statusMatrix.getCount(p.getId(), "ACCEPTEE"),
+            statusMatrix.getCount(p.getId(), "REFUSEE"),
+            statusMatrix.getCount(p.getId(), "TERMINEE")));
+        return badge;
+    }
+
     private Component createActionButtons(PrestationRef prestation) {
         HorizontalLayout actions = new HorizontalLayout();
         actions.setSpacing(true);
@@ -221,6 +253,7 @@ public class PrestationManagementView extends VerticalLayout {
             prestations = prestationService.findAll();
         }
 
+        statusMatrix = demandeService.getStatusMatrix();
         grid.setItems(prestations);
         updateStats();
     }
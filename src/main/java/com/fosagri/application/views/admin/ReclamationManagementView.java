@@ -1,11 +1,14 @@
 package com.fosagri.application.views.admin;
 
+import com.fosagri.application.dto.ReclamationFilter;
+import com.fosagri.application.dto.ReclamationRow;
 import com.fosagri.application.entities.Reclamation;
 import com.fosagri.application.services.ReclamationService;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.datepicker.DatePicker;
 import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.grid.GridVariant;
 import com.vaadin.flow.component.html.Div;
@@ -18,18 +21,19 @@ import com.vaadin.flow.component.orderedlayout.FlexComponent;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.provider.CallbackDataProvider;
+import com.vaadin.flow.data.provider.DataProvider;
 import com.vaadin.flow.data.value.ValueChangeMode;
 import com.fosagri.application.views.MainLayout;
 import com.vaadin.flow.router.Menu;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 import jakarta.annotation.security.RolesAllowed;
 import org.vaadin.lineawesome.LineAwesomeIconUrl;
 
 import java.text.SimpleDateFormat;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @PageTitle("Gestion des Réclamations")
 @Route(value = "admin/reclamations", layout = MainLayout.class)
@@ -38,10 +42,14 @@ import java.util.stream.Collectors;
 public class ReclamationManagementView extends VerticalLayout {
 
     private final ReclamationService reclamationService;
-    private Grid<Reclamation> grid;
+    private Grid<ReclamationRow> grid;
+    private CallbackDataProvider<ReclamationRow, Void> dataProvider;
     private TextField searchField;
     private ComboBox<String> statusFilter;
     private ComboBox<String> typeFilter;
+    private TextField villeFilter;
+    private DatePicker fromFilter;
+    private DatePicker toFilter;
     private Div statsContainer;
 
     public ReclamationManagementView(ReclamationService reclamationService) {
@@ -134,6 +142,7 @@ public class ReclamationManagementView extends VerticalLayout {
         filters.setWidthFull();
         filters.setAlignItems(FlexComponent.Alignment.END);
         filters.setSpacing(true);
+        filters.getStyle().set("flex-wrap", "wrap");
 
         searchField = new TextField("Rechercher");
         searchField.setPlaceholder("Objet ou détails...");
@@ -152,42 +161,75 @@ public class ReclamationManagementView extends VerticalLayout {
         typeFilter.setValue("Tous");
         typeFilter.addValueChangeListener(e -> updateGrid());
 
+        villeFilter = new TextField("Ville");
+        villeFilter.setValueChangeMode(ValueChangeMode.LAZY);
+        villeFilter.setClearButtonVisible(true);
+        villeFilter.setWidth("150px");
+        villeFilter.addValueChangeListener(e -> updateGrid());
+
+        fromFilter = new DatePicker("Du");
+        fromFilter.setClearButtonVisible(true);
+        fromFilter.setWidth("150px");
+        fromFilter.addValueChangeListener(e -> updateGrid());
+
+        toFilter = new DatePicker("Au");
+        toFilter.setClearButtonVisible(true);
+        toFilter.setWidth("150px");
+        toFilter.addValueChangeListener(e -> updateGrid());
+
         Button refreshBtn = new Button(VaadinIcon.REFRESH.create());
         refreshBtn.addThemeVariants(ButtonVariant.LUMO_TERTIARY);
         refreshBtn.addClickListener(e -> updateGrid());
 
-        filters.add(searchField, statusFilter, typeFilter, refreshBtn);
+        filters.add(searchField, statusFilter, typeFilter, villeFilter, fromFilter, toFilter, refreshBtn);
         return filters;
     }
 
     private Component createGrid() {
-        grid = new Grid<>(Reclamation.class, false);
+        grid = new Grid<>(ReclamationRow.class, false);
         grid.addThemeVariants(GridVariant.LUMO_ROW_STRIPES, GridVariant.LUMO_COLUMN_BORDERS);
         grid.setHeight("450px");
 
         SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm");
 
-        grid.addColumn(Reclamation::getId).setHeader("ID").setWidth("70px").setFlexGrow(0);
-        grid.addColumn(r -> {
-            try {
-                return reclamationService.getAgentNameForReclamation(r.getId());
-            } catch (Exception e) {
-                return "-";
-            }
-        }).setHeader("Agent").setAutoWidth(true);
-        grid.addColumn(Reclamation::getObjet).setHeader("Objet").setAutoWidth(true).setFlexGrow(1);
+        grid.addColumn(ReclamationRow::id).setHeader("ID").setWidth("70px").setFlexGrow(0);
+        grid.addColumn(r -> r.agent() != null ? r.getAgentName() : "-").setHeader("Agent").setAutoWidth(true);
+        grid.addColumn(ReclamationRow::objet).setHeader("Objet").setAutoWidth(true).setFlexGrow(1);
         grid.addComponentColumn(this::createTypeBadge).setHeader("Type").setAutoWidth(true);
         grid.addComponentColumn(this::createStatusBadge).setHeader("Statut").setAutoWidth(true);
         grid.addComponentColumn(this::createPriorityBadge).setHeader("Priorité").setAutoWidth(true);
-        grid.addColumn(r -> r.getDateCreation() != null ? sdf.format(r.getDateCreation()) : "-")
-            .setHeader("Date création").setAutoWidth(true);
+        grid.addColumn(r -> r.dateCreation() != null ? sdf.format(r.dateCreation()) : "-")
+            .setHeader("Date création").setSortProperty("dateCreation").setAutoWidth(true);
         grid.addComponentColumn(this::createActionButtons).setHeader("Actions").setAutoWidth(true);
 
+        configureDataProvider();
         return grid;
     }
 
-    private Component createTypeBadge(Reclamation r) {
-        String type = r.getType() != null ? r.getType().name() : "N/A";
+    private void configureDataProvider() {
+        // Seule la fenêtre visible est chargée ; texte et filtres combinés en une requête en base
+        dataProvider = DataProvider.fromCallbacks(
+            query -> reclamationService.findPage(currentFilter(),
+                VaadinSpringDataHelpers.toSpringPageRequest(query)).stream(),
+            query -> (int) reclamationService.countFiltered(currentFilter())
+        );
+        grid.setDataProvider(dataProvider);
+    }
+
+    private ReclamationFilter currentFilter() {
+        String status = statusFilter.getValue();
+        String type = typeFilter.getValue();
+        return new ReclamationFilter(
+            searchField.getValue(),
+            status != null && !"Tous".equals(status) ? Reclamation.StatutReclamation.valueOf(status) : null,
+            type != null && !"Tous".equals(type) ? Reclamation.TypeReclamation.valueOf(type) : null,
+            villeFilter.getValue(),
+            fromFilter.getValue(),
+            toFilter.getValue());
+    }
+
+    private Component createTypeBadge(ReclamationRow r) {
+        String type = r.type() != null ? r.type().name() : "N/A";
         Span badge = new Span(type);
         badge.getStyle()
             .set("padding", "4px 8px")
@@ -199,8 +241,8 @@ public class ReclamationManagementView extends VerticalLayout {
         return badge;
     }
 
-    private Component createStatusBadge(Reclamation r) {
-        Reclamation.StatutReclamation status = r.getStatut();
+    private Component createStatusBadge(ReclamationRow r) {
+        Reclamation.StatutReclamation status = r.statut();
         String label = status != null ? status.getLabel() : "N/A";
         Span badge = new Span(label);
         badge.getStyle()
@@ -230,8 +272,8 @@ public class ReclamationManagementView extends VerticalLayout {
         return badge;
     }
 
-    private Component createPriorityBadge(Reclamation r) {
-        Reclamation.PrioriteReclamation priority = r.getPriorite();
+    private Component createPriorityBadge(ReclamationRow r) {
+        Reclamation.PrioriteReclamation priority = r.priorite();
         String label = priority != null ? priority.getLabel() : "Normale";
         Span badge = new Span(label);
         badge.getStyle()
@@ -259,7 +301,7 @@ public class ReclamationManagementView extends VerticalLayout {
         return badge;
     }
 
-    private Component createActionButtons(Reclamation reclamation) {
+    private Component createActionButtons(ReclamationRow reclamation) {
         HorizontalLayout actions = new HorizontalLayout();
         actions.setSpacing(true);
 
@@ -278,42 +320,16 @@ public class ReclamationManagementView extends VerticalLayout {
     }
 
     private void updateGrid() {
-        String search = searchField.getValue();
-        String status = statusFilter.getValue();
-        String type = typeFilter.getValue();
-
-        List<Reclamation> reclamations;
-
-        if (search != null && !search.trim().isEmpty()) {
-            reclamations = reclamationService.searchReclamations(search.trim());
-        } else if (status != null && !"Tous".equals(status)) {
-            reclamations = reclamationService.findByStatut(Reclamation.StatutReclamation.valueOf(status));
-        } else if (type != null && !"Tous".equals(type)) {
-            reclamations = reclamationService.findByType(Reclamation.TypeReclamation.valueOf(type));
-        } else {
-            reclamations = reclamationService.findAll();
-        }
-
-        // Apply additional filters
-        if (status != null && !"Tous".equals(status) && (search != null && !search.isEmpty() || type != null && !"Tous".equals(type))) {
-            final String finalStatus = status;
-            reclamations = reclamations.stream()
-                .filter(r -> r.getStatut() != null && r.getStatut().name().equals(finalStatus))
-                .collect(Collectors.toList());
-        }
-
-        if (type != null && !"Tous".equals(type) && (search != null && !search.isEmpty())) {
-            final String finalType = type;
-            reclamations = reclamations.stream()
-                .filter(r -> r.getType() != null && r.getType().name().equals(finalType))
-                .collect(Collectors.toList());
-        }
-
-        grid.setItems(reclamations);
+        dataProvider.refreshAll();
         updateStats();
     }
 
-    private void openDetailsDialog(Reclamation reclamation) {
+    private void openDetailsDialog(ReclamationRow row) {
+        Reclamation reclamation = reclamationService.findById(row.id()).orElse(null);
+        if (reclamation == null) {
+            updateGrid();
+            return;
+        }
         ReclamationResponseDialog dialog = new ReclamationResponseDialog(reclamation, reclamationService, () -> updateGrid());
         dialog.open();
     }
@@ -5,6 +5,7 @@ import com.fosagri.application.model.AdhConjoint;
 import com.fosagri.application.model.AdhEnfant;
 import com.fosagri.application.service.AdhConjointService;
 import com.fosagri.application.service.AdhEnfantService;
+import com.fosagri.application.services.UploadValidator;
 import com.fosagri.application.views.conjoints.ConjointFormDialog;
 import com.fosagri.application.views.enfants.EnfantFormDialog;
 import com.vaadin.flow.component.Component;
@@ -26,6 +27,7 @@ import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.tabs.Tab;
 import com.vaadin.flow.component.tabs.Tabs;
+import com.vaadin.flow.function.SerializableSupplier;
 import com.vaadin.flow.server.StreamResource;
 
 import java.io.ByteArrayInputStream;
@@ -37,6 +39,7 @@ public class AgentFamilyDialog extends Dialog {
     private final AdhAgent agent;
     private final AdhConjointService conjointService;
     private final AdhEnfantService enfantService;
+    private final UploadValidator uploadValidator;
 
     private Grid<AdhConjoint> conjointGrid;
     private Grid<AdhEnfant> enfantGrid;
@@ -48,10 +51,12 @@ public class AgentFamilyDialog extends Dialog {
     private Span conjointsCountBadge;
     private Span enfantsCountBadge;
 
-    public AgentFamilyDialog(AdhAgent agent, AdhConjointService conjointService, AdhEnfantService enfantService) {
+    public AgentFamilyDialog(AdhAgent agent, AdhConjointService conjointService, AdhEnfantService enfantService,
+                             UploadValidator uploadValidator) {
         this.agent = agent;
         this.conjointService = conjointService;
         this.enfantService = enfantService;
+        this.uploadValidator = uploadValidator;
 
         setHeaderTitle("Famille de l'adhérent");
         setWidth("1200px");
@@ -132,7 +137,7 @@ public class AgentFamilyDialog extends Dialog {
 
         // Avatar
         Component avatar = createAvatar(
-            agent.getAgent_photo(),
+            agent::getAgent_photo,
             agent.getAgent_photo_filename(),
             agent.getAgent_photo_contentType(),
             getInitials(agent.getNOM_AG(), agent.getPR_AG()),
@@ -223,7 +228,7 @@ public class AgentFamilyDialog extends Dialog {
 
         // Photo column
         conjointGrid.addComponentColumn(c -> createGridAvatar(
-            c.getConjoint_photo(),
+            () -> conjointService.readPhoto(c),
             c.getConjoint_photo_filename(),
             c.getConjoint_photo_contentType(),
             VaadinIcon.USER
@@ -287,7 +292,7 @@ public class AgentFamilyDialog extends Dialog {
 
         // Photo column
         enfantGrid.addComponentColumn(e -> createGridAvatar(
-            e.getEnfant_photo(),
+            () -> enfantService.readPhoto(e),
             e.getEnfant_photo_filename(),
             e.getEnfant_photo_contentType(),
             VaadinIcon.CHILD
@@ -325,7 +330,7 @@ public class AgentFamilyDialog extends Dialog {
         return layout;
     }
 
-    private Component createAvatar(byte[] photoData, String filename, String contentType,
+    private Component createAvatar(SerializableSupplier<byte[]> photoData, String filename, String contentType,
             String initials, String size, String fontSize) {
         Div avatar = new Div();
         avatar.getStyle()
@@ -338,9 +343,12 @@ public class AgentFamilyDialog extends Dialog {
             .set("flex-shrink", "0")
             .set("overflow", "hidden");
 
-        if (photoData != null && photoData.length > 0 && contentType != null && contentType.startsWith("image/")) {
+        if (contentType != null && contentType.startsWith("image/")) {
             String safeFilename = filename != null ? filename : "photo.jpg";
-            StreamResource resource = new StreamResource(safeFilename, () -> new ByteArrayInputStream(photoData));
+            StreamResource resource = new StreamResource(safeFilename, () -> {
+                byte[] content = photoData.get();
+                return new ByteArrayInputStream(content != null ? content : new byte[0]);
+            });
             Image photo = new Image(resource, "Photo");
             photo.getStyle()
                 .set("width", "100%")
@@ -361,7 +369,7 @@ public class AgentFamilyDialog extends Dialog {
         return avatar;
     }
 
-    private Component createGridAvatar(byte[] photoData, String filename, String contentType, VaadinIcon fallbackIcon) {
+    private Component createGridAvatar(SerializableSupplier<byte[]> photoData, String filename, String contentType, VaadinIcon fallbackIcon) {
         Div avatar = new Div();
         avatar.getStyle()
             .set("width", "36px")
@@ -373,9 +381,12 @@ public class AgentFamilyDialog extends Dialog {
             .set("flex-shrink", "0")
             .set("overflow", "hidden");
 
-        if (photoData != null && photoData.length > 0 && contentType != null && contentType.startsWith("image/")) {
+        if (contentType != null && contentType.startsWith("image/")) {
             String safeFilename = filename != null ? filename : "photo.jpg";
-            StreamResource resource = new StreamResource(safeFilename, () -> new ByteArrayInputStream(photoData));
+            StreamResource resource = new StreamResource(safeFilename, () -> {
+                byte[] content = photoData.get();
+                return new ByteArrayInputStream(content != null ? content : new byte[0]);
+            });
             Image photo = new Image(resource, "Photo");
             photo.getStyle()
                 .set("width", "100%")
@@ -459,7 +470,8 @@ public class AgentFamilyDialog extends Dialog {
             conjoint.setCodAg(agent.getCodAg());
         }
 
-        ConjointFormDialog dialog = new ConjointFormDialog(conjoint, this::saveConjoint, this::closeDialog);
+        conjointService.loadDocuments(conjoint);
+        ConjointFormDialog dialog = new ConjointFormDialog(conjoint, this::saveConjoint, this::closeDialog, uploadValidator);
         dialog.open();
     }
 
@@ -489,7 +501,8 @@ public class AgentFamilyDialog extends Dialog {
             enfant.setCodAg(agent.getCodAg());
         }
 
-        EnfantFormDialog dialog = new EnfantFormDialog(enfant, this::saveEnfant, this::closeDialog);
+        enfantService.loadDocuments(enfant);
+        EnfantFormDialog dialog = new EnfantFormDialog(enfant, this::saveEnfant, this::closeDialog, uploadValidator);
         dialog.open();
     }
 
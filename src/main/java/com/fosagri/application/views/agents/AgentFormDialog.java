@@ -2,6 +2,7 @@ package com.fosagri.application.views.agents;
 
 import com.fosagri.application.components.FileUploadComponent;
 import com.fosagri.application.model.AdhAgent;
+import com.fosagri.application.services.UploadValidator;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.datepicker.DatePicker;
@@ -29,6 +30,7 @@ public class AgentFormDialog extends Dialog {
     private final AdhAgent agent;
     private final Consumer<AdhAgent> saveCallback;
     private final Runnable closeCallback;
+    private final UploadValidator uploadValidator;
 
     private TextField idAdhField;
     private TextField codAgField;
@@ -53,10 +55,12 @@ public class AgentFormDialog extends Dialog {
     private FileUploadComponent ribUpload;
     private FileUploadComponent ribPhotoUpload;
 
-    public AgentFormDialog(AdhAgent agent, Consumer<AdhAgent> saveCallback, Runnable closeCallback) {
+    public AgentFormDialog(AdhAgent agent, Consumer<AdhAgent> saveCallback, Runnable closeCallback,
+                            UploadValidator uploadValidator) {
         this.agent = agent;
         this.saveCallback = saveCallback;
         this.closeCallback = closeCallback;
+        this.uploadValidator = uploadValidator;
 
         setHeaderTitle(agent.getAdhAgentId() == 0 ? "Nouvel Agent" : "Modifier Agent");
         setWidth("900px");
@@ -178,6 +182,7 @@ public class AgentFormDialog extends Dialog {
         
         // Create file upload components
         agentPhotoUpload = new FileUploadComponent(
+            uploadValidator,
             "Photo de l'agent", 
             "image/jpeg,image/png,image/gif", 
             5, 
@@ -186,6 +191,7 @@ public class AgentFormDialog extends Dialog {
         );
         
         cinImageUpload = new FileUploadComponent(
+            uploadValidator,
             "Photo de la CIN", 
             "image/jpeg,image/png,image/gif,application/pdf", 
             10, 
@@ -193,6 +199,7 @@ public class AgentFormDialog extends Dialog {
         );
         
         ribUpload = new FileUploadComponent(
+            uploadValidator,
             "RIB (document)", 
             "application/pdf,image/jpeg,image/png", 
             10, 
@@ -200,6 +207,7 @@ public class AgentFormDialog extends Dialog {
         );
         
         ribPhotoUpload = new FileUploadComponent(
+            uploadValidator,
             "Photo du RIB", 
             "image/jpeg,image/png,image/gif", 
             10, 
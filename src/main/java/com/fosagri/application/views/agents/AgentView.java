@@ -5,6 +5,8 @@ import com.fosagri.application.service.AdhAgentService;
 import com.fosagri.application.service.AdhConjointService;
 import com.fosagri.application.service.AdhEnfantService;
 import com.fosagri.application.services.ModificationDemandeService;
+import com.fosagri.application.services.UploadValidator;
+import com.fosagri.application.components.AsyncSearch;
 import com.fosagri.application.views.MainLayout;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.button.Button;
@@ -25,11 +27,12 @@ import com.vaadin.flow.component.orderedlayout.FlexComponent;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextField;
-import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.router.Menu;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import jakarta.annotation.security.RolesAllowed;
 import org.vaadin.lineawesome.LineAwesomeIconUrl;
 
@@ -54,8 +57,12 @@ public class AgentView extends VerticalLayout {
     @Autowired
     private ModificationDemandeService modificationService;
 
+    @Autowired
+    private UploadValidator uploadValidator;
+
     private Grid<AdhAgent> grid;
     private TextField searchField;
+    private AsyncSearch<AdhAgent> asyncSearch;
     private Button addButton;
 
     // Stats labels
@@ -64,11 +71,14 @@ public class AgentView extends VerticalLayout {
     private Span enfantsCountLabel;
     private Span modificationsCountLabel;
 
-    public AgentView(AdhAgentService agentService, AdhConjointService conjointService, AdhEnfantService enfantService, ModificationDemandeService modificationService) {
+    public AgentView(AdhAgentService agentService, AdhConjointService conjointService, AdhEnfantService enfantService,
+                     ModificationDemandeService modificationService, UploadValidator uploadValidator,
+                     @Qualifier("searchExecutor") AsyncTaskExecutor searchExecutor) {
         this.agentService = agentService;
         this.conjointService = conjointService;
         this.enfantService = enfantService;
         this.modificationService = modificationService;
+        this.uploadValidator = uploadValidator;
 
         addClassName("agent-view");
         setSizeFull();
@@ -81,6 +91,8 @@ public class AgentView extends VerticalLayout {
         createStatsSection();
         createSearchBar();
         createGrid();
+        asyncSearch = new AsyncSearch<>(searchField, searchExecutor, AdhAgentService.FUZZY_SEARCH_LIMIT,
+            agentService::fuzzySearch, agents -> grid.setItems(agents));
 
         updateGrid();
         updateStats();
@@ -191,9 +203,6 @@ public class AgentView extends VerticalLayout {
         searchField = new TextField();
         searchField.setPlaceholder("Recherche: nom, prénom, CIN, ville, tél...");
         searchField.setPrefixComponent(VaadinIcon.SEARCH.create());
-        searchField.setValueChangeMode(ValueChangeMode.LAZY);
-        searchField.setValueChangeTimeout(300);
-        searchField.addValueChangeListener(e -> updateGrid());
         searchField.setWidth("350px");
         searchField.getStyle()
             .set("--vaadin-input-field-border-radius", "1.5rem")
@@ -298,15 +307,17 @@ public class AgentView extends VerticalLayout {
             .set("align-items", "center")
             .set("justify-content", "center");
 
-        byte[] photoData = agent.getAgent_photo();
         String filename = agent.getAgent_photo_filename();
         String contentType = agent.getAgent_photo_contentType();
 
-        if (photoData != null && photoData.length > 0 && contentType != null && contentType.startsWith("image/")) {
-            // Show photo
+        if (contentType != null && contentType.startsWith("image/")) {
+            // Show photo, read from the document store only when the browser requests it
             StreamResource resource = new StreamResource(
                 filename != null ? filename : "avatar.jpg",
-                () -> new ByteArrayInputStream(photoData)
+                () -> {
+                    byte[] photoData = agentService.readPhoto(agent);
+                    return new ByteArrayInputStream(photoData != null ? photoData : new byte[0]);
+                }
             );
             Image avatar = new Image(resource, "Photo");
             avatar.setWidth("50px");
@@ -609,23 +620,20 @@ public class AgentView extends VerticalLayout {
         return badge;
     }
 
+    // Recherche approximative hors du thread UI ; la saisie déclenche aussi AsyncSearch directement
     private void updateGrid() {
-        String searchTerm = searchField.getValue();
-        if (searchTerm == null || searchTerm.trim().isEmpty()) {
-            grid.setItems(agentService.findAll());
-        } else {
-            // Use fuzzy search for flexible matching
-            grid.setItems(agentService.fuzzySearch(searchTerm));
-        }
+        asyncSearch.submit(searchField.getValue());
     }
 
     private void openAgentDialog(AdhAgent agent) {
-        AgentFormDialog dialog = new AgentFormDialog(agent, this::saveAgent, this::closeDialog);
+        agentService.loadDocuments(agent);
+        AgentFormDialog dialog = new AgentFormDialog(agent, this::saveAgent, this::closeDialog, uploadValidator);
         dialog.open();
     }
 
     private void openFamilyDialog(AdhAgent agent) {
-        AgentFamilyDialog dialog = new AgentFamilyDialog(agent, conjointService, enfantService);
+        agent.setAgent_photo(agentService.readPhoto(agent));
+        AgentFamilyDialog dialog = new AgentFamilyDialog(agent, conjointService, enfantService, uploadValidator);
         dialog.open();
     }
 
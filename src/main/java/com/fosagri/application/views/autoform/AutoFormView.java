@@ -3,6 +3,7 @@ package com.fosagri.application.views.autoform;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fosagri.application.forms.FormRenderer;
 import com.fosagri.application.forms.FormSchema;
+import com.fosagri.application.services.UploadValidator;
 import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.html.H2;
 import com.vaadin.flow.component.notification.Notification;
@@ -16,8 +17,10 @@ public class AutoFormView extends VerticalLayout implements HasUrlParameter<Stri
 
     private final Div formContainer = new Div();
     private final TextArea output = new TextArea("Réponses (JSON)");
+    private final UploadValidator uploadValidator;
 
-    public AutoFormView() {
+    public AutoFormView(UploadValidator uploadValidator) {
+        this.uploadValidator = uploadValidator;
         setSizeFull();
         setPadding(true);
         setSpacing(true);
@@ -46,7 +49,7 @@ public class AutoFormView extends VerticalLayout implements HasUrlParameter<Stri
                 } catch (Exception ex) {
                     output.setValue("Erreur: " + ex.getMessage());
                 }
-            }));
+            }, uploadValidator));
         } catch (Exception ex) {
             Notification.show("Schema introuvable: " + ex.getMessage());
         }
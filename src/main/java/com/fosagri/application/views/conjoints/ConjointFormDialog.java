@@ -2,6 +2,7 @@ package com.fosagri.application.views.conjoints;
 
 import com.fosagri.application.components.FileUploadComponent;
 import com.fosagri.application.model.AdhConjoint;
+import com.fosagri.application.services.UploadValidator;
 import com.fosagri.application.utils.AgeUtils;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
@@ -29,6 +30,7 @@ public class ConjointFormDialog extends Dialog {
     private final AdhConjoint conjoint;
     private final Consumer<AdhConjoint> saveCallback;
     private final Runnable closeCallback;
+    private final UploadValidator uploadValidator;
 
     private TextField codAgField;
     private TextField numConjField;
@@ -52,10 +54,12 @@ public class ConjointFormDialog extends Dialog {
     private FileUploadComponent cinImageUpload; // Only for >18 years
     private FileUploadComponent acteMariagePhotoUpload;
 
-    public ConjointFormDialog(AdhConjoint conjoint, Consumer<AdhConjoint> saveCallback, Runnable closeCallback) {
+    public ConjointFormDialog(AdhConjoint conjoint, Consumer<AdhConjoint> saveCallback, Runnable closeCallback,
+                            UploadValidator uploadValidator) {
         this.conjoint = conjoint;
         this.saveCallback = saveCallback;
         this.closeCallback = closeCallback;
+        this.uploadValidator = uploadValidator;
 
         setHeaderTitle(conjoint.getAdhConjointId() == 0 ? "Nouveau Conjoint" : "Modifier Conjoint");
         setWidth("900px");
@@ -172,6 +176,7 @@ public class ConjointFormDialog extends Dialog {
         
         // Create file upload components
         conjointPhotoUpload = new FileUploadComponent(
+            uploadValidator,
             "Photo du conjoint", 
             "image/jpeg,image/png,image/gif", 
             5, 
@@ -180,6 +185,7 @@ public class ConjointFormDialog extends Dialog {
         );
         
         cinImageUpload = new FileUploadComponent(
+            uploadValidator,
             "Photo de la CIN",
             "image/jpeg,image/png,image/gif,application/pdf", 
             10, 
@@ -187,6 +193,7 @@ public class ConjointFormDialog extends Dialog {
         );
         
         acteMariagePhotoUpload = new FileUploadComponent(
+            uploadValidator,
             "Photo de l'acte de mariage", 
             "application/pdf,image/jpeg,image/png", 
             10, 
@@ -4,6 +4,7 @@ import com.fosagri.application.model.AdhAgent;
 import com.fosagri.application.model.AdhConjoint;
 import com.fosagri.application.service.AdhAgentService;
 import com.fosagri.application.service.AdhConjointService;
+import com.fosagri.application.services.UploadValidator;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.grid.Grid;
@@ -29,6 +30,8 @@ import org.vaadin.lineawesome.LineAwesomeIconUrl;
 
 import java.io.ByteArrayInputStream;
 import java.text.SimpleDateFormat;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @PageTitle("Gestion des Conjoints")
 @Route(value = "conjoints", layout = MainLayout.class)
@@ -41,13 +44,17 @@ public class ConjointView extends VerticalLayout {
     @Autowired
     private AdhAgentService agentService;
 
+    @Autowired
+    private UploadValidator uploadValidator;
+
     private Grid<AdhConjoint> grid;
     private TextField searchField;
     private ComboBox<AdhAgent> agentFilter;
 
-    public ConjointView(AdhConjointService conjointService, AdhAgentService agentService) {
+    public ConjointView(AdhConjointService conjointService, AdhAgentService agentService, UploadValidator uploadValidator) {
         this.conjointService = conjointService;
         this.agentService = agentService;
+        this.uploadValidator = uploadValidator;
         
         addClassName("conjoint-view");
         setSizeFull();
@@ -99,7 +106,7 @@ public class ConjointView extends VerticalLayout {
         grid.setHeight("600px");
 
         // Photo column
-        grid.addComponentColumn(conjoint -> createAvatarComponent(conjoint.getConjoint_photo(), conjoint.getConjoint_photo_filename()))
+        grid.addComponentColumn(this::createAvatarComponent)
             .setHeader("Photo")
             .setWidth("80px")
             .setFlexGrow(0);
@@ -137,7 +144,12 @@ public class ConjointView extends VerticalLayout {
 
     private void updateGrid() {
         AdhAgent selectedAgent = agentFilter.getValue();
-        if (selectedAgent != null) {
+        String searchTerm = searchField.getValue();
+        if (searchTerm != null && !searchTerm.trim().isEmpty()) {
+            grid.setItems(conjointService.search(searchTerm).stream()
+                .filter(p -> selectedAgent == null || Objects.equals(selectedAgent.getCodAg(), p.getCodAg()))
+                .collect(Collectors.toList()));
+        } else if (selectedAgent != null) {
             grid.setItems(conjointService.findByCodeAgent(selectedAgent.getCodAg()));
         } else {
             grid.setItems(conjointService.findAll());
@@ -145,7 +157,8 @@ public class ConjointView extends VerticalLayout {
     }
 
     private void openConjointDialog(AdhConjoint conjoint) {
-        ConjointFormDialog dialog = new ConjointFormDialog(conjoint, this::saveConjoint, this::closeDialog);
+        conjointService.loadDocuments(conjoint);
+        ConjointFormDialog dialog = new ConjointFormDialog(conjoint, this::saveConjoint, this::closeDialog, uploadValidator);
         dialog.open();
     }
 
@@ -183,7 +196,8 @@ public class ConjointView extends VerticalLayout {
         notification.addThemeVariants(NotificationVariant.LUMO_ERROR);
     }
     
-    private Image createAvatarComponent(byte[] photoData, String filename) {
+    private Image createAvatarComponent(AdhConjoint conjoint) {
+        String filename = conjoint.getConjoint_photo_filename();
         Image avatar = new Image();
         avatar.setWidth("40px");
         avatar.setHeight("40px");
@@ -191,11 +205,12 @@ public class ConjointView extends VerticalLayout {
         avatar.getStyle().set("object-fit", "cover");
         avatar.getStyle().set("border", "1px solid #e0e0e0");
         
-        if (photoData != null && photoData.length > 0) {
-            StreamResource streamResource = new StreamResource(
-                filename != null ? filename : "avatar.jpg",
-                () -> new ByteArrayInputStream(photoData)
-            );
+        if (filename != null) {
+            // Photo read from the document store only when the browser requests it
+            StreamResource streamResource = new StreamResource(filename, () -> {
+                byte[] photoData = conjointService.readPhoto(conjoint);
+                return new ByteArrayInputStream(photoData != null ? photoData : new byte[0]);
+            });
             avatar.setSrc(streamResource);
             avatar.setAlt("Photo du conjoint");
         } else {
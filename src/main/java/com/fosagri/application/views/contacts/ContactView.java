@@ -1,5 +1,6 @@
 package com.fosagri.application.views.contacts;
 
+import com.fosagri.application.components.AsyncSearch;
 import com.fosagri.application.entities.Contact;
 import com.fosagri.application.entities.Contact.TypeContact;
 import com.fosagri.application.security.AuthenticatedUser;
@@ -33,6 +34,8 @@ import com.vaadin.flow.router.Menu;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import jakarta.annotation.security.PermitAll;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.vaadin.lineawesome.LineAwesomeIconUrl;
 
 import java.util.HashMap;
@@ -45,10 +48,14 @@ import java.util.Map;
 @PermitAll
 public class ContactView extends VerticalLayout {
 
+    // Nombre maximal de cartes affichées pour une recherche
+    private static final int MAX_CARDS = 200;
+
     private final ContactService contactService;
     private final boolean isAdmin;
     private final TextField searchField = new TextField();
-    private TypeContact selectedType = null;
+    private volatile TypeContact selectedType = null;
+    private AsyncSearch<Contact> cardSearch;
     private final FlexLayout cardsContainer = new FlexLayout();
     private final Map<TypeContact, Button> filterButtons = new HashMap<>();
 
@@ -56,7 +63,8 @@ public class ContactView extends VerticalLayout {
     private final Grid<Contact> grid = new Grid<>(Contact.class, false);
     private final ComboBox<TypeContact> typeFilter = new ComboBox<>();
 
-    public ContactView(ContactService contactService, AuthenticatedUser authenticatedUser) {
+    public ContactView(ContactService contactService, AuthenticatedUser authenticatedUser,
+                       @Qualifier("searchExecutor") AsyncTaskExecutor searchExecutor) {
         this.contactService = contactService;
 
         this.isAdmin = authenticatedUser.get()
@@ -80,6 +88,7 @@ public class ContactView extends VerticalLayout {
             add(createFilterTabs());
             add(createSearchBar());
             add(createCardsContainer());
+            cardSearch = new AsyncSearch<>(searchField, searchExecutor, MAX_CARDS, this::searchCards, this::showCards);
             refreshCards();
         }
     }
@@ -218,10 +227,8 @@ public class ContactView extends VerticalLayout {
         searchField.setPrefixComponent(searchIcon);
         searchField.setWidthFull();
         searchField.setClearButtonVisible(true);
-        searchField.setValueChangeMode(ValueChangeMode.LAZY);
         searchField.getStyle()
             .set("--vaadin-input-field-border-radius", "8px");
-        searchField.addValueChangeListener(e -> refreshCards());
 
         searchBar.add(searchField);
         return searchBar;
@@ -238,30 +245,17 @@ public class ContactView extends VerticalLayout {
     }
 
     private void refreshCards() {
-        cardsContainer.removeAll();
-
-        List<Contact> contacts;
-        String searchTerm = searchField.getValue();
-
-        if (selectedType != null) {
-            contacts = contactService.findByTypeActive(selectedType);
-        } else {
-            contacts = contactService.findAllActive();
-        }
+        cardSearch.submit(searchField.getValue());
+    }
 
-        if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-            String lowerSearch = searchTerm.toLowerCase().trim();
-            contacts = contacts.stream()
-                .filter(c ->
-                    (c.getNom() != null && c.getNom().toLowerCase().contains(lowerSearch)) ||
-                    (c.getEmail() != null && c.getEmail().toLowerCase().contains(lowerSearch)) ||
-                    (c.getVille() != null && c.getVille().toLowerCase().contains(lowerSearch)) ||
-                    (c.getFonction() != null && c.getFonction().toLowerCase().contains(lowerSearch)) ||
-                    (c.getDescription() != null && c.getDescription().toLowerCase().contains(lowerSearch))
-                )
-                .toList();
-        }
+    // Exécuté hors du thread UI par AsyncSearch ; recherche par préfixe dans l'annuaire en mémoire
+    private List<Contact> searchCards(String searchTerm, int limit) {
+        List<Contact> contacts = contactService.search(searchTerm, selectedType);
+        return contacts.size() > limit ? contacts.subList(0, limit) : contacts;
+    }
 
+    private void showCards(List<Contact> contacts) {
+        cardsContainer.removeAll();
         if (contacts.isEmpty()) {
             Div emptyState = createEmptyState();
             cardsContainer.add(emptyState);
@@ -1,7 +1,9 @@
 package com.fosagri.application.views.dashboard;
 
+import com.fosagri.application.dto.StatusMatrix;
 import com.fosagri.application.entities.PrestationRef;
 import com.fosagri.application.services.DemandePrestationService;
+import com.fosagri.application.services.DemandeStatsService;
 import com.fosagri.application.services.PrestationRefService;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.button.Button;
@@ -12,6 +14,7 @@ import com.vaadin.flow.component.html.H2;
 import com.vaadin.flow.component.html.H3;
 import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.icon.VaadinIcon;
+import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.orderedlayout.FlexComponent;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
@@ -39,16 +42,20 @@ public class AnalyticsDashboardView extends VerticalLayout {
     
     private final DemandePrestationService demandeService;
     private final PrestationRefService prestationService;
+    private final DemandeStatsService statsService;
     
     private VerticalLayout contentLayout;
     private Tabs mainTabs;
     private Tab overviewTab;
     private Tab prestationsTab;
     private Tab demandesTab;
+    private StatusMatrix statusMatrix;
     
-    public AnalyticsDashboardView(DemandePrestationService demandeService, PrestationRefService prestationService) {
+    public AnalyticsDashboardView(DemandePrestationService demandeService, PrestationRefService prestationService,
+                                  DemandeStatsService statsService) {
         this.demandeService = demandeService;
         this.prestationService = prestationService;
+        this.statsService = statsService;
         
         setSizeFull();
         setPadding(true);
@@ -69,7 +76,12 @@ public class AnalyticsDashboardView extends VerticalLayout {
         refreshBtn.addThemeVariants(com.vaadin.flow.component.button.ButtonVariant.LUMO_PRIMARY);
         refreshBtn.addClickListener(e -> refreshData());
         
-        HorizontalLayout header = new HorizontalLayout(title, refreshBtn);
+        Button rebuildBtn = new Button("Recalculer les compteurs", VaadinIcon.DATABASE.create());
+        rebuildBtn.addThemeVariants(com.vaadin.flow.component.button.ButtonVariant.LUMO_TERTIARY);
+        rebuildBtn.addClickListener(e -> rebuildStats());
+        
+        HorizontalLayout actions = new HorizontalLayout(rebuildBtn, refreshBtn);
+        HorizontalLayout header = new HorizontalLayout(title, actions);
         header.setAlignItems(FlexComponent.Alignment.CENTER);
         header.setJustifyContentMode(FlexComponent.JustifyContentMode.BETWEEN);
         header.setWidthFull();
@@ -109,6 +121,7 @@ public class AnalyticsDashboardView extends VerticalLayout {
     
     private void showOverview() {
         contentLayout.removeAll();
+        statusMatrix = demandeService.getStatusMatrix();
         
         HorizontalLayout metricsLayout = createMetricsCards();
         contentLayout.add(metricsLayout);
@@ -131,6 +144,7 @@ public class AnalyticsDashboardView extends VerticalLayout {
     
     private void showPrestations() {
         contentLayout.removeAll();
+        statusMatrix = demandeService.getStatusMatrix();
         
         H3 title = new H3("Analyse des Prestations");
         contentLayout.add(title);
@@ -144,6 +158,7 @@ public class AnalyticsDashboardView extends VerticalLayout {
     
     private void showDemandes() {
         contentLayout.removeAll();
+        statusMatrix = demandeService.getStatusMatrix();
         
         H3 title = new H3("Analyse des Demandes");
         contentLayout.add(title);
@@ -161,9 +176,9 @@ public class AnalyticsDashboardView extends VerticalLayout {
         layout.setSpacing(true);
         
         long totalPrestations = prestationService.count();
-        long totalDemandes = demandeService.count();
-        long demandesEnCours = demandeService.countByStatut("EN_COURS");
-        long demandesSoumises = demandeService.countByStatut("SOUMISE");
+        long totalDemandes = statusMatrix.getTotal();
+        long demandesEnCours = statusMatrix.getCountByStatut("EN_COURS");
+        long demandesSoumises = statusMatrix.getCountByStatut("SOUMISE");
         
         layout.add(
             createMetricCard("Total Prestations", String.valueOf(totalPrestations), "var(--lumo-primary-color)", VaadinIcon.CLIPBOARD),
@@ -223,11 +238,11 @@ public class AnalyticsDashboardView extends VerticalLayout {
         statusBars.setSpacing(true);
         statusBars.setPadding(false);
         
-        long soumises = demandeService.countByStatut("SOUMISE");
-        long enCours = demandeService.countByStatut("EN_COURS");
-        long acceptees = demandeService.countByStatut("ACCEPTEE");
-        long refusees = demandeService.countByStatut("REFUSEE");
-        long terminees = demandeService.countByStatut("TERMINEE");
+        long soumises = statusMatrix.getCountByStatut("SOUMISE");
+        long enCours = statusMatrix.getCountByStatut("EN_COURS");
+        long acceptees = statusMatrix.getCountByStatut("ACCEPTEE");
+        long refusees = statusMatrix.getCountByStatut("REFUSEE");
+        long terminees = statusMatrix.getCountByStatut("TERMINEE");
         long total = soumises + enCours + acceptees + refusees + terminees;
         
         if (total > 0) {
@@ -335,7 +350,8 @@ public class AnalyticsDashboardView extends VerticalLayout {
         Map<String, Long> prestationDemandes = prestations.stream()
             .collect(Collectors.toMap(
                 PrestationRef::getLabel,
-                p -> demandeService.countTotalDemandes(p)
+                p -> statusMatrix.getTotal(p.getId()),
+                Long::sum
             ));
         
         String prestationPopulaire = prestationDemandes.entrySet().stream()
@@ -359,16 +375,17 @@ public class AnalyticsDashboardView extends VerticalLayout {
         grid.setSizeFull();
         
         grid.addColumn(PrestationRef::getLabel).setHeader("Prestation").setAutoWidth(true);
-        grid.addColumn(p -> demandeService.countTotalDemandes(p)).setHeader("Total Demandes").setAutoWidth(true);
-        grid.addColumn(p -> demandeService.countSoumises(p)).setHeader("Soumises").setAutoWidth(true);
-        grid.addColumn(p -> demandeService.countEnCours(p)).setHeader("En Cours").setAutoWidth(true);
-        grid.addColumn(p -> demandeService.countAcceptees(p)).setHeader("Acceptées").setAutoWidth(true);
-        grid.addColumn(p -> demandeService.countRefusees(p)).setHeader("Refusées").setAutoWidth(true);
+        // All counts come from the matrix loaded once in showPrestations()
+        grid.addColumn(p -> statusMatrix.getTotal(p.getId())).setHeader("Total Demandes").setAutoWidth(true);
+        grid.addColumn(p -> statusMatrix.getCount(p.getId(), "SOUMISE")).setHeader("Soumises").setAutoWidth(true);
+        grid.addColumn(p -> statusMatrix.getCount(p.getId(), "EN_COURS")).setHeader("En Cours").setAutoWidth(true);
+        grid.addColumn(p -> statusMatrix.getCount(p.getId(), "ACCEPTEE")).setHeader("Acceptées").setAutoWidth(true);
+        grid.addColumn(p -> statusMatrix.getCount(p.getId(), "REFUSEE")).setHeader("Refusées").setAutoWidth(true);
         
         grid.addColumn(p -> {
-            long total = demandeService.countTotalDemandes(p);
+            long total = statusMatrix.getTotal(p.getId());
             if (total == 0) return "N/A";
-            long acceptees = demandeService.countAcceptees(p);
+            long acceptees = statusMatrix.getCount(p.getId(), "ACCEPTEE");
             return String.format("%.1f%%", (acceptees * 100.0) / total);
         }).setHeader("Taux d'acceptation").setAutoWidth(true);
         
@@ -384,9 +401,9 @@ public class AnalyticsDashboardView extends VerticalLayout {
         layout.setWidthFull();
         layout.setSpacing(true);
         
-        long totalDemandes = demandeService.count();
-        long demandesAcceptees = demandeService.countByStatut("ACCEPTEE");
-        long demandesRefusees = demandeService.countByStatut("REFUSEE");
+        long totalDemandes = statusMatrix.getTotal();
+        long demandesAcceptees = statusMatrix.getCountByStatut("ACCEPTEE");
+        long demandesRefusees = statusMatrix.getCountByStatut("REFUSEE");
         
         double tauxAcceptation = totalDemandes > 0 ? (demandesAcceptees * 100.0) / totalDemandes : 0;
         double tauxRefus = totalDemandes > 0 ? (demandesRefusees * 100.0) / totalDemandes : 0;
@@ -394,7 +411,7 @@ public class AnalyticsDashboardView extends VerticalLayout {
         layout.add(
             createMetricCard("Taux Acceptation", String.format("%.1f%%", tauxAcceptation), "var(--lumo-success-color)", VaadinIcon.CHECK),
             createMetricCard("Taux Refus", String.format("%.1f%%", tauxRefus), "var(--lumo-error-color)", VaadinIcon.CLOSE),
-            createMetricCard("En Attente", String.valueOf(demandeService.countByStatut("SOUMISE")), "var(--lumo-warning-color)", VaadinIcon.CLOCK)
+            createMetricCard("En Attente", String.valueOf(statusMatrix.getCountByStatut("SOUMISE")), "var(--lumo-warning-color)", VaadinIcon.CLOCK)
         );
         
         return layout;
@@ -416,11 +433,11 @@ public class AnalyticsDashboardView extends VerticalLayout {
         statusBars.setSpacing(true);
         statusBars.setPadding(false);
         
-        long soumises = demandeService.countByStatut("SOUMISE");
-        long enCours = demandeService.countByStatut("EN_COURS");
-        long acceptees = demandeService.countByStatut("ACCEPTEE");
-        long refusees = demandeService.countByStatut("REFUSEE");
-        long terminees = demandeService.countByStatut("TERMINEE");
+        long soumises = statusMatrix.getCountByStatut("SOUMISE");
+        long enCours = statusMatrix.getCountByStatut("EN_COURS");
+        long acceptees = statusMatrix.getCountByStatut("ACCEPTEE");
+        long refusees = statusMatrix.getCountByStatut("REFUSEE");
+        long terminees = statusMatrix.getCountByStatut("TERMINEE");
         
         // Find max value for scaling
         long maxValue = Math.max(Math.max(soumises, enCours), Math.max(Math.max(acceptees, refusees), terminees));
@@ -484,7 +501,7 @@ public class AnalyticsDashboardView extends VerticalLayout {
             }
         }
         
-        long demandesEnAttente = demandeService.countByStatut("SOUMISE");
+        long demandesEnAttente = statusMatrix.getCountByStatut("SOUMISE");
         if (demandesEnAttente > 5) {
             Div alert = createAlertCard(
                 "Demandes en attente nécessitent une attention",
@@ -494,7 +511,7 @@ public class AnalyticsDashboardView extends VerticalLayout {
             alertsLayout.add(alert);
         }
         
-        long demandesEnCours = demandeService.countByStatut("EN_COURS");
+        long demandesEnCours = statusMatrix.getCountByStatut("EN_COURS");
         if (demandesEnCours > 10) {
             Div alert = createAlertCard(
                 "Volume élevé de demandes en cours",
@@ -527,6 +544,20 @@ public class AnalyticsDashboardView extends VerticalLayout {
         return alert;
     }
     
+    private void rebuildStats() {
+        try {
+            boolean wasConsistent = statsService.isConsistent();
+            long total = statsService.rebuild();
+            Notification.show(wasConsistent
+                    ? "Compteurs recalculés (" + total + " demandes), aucun écart détecté"
+                    : "Compteurs recalculés (" + total + " demandes), des écarts ont été corrigés",
+                3000, Notification.Position.TOP_END);
+            refreshData();
+        } catch (Exception ex) {
+            Notification.show("Erreur lors du recalcul des compteurs: " + ex.getMessage(), 5000, Notification.Position.TOP_END);
+        }
+    }
+    
     private void refreshData() {
         Tab selectedTab = mainTabs.getSelectedTab();
         if (selectedTab == overviewTab) {
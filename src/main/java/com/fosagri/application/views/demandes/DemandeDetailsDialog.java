@@ -365,7 +365,8 @@ public class DemandeDetailsDialog extends Dialog {
             // File stored on disk - use API endpoint
             try {
                 String encodedPath = java.net.URLEncoder.encode(storedPath, java.nio.charset.StandardCharsets.UTF_8);
-                Anchor downloadLink = new Anchor("/api/files/download?path=" + encodedPath, "");
+                Anchor downloadLink = new Anchor("/api/files/download?path=" + encodedPath
+                    + "&name=" + java.net.URLEncoder.encode(filename, java.nio.charset.StandardCharsets.UTF_8), "");
                 downloadLink.add(downloadBtn);
                 downloadLink.getElement().setAttribute("download", true);
                 fileItem.add(icon, fileInfo, downloadLink);
@@ -1,14 +1,14 @@
 package com.fosagri.application.views.demandes;
 
+import com.fosagri.application.dto.DemandeRow;
 import com.fosagri.application.entities.DemandePrestation;
-import com.fosagri.application.entities.PrestationRef;
-import com.fosagri.application.model.AdhAgent;
 import com.fosagri.application.service.AdhAgentService;
 import com.fosagri.application.service.AdhEnfantService;
 import com.fosagri.application.service.AdhConjointService;
 import com.fosagri.application.services.DemandePrestationService;
 import com.fosagri.application.services.PrestationRefService;
 import com.fosagri.application.services.PdfReportService;
+import com.fosagri.application.services.UploadValidator;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.confirmdialog.ConfirmDialog;
@@ -44,9 +44,10 @@ public class DemandesPrestationView extends VerticalLayout {
     private final AdhEnfantService enfantService;
     private final AdhConjointService conjointService;
     private final PdfReportService pdfReportService;
+    private final UploadValidator uploadValidator;
     
-    private final Grid<DemandePrestation> grid = new Grid<>(DemandePrestation.class, false);
-    private final ListDataProvider<DemandePrestation> dataProvider;
+    private final Grid<DemandeRow> grid = new Grid<>(DemandeRow.class, false);
+    private final ListDataProvider<DemandeRow> dataProvider;
     private final TextField filterText = new TextField();
     private final ComboBox<String> statutFilter = new ComboBox<>("Filtrer par statut");
     
@@ -55,13 +56,15 @@ public class DemandesPrestationView extends VerticalLayout {
                                   AdhAgentService agentService,
                                   AdhEnfantService enfantService,
                                   AdhConjointService conjointService,
-                                  PdfReportService pdfReportService) {
+                                  PdfReportService pdfReportService,
+                                  UploadValidator uploadValidator) {
         this.demandeService = demandeService;
         this.prestationService = prestationService;
         this.agentService = agentService;
         this.enfantService = enfantService;
         this.conjointService = conjointService;
         this.pdfReportService = pdfReportService;
+        this.uploadValidator = uploadValidator;
         this.dataProvider = new ListDataProvider<>(new ArrayList<>());
         
         setSizeFull();
@@ -83,31 +86,26 @@ public class DemandesPrestationView extends VerticalLayout {
         grid.setDataProvider(dataProvider);
         grid.setSizeFull();
         
-        grid.addColumn(DemandePrestation::getId).setHeader("ID").setAutoWidth(true);
+        grid.addColumn(DemandeRow::id).setHeader("ID").setAutoWidth(true);
         
-        grid.addColumn(demande -> {
-            AdhAgent agent = demande.getAgent();
-            return agent != null ? agent.getNOM_AG() + " " + agent.getPR_AG() : "";
-        }).setHeader("Agent").setAutoWidth(true);
+        grid.addColumn(DemandeRow::getAgentName).setHeader("Agent").setAutoWidth(true);
         
-        grid.addColumn(demande -> {
-            PrestationRef prestation = demande.getPrestation();
-            return prestation != null ? prestation.getLabel() : "";
-        }).setHeader("Prestation").setAutoWidth(true);
+        grid.addColumn(demande -> demande.prestationLabel() != null ? demande.prestationLabel() : "")
+            .setHeader("Prestation").setAutoWidth(true);
         
         grid.addColumn(demande -> {
-            String statut = demande.getStatut();
+            String statut = demande.statut();
             return getStatutLabel(statut);
         }).setHeader("Statut").setAutoWidth(true);
         
         grid.addColumn(demande -> {
             SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm");
-            return demande.getDateDemande() != null ? sdf.format(demande.getDateDemande()) : "";
+            return demande.dateDemande() != null ? sdf.format(demande.dateDemande()) : "";
         }).setHeader("Date demande").setAutoWidth(true);
         
         grid.addColumn(demande -> {
             SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm");
-            return demande.getDateTraitement() != null ? sdf.format(demande.getDateTraitement()) : "";
+            return demande.dateTraitement() != null ? sdf.format(demande.dateTraitement()) : "";
         }).setHeader("Date traitement").setAutoWidth(true);
         
         grid.addComponentColumn(demande -> {
@@ -118,7 +116,7 @@ public class DemandesPrestationView extends VerticalLayout {
             
             Button editBtn = new Button("Traiter", VaadinIcon.EDIT.create());
             editBtn.addClickListener(e -> traiterDemande(demande));
-            editBtn.setEnabled("SOUMISE".equals(demande.getStatut()) || "EN_COURS".equals(demande.getStatut()));
+            editBtn.setEnabled("SOUMISE".equals(demande.statut()) || "EN_COURS".equals(demande.statut()));
             
             Button pdfBtn = new Button("PDF", VaadinIcon.FILE_TEXT_O.create());
             pdfBtn.addClickListener(e -> generatePdfReport(demande));
@@ -188,15 +186,13 @@ grid.setColumnReorderingAllowed(true);
             
             if (filterValue != null && !filterValue.trim().isEmpty()) {
                 String searchTerm = filterValue.toLowerCase();
-                matchesText = (demande.getAgent() != null && 
-                              (demande.getAgent().getNOM_AG().toLowerCase().contains(searchTerm) ||
-                               demande.getAgent().getPR_AG().toLowerCase().contains(searchTerm))) ||
-                             (demande.getPrestation() != null &&
-                              demande.getPrestation().getLabel().toLowerCase().contains(searchTerm));
+                matchesText = demande.getAgentName().toLowerCase().contains(searchTerm) ||
+                             (demande.prestationLabel() != null &&
+                              demande.prestationLabel().toLowerCase().contains(searchTerm));
             }
             
             if (statutValue != null && !statutValue.trim().isEmpty()) {
-                matchesStatut = statutValue.equals(demande.getStatut());
+                matchesStatut = statutValue.equals(demande.statut());
             }
             
             return matchesText && matchesStatut;
@@ -205,13 +201,13 @@ grid.setColumnReorderingAllowed(true);
     
     private void refreshData() {
         dataProvider.getItems().clear();
-        dataProvider.getItems().addAll(demandeService.findAll());
+        dataProvider.getItems().addAll(demandeService.findAllRows());
         dataProvider.refreshAll();
     }
     
     private void ouvrirNouvelleDemandeDialog() {
         NouvelleDemandeDialog dialog = new NouvelleDemandeDialog(
-            prestationService, agentService, enfantService, conjointService, demandeService);
+            prestationService, agentService, enfantService, conjointService, demandeService, uploadValidator);
         dialog.addSaveListener(demande -> {
             refreshData();
             Notification.show("Demande soumise avec succès");
@@ -219,12 +215,22 @@ grid.setColumnReorderingAllowed(true);
         dialog.open();
     }
     
-    private void viewDemande(DemandePrestation demande) {
+    private void viewDemande(DemandeRow row) {
+        DemandePrestation demande = demandeService.findById(row.id());
+        if (demande == null) {
+            refreshData();
+            return;
+        }
         DemandeDetailsDialog dialog = new DemandeDetailsDialog(demande);
         dialog.open();
     }
     
-    private void traiterDemande(DemandePrestation demande) {
+    private void traiterDemande(DemandeRow row) {
+        DemandePrestation demande = demandeService.findById(row.id());
+        if (demande == null) {
+            refreshData();
+            return;
+        }
         TraiterDemandeDialog dialog = new TraiterDemandeDialog(demande, demandeService);
         dialog.addSaveListener(updatedDemande -> {
             refreshData();
@@ -233,12 +239,12 @@ grid.setColumnReorderingAllowed(true);
         dialog.open();
     }
     
-    private void confirmDelete(DemandePrestation demande) {
+    private void confirmDelete(DemandeRow demande) {
         ConfirmDialog confirmDialog = new ConfirmDialog();
         confirmDialog.setHeader("Confirmer la suppression");
         confirmDialog.setText(String.format("Êtes-vous sûr de vouloir supprimer la demande #%d de %s ?", 
-            demande.getId(), 
-            demande.getAgent() != null ? demande.getAgent().getNOM_AG() + " " + demande.getAgent().getPR_AG() : ""));
+            demande.id(), 
+            demande.getAgentName()));
         
         confirmDialog.setCancelable(true);
         confirmDialog.setConfirmText("Supprimer");
@@ -248,9 +254,9 @@ grid.setColumnReorderingAllowed(true);
         confirmDialog.open();
     }
     
-    private void deleteDemande(DemandePrestation demande) {
+    private void deleteDemande(DemandeRow demande) {
         try {
-            demandeService.deleteById(demande.getId());
+            demandeService.deleteById(demande.id());
             refreshData();
             Notification.show("Demande supprimée avec succès");
         } catch (Exception e) {
@@ -258,10 +264,10 @@ grid.setColumnReorderingAllowed(true);
         }
     }
     
-    private void generatePdfReport(DemandePrestation demande) {
+    private void generatePdfReport(DemandeRow demande) {
         try {
             // Use the REST API endpoint for PDF generation
-            String pdfUrl = String.format("/api/pdf/demande/%d", demande.getId());
+            String pdfUrl = String.format("/api/pdf/demande/%d", demande.id());
             
             getUI().ifPresent(ui -> ui.getPage().open(pdfUrl, "_blank"));
             
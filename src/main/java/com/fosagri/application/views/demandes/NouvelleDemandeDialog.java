@@ -12,6 +12,7 @@ import com.fosagri.application.service.AdhEnfantService;
 import com.fosagri.application.service.AdhConjointService;
 import com.fosagri.application.services.DemandePrestationService;
 import com.fosagri.application.services.PrestationRefService;
+import com.fosagri.application.services.UploadValidator;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.combobox.ComboBox;
@@ -37,6 +38,7 @@ public class NouvelleDemandeDialog extends Dialog {
     private final AdhEnfantService enfantService;
     private final AdhConjointService conjointService;
     private final DemandePrestationService demandeService;
+    private final UploadValidator uploadValidator;
     private final List<SaveListener> saveListeners = new ArrayList<>();
     
     private ComboBox<AdhAgent> agentCombo;
@@ -52,12 +54,14 @@ public class NouvelleDemandeDialog extends Dialog {
                                 AdhAgentService agentService,
                                 AdhEnfantService enfantService,
                                 AdhConjointService conjointService,
-                                DemandePrestationService demandeService) {
+                                DemandePrestationService demandeService,
+                                UploadValidator uploadValidator) {
         this.prestationService = prestationService;
         this.agentService = agentService;
         this.enfantService = enfantService;
         this.conjointService = conjointService;
         this.demandeService = demandeService;
+        this.uploadValidator = uploadValidator;
         
         setHeaderTitle("Nouvelle Demande de Prestation");
         setWidth("900px");
@@ -163,7 +167,7 @@ public class NouvelleDemandeDialog extends Dialog {
                 AdhAgent selectedAgent = agentCombo.getValue();
                 
                 // Create form with access to currentValues for file uploads
-                FormRenderer.FormWithValues formWithValues = FormRenderer.createFormWithValues(currentFormSchema, null, selectedAgent, enfantService, conjointService);
+                FormRenderer.FormWithValues formWithValues = FormRenderer.createFormWithValues(currentFormSchema, null, selectedAgent, enfantService, conjointService, uploadValidator);
                 currentForm = formWithValues.form;
                 formCurrentValues = formWithValues.currentValues;
                 
@@ -2,6 +2,7 @@ package com.fosagri.application.views.enfants;
 
 import com.fosagri.application.components.FileUploadComponent;
 import com.fosagri.application.model.AdhEnfant;
+import com.fosagri.application.services.UploadValidator;
 import com.fosagri.application.utils.AgeUtils;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
@@ -29,6 +30,7 @@ public class EnfantFormDialog extends Dialog {
     private final AdhEnfant enfant;
     private final Consumer<AdhEnfant> saveCallback;
     private final Runnable closeCallback;
+    private final UploadValidator uploadValidator;
 
     private TextField codAgField;
     private TextField nomField;
@@ -52,10 +54,12 @@ public class EnfantFormDialog extends Dialog {
     private FileUploadComponent cinImageUpload; // Only for >18 years
     private FileUploadComponent attestationScolariteUpload;
 
-    public EnfantFormDialog(AdhEnfant enfant, Consumer<AdhEnfant> saveCallback, Runnable closeCallback) {
+    public EnfantFormDialog(AdhEnfant enfant, Consumer<AdhEnfant> saveCallback, Runnable closeCallback,
+                            UploadValidator uploadValidator) {
         this.enfant = enfant;
         this.saveCallback = saveCallback;
         this.closeCallback = closeCallback;
+        this.uploadValidator = uploadValidator;
 
         setHeaderTitle(enfant.getAdhEnfantId() == null ? "Nouvel Enfant" : "Modifier Enfant");
         setWidth("900px");
@@ -174,6 +178,7 @@ public class EnfantFormDialog extends Dialog {
         
         // Create file upload components
         enfantPhotoUpload = new FileUploadComponent(
+            uploadValidator,
             "Photo de l'enfant", 
             "image/jpeg,image/png,image/gif", 
             5, 
@@ -182,6 +187,7 @@ public class EnfantFormDialog extends Dialog {
         );
         
         cinImageUpload = new FileUploadComponent(
+            uploadValidator,
             "Photo de la CIN (pour +18 ans)", 
             "image/jpeg,image/png,image/gif,application/pdf", 
             10, 
@@ -189,6 +195,7 @@ public class EnfantFormDialog extends Dialog {
         );
         
         attestationScolariteUpload = new FileUploadComponent(
+            uploadValidator,
             "Attestation de scolarité", 
             "application/pdf,image/jpeg,image/png", 
             10, 
@@ -4,6 +4,7 @@ import com.fosagri.application.model.AdhAgent;
 import com.fosagri.application.model.AdhEnfant;
 import com.fosagri.application.service.AdhAgentService;
 import com.fosagri.application.service.AdhEnfantService;
+import com.fosagri.application.services.UploadValidator;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.grid.Grid;
@@ -29,6 +30,8 @@ import org.vaadin.lineawesome.LineAwesomeIconUrl;
 
 import java.io.ByteArrayInputStream;
 import java.text.SimpleDateFormat;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @PageTitle("Gestion des Enfants")
 @Route(value = "enfants", layout = MainLayout.class)
@@ -41,13 +44,17 @@ public class EnfantView extends VerticalLayout {
     @Autowired
     private AdhAgentService agentService;
 
+    @Autowired
+    private UploadValidator uploadValidator;
+
     private Grid<AdhEnfant> grid;
     private TextField searchField;
     private ComboBox<AdhAgent> agentFilter;
 
-    public EnfantView(AdhEnfantService enfantService, AdhAgentService agentService) {
+    public EnfantView(AdhEnfantService enfantService, AdhAgentService agentService, UploadValidator uploadValidator) {
         this.enfantService = enfantService;
         this.agentService = agentService;
+        this.uploadValidator = uploadValidator;
         
         addClassName("enfant-view");
         setSizeFull();
@@ -99,7 +106,7 @@ public class EnfantView extends VerticalLayout {
         grid.setHeight("600px");
 
         // Photo column
-        grid.addComponentColumn(enfant -> createAvatarComponent(enfant.getEnfant_photo(), enfant.getEnfant_photo_filename()))
+        grid.addComponentColumn(this::createAvatarComponent)
             .setHeader("Photo")
             .setWidth("80px")
             .setFlexGrow(0);
@@ -137,7 +144,12 @@ public class EnfantView extends VerticalLayout {
 
     private void updateGrid() {
         AdhAgent selectedAgent = agentFilter.getValue();
-        if (selectedAgent != null) {
+        String searchTerm = searchField.getValue();
+        if (searchTerm != null && !searchTerm.trim().isEmpty()) {
+            grid.setItems(enfantService.search(searchTerm).stream()
+                .filter(p -> selectedAgent == null || Objects.equals(selectedAgent.getCodAg(), p.getCodAg()))
+                .collect(Collectors.toList()));
+        } else if (selectedAgent != null) {
             grid.setItems(enfantService.findByCodeAgent(selectedAgent.getCodAg()));
         } else {
             grid.setItems(enfantService.findAll());
@@ -145,7 +157,8 @@ public class EnfantView extends VerticalLayout {
     }
 
     private void openEnfantDialog(AdhEnfant enfant) {
-        EnfantFormDialog dialog = new EnfantFormDialog(enfant, this::saveEnfant, this::closeDialog);
+        enfantService.loadDocuments(enfant);
+        EnfantFormDialog dialog = new EnfantFormDialog(enfant, this::saveEnfant, this::closeDialog, uploadValidator);
         dialog.open();
     }
 
@@ -183,7 +196,8 @@ public class EnfantView extends VerticalLayout {
         notification.addThemeVariants(NotificationVariant.LUMO_ERROR);
     }
     
-    private Image createAvatarComponent(byte[] photoData, String filename) {
+    private Image createAvatarComponent(AdhEnfant enfant) {
+        String filename = enfant.getEnfant_photo_filename();
         Image avatar = new Image();
         avatar.setWidth("40px");
         avatar.setHeight("40px");
@@ -191,11 +205,12 @@ public class EnfantView extends VerticalLayout {
         avatar.getStyle().set("object-fit", "cover");
         avatar.getStyle().set("border", "1px solid #e0e0e0");
         
-        if (photoData != null && photoData.length > 0) {
-            StreamResource streamResource = new StreamResource(
-                filename != null ? filename : "avatar.jpg",
-                () -> new ByteArrayInputStream(photoData)
-            );
+        if (filename != null) {
+            // Photo read from the document store only when the browser requests it
+            StreamResource streamResource = new StreamResource(filename, () -> {
+                byte[] photoData = enfantService.readPhoto(enfant);
+                return new ByteArrayInputStream(photoData != null ? photoData : new byte[0]);
+            });
             avatar.setSrc(streamResource);
             avatar.setAlt("Photo de l'enfant");
         } else {
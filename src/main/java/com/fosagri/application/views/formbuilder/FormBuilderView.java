@@ -6,6 +6,7 @@ import com.fosagri.application.entities.PrestationRef;
 import com.fosagri.application.forms.*;
 import com.fosagri.application.services.PrestationFieldService;
 import com.fosagri.application.services.PrestationRefService;
+import com.fosagri.application.services.UploadValidator;
 import com.vaadin.flow.component.HasValue;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
@@ -52,6 +53,7 @@ public class FormBuilderView extends VerticalLayout {
 
     private final PrestationRefService prestationRefService;
     private final PrestationFieldService prestationFieldService;
+    private final UploadValidator uploadValidator;
 
     private final FormSchema schema = new FormSchema();
     private final Grid<FormField> grid = new Grid<>(FormField.class, false);
@@ -62,9 +64,11 @@ public class FormBuilderView extends VerticalLayout {
     private ComboBox<PrestationRef> prestationCombo;
     private PrestationRef selectedPrestation;
 
-    public FormBuilderView(PrestationRefService prestationRefService, PrestationFieldService prestationFieldService) {
+    public FormBuilderView(PrestationRefService prestationRefService, PrestationFieldService prestationFieldService,
+                           UploadValidator uploadValidator) {
         this.prestationRefService = prestationRefService;
         this.prestationFieldService = prestationFieldService;
+        this.uploadValidator = uploadValidator;
 
         setSizeFull();
         setPadding(true);
@@ -583,7 +587,7 @@ public class FormBuilderView extends VerticalLayout {
 
     private void refreshPreview() {
         previewContainer.removeAll();
-        previewContainer.add(FormRenderer.createFormWithAnswerBox(schema));
+        previewContainer.add(FormRenderer.createFormWithAnswerBox(schema, uploadValidator));
     }
 
     private void refreshAll() {
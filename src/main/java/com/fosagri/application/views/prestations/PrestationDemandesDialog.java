@@ -2,12 +2,15 @@ package com.fosagri.application.views.prestations;
 
 import com.fosagri.application.entities.DemandePrestation;
 import com.fosagri.application.entities.PrestationRef;
+import com.fosagri.application.services.DemandeExportService;
 import com.fosagri.application.services.DemandePrestationService;
-import com.fosagri.application.dto.DemandeViewDto;
+import com.fosagri.application.dto.AnswerFacet;
+import com.fosagri.application.dto.DemandesWithJsonKeys;
 import com.fosagri.application.dto.EnhancedDemandeViewDto;
 import com.fosagri.application.views.demandes.DemandeDetailsDialog;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
+import com.vaadin.flow.component.details.Details;
 import com.vaadin.flow.component.dialog.Dialog;
 import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.html.Anchor;
@@ -20,26 +23,36 @@ import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.data.provider.ListDataProvider;
 import com.vaadin.flow.data.value.ValueChangeMode;
+import com.vaadin.flow.server.StreamResource;
+import com.vaadin.flow.server.StreamResourceWriter;
 
-import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class PrestationDemandesDialog extends Dialog {
     
     private final PrestationRef prestationRef;
     private final DemandePrestationService demandePrestationService;
+    private final DemandeExportService demandeExportService;
     private final Grid<EnhancedDemandeViewDto> grid = new Grid<>(EnhancedDemandeViewDto.class, false);
     private final ListDataProvider<EnhancedDemandeViewDto> dataProvider;
     private final TextField filterText = new TextField();
+    private final Set<String> jsonKeys;
+    private final Span answerFilterBadge = new Span();
+    // Ids retained by a facet click (null = no answer filter)
+    private Set<Long> answerFilterIds;
     
-    public PrestationDemandesDialog(PrestationRef prestationRef, DemandePrestationService demandePrestationService) {
+    public PrestationDemandesDialog(PrestationRef prestationRef, DemandePrestationService demandePrestationService,
+                                    DemandeExportService demandeExportService) {
         this.prestationRef = prestationRef;
         this.demandePrestationService = demandePrestationService;
+        this.demandeExportService = demandeExportService;
         
-        List<EnhancedDemandeViewDto> demandes = demandePrestationService.findByPrestationWithJsonFields(prestationRef);
-        this.dataProvider = new ListDataProvider<>(demandes);
+        DemandesWithJsonKeys loaded = demandePrestationService.loadWithJsonFields(prestationRef);
+        this.dataProvider = new ListDataProvider<>(loaded.demandes());
+        this.jsonKeys = loaded.jsonKeys();
         
         setWidth("90%");
         setHeight("80%");
@@ -120,22 +133,31 @@ public class PrestationDemandesDialog extends Dialog {
         toolbar.setJustifyContentMode(FlexComponent.JustifyContentMode.BETWEEN);
         toolbar.setWidthFull();
         
-        // Left side - empty for now
+        // Left side - answer distribution for choice fields
         HorizontalLayout leftSide = new HorizontalLayout();
+        Button facetsBtn = new Button("Répartition des réponses", VaadinIcon.BAR_CHART.create());
+        facetsBtn.addClickListener(e -> openFacetsDialog());
+        answerFilterBadge.setVisible(false);
+        leftSide.setAlignItems(FlexComponent.Alignment.CENTER);
+        leftSide.add(facetsBtn, answerFilterBadge);
         
         // Right side - Export buttons
         HorizontalLayout rightSide = new HorizontalLayout();
         rightSide.setSpacing(true);
         
+        // Streamed from a database cursor when the link is followed, documents excluded
         Button exportCsvBtn = new Button("Export CSV", VaadinIcon.DOWNLOAD.create());
         exportCsvBtn.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
-        exportCsvBtn.addClickListener(e -> downloadCsv());
+        Anchor exportCsvLink = createDownloadLink(exportCsvBtn, "csv", "text/csv; charset=utf-8",
+            (stream, session) -> demandeExportService.writeCsv(prestationRef, stream));
         
         Button exportExcelBtn = new Button("Export Excel", VaadinIcon.FILE_TABLE.create());
         exportExcelBtn.addThemeVariants(ButtonVariant.LUMO_SUCCESS);
-        exportExcelBtn.addClickListener(e -> downloadCsv()); // Same as CSV for now
+        Anchor exportExcelLink = createDownloadLink(exportExcelBtn, "xlsx",
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+            (stream, session) -> demandeExportService.writeXlsx(prestationRef, stream));
         
-        rightSide.add(exportCsvBtn, exportExcelBtn);
+        rightSide.add(exportCsvLink, exportExcelLink);
         
         toolbar.add(leftSide, rightSide);
         return toolbar;
@@ -232,125 +254,87 @@ public class PrestationDemandesDialog extends Dialog {
     private void updateFilter() {
         String filterValue = filterText.getValue();
         if (filterValue == null || filterValue.trim().isEmpty()) {
-            dataProvider.clearFilters();
+            dataProvider.setFilter(this::matchesAnswerFilter);
         } else {
             dataProvider.setFilter(demande -> {
                 String searchTerm = filterValue.toLowerCase();
-                return (demande.getAgent() != null && 
+                return matchesAnswerFilter(demande) && ((demande.getAgent() != null && 
                        (demande.getAgent().getNOM_AG().toLowerCase().contains(searchTerm) ||
                         demande.getAgent().getPR_AG().toLowerCase().contains(searchTerm))) ||
                        getStatutLabel(demande.getStatut()).toLowerCase().contains(searchTerm) ||
                        (demande.getCommentaire() != null && 
-                        demande.getCommentaire().toLowerCase().contains(searchTerm));
+                        demande.getCommentaire().toLowerCase().contains(searchTerm)));
             });
         }
     }
     
-    private void downloadCsv() {
-        String csvContent = generateCsvContent();
-        String filename = "demandes-" + prestationRef.getLabel().replaceAll("\\s+", "_") + ".csv";
-        
-        // Create a data URL for download
-        String dataUrl = "data:text/csv;charset=utf-8," + 
-            java.net.URLEncoder.encode(csvContent, StandardCharsets.UTF_8);
-        
-        // Create a temporary anchor element for download
-        getElement().executeJs(
-            "const link = document.createElement('a');" +
-            "link.href = $0;" +
-            "link.download = $1;" +
-            "link.style.display = 'none';" +
-            "document.body.appendChild(link);" +
-            "link.click();" +
-            "document.body.removeChild(link);",
-            dataUrl, filename
-        );
+    private boolean matchesAnswerFilter(EnhancedDemandeViewDto demande) {
+        return answerFilterIds == null || answerFilterIds.contains(demande.getId());
     }
     
-    private String generateCsvContent() {
-        StringBuilder csv = new StringBuilder();
-        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm");
-        java.util.Set<String> jsonKeys = demandePrestationService.extractCommonJsonKeys(prestationRef);
-        
-        // Headers
-        csv.append("ID,Agent,Statut,Date demande,Date traitement,Commentaire");
+    private void openFacetsDialog() {
+        Dialog dialog = new Dialog();
+        dialog.setHeaderTitle("Répartition des réponses");
+        dialog.setWidth("520px");
         
-        // Add JSON field headers
-        for (String key : jsonKeys) {
-            csv.append(",").append(formatFieldName(key));
+        VerticalLayout content = new VerticalLayout();
+        content.setPadding(false);
+        List<AnswerFacet> facets = demandePrestationService.getAnswerFacets(prestationRef);
+        if (facets.isEmpty()) {
+            content.add(new Span("Aucun champ à choix (liste, case à cocher, choix multiple) dans ce formulaire."));
         }
-        
-        csv.append(",Réponses JSON,Documents JSON\n");
-        
-        // Data
-        List<EnhancedDemandeViewDto> demandes = dataProvider.getItems().stream().collect(Collectors.toList());
-        for (EnhancedDemandeViewDto demande : demandes) {
-            csv.append(demande.getId()).append(",");
-            
-            if (demande.getAgent() != null) {
-                csv.append("\"").append(demande.getAgent().getNOM_AG()).append(" ")
-                   .append(demande.getAgent().getPR_AG()).append("\"").append(",");
-            } else {
-                csv.append(",");
-            }
-            
-            csv.append(getStatutLabel(demande.getStatut())).append(",");
-            
-            if (demande.getDateDemande() != null) {
-                csv.append(sdf.format(demande.getDateDemande()));
+        for (AnswerFacet facet : facets) {
+            VerticalLayout buckets = new VerticalLayout();
+            buckets.setPadding(false);
+            buckets.setSpacing(false);
+            for (AnswerFacet.Bucket bucket : facet.buckets()) {
+                Button bucketBtn = new Button(bucket.label() + " : " + bucket.count());
+                bucketBtn.addThemeVariants(ButtonVariant.LUMO_TERTIARY, ButtonVariant.LUMO_SMALL);
+                bucketBtn.setEnabled(bucket.count() > 0);
+                bucketBtn.addClickListener(e -> {
+                    applyAnswerFilter(facet, bucket);
+                    dialog.close();
+                });
+                buckets.add(bucketBtn);
             }
-            csv.append(",");
-            
-            if (demande.getDateTraitement() != null) {
-                csv.append(sdf.format(demande.getDateTraitement()));
-            }
-            csv.append(",");
-            
-            if (demande.getCommentaire() != null) {
-                csv.append("\"").append(demande.getCommentaire().replace("\"", "\"\"")).append("\"");
-            }
-            csv.append(",");
-            
-            // Add JSON field values
-            for (String key : jsonKeys) {
-                Object value = demande.getJsonField(key);
-                if (value != null) {
-                    String valueStr = value.toString();
-                    if (valueStr.contains(",") || valueStr.contains("\"") || valueStr.contains("\n")) {
-                        csv.append("\"").append(valueStr.replace("\"", "\"\"")).append("\"");
-                    } else {
-                        csv.append(valueStr);
-                    }
-                }
-                csv.append(",");
-            }
-            
-            // Get full demande for JSON data
-            DemandePrestation fullDemande = demandePrestationService.findById(demande.getId());
-            if (fullDemande != null) {
-                // Réponses JSON
-                if (fullDemande.getReponseJson() != null) {
-                    csv.append("\"").append(fullDemande.getReponseJson().replace("\"", "\"\"")).append("\"");
-                }
-                csv.append(",");
-                
-                // Documents JSON
-                if (fullDemande.getDocumentsJson() != null) {
-                    csv.append("\"").append(fullDemande.getDocumentsJson().replace("\"", "\"\"")).append("\"");
-                }
-            } else {
-                csv.append(","); // Empty réponses JSON
-            }
-            csv.append("\n");
+            Details details = new Details(facet.label() + " (" + facet.total() + ")", buckets);
+            details.setOpened(true);
+            content.add(details);
         }
+        dialog.add(content);
         
-        return csv.toString();
+        Button closeBtn = new Button("Fermer", e -> dialog.close());
+        dialog.getFooter().add(closeBtn);
+        dialog.open();
+    }
+    
+    private void applyAnswerFilter(AnswerFacet facet, AnswerFacet.Bucket bucket) {
+        answerFilterIds = demandePrestationService.findIdsByAnswer(prestationRef, facet.field(), bucket.value());
+        answerFilterBadge.removeAll();
+        answerFilterBadge.setText(facet.label() + " = " + bucket.label() + " (" + answerFilterIds.size() + ")");
+        Button clear = new Button(VaadinIcon.CLOSE_SMALL.create(), e -> {
+            answerFilterIds = null;
+            answerFilterBadge.setVisible(false);
+            updateFilter();
+        });
+        clear.addThemeVariants(ButtonVariant.LUMO_TERTIARY_INLINE, ButtonVariant.LUMO_SMALL);
+        answerFilterBadge.add(clear);
+        answerFilterBadge.setVisible(true);
+        updateFilter();
+    }
+    
+    private Anchor createDownloadLink(Button button, String extension, String contentType, StreamResourceWriter writer) {
+        String filename = "demandes-" + prestationRef.getLabel().replaceAll("[^\\p{L}\\p{N}_-]+", "_") + "." + extension;
+        StreamResource resource = new StreamResource(filename, writer);
+        resource.setContentType(contentType);
+        Anchor link = new Anchor(resource, "");
+        link.getElement().setAttribute("download", true);
+        link.add(button);
+        return link;
     }
     
     private void addJsonFieldColumns() {
-        // Get common JSON keys for this prestation
-        java.util.Set<String> jsonKeys = demandePrestationService.extractCommonJsonKeys(prestationRef);
-        
+        // JSON keys collected while loading the demandes
         // Add a column for each JSON field
         for (String key : jsonKeys) {
             grid.addColumn(demande -> demande.getJsonFieldAsString(key))
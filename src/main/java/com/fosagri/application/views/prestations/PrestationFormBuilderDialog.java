@@ -3,6 +3,7 @@ package com.fosagri.application.views.prestations;
 import com.fosagri.application.entities.PrestationRef;
 import com.fosagri.application.forms.*;
 import com.fosagri.application.services.PrestationRefService;
+import com.fosagri.application.services.UploadValidator;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.dialog.Dialog;
 import com.vaadin.flow.component.formlayout.FormLayout;
@@ -28,6 +29,7 @@ public class PrestationFormBuilderDialog extends Dialog {
     
     private final PrestationRef prestationRef;
     private final PrestationRefService service;
+    private final UploadValidator uploadValidator;
     private final List<SaveListener> saveListeners = new ArrayList<>();
     
     private final FormSchema schema = new FormSchema();
@@ -36,9 +38,11 @@ public class PrestationFormBuilderDialog extends Dialog {
     private final TextArea schemaJson = new TextArea("Schema JSON");
     private final Div previewContainer = new Div();
     
-    public PrestationFormBuilderDialog(PrestationRef prestationRef, PrestationRefService service) {
+    public PrestationFormBuilderDialog(PrestationRef prestationRef, PrestationRefService service,
+                                       UploadValidator uploadValidator) {
         this.prestationRef = prestationRef;
         this.service = service;
+        this.uploadValidator = uploadValidator;
         
         setHeaderTitle("Formulaire - " + prestationRef.getLabel());
         setWidth("1400px");
@@ -234,7 +238,7 @@ public class PrestationFormBuilderDialog extends Dialog {
     
     private void refreshPreview() {
         previewContainer.removeAll();
-        previewContainer.add(FormRenderer.createFormWithAnswerBox(schema));
+        previewContainer.add(FormRenderer.createFormWithAnswerBox(schema, uploadValidator));
     }
     
     private void refreshAll() {
@@ -1,8 +1,11 @@
 package com.fosagri.application.views.prestations;
 
+import com.fosagri.application.dto.StatusMatrix;
 import com.fosagri.application.entities.PrestationRef;
 import com.fosagri.application.services.PrestationRefService;
+import com.fosagri.application.services.DemandeExportService;
 import com.fosagri.application.services.DemandePrestationService;
+import com.fosagri.application.services.UploadValidator;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.html.H2;
@@ -36,13 +39,19 @@ public class PrestationRefView extends VerticalLayout {
     
     private final PrestationRefService service;
     private final DemandePrestationService demandePrestationService;
+    private final DemandeExportService demandeExportService;
+    private final UploadValidator uploadValidator;
     private final Grid<PrestationRef> grid = new Grid<>(PrestationRef.class, false);
     private final ListDataProvider<PrestationRef> dataProvider;
     private final TextField filterText = new TextField();
+    private StatusMatrix statusMatrix = new StatusMatrix();
     
-    public PrestationRefView(PrestationRefService service, DemandePrestationService demandePrestationService) {
+    public PrestationRefView(PrestationRefService service, DemandePrestationService demandePrestationService,
+                             DemandeExportService demandeExportService, UploadValidator uploadValidator) {
         this.service = service;
         this.demandePrestationService = demandePrestationService;
+        this.demandeExportService = demandeExportService;
+        this.uploadValidator = uploadValidator;
         this.dataProvider = new ListDataProvider<>(new ArrayList<>());
         
         setSizeFull();
@@ -163,6 +172,7 @@ public class PrestationRefView extends VerticalLayout {
             
             // Fetch fresh data from the service
             List<PrestationRef> prestations = service.findAll();
+            statusMatrix = demandePrestationService.getStatusMatrix();
             
             // Add the fresh data to the provider
             dataProvider.getItems().addAll(prestations);
@@ -215,7 +225,7 @@ public class PrestationRefView extends VerticalLayout {
             return;
         }
         
-        PrestationFormBuilderDialog dialog = new PrestationFormBuilderDialog(prestationRef, service);
+        PrestationFormBuilderDialog dialog = new PrestationFormBuilderDialog(prestationRef, service, uploadValidator);
         dialog.addSaveListener(updatedPrestation -> {
             refreshData();
             Notification.show("✅ Formulaire de la prestation '" + updatedPrestation.getLabel() + "' mis à jour avec succès", 
@@ -381,13 +391,14 @@ public class PrestationRefView extends VerticalLayout {
         long soumises = 0, enCours = 0, acceptees = 0, refusees = 0, terminees = 0;
         
         try {
-            // Use count queries instead of loading entities to avoid BLOB issues
-            totalDemandes = demandePrestationService.countTotalDemandes(prestationRef);
-            soumises = demandePrestationService.countSoumises(prestationRef);
-            enCours = demandePrestationService.countEnCours(prestationRef);
-            acceptees = demandePrestationService.countAcceptees(prestationRef);
-            refusees = demandePrestationService.countRefusees(prestationRef);
-            terminees = demandePrestationService.countTerminees(prestationRef);
+            // Counts come from the status matrix loaded once per refresh
+            Long prestationId = prestationRef.getId();
+            totalDemandes = statusMatrix.getTotal(prestationId);
+            soumises = statusMatrix.getCount(prestationId, "SOUMISE");
+            enCours = statusMatrix.getCount(prestationId, "EN_COURS");
+            acceptees = statusMatrix.getCount(prestationId, "ACCEPTEE");
+            refusees = statusMatrix.getCount(prestationId, "REFUSEE");
+            terminees = statusMatrix.getCount(prestationId, "TERMINEE");
         } catch (Exception e) {
             // Log error and show error indicator
             System.err.println("❌ Erreur lors du chargement des demandes pour prestation " + prestationRef.getId() + ": " + e.getMessage());
@@ -445,7 +456,7 @@ public class PrestationRefView extends VerticalLayout {
     }
     
     private void openDemandesDialog(PrestationRef prestationRef) {
-        PrestationDemandesDialog dialog = new PrestationDemandesDialog(prestationRef, demandePrestationService);
+        PrestationDemandesDialog dialog = new PrestationDemandesDialog(prestationRef, demandePrestationService, demandeExportService);
         dialog.open();
     }
 }
\ No newline at end of file
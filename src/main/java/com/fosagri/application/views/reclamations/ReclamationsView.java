@@ -1,5 +1,6 @@
 package com.fosagri.application.views.reclamations;
 
+import com.fosagri.application.dto.ReclamationRow;
 import com.fosagri.application.entities.Reclamation;
 import com.fosagri.application.entities.Reclamation.StatutReclamation;
 import com.fosagri.application.entities.Reclamation.TypeReclamation;
@@ -38,8 +39,8 @@ public class ReclamationsView extends VerticalLayout {
     private final ReclamationService reclamationService;
     private final AdhAgentService agentService;
     
-    private final Grid<Reclamation> grid = new Grid<>(Reclamation.class, false);
-    private final ListDataProvider<Reclamation> dataProvider;
+    private final Grid<ReclamationRow> grid = new Grid<>(ReclamationRow.class, false);
+    private final ListDataProvider<ReclamationRow> dataProvider;
     private final TextField filterText = new TextField();
     private final ComboBox<StatutReclamation> statutFilter = new ComboBox<>("Filtrer par statut");
     private final ComboBox<TypeReclamation> typeFilter = new ComboBox<>("Filtrer par type");
@@ -68,30 +69,21 @@ public class ReclamationsView extends VerticalLayout {
         grid.setDataProvider(dataProvider);
         grid.setSizeFull();
         
-        grid.addColumn(Reclamation::getId).setHeader("ID").setAutoWidth(true);
+        grid.addColumn(ReclamationRow::id).setHeader("ID").setAutoWidth(true);
         
-        grid.addColumn(reclamation -> {
-            try {
-                if (reclamation.getAgent() != null) {
-                    return reclamation.getAgent().getNOM_AG() + " " + reclamation.getAgent().getPR_AG();
-                }
-            } catch (Exception e) {
-                // Handle lazy loading issues gracefully
-                return "Agent (ID: " + (reclamation.getAgent() != null ? "Présent" : "N/A") + ")";
-            }
-            return "N/A";
-        }).setHeader("Agent").setAutoWidth(true);
+        grid.addColumn(reclamation -> reclamation.agent() != null ? reclamation.getAgentName() : "N/A")
+                .setHeader("Agent").setAutoWidth(true);
         
-        grid.addColumn(Reclamation::getObjet).setHeader("Objet").setAutoWidth(true);
+        grid.addColumn(ReclamationRow::objet).setHeader("Objet").setAutoWidth(true);
         
-        grid.addColumn(reclamation -> reclamation.getType().getLabel())
+        grid.addColumn(reclamation -> reclamation.type().getLabel())
                 .setHeader("Type").setAutoWidth(true);
         
         grid.addComponentColumn(this::createStatusBadge).setHeader("Statut").setAutoWidth(true);
         
         grid.addColumn(reclamation -> {
             SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm");
-            return reclamation.getDateCreation() != null ? sdf.format(reclamation.getDateCreation()) : "";
+            return reclamation.dateCreation() != null ? sdf.format(reclamation.dateCreation()) : "";
         }).setHeader("Date création").setAutoWidth(true);
         
         grid.addComponentColumn(reclamation -> {
@@ -102,8 +94,8 @@ public class ReclamationsView extends VerticalLayout {
             
             Button processBtn = new Button("Traiter", VaadinIcon.EDIT.create());
             processBtn.addClickListener(e -> processReclamation(reclamation));
-            processBtn.setEnabled(reclamation.getStatut() != StatutReclamation.FERMEE && 
-                                 reclamation.getStatut() != StatutReclamation.REJETEE);
+            processBtn.setEnabled(reclamation.statut() != StatutReclamation.FERMEE && 
+                                 reclamation.statut() != StatutReclamation.REJETEE);
             
             Button deleteBtn = new Button("Supprimer", VaadinIcon.TRASH.create());
             deleteBtn.addClickListener(e -> confirmDelete(reclamation));
@@ -114,11 +106,11 @@ public class ReclamationsView extends VerticalLayout {
         }).setHeader("Actions").setWidth("300px").setFlexGrow(0);
     }
     
-    private Span createStatusBadge(Reclamation reclamation) {
-        Span badge = new Span(reclamation.getStatut().getLabel());
+    private Span createStatusBadge(ReclamationRow reclamation) {
+        Span badge = new Span(reclamation.statut().getLabel());
         badge.getElement().getThemeList().add("badge");
         
-        switch (reclamation.getStatut()) {
+        switch (reclamation.statut()) {
             case NOUVELLE:
                 badge.getElement().getThemeList().add("primary");
                 break;
@@ -177,51 +169,28 @@ public class ReclamationsView extends VerticalLayout {
     }
     
     private void updateFilter() {
-        String filterValue = filterText.getValue();
         StatutReclamation statutValue = statutFilter.getValue();
         TypeReclamation typeValue = typeFilter.getValue();
         
+        // Text search (objet, détail, agent) runs in the database; statut/type filter the rows in memory
+        loadRows();
         dataProvider.setFilter(reclamation -> {
-            boolean matchesText = true;
-            boolean matchesStatut = true;
-            boolean matchesType = true;
-            
-            if (filterValue != null && !filterValue.trim().isEmpty()) {
-                String searchTerm = filterValue.toLowerCase();
-                matchesText = reclamation.getObjet().toLowerCase().contains(searchTerm) ||
-                             (reclamation.getDetail() != null && 
-                              reclamation.getDetail().toLowerCase().contains(searchTerm));
-                
-                // Try to search agent properties, but handle lazy loading gracefully
-                if (!matchesText && reclamation.getAgent() != null) {
-                    try {
-                        matchesText = reclamation.getAgent().getNOM_AG().toLowerCase().contains(searchTerm) ||
-                                     reclamation.getAgent().getPR_AG().toLowerCase().contains(searchTerm);
-                    } catch (Exception e) {
-                        // Skip agent search if lazy loading fails
-                        matchesText = false;
-                    }
-                }
-            }
-            
-            if (statutValue != null) {
-                matchesStatut = statutValue.equals(reclamation.getStatut());
-            }
-            
-            if (typeValue != null) {
-                matchesType = typeValue.equals(reclamation.getType());
-            }
-            
-            return matchesText && matchesStatut && matchesType;
+            boolean matchesStatut = statutValue == null || statutValue.equals(reclamation.statut());
+            boolean matchesType = typeValue == null || typeValue.equals(reclamation.type());
+            return matchesStatut && matchesType;
         });
     }
     
     private void refreshData() {
-        dataProvider.getItems().clear();
-        dataProvider.getItems().addAll(reclamationService.findAll());
+        loadRows();
         dataProvider.refreshAll();
     }
     
+    private void loadRows() {
+        dataProvider.getItems().clear();
+        dataProvider.getItems().addAll(reclamationService.searchRows(filterText.getValue()));
+    }
+    
     private void openNewReclamationDialog() {
         NouvelleReclamationDialog dialog = new NouvelleReclamationDialog(agentService, reclamationService);
         dialog.addSaveListener(reclamation -> {
@@ -231,12 +200,22 @@ public class ReclamationsView extends VerticalLayout {
         dialog.open();
     }
     
-    private void viewReclamation(Reclamation reclamation) {
+    private void viewReclamation(ReclamationRow row) {
+        Reclamation reclamation = reclamationService.findById(row.id()).orElse(null);
+        if (reclamation == null) {
+            refreshData();
+            return;
+        }
         ReclamationDetailsDialog dialog = new ReclamationDetailsDialog(reclamation, reclamationService);
         dialog.open();
     }
     
-    private void processReclamation(Reclamation reclamation) {
+    private void processReclamation(ReclamationRow row) {
+        Reclamation reclamation = reclamationService.findById(row.id()).orElse(null);
+        if (reclamation == null) {
+            refreshData();
+            return;
+        }
         TraiterReclamationDialog dialog = new TraiterReclamationDialog(reclamation, reclamationService);
         dialog.addSaveListener(updatedReclamation -> {
             refreshData();
@@ -245,11 +224,11 @@ public class ReclamationsView extends VerticalLayout {
         dialog.open();
     }
     
-    private void confirmDelete(Reclamation reclamation) {
+    private void confirmDelete(ReclamationRow reclamation) {
         ConfirmDialog confirmDialog = new ConfirmDialog();
         confirmDialog.setHeader("Confirmer la suppression");
         confirmDialog.setText(String.format("Êtes-vous sûr de vouloir supprimer la réclamation #%d ?", 
-            reclamation.getId()));
+            reclamation.id()));
         
         confirmDialog.setCancelable(true);
         confirmDialog.setConfirmText("Supprimer");
@@ -259,9 +238,9 @@ public class ReclamationsView extends VerticalLayout {
         confirmDialog.open();
     }
     
-    private void deleteReclamation(Reclamation reclamation) {
+    private void deleteReclamation(ReclamationRow reclamation) {
         try {
-            reclamationService.deleteById(reclamation.getId());
+            reclamationService.deleteById(reclamation.id());
             refreshData();
             Notification.show("Réclamation supprimée avec succès");
         } catch (Exception e) {